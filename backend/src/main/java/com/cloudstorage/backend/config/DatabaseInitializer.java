@@ -0,0 +1,142 @@
+package com.cloudstorage.backend.config;
+
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+import com.cloudstorage.backend.entity.FileCategory;
+
+// DatabaseInitializer - One-off schema fixes that Hibernate's ddl-auto=update can't do
+// Runs at startup after Hibernate has updated the schema and before any request is served.
+// Every step is idempotent and only logs on failure, so startup never breaks because of it.
+@Component
+@DependsOn("entityManagerFactory")
+public class DatabaseInitializer {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public DatabaseInitializer(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void initialize() {
+        alignFileIdSequence();
+        createStorageKeyIndexes();
+        createRootListingIndexes();
+        backfillFileCategories();
+        backfillFolderClosure();
+        backfillFolderRollups();
+        createSearchIndexes();
+    }
+
+    // files.id used to be an IDENTITY column; it now comes from files_seq
+    // A freshly created sequence starts at 1, so move it past the existing ids (only when it's behind)
+    private void alignFileIdSequence() {
+        runStep("align files_seq with existing file ids",
+            "SELECT setval('files_seq', (SELECT MAX(id) FROM files) + 50) " +
+            "WHERE (SELECT last_value FROM files_seq) < (SELECT COALESCE(MAX(id), 0) FROM files)");
+    }
+
+    // Storage reconciliation pages through keys in byte order (COLLATE "C", the order S3 lists them in)
+    // An index in the database collation can't serve that ORDER BY, so these are built with it
+    private void createStorageKeyIndexes() {
+        runStep("create files.s3_key byte-order index",
+            "CREATE INDEX IF NOT EXISTS idx_files_s3_key_c ON files (s3_key COLLATE \"C\")");
+        runStep("create blobs.s3_key byte-order index",
+            "CREATE INDEX IF NOT EXISTS idx_blobs_s3_key_c ON blobs (s3_key COLLATE \"C\")");
+    }
+
+    // Root listings (no folder / no parent) get partial indexes: in the owner-wide indexes
+    // they are mixed with everything else the owner has, which a keyset page would have to skip
+    // (JPA @Index can't express a WHERE clause)
+    private void createRootListingIndexes() {
+        runStep("create root file listing indexes",
+            "CREATE INDEX IF NOT EXISTS idx_files_root_name ON files (owner_id, filename, id) WHERE folder_id IS NULL; " +
+            "CREATE INDEX IF NOT EXISTS idx_files_root_size ON files (owner_id, file_size, id) WHERE folder_id IS NULL; " +
+            "CREATE INDEX IF NOT EXISTS idx_files_root_created ON files (owner_id, created_at, id) WHERE folder_id IS NULL");
+        runStep("create root folder listing indexes",
+            "CREATE INDEX IF NOT EXISTS idx_folders_root_name ON folders (owner_id, name, id) WHERE parent_id IS NULL; " +
+            "CREATE INDEX IF NOT EXISTS idx_folders_root_created ON folders (owner_id, created_at, id) WHERE parent_id IS NULL");
+    }
+
+    // files.category is written on insert; rows from before the column existed get it here
+    // (Hibernate adds the column as nullable, so this only ever touches those rows)
+    private void backfillFileCategories() {
+        runStep("backfill files.category",
+            "UPDATE files SET category = " + FileCategory.SQL_CASE + " WHERE category IS NULL");
+    }
+
+    // folder_closure is maintained on every create/move/delete; this fills it for folders that
+    // existed before it (only runs when some folder is missing its own depth-0 row)
+    // Walks down from root folders only, so a parent_id cycle left by an old unchecked move
+    // can't make the recursion loop - folders in such a cycle weren't reachable anyway
+    private void backfillFolderClosure() {
+        runStep("backfill folder_closure",
+            "WITH RECURSIVE reachable AS (" +
+            "SELECT id FROM folders WHERE parent_id IS NULL " +
+            "UNION ALL SELECT f.id FROM folders f JOIN reachable r ON f.parent_id = r.id), " +
+            "paths AS (" +
+            "SELECT id AS ancestor_id, id AS descendant_id, 0 AS depth FROM reachable " +
+            "UNION ALL SELECT p.ancestor_id, f.id, p.depth + 1 FROM paths p JOIN folders f ON f.parent_id = p.descendant_id) " +
+            "INSERT INTO folder_closure (ancestor_id, descendant_id, depth) " +
+            "SELECT ancestor_id, descendant_id, depth FROM paths " +
+            "WHERE EXISTS (SELECT 1 FROM reachable r WHERE NOT EXISTS " +
+            "(SELECT 1 FROM folder_closure c WHERE c.ancestor_id = r.id AND c.descendant_id = r.id)) " +
+            "ON CONFLICT DO NOTHING");
+    }
+
+    // Folder rollups (total_bytes, file_count, folder_count) are kept up to date by deltas; folders
+    // from before the columns existed start at 0, so they're recounted here from folder_closure
+    // (only runs when some folder holding files or subfolders still counts none of them -
+    // after that the nightly repair in FolderRollupService takes care of drift)
+    private void backfillFolderRollups() {
+        runStep("backfill folder rollups",
+            "WITH file_totals AS (" +
+            "SELECT folder_id, COUNT(*) AS file_count, COALESCE(SUM(file_size), 0) AS total_bytes " +
+            "FROM files WHERE folder_id IS NOT NULL GROUP BY folder_id), " +
+            "rollups AS (" +
+            "SELECT c.ancestor_id AS id, CAST(COALESCE(SUM(t.file_count), 0) AS bigint) AS file_count, " +
+            "CAST(COALESCE(SUM(t.total_bytes), 0) AS bigint) AS total_bytes, COUNT(*) - 1 AS folder_count " +
+            "FROM folder_closure c LEFT JOIN file_totals t ON t.folder_id = c.descendant_id GROUP BY c.ancestor_id) " +
+            "UPDATE folders f SET file_count = r.file_count, total_bytes = r.total_bytes, " +
+            "folder_count = r.folder_count FROM rollups r WHERE f.id = r.id " +
+            "AND (f.file_count, f.total_bytes, f.folder_count) IS DISTINCT FROM " +
+            "(r.file_count, r.total_bytes, r.folder_count) " +
+            "AND (EXISTS (SELECT 1 FROM files fi JOIN folders p ON p.id = fi.folder_id WHERE p.file_count = 0) " +
+            "OR EXISTS (SELECT 1 FROM folders ch JOIN folders p ON p.id = ch.parent_id WHERE p.folder_count = 0))");
+    }
+
+    // Filename search (see SearchRepository): pg_trgm GIN indexes for substring and fuzzy matches,
+    // with owner_id as the leading column (btree_gin) so a search only reads the owner's entries,
+    // and text_pattern_ops btrees for prefix matches in byte order
+    // The extensions need a role allowed to create them - if that fails it's logged, the trigram
+    // indexes aren't built and search falls back to prefix and substring matches (no typo tolerance)
+    private void createSearchIndexes() {
+        runStep("create pg_trgm extension", "CREATE EXTENSION IF NOT EXISTS pg_trgm");
+        runStep("create btree_gin extension", "CREATE EXTENSION IF NOT EXISTS btree_gin");
+        runStep("create filename search indexes",
+            "CREATE INDEX IF NOT EXISTS idx_files_owner_filename_trgm ON files " +
+            "USING gin (owner_id, lower(filename) gin_trgm_ops); " +
+            "CREATE INDEX IF NOT EXISTS idx_files_owner_filename_prefix ON files " +
+            "(owner_id, lower(filename) text_pattern_ops)");
+        runStep("create folder name search indexes",
+            "CREATE INDEX IF NOT EXISTS idx_folders_owner_name_trgm ON folders " +
+            "USING gin (owner_id, lower(name) gin_trgm_ops); " +
+            "CREATE INDEX IF NOT EXISTS idx_folders_owner_name_prefix ON folders " +
+            "(owner_id, lower(name) text_pattern_ops)");
+    }
+
+    // helper method:
+    // Runs one maintenance statement, logging instead of failing startup
+    private void runStep(String description, String sql) {
+        try {
+            jdbcTemplate.execute(sql);
+        } catch (Exception e) {
+            System.err.println("Database initialization step failed (" + description + "): " + e.getMessage());
+        }
+    }
+
+}
@@ -0,0 +1,156 @@
+package com.cloudstorage.backend.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.http.HttpMetric;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.metrics.MetricCollection;
+import software.amazon.awssdk.metrics.MetricPublisher;
+import software.amazon.awssdk.metrics.SdkMetric;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// S3ClientConfig - The shared, pooled S3 client used by S3Service (and everything built on it)
+// Connection pool size, lifetime, timeouts and keep-alive are tunable from application.properties.
+// Both clients are created once at startup and closed by Spring on shutdown.
+// Pool usage is published to Actuator as s3.http.pool.* gauges (/actuator/metrics).
+@Configuration
+public class S3ClientConfig {
+
+    // AWS credentials and configuration from application.properties
+    @Value("${aws.accessKeyId}")
+    private String accessKeyId;
+
+    @Value("${aws.secretKey}")
+    private String secretKey;
+
+    @Value("${aws.region}")
+    private String region;
+
+    // Most open connections to S3 - every streamed download holds one for its whole duration,
+    // so keep this above downloads.stream.maxConcurrent plus upload/ZIP concurrency
+    @Value("${aws.s3.http.maxConnections:256}")
+    private int maxConnections;
+
+    // How long a request waits for a free pooled connection before failing (ms)
+    @Value("${aws.s3.http.connectionAcquisitionTimeoutMs:10000}")
+    private long connectionAcquisitionTimeoutMs;
+
+    // TCP + TLS connect timeout (ms)
+    @Value("${aws.s3.http.connectionTimeoutMs:2000}")
+    private long connectionTimeoutMs;
+
+    // Longest S3 may go silent in the middle of a response (ms)
+    @Value("${aws.s3.http.socketTimeoutMs:30000}")
+    private long socketTimeoutMs;
+
+    // Connections are retired after this long (ms) so new S3 endpoint IPs from DNS get picked up
+    @Value("${aws.s3.http.connectionTimeToLiveMs:300000}")
+    private long connectionTimeToLiveMs;
+
+    // Idle connections are closed after this long (ms) - below S3's own idle cutoff
+    @Value("${aws.s3.http.connectionMaxIdleTimeMs:60000}")
+    private long connectionMaxIdleTimeMs;
+
+    // TCP keep-alive on pooled connections
+    @Value("${aws.s3.http.tcpKeepAlive:true}")
+    private boolean tcpKeepAlive;
+
+    // Client for actual file operations (upload, download, delete) - backed by the tuned connection pool
+    @Bean(destroyMethod = "close")
+    public S3Client s3Client(MeterRegistry meterRegistry) {
+        ApacheHttpClient.Builder httpClient = ApacheHttpClient.builder()
+                .maxConnections(maxConnections)
+                .connectionAcquisitionTimeout(Duration.ofMillis(connectionAcquisitionTimeoutMs))
+                .connectionTimeout(Duration.ofMillis(connectionTimeoutMs))
+                .socketTimeout(Duration.ofMillis(socketTimeoutMs))
+                .connectionTimeToLive(Duration.ofMillis(connectionTimeToLiveMs))
+                .connectionMaxIdleTime(Duration.ofMillis(connectionMaxIdleTimeMs))
+                .useIdleConnectionReaper(true)
+                .tcpKeepAlive(tcpKeepAlive);
+
+        return S3Client.builder()
+                .region(Region.of(region))
+                .credentialsProvider(credentials())
+                .httpClientBuilder(httpClient)
+                .overrideConfiguration(config -> config.addMetricPublisher(new PoolMetricPublisher(meterRegistry)))
+                .build();
+    }
+
+    // Presigner = creates temporary URLs that expire after set time (signs locally, no connections)
+    @Bean(destroyMethod = "close")
+    public S3Presigner s3Presigner() {
+        return S3Presigner.builder()
+                .region(Region.of(region))
+                .credentialsProvider(credentials())
+                .build();
+    }
+
+    // helper method:
+    private StaticCredentialsProvider credentials() {
+        return StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKeyId, secretKey));
+    }
+
+    // Copies the connection pool figures the HTTP client reports with every S3 call into gauges:
+    // s3.http.pool.leased / pending / available / max
+    // The figures are sampled when a request takes a connection, so they show the pool as the
+    // most recent request saw it. pending > 0 means requests are queueing for a connection.
+    static class PoolMetricPublisher implements MetricPublisher {
+
+        private final AtomicInteger leased = new AtomicInteger();
+        private final AtomicInteger pending = new AtomicInteger();
+        private final AtomicInteger available = new AtomicInteger();
+        private final AtomicInteger max = new AtomicInteger();
+
+        PoolMetricPublisher(MeterRegistry meterRegistry) {
+            register(meterRegistry, "s3.http.pool.leased", "Connections in use", leased);
+            register(meterRegistry, "s3.http.pool.pending", "Requests waiting for a connection", pending);
+            register(meterRegistry, "s3.http.pool.available", "Idle pooled connections", available);
+            register(meterRegistry, "s3.http.pool.max", "Connection pool size", max);
+        }
+
+        // Called on the request thread after each S3 call - only walks the collected values
+        @Override
+        public void publish(MetricCollection metrics) {
+            record(metrics, HttpMetric.LEASED_CONCURRENCY, leased);
+            record(metrics, HttpMetric.PENDING_CONCURRENCY_ACQUIRES, pending);
+            record(metrics, HttpMetric.AVAILABLE_CONCURRENCY, available);
+            record(metrics, HttpMetric.MAX_CONCURRENCY, max);
+        }
+
+        @Override
+        public void close() {
+        }
+
+        // helper method:
+        private static void register(MeterRegistry meterRegistry, String name, String description, AtomicInteger value) {
+            Gauge.builder(name, value, AtomicInteger::get)
+                    .description(description)
+                    .register(meterRegistry);
+        }
+
+        // helper method:
+        // Pool figures sit in the HttpClient collection under each attempt - take the latest one
+        private static void record(MetricCollection metrics, SdkMetric<Integer> metric, AtomicInteger target) {
+            List<Integer> values = metrics.metricValues(metric);
+            if (!values.isEmpty()) {
+                target.set(values.get(values.size() - 1));
+            }
+            for (MetricCollection child : metrics.children()) {
+                record(child, metric, target);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,11 @@
+package com.cloudstorage.backend.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// SchedulingConfig - Enables @Scheduled background jobs
+// Used for housekeeping such as aborting abandoned resumable uploads.
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
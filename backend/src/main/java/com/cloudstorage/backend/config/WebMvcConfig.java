@@ -0,0 +1,47 @@
+package com.cloudstorage.backend.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+// WebMvcConfig - Async request settings for streamed downloads
+// StreamingResponseBody writes the response on a separate thread after the
+// request thread is released. Spring Boot's default executor for this has only
+// 8 threads and Tomcat times async requests out after 30s, which would queue
+// concurrent downloads and cut off large ones - so both are configured here.
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    // Most downloads streamed at the same time (further ones wait for a free slot)
+    @Value("${downloads.stream.maxConcurrent:200}")
+    private int maxConcurrentStreams;
+
+    // Longest a single async request (e.g. a large download) may take, in ms
+    @Value("${downloads.stream.timeoutMs:3600000}")
+    private long streamTimeoutMs;
+
+    // Stream on virtual threads when the app runs in virtual-thread mode
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        // One thread per active stream - mostly blocked on network I/O, not CPU
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("download-stream-");
+        executor.setConcurrencyLimit(maxConcurrentStreams);
+        // Virtual threads need Java 21+ (setVirtualThreads throws on 17) - use platform threads there,
+        // the same as Spring Boot does for the rest of the app
+        if (virtualThreads && Runtime.version().feature() >= 21) {
+            executor.setVirtualThreads(true);
+        } else if (virtualThreads) {
+            System.err.println("spring.threads.virtual.enabled needs Java 21+ (running " + Runtime.version().feature()
+                + ") - streaming downloads on platform threads");
+        }
+
+        configurer.setTaskExecutor(executor);
+        configurer.setDefaultTimeout(streamTimeoutMs);
+    }
+
+}
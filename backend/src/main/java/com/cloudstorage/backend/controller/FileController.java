@@ -7,38 +7,88 @@ import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import com.cloudstorage.backend.dto.CursorPage;
+import com.cloudstorage.backend.dto.FileSummary;
+import com.cloudstorage.backend.dto.StorageStats;
 import com.cloudstorage.backend.entity.File;
+import com.cloudstorage.backend.repository.FileFilter;
+import com.cloudstorage.backend.repository.Keyset;
+import com.cloudstorage.backend.service.DirectUploadService;
 import com.cloudstorage.backend.service.FileService;
-import com.cloudstorage.backend.service.S3Service;
+import com.cloudstorage.backend.service.S3AsyncService;
+import com.cloudstorage.backend.service.StorageBackend;
+import com.cloudstorage.backend.service.StorageStatsService;
+import com.cloudstorage.backend.service.UploadService;
+
+import jakarta.servlet.http.HttpServletRequest;
 
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Optional;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 
 // FileController - REST API endpoints for file operations
 // Handles HTTP requests for file upload, download, management operations.
-// Coordinates between frontend requests and FileService/S3Service.
+// Coordinates between frontend requests and FileService/StorageBackend.
+// The async, metadata and direct-upload endpoints are S3 features - with another
+// storage backend their services aren't registered and the endpoints answer 400.
 @RestController
 @RequestMapping("/api/files")
 public class FileController {
 
+    // Tomcat request attributes for handing a file to the connector's sendfile
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
     @Autowired
     private FileService fileService;
 
     @Autowired
-    private S3Service s3Service;
+    private StorageBackend storageBackend;
+
+    @Autowired
+    private UploadService uploadService;
+
+    // Only registered with the S3 storage backend (null otherwise)
+    @Autowired(required = false)
+    private DirectUploadService directUploadService;
+
+    @Autowired(required = false)
+    private S3AsyncService s3AsyncService;
+
+    @Autowired
+    private StorageStatsService storageStatsService;
+
+    // Runs the database work that follows an async S3 call (keeps JDBC off the S3 client's threads)
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private Executor applicationTaskExecutor;
 
-    // Upload file to S3 and save metadata to database through service/repository
+    // How long an async request may wait for S3 before timing out (default 10 minutes)
+    @Value("${aws.s3.async.requestTimeoutMs:600000}")
+    private long asyncRequestTimeoutMs;
+
+    // Upload file to storage and save metadata to database through service/repository
     // Frontend sends: multipart form data with file + metadata
     @PostMapping("/upload")
     public File uploadFile(
@@ -46,10 +96,11 @@ public class FileController {
             @RequestParam("ownerId") Long ownerId,
             @RequestParam(value = "folderId", required = false) Long folderId) {
         
+        String s3Key = null;
         try {
 
-            // Upload file to S3 and get the S3 key
-            String s3Key = s3Service.uploadFile(file);
+            // Upload file to storage and get its key
+            s3Key = uploadService.storeFile(file);
             
             // Save file metadata to database with S3 key bridge
             File savedFile = fileService.saveFile(
@@ -64,28 +115,174 @@ public class FileController {
             return savedFile;
             
         } catch (Exception e) {
+            // Don't leave the uploaded object behind if the metadata couldn't be saved
+            if (s3Key != null) {
+                uploadService.discardStoredFile(s3Key);
+            }
             throw new RuntimeException("File upload failed: " + e.getMessage());
         }
     }
 
+    // Upload several files in one request
+    // S3 uploads run concurrently and all metadata is saved in one batched transaction
+    // Returns one result per file: { filename, success, file } or { filename, success, error }
+    @PostMapping("/upload/batch")
+    public List<Map<String, Object>> uploadFiles(
+            @RequestParam("files") List<MultipartFile> files,
+            @RequestParam("ownerId") Long ownerId,
+            @RequestParam(value = "folderId", required = false) Long folderId) {
+        return uploadService.uploadBatch(files, ownerId, folderId);
+    }
+
+    // Non-blocking upload: the servlet thread is released while the file streams to S3
+    // The response is sent when S3 finished and the metadata was saved
+    @PostMapping("/upload/async")
+    public DeferredResult<File> uploadFileAsync(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam("ownerId") Long ownerId,
+            @RequestParam(value = "folderId", required = false) Long folderId) {
+
+        requireS3Backend(s3AsyncService);
+        DeferredResult<File> result = new DeferredResult<>(asyncRequestTimeoutMs);
+
+        s3AsyncService.uploadFile(file)
+            .thenApplyAsync(s3Key -> {
+                try {
+                    // Save file metadata to database with S3 key bridge
+                    return fileService.saveFile(
+                        file.getOriginalFilename(),
+                        file.getSize(),
+                        file.getContentType(),
+                        s3Key,
+                        ownerId,
+                        folderId
+                    );
+                } catch (RuntimeException e) {
+                    // Don't leave the uploaded object behind if the metadata couldn't be saved
+                    s3AsyncService.deleteFile(s3Key);
+                    throw e;
+                }
+            }, applicationTaskExecutor)
+            .whenComplete((savedFile, error) -> {
+                if (error != null) {
+                    result.setErrorResult(asyncError(error));
+                } else {
+                    result.setResult(savedFile);
+                }
+            });
+
+        return result;
+    }
+
+    // Direct browser upload, step 1: get pre-signed S3 upload URL(s) for a new file
+    // Frontend sends: JSON with filename, fileSize, contentType and ownerId
+    // Small files get one uploadUrl; large files get uploadId + partUrls for a multipart upload
+    @PostMapping("/upload-url")
+    public Map<String, Object> getUploadUrl(@RequestBody Map<String, Object> request) {
+        requireS3Backend(directUploadService);
+        String filename = (String) request.get("filename");
+        Long fileSize = Long.valueOf(request.get("fileSize").toString());
+        String contentType = (String) request.get("contentType");
+        Long ownerId = Long.valueOf(request.get("ownerId").toString());
+
+        return directUploadService.prepareUpload(filename, fileSize, contentType, ownerId);
+    }
+
+    // Direct browser upload, step 2: save metadata once the browser finished uploading to S3
+    // Frontend sends: JSON with s3Key, filename, ownerId, optional folderId,
+    // plus uploadId and parts [{partNumber, eTag}] for multipart uploads
+    @SuppressWarnings("unchecked")
+    @PostMapping("/finalize")
+    public File finalizeUpload(@RequestBody Map<String, Object> request) {
+        requireS3Backend(directUploadService);
+        String s3Key = (String) request.get("s3Key");
+        String filename = (String) request.get("filename");
+        Long ownerId = Long.valueOf(request.get("ownerId").toString());
+        Long folderId = request.get("folderId") != null ?
+            Long.valueOf(request.get("folderId").toString()) : null;
+        String uploadId = (String) request.get("uploadId");
+        List<Map<String, Object>> parts = (List<Map<String, Object>>) request.get("parts");
+
+        return directUploadService.finalizeUpload(s3Key, filename, ownerId, folderId, uploadId, parts);
+    }
+
     // Get all files owned by a user
     @GetMapping("/owner/{ownerId}")
-    public List<File> getFilesByOwner(@PathVariable Long ownerId) {
+    public List<FileSummary> getFilesByOwner(@PathVariable Long ownerId) {
         return fileService.getFilesByOwner(ownerId);
     }
 
     // Get all files in a specific folder
     @GetMapping("/folder/{folderId}")
-    public List<File> getFilesByFolder(@PathVariable Long folderId) {
+    public List<FileSummary> getFilesByFolder(@PathVariable Long folderId) {
         return fileService.getFilesByFolder(folderId);
     }
 
     // Get all root-level files for a user (not in any folder)
     @GetMapping("/root/{ownerId}")
-    public List<File> getRootFiles(@PathVariable Long ownerId) {
+    public List<FileSummary> getRootFiles(@PathVariable Long ownerId) {
         return fileService.getRootFiles(ownerId);
     }
 
+    // Paginated listings: ?sort=name|size|created&order=asc|desc&limit=100&cursor=<nextCursor>
+    // Every page costs the same however deep the user pages (see Keyset)
+    // Optional filters: category=documents|images|videos|audio|other, minSize/maxSize (bytes),
+    // from/to (upload dates yyyy-MM-dd, inclusive) - applied in the query (see FileFilter)
+    @GetMapping("/owner/{ownerId}/page")
+    public CursorPage<FileSummary> getFilesByOwnerPage(
+            @PathVariable Long ownerId,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String order,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) Long minSize,
+            @RequestParam(required = false) Long maxSize,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to) {
+        return fileService.getFilesByOwnerPage(ownerId, FileFilter.of(category, minSize, maxSize, from, to),
+            Keyset.of(sort, order, cursor, limit));
+    }
+
+    @GetMapping("/folder/{folderId}/page")
+    public CursorPage<FileSummary> getFilesByFolderPage(
+            @PathVariable Long folderId,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String order,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) Long minSize,
+            @RequestParam(required = false) Long maxSize,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to) {
+        return fileService.getFilesByFolderPage(folderId, FileFilter.of(category, minSize, maxSize, from, to),
+            Keyset.of(sort, order, cursor, limit));
+    }
+
+    @GetMapping("/root/{ownerId}/page")
+    public CursorPage<FileSummary> getRootFilesPage(
+            @PathVariable Long ownerId,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String order,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) Long minSize,
+            @RequestParam(required = false) Long maxSize,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to) {
+        return fileService.getRootFilesPage(ownerId, FileFilter.of(category, minSize, maxSize, from, to),
+            Keyset.of(sort, order, cursor, limit));
+    }
+
+    // File counts and bytes per category (documents, images, videos, audio, other) plus totals
+    // Read from per-user counters, not computed from the file list
+    @GetMapping("/owner/{ownerId}/stats")
+    public StorageStats getStorageStats(@PathVariable Long ownerId) {
+        return storageStatsService.getStats(ownerId);
+    }
+
     // Get a specific file by ID
     // Returns 404 if file doesn't exist, 200 with file data if found
     @GetMapping("/{fileId}")
@@ -98,27 +295,41 @@ public class FileController {
         }
     }
 
-    // Delete file from both database and S3 storage
-    // Handles cleanup if S3 deletion fails
+    // Delete file from database; its stored content is deleted in the background
+    // (queued in the same transaction, so it can't be leaked)
     @DeleteMapping("/{fileId}")
     public String deleteFile(@PathVariable Long fileId) {
+        fileService.deleteFile(fileId);
+        return "File deleted successfully";
+    }
+
+    // Get file metadata straight from S3 (size, content type, ETag, last modified)
+    // Non-blocking: the servlet thread is released while waiting for S3
+    @GetMapping("/{fileId}/metadata")
+    public DeferredResult<Map<String, Object>> getStorageMetadata(@PathVariable Long fileId) {
+        requireS3Backend(s3AsyncService);
         Optional<File> fileOpt = fileService.getFileById(fileId);
         if (fileOpt.isEmpty()) {
             throw new RuntimeException("File not found");
         }
-        
-        File file = fileOpt.get();
-        // Delete from database first
-        fileService.deleteFile(fileId);
-        
-        // Attempt S3 cleanup (non-critical if fails)
-        try {
-            s3Service.deleteFile(file.getS3Key());
-        } catch (Exception e) {
-            System.err.println("S3 delete failed - manual cleanup needed: " + file.getS3Key());
-        }
-        
-        return "File deleted successfully";
+
+        DeferredResult<Map<String, Object>> result = new DeferredResult<>(asyncRequestTimeoutMs);
+
+        s3AsyncService.headObject(fileOpt.get().getS3Key())
+            .whenComplete((head, error) -> {
+                if (error != null) {
+                    result.setErrorResult(asyncError(error));
+                    return;
+                }
+                Map<String, Object> response = new HashMap<>();
+                response.put("contentLength", head.contentLength());
+                response.put("contentType", head.contentType());
+                response.put("eTag", head.eTag());
+                response.put("lastModified", head.lastModified());
+                result.setResult(response);
+            });
+
+        return result;
     }
 
     // Rename file (update filename in database)
@@ -129,7 +340,7 @@ public class FileController {
     }
 
     // Generate secure download URL for file
-    // Returns temporary S3 pre-signed URL that expires in 15 minutes
+    // With S3: temporary pre-signed URL (valid at least 15 minutes, same URL for repeat clicks)
     @GetMapping("/{fileId}/download")
     public Map<String, String> downloadFile(@PathVariable Long fileId) {
         Optional<File> fileOpt = fileService.getFileById(fileId);
@@ -138,7 +349,7 @@ public class FileController {
         }
         
         File file = fileOpt.get();
-        String downloadUrl = s3Service.generateDownloadUrl(file.getS3Key(), file.getFilename(), 15);
+        String downloadUrl = storageBackend.getDownloadUrl(file);
         
         Map<String, String> response = new HashMap<>();
         response.put("downloadUrl", downloadUrl);
@@ -147,8 +358,65 @@ public class FileController {
         return response;
     }
     
+    // Stream file contents through the backend, straight from storage to the client
+    // Supports Range / If-Range (206 Partial Content), so video and audio players can seek
+    // and interrupted downloads can resume. Memory per request stays at one copy buffer.
+    // Files on local disk are sent by Tomcat with sendfile (zero-copy) when it supports it.
+    // ?attachment=true makes browsers save the file instead of displaying it
+    @GetMapping("/{fileId}/content")
+    public ResponseEntity<StreamingResponseBody> streamFile(
+            @PathVariable Long fileId,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange,
+            @RequestParam(value = "attachment", defaultValue = "false") boolean attachment,
+            HttpServletRequest request) {
+
+        Optional<File> fileOpt = fileService.getFileById(fileId);
+        if (fileOpt.isEmpty()) {
+            throw new RuntimeException("File not found");
+        }
+        File file = fileOpt.get();
+
+        // Open the content before answering, so storage errors still become proper error responses
+        StorageBackend.StoredObject content;
+        try {
+            content = storageBackend.open(file.getS3Key(), range, ifRange);
+        } catch (StorageBackend.RangeNotSatisfiableException e) {
+            // Range outside the file
+            return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                                 .header(HttpHeaders.CONTENT_RANGE, "bytes */" + file.getFileSize())
+                                 .build();
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity
+                .status(content.getContentRange() != null ? HttpStatus.PARTIAL_CONTENT : HttpStatus.OK)
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .header(HttpHeaders.CONTENT_TYPE, content.getContentType() != null ? content.getContentType() : file.getMimeType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition
+                        .builder(attachment ? "attachment" : "inline")
+                        .filename(file.getFilename(), StandardCharsets.UTF_8)
+                        .build()
+                        .toString())
+                .contentLength(content.getContentLength())
+                .eTag(content.getETag())
+                .lastModified(content.getLastModified());
+        if (content.getContentRange() != null) {
+            response.header(HttpHeaders.CONTENT_RANGE, content.getContentRange());
+        }
+
+        // Local file: Tomcat sends it straight from the page cache to the socket after we return
+        if (content.getLocalFile() != null && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            request.setAttribute(SENDFILE_FILENAME, content.getLocalFile().toString());
+            request.setAttribute(SENDFILE_START, content.getPosition());
+            request.setAttribute(SENDFILE_END, content.getPosition() + content.getContentLength());
+            return response.build();
+        }
+
+        return response.body(content::writeTo);
+    }
+
     // Generate secure view URL for file
-    // Returns temporary S3 pre-signed URL for viewing in browser
+    // With S3: temporary pre-signed URL for viewing in browser
     @GetMapping("/{fileId}/view")
     public Map<String, String> viewFile(@PathVariable Long fileId) {
         Optional<File> fileOpt = fileService.getFileById(fileId);
@@ -157,7 +425,7 @@ public class FileController {
         }
         
         File file = fileOpt.get();
-        String viewUrl = s3Service.generateViewUrl(file.getS3Key(), file.getFilename(), 15);
+        String viewUrl = storageBackend.getViewUrl(file);
         
         Map<String, String> response = new HashMap<>();
         response.put("viewUrl", viewUrl);
@@ -166,6 +434,32 @@ public class FileController {
         return response;
     }
 
+    // Get view URLs for many files in one round trip (e.g. a whole image gallery)
+    // Frontend sends: JSON with fileIds - response maps each file ID to its view URL
+    @PostMapping("/view-urls")
+    public Map<Long, String> getViewUrls(@RequestBody Map<String, List<Long>> request) {
+        List<Long> fileIds = request.get("fileIds");
+        if (fileIds == null) {
+            throw new RuntimeException("fileIds is required");
+        }
+        return storageBackend.getViewUrls(fileIds);
+    }
+
+    // helper method:
+    // S3-only endpoints would write objects (or rows) the configured storage backend can't read back
+    private static void requireS3Backend(Object s3OnlyService) {
+        if (s3OnlyService == null) {
+            throw new RuntimeException("This endpoint is only available with the S3 storage backend");
+        }
+    }
+
+    // helper method:
+    // Async failures arrive wrapped in CompletionException - hand the actual error to the exception handler
+    private static RuntimeException asyncError(Throwable error) {
+        Throwable cause = S3AsyncService.unwrap(error);
+        return cause instanceof RuntimeException ? (RuntimeException) cause : new RuntimeException(cause.getMessage(), cause);
+    }
+
     // Exception handler (same pattern as UserController)
     // Global exception handler for this controller
     // Converts RuntimeExceptions to proper HTTP error responses
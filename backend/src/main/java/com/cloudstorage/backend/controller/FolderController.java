@@ -9,13 +9,23 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import com.cloudstorage.backend.dto.CursorPage;
+import com.cloudstorage.backend.dto.FolderSummary;
+import com.cloudstorage.backend.dto.FolderView;
 import com.cloudstorage.backend.entity.Folder;
+import com.cloudstorage.backend.repository.Keyset;
+import com.cloudstorage.backend.service.FolderArchiveService;
 import com.cloudstorage.backend.service.FolderService;
+import com.cloudstorage.backend.service.FolderViewService;
 
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Optional;
 import java.util.Map;
@@ -30,6 +40,12 @@ public class FolderController {
     @Autowired
     private FolderService folderService;
 
+    @Autowired
+    private FolderArchiveService folderArchiveService;
+
+    @Autowired
+    private FolderViewService folderViewService;
+
     // Create a new folder with optional parent
     // Frontend sends: JSON with name, ownerId, and optional parentId
     @PostMapping("/create")
@@ -45,22 +61,54 @@ public class FolderController {
 
     // Get all folders owned by a user
     @GetMapping("/owner/{ownerId}")
-    public List<Folder> getFoldersByOwner(@PathVariable Long ownerId) {
+    public List<FolderSummary> getFoldersByOwner(@PathVariable Long ownerId) {
         return folderService.getFoldersByOwner(ownerId);
     }
 
     // Get all folders inside a parent folder
     @GetMapping("/parent/{parentId}")
-    public List<Folder> getSubfolders(@PathVariable Long parentId) {
+    public List<FolderSummary> getSubfolders(@PathVariable Long parentId) {
         return folderService.getSubfolders(parentId);
     }
 
     // Get all root-level folders for a user (no parent)
     @GetMapping("/root/{ownerId}")
-    public List<Folder> getRootFolders(@PathVariable Long ownerId) {
+    public List<FolderSummary> getRootFolders(@PathVariable Long ownerId) {
         return folderService.getRootFolders(ownerId);
     }
 
+    // Paginated listings: ?sort=name|created&order=asc|desc&limit=100&cursor=<nextCursor>
+    // Every page costs the same however deep the user pages (see Keyset)
+    @GetMapping("/owner/{ownerId}/page")
+    public CursorPage<FolderSummary> getFoldersByOwnerPage(
+            @PathVariable Long ownerId,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String order,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return folderService.getFoldersByOwnerPage(ownerId, Keyset.of(sort, order, cursor, limit));
+    }
+
+    @GetMapping("/parent/{parentId}/page")
+    public CursorPage<FolderSummary> getSubfoldersPage(
+            @PathVariable Long parentId,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String order,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return folderService.getSubfoldersPage(parentId, Keyset.of(sort, order, cursor, limit));
+    }
+
+    @GetMapping("/root/{ownerId}/page")
+    public CursorPage<FolderSummary> getRootFoldersPage(
+            @PathVariable Long ownerId,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String order,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return folderService.getRootFoldersPage(ownerId, Keyset.of(sort, order, cursor, limit));
+    }
+
     // Get a specific folder by ID
     // Returns 404 if folder doesn't exist, 200 with folder data if found
     @GetMapping("/{folderId}")
@@ -73,13 +121,61 @@ public class FolderController {
         }
     }
 
-    // Search folders by name (case-insensitive)
+    // Download a folder with all its files and subfolders as one ZIP
+    // The archive is streamed while it is built - the download starts right away
+    @GetMapping("/{folderId}/zip")
+    public ResponseEntity<StreamingResponseBody> downloadFolderZip(@PathVariable Long folderId) {
+        Folder folder = folderService.getFolderById(folderId)
+            .orElseThrow(() -> new RuntimeException("Folder not found with ID: " + folderId));
+
+        // Read the tree from the database now, so errors still get a normal error response
+        List<FolderArchiveService.ArchiveEntry> entries = folderArchiveService.listEntries(folder);
+
+        return ResponseEntity.ok()
+            .header(HttpHeaders.CONTENT_TYPE, "application/zip")
+            .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(folder.getName() + ".zip", StandardCharsets.UTF_8)
+                .build()
+                .toString())
+            .body(output -> folderArchiveService.writeArchive(entries, output));
+    }
+
+    // A folder and all folders below it, parents before children
+    @GetMapping("/{folderId}/subtree")
+    public List<FolderSummary> getSubtree(@PathVariable Long folderId) {
+        return folderService.getSubtree(folderId);
+    }
+
+    // Breadcrumb: the folders from the root down to this one (the folder itself last)
+    @GetMapping("/{folderId}/path")
+    public List<FolderSummary> getPath(@PathVariable Long folderId) {
+        return folderService.getPath(folderId);
+    }
+
+    // Opening a folder: breadcrumb path plus a page of subfolders and a page of files, in one response
+    // sort/order/limit apply to both listings; folderCursor and fileCursor page each one on its own
+    // (folders have no size, so sort=size orders the subfolders by name)
+    @GetMapping("/{folderId}/view")
+    public FolderView getFolderView(
+            @PathVariable Long folderId,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String order,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String folderCursor,
+            @RequestParam(required = false) String fileCursor) {
+        String folderSort = "size".equalsIgnoreCase(sort) ? "name" : sort;
+        return folderViewService.getView(folderId,
+            Keyset.of(folderSort, order, folderCursor, limit),
+            Keyset.of(sort, order, fileCursor, limit));
+    }
+
+    // Search a user's folders by name (case-insensitive)
     @GetMapping("/search")
-    public List<Folder> searchFolders(@RequestParam String query) {
-        return folderService.searchFolders(query);
+    public List<FolderSummary> searchFolders(@RequestParam Long ownerId, @RequestParam String query) {
+        return folderService.searchFolders(ownerId, query);
     }
 
-    // Delete a folder (must be empty of subfolders)
+    // Delete a folder with all of its subfolders and files
     @DeleteMapping("/{folderId}")
     public ResponseEntity<String> deleteFolder(@PathVariable Long folderId) {
         folderService.deleteFolder(folderId);
@@ -94,7 +190,7 @@ public class FolderController {
     }
 
     // Move folder to different parent (for drag & drop)
-    // parentId can be null to move to root level
+    // parentId can be null to move to root level; moving a folder into its own subtree is rejected
     @PutMapping("/{folderId}/move")
     public Folder moveFolder(@PathVariable Long folderId, @RequestBody Map<String, Object> request) {
         Long newParentId = request.get("parentId") != null ? 
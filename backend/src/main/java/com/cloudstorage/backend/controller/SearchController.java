@@ -0,0 +1,47 @@
+package com.cloudstorage.backend.controller;
+
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.beans.factory.annotation.Autowired;
+import com.cloudstorage.backend.dto.CursorPage;
+import com.cloudstorage.backend.dto.SearchResult;
+import com.cloudstorage.backend.repository.SearchQuery;
+import com.cloudstorage.backend.service.SearchService;
+
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+
+// SearchController - REST API endpoint for searching a user's files and folders by name
+@RestController
+@RequestMapping("/api/search")
+public class SearchController {
+
+    @Autowired
+    private SearchService searchService;
+
+    // Files and folders of a user whose names match q, best matches first
+    // type: all (default), files or folders; pass nextCursor back as ?cursor= for the next page
+    @GetMapping("/owner/{ownerId}")
+    public CursorPage<SearchResult> search(
+            @PathVariable Long ownerId,
+            @RequestParam String q,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return searchService.search(ownerId, SearchQuery.of(q, type, cursor, limit));
+    }
+
+    // Exception handler (same pattern as FileController)
+    // Converts RuntimeExceptions to proper HTTP error responses
+    @ExceptionHandler(RuntimeException.class)
+    public ResponseEntity<String> handleRuntimeException(RuntimeException ex) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                             .body("{\"error\":\"" + ex.getMessage() + "\"}");
+    }
+
+}
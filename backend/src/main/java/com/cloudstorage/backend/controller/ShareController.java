@@ -9,7 +9,10 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.beans.factory.annotation.Autowired;
+import com.cloudstorage.backend.dto.CursorPage;
+import com.cloudstorage.backend.dto.ShareSummary;
 import com.cloudstorage.backend.entity.Share;
+import com.cloudstorage.backend.repository.Keyset;
 import com.cloudstorage.backend.service.ShareService;
 
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -45,19 +48,31 @@ public class ShareController {
 
     // Get all users who have access to a specific file
     @GetMapping("/file/{fileId}")
-    public List<Share> getSharesByFile(@PathVariable Long fileId) {
+    public List<ShareSummary> getSharesByFile(@PathVariable Long fileId) {
         return shareService.getSharesByFile(fileId);
     }
 
    // Get all files shared with a specific user
     @GetMapping("/user/{sharedWithId}")
-    public List<Share> getSharesByUser(@PathVariable Long sharedWithId) {
+    public List<ShareSummary> getSharesByUser(@PathVariable Long sharedWithId) {
         return shareService.getSharesByUser(sharedWithId);
     }
 
+    // Paginated "shared with me": ?sort=name|size|created&order=asc|desc&limit=100&cursor=<nextCursor>
+    // created = when the file was shared
+    @GetMapping("/user/{sharedWithId}/page")
+    public CursorPage<ShareSummary> getSharesByUserPage(
+            @PathVariable Long sharedWithId,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String order,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        return shareService.getSharesByUserPage(sharedWithId, Keyset.of(sort, order, cursor, limit));
+    }
+
     // Get all shares with a specific permission level/type
     @GetMapping("/permission/{permission}")
-    public List<Share> getSharesByPermission(@PathVariable String permission) {
+    public List<ShareSummary> getSharesByPermission(@PathVariable String permission) {
         return shareService.getSharesByPermission(permission);
     }
 
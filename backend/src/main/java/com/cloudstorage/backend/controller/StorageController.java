@@ -0,0 +1,50 @@
+package com.cloudstorage.backend.controller;
+
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import com.cloudstorage.backend.service.StorageReconciliationService;
+
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+
+// StorageController - REST API endpoints for storage maintenance
+// Reports on (and triggers) the reconciliation of S3 objects against database rows
+@RestController
+@RequestMapping("/api/storage")
+@ConditionalOnProperty(name = "storage.backend", havingValue = "s3", matchIfMissing = true)
+public class StorageController {
+
+    @Autowired
+    private StorageReconciliationService storageReconciliationService;
+
+    // Report of the last reconciliation run (orphans, bytes reclaimed, dangling rows)
+    @GetMapping("/reconciliation")
+    public StorageReconciliationService.Report getReconciliationReport() {
+        StorageReconciliationService.Report report = storageReconciliationService.getLastReport();
+        if (report == null) {
+            throw new RuntimeException("No reconciliation has run yet");
+        }
+        return report;
+    }
+
+    // Run a reconciliation now and return its report (blocks until it finishes)
+    @PostMapping("/reconciliation")
+    public StorageReconciliationService.Report runReconciliation() {
+        return storageReconciliationService.reconcile();
+    }
+
+    // Exception handler (same pattern as FileController)
+    // Converts RuntimeExceptions to proper HTTP error responses
+    @ExceptionHandler(RuntimeException.class)
+    public ResponseEntity<String> handleRuntimeException(RuntimeException ex) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                             .body("{\"error\":\"" + ex.getMessage() + "\"}");
+    }
+
+}
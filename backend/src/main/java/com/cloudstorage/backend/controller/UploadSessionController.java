@@ -0,0 +1,96 @@
+package com.cloudstorage.backend.controller;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.beans.factory.annotation.Autowired;
+import com.cloudstorage.backend.dto.UploadSessionStatus;
+import com.cloudstorage.backend.entity.File;
+import com.cloudstorage.backend.service.UploadSessionService;
+
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.util.Map;
+
+
+// UploadSessionController - REST API endpoints for resumable (chunked) uploads
+// Protocol: create a session -> PUT numbered chunks -> (after a drop) GET the session
+// to see which chunks arrived -> commit. Chunks stream straight to S3 multipart parts.
+// Only available with the S3 storage backend.
+@RestController
+@RequestMapping("/api/uploads")
+@ConditionalOnProperty(name = "storage.backend", havingValue = "s3", matchIfMissing = true)
+public class UploadSessionController {
+
+    @Autowired
+    private UploadSessionService uploadSessionService;
+
+    // Start a resumable upload
+    // Frontend sends: JSON with filename, fileSize, mimeType, ownerId and optional folderId
+    // Response includes partSize and partCount so the client knows how to split the file
+    @PostMapping
+    public UploadSessionStatus createSession(@RequestBody Map<String, Object> request) {
+        String filename = (String) request.get("filename");
+        Long fileSize = Long.valueOf(request.get("fileSize").toString());
+        String mimeType = (String) request.get("mimeType");
+        Long ownerId = Long.valueOf(request.get("ownerId").toString());
+        Long folderId = request.get("folderId") != null ?
+            Long.valueOf(request.get("folderId").toString()) : null;
+
+        return uploadSessionService.createSession(filename, fileSize, mimeType, ownerId, folderId);
+    }
+
+    // Upload one chunk - the raw request body is the chunk's bytes (Content-Length required)
+    // Chunk N covers bytes [(N-1) * partSize, N * partSize) of the file
+    @PutMapping("/{sessionId}/parts/{partNumber}")
+    public UploadSessionStatus uploadChunk(
+            @PathVariable Long sessionId,
+            @PathVariable Integer partNumber,
+            HttpServletRequest request) throws IOException {
+
+        long contentLength = request.getContentLengthLong();
+        if (contentLength < 0) {
+            throw new RuntimeException("Content-Length header is required");
+        }
+        return uploadSessionService.uploadChunk(sessionId, partNumber, request.getInputStream(), contentLength);
+    }
+
+    // Get upload progress: received/missing chunks and received byte ranges
+    @GetMapping("/{sessionId}")
+    public UploadSessionStatus getSessionStatus(@PathVariable Long sessionId) {
+        return uploadSessionService.getSessionStatus(sessionId);
+    }
+
+    // Finish the upload once every chunk has arrived - returns the saved file metadata
+    @PostMapping("/{sessionId}/commit")
+    public File commitSession(@PathVariable Long sessionId) {
+        return uploadSessionService.commitSession(sessionId);
+    }
+
+    // Cancel an upload and discard the chunks stored so far
+    @DeleteMapping("/{sessionId}")
+    public ResponseEntity<String> abortSession(@PathVariable Long sessionId) {
+        uploadSessionService.abortSession(sessionId);
+        return ResponseEntity.ok("Upload session aborted");
+    }
+
+    // Exception handler (same pattern as FileController)
+    // Global exception handler for this controller
+    // Converts RuntimeExceptions to proper HTTP error responses
+    @ExceptionHandler(RuntimeException.class)
+    public ResponseEntity<String> handleRuntimeException(RuntimeException ex) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                             .body("{\"error\":\"" + ex.getMessage() + "\"}");
+    }
+
+}
@@ -0,0 +1,28 @@
+package com.cloudstorage.backend.dto;
+
+import java.util.List;
+
+// One page of a cursor-paginated listing
+// nextCursor is passed back as ?cursor= to get the following page; null on the last page
+public class CursorPage<T> {
+    private List<T> items;
+    private String nextCursor;
+
+    public CursorPage(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    // Getters
+    public List<T> getItems() {
+        return items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,69 @@
+package com.cloudstorage.backend.dto;
+
+import com.cloudstorage.backend.entity.FileCategory;
+import java.time.LocalDateTime;
+
+// A file as returned by the listing endpoints - read straight from the files row
+// Owner and folder are plain ids, so serializing a listing never loads an association
+public class FileSummary {
+    private Long id;
+    private String filename;
+    private Long fileSize;
+    private String mimeType;
+    private FileCategory category;
+    private Long ownerId;
+    private Long folderId;      // null for root-level files
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    // Also used as a JPQL constructor expression (SELECT new ...FileSummary(...))
+    public FileSummary(Long id, String filename, Long fileSize, String mimeType, FileCategory category,
+                       Long ownerId, Long folderId, LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this.id = id;
+        this.filename = filename;
+        this.fileSize = fileSize;
+        this.mimeType = mimeType;
+        this.category = category;
+        this.ownerId = ownerId;
+        this.folderId = folderId;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public String getFilename() {
+        return filename;
+    }
+
+    public Long getFileSize() {
+        return fileSize;
+    }
+
+    public String getMimeType() {
+        return mimeType;
+    }
+
+    public FileCategory getCategory() {
+        return category;
+    }
+
+    public Long getOwnerId() {
+        return ownerId;
+    }
+
+    public Long getFolderId() {
+        return folderId;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+}
@@ -0,0 +1,69 @@
+package com.cloudstorage.backend.dto;
+
+import java.time.LocalDateTime;
+
+// A folder as returned by the listing endpoints - read straight from the folders row
+// Owner and parent are plain ids, so serializing a listing never loads an association
+public class FolderSummary {
+    private Long id;
+    private String name;
+    private Long ownerId;
+    private Long parentId;      // null for root-level folders
+    private Long totalBytes;    // rollups of everything below the folder (see Folder)
+    private Long fileCount;
+    private Long folderCount;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    // Also used as a JPQL constructor expression (SELECT new ...FolderSummary(...))
+    public FolderSummary(Long id, String name, Long ownerId, Long parentId,
+                         Long totalBytes, Long fileCount, Long folderCount,
+                         LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this.id = id;
+        this.name = name;
+        this.ownerId = ownerId;
+        this.parentId = parentId;
+        this.totalBytes = totalBytes;
+        this.fileCount = fileCount;
+        this.folderCount = folderCount;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Long getOwnerId() {
+        return ownerId;
+    }
+
+    public Long getParentId() {
+        return parentId;
+    }
+
+    public Long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public Long getFileCount() {
+        return fileCount;
+    }
+
+    public Long getFolderCount() {
+        return folderCount;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+}
@@ -0,0 +1,37 @@
+package com.cloudstorage.backend.dto;
+
+import java.util.List;
+
+// Everything needed to show an opened folder, in one response:
+// the folder, its breadcrumb path, and the first (or next) page of its subfolders and files
+public class FolderView {
+    private FolderSummary folder;
+    private List<FolderSummary> path;           // root folder first, this folder last
+    private CursorPage<FolderSummary> subfolders;
+    private CursorPage<FileSummary> files;
+
+    public FolderView(FolderSummary folder, List<FolderSummary> path,
+                      CursorPage<FolderSummary> subfolders, CursorPage<FileSummary> files) {
+        this.folder = folder;
+        this.path = path;
+        this.subfolders = subfolders;
+        this.files = files;
+    }
+
+    // Getters
+    public FolderSummary getFolder() {
+        return folder;
+    }
+
+    public List<FolderSummary> getPath() {
+        return path;
+    }
+
+    public CursorPage<FolderSummary> getSubfolders() {
+        return subfolders;
+    }
+
+    public CursorPage<FileSummary> getFiles() {
+        return files;
+    }
+}
@@ -0,0 +1,69 @@
+package com.cloudstorage.backend.dto;
+
+import com.cloudstorage.backend.entity.FileCategory;
+import java.time.LocalDateTime;
+
+// One search hit - a file or a folder whose name matches the search term
+// Best matches first: the whole name, then names starting with the term, then names
+// containing it, then similar names (typos), each by trigram similarity
+public class SearchResult {
+    private String type;        // file or folder
+    private Long id;
+    private String name;
+    private Long folderId;      // folder it is in (null at root level)
+    private Long size;          // file size, or the folder's total size (see Folder rollups)
+    private String mimeType;    // files only
+    private FileCategory category; // files only
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    public SearchResult(String type, Long id, String name, Long folderId, Long size, String mimeType,
+                        FileCategory category, LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this.type = type;
+        this.id = id;
+        this.name = name;
+        this.folderId = folderId;
+        this.size = size;
+        this.mimeType = mimeType;
+        this.category = category;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
+
+    // Getters
+    public String getType() {
+        return type;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Long getFolderId() {
+        return folderId;
+    }
+
+    public Long getSize() {
+        return size;
+    }
+
+    public String getMimeType() {
+        return mimeType;
+    }
+
+    public FileCategory getCategory() {
+        return category;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+}
@@ -0,0 +1,68 @@
+package com.cloudstorage.backend.dto;
+
+import java.time.LocalDateTime;
+
+// A share as returned by the listing endpoints, with the shared file's name, size and type
+// Read with a join in the same statement, so a listing never loads files one by one
+public class ShareSummary {
+    private Long id;
+    private String permission;
+    private Long fileId;
+    private String filename;
+    private Long fileSize;
+    private String mimeType;
+    private Long sharedWithId;
+    private LocalDateTime sharedDate;
+    private LocalDateTime updatedAt;
+
+    // Also used as a JPQL constructor expression (SELECT new ...ShareSummary(...))
+    public ShareSummary(Long id, String permission, Long fileId, String filename, Long fileSize, String mimeType,
+                        Long sharedWithId, LocalDateTime sharedDate, LocalDateTime updatedAt) {
+        this.id = id;
+        this.permission = permission;
+        this.fileId = fileId;
+        this.filename = filename;
+        this.fileSize = fileSize;
+        this.mimeType = mimeType;
+        this.sharedWithId = sharedWithId;
+        this.sharedDate = sharedDate;
+        this.updatedAt = updatedAt;
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public String getPermission() {
+        return permission;
+    }
+
+    public Long getFileId() {
+        return fileId;
+    }
+
+    public String getFilename() {
+        return filename;
+    }
+
+    public Long getFileSize() {
+        return fileSize;
+    }
+
+    public String getMimeType() {
+        return mimeType;
+    }
+
+    public Long getSharedWithId() {
+        return sharedWithId;
+    }
+
+    public LocalDateTime getSharedDate() {
+        return sharedDate;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+}
@@ -0,0 +1,48 @@
+package com.cloudstorage.backend.dto;
+
+import java.util.Map;
+
+// Storage usage of a user: file count and bytes per category, plus the overall totals
+public class StorageStats {
+    private Map<String, CategoryStats> categories;  // documents, images, videos, audio, other
+    private long totalFiles;
+    private long totalBytes;
+
+    public StorageStats(Map<String, CategoryStats> categories, long totalFiles, long totalBytes) {
+        this.categories = categories;
+        this.totalFiles = totalFiles;
+        this.totalBytes = totalBytes;
+    }
+
+    // Getters
+    public Map<String, CategoryStats> getCategories() {
+        return categories;
+    }
+
+    public long getTotalFiles() {
+        return totalFiles;
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    // Usage of one category
+    public static class CategoryStats {
+        private long fileCount;
+        private long totalBytes;
+
+        public CategoryStats(long fileCount, long totalBytes) {
+            this.fileCount = fileCount;
+            this.totalBytes = totalBytes;
+        }
+
+        public long getFileCount() {
+            return fileCount;
+        }
+
+        public long getTotalBytes() {
+            return totalBytes;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.cloudstorage.backend.dto;
+
+import java.util.List;
+
+// Progress of a resumable upload session, returned to the client so it knows
+// which chunks (and byte ranges) still need to be sent
+public class UploadSessionStatus {
+    private Long sessionId;
+    private String status;
+    private Long fileSize;
+    private Long partSize;
+    private int partCount;
+    private long bytesReceived;
+    private List<Integer> receivedParts;
+    private List<Integer> missingParts;
+    private List<long[]> receivedRanges; // [start, end) byte offsets received so far
+
+    public UploadSessionStatus(Long sessionId, String status, Long fileSize, Long partSize, int partCount,
+                               long bytesReceived, List<Integer> receivedParts, List<Integer> missingParts,
+                               List<long[]> receivedRanges) {
+        this.sessionId = sessionId;
+        this.status = status;
+        this.fileSize = fileSize;
+        this.partSize = partSize;
+        this.partCount = partCount;
+        this.bytesReceived = bytesReceived;
+        this.receivedParts = receivedParts;
+        this.missingParts = missingParts;
+        this.receivedRanges = receivedRanges;
+    }
+
+    // Getters
+    public Long getSessionId() {
+        return sessionId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public Long getFileSize() {
+        return fileSize;
+    }
+
+    public Long getPartSize() {
+        return partSize;
+    }
+
+    public int getPartCount() {
+        return partCount;
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    public List<Integer> getReceivedParts() {
+        return receivedParts;
+    }
+
+    public List<Integer> getMissingParts() {
+        return missingParts;
+    }
+
+    public List<long[]> getReceivedRanges() {
+        return receivedRanges;
+    }
+}
@@ -0,0 +1,106 @@
+package com.cloudstorage.backend.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+import java.time.LocalDateTime;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+// Blob Entity - One deduplicated piece of content stored in S3
+// In content-addressed mode identical uploads share a single S3 object stored
+// under the SHA-256 digest of its bytes (blobs/<digest>). Every File pointing at
+// the blob counts as one reference; the S3 object is only deleted when the last
+// reference goes away.
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+@Entity
+@Table(name = "blobs")
+public class Blob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // SHA-256 of the content, hex encoded - identifies the blob
+    @Column(nullable = false, unique = true, length = 64)
+    private String digest;
+
+    // Where the shared content lives in S3 (File.s3Key points here)
+    @Column(nullable = false, unique = true)
+    private String s3Key;
+
+    @Column(nullable = false)
+    private Long size; // Size in bytes
+
+    // Number of File records using this blob
+    @Column(nullable = false)
+    private Long refCount;
+
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+
+    // Constructors
+
+    public Blob() {}
+
+    public Blob(String digest, String s3Key, Long size) {
+        this.digest = digest;
+        this.s3Key = s3Key;
+        this.size = size;
+        this.refCount = 1L;
+    }
+
+    // Getters and Setters
+
+    public Long getId() {
+        return id;
+    }
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getDigest() {
+        return digest;
+    }
+    public void setDigest(String digest) {
+        this.digest = digest;
+    }
+
+    public String getS3Key() {
+        return s3Key;
+    }
+    public void setS3Key(String s3Key) {
+        this.s3Key = s3Key;
+    }
+
+    public Long getSize() {
+        return size;
+    }
+    public void setSize(Long size) {
+        this.size = size;
+    }
+
+    public Long getRefCount() {
+        return refCount;
+    }
+    public void setRefCount(Long refCount) {
+        this.refCount = refCount;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+}
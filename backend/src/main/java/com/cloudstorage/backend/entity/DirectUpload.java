@@ -0,0 +1,110 @@
+package com.cloudstorage.backend.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.CreationTimestamp;
+import java.time.LocalDateTime;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+// DirectUpload Entity - An S3 key handed out for a browser-to-S3 upload
+// Recorded when the pre-signed URL(s) are issued, so finalizing can only register keys
+// the backend gave out - for the user they were given to, with the size and type announced.
+// The row is removed when the upload is finalized, or by the cleanup job if it never is.
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+@Entity
+@Table(name = "direct_uploads",
+       indexes = {
+           @Index(name = "idx_direct_uploads_s3_key", columnList = "s3_key", unique = true),
+           @Index(name = "idx_direct_uploads_created_at", columnList = "created_at")
+       })
+public class DirectUpload {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Key the browser uploads to
+    @Column(name = "s3_key", nullable = false)
+    private String s3Key;
+
+    // S3 multipart upload ID (null for a single PUT)
+    private String uploadId;
+
+    @Column(nullable = false)
+    private Long fileSize; // Announced size in bytes
+
+    @Column(nullable = false)
+    private String mimeType; // Content type the upload URL was signed for
+
+    // Who the key was issued to
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "owner_id", nullable = false)
+    private User owner;
+
+    @CreationTimestamp
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    // Constructors
+
+    public DirectUpload() {}
+
+    public DirectUpload(String s3Key, String uploadId, Long fileSize, String mimeType, User owner) {
+        this.s3Key = s3Key;
+        this.uploadId = uploadId;
+        this.fileSize = fileSize;
+        this.mimeType = mimeType;
+        this.owner = owner;
+    }
+
+    // Getters and Setters
+
+    public Long getId() {
+        return id;
+    }
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getS3Key() {
+        return s3Key;
+    }
+    public void setS3Key(String s3Key) {
+        this.s3Key = s3Key;
+    }
+
+    public String getUploadId() {
+        return uploadId;
+    }
+    public void setUploadId(String uploadId) {
+        this.uploadId = uploadId;
+    }
+
+    public Long getFileSize() {
+        return fileSize;
+    }
+    public void setFileSize(Long fileSize) {
+        this.fileSize = fileSize;
+    }
+
+    public String getMimeType() {
+        return mimeType;
+    }
+    public void setMimeType(String mimeType) {
+        this.mimeType = mimeType;
+    }
+
+    public User getOwner() {
+        return owner;
+    }
+    public void setOwner(User owner) {
+        this.owner = owner;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+}
@@ -15,13 +15,28 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 // the physical file in S3 storage.
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 @Entity
-@Table(name = "files")
+@Table(name = "files",
+       indexes = {
+           // Keyset-paginated listings: (scope, sort column, id) - see Keyset
+           @Index(name = "idx_files_owner_name", columnList = "owner_id, filename, id"),
+           @Index(name = "idx_files_owner_size", columnList = "owner_id, file_size, id"),
+           @Index(name = "idx_files_owner_created", columnList = "owner_id, created_at, id"),
+           @Index(name = "idx_files_owner_category_name", columnList = "owner_id, category, filename, id"),
+           @Index(name = "idx_files_owner_category_size", columnList = "owner_id, category, file_size, id"),
+           @Index(name = "idx_files_owner_category_created", columnList = "owner_id, category, created_at, id"),
+           @Index(name = "idx_files_folder_name", columnList = "folder_id, filename, id"),
+           @Index(name = "idx_files_folder_size", columnList = "folder_id, file_size, id"),
+           @Index(name = "idx_files_folder_created", columnList = "folder_id, created_at, id")
+       })
 public class File {
 
     // Basic file information
 
+    // Ids come from a pooled sequence (50 ids per round trip) instead of IDENTITY,
+    // because IDENTITY forces one INSERT at a time and disables JDBC batching
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "files_seq")
+    @SequenceGenerator(name = "files_seq", sequenceName = "files_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -37,6 +52,12 @@ public class File {
     @NotBlank(message = "MIME type is required")
     private String mimeType; // Content type (image/jpeg, application/pdf, etc.)
 
+    // Dashboard category derived from the MIME type when the row is written (see FileCategory)
+    // Stored so category listings can filter on an index instead of matching MIME prefixes
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private FileCategory category;
+
     // Bridge to AWS S3 - this links database record to actual file in S3
     @Column(nullable = false)
     @NotBlank(message = "S3 key is required")
@@ -107,6 +128,13 @@ public class File {
         this.mimeType = mimeType;
     }
 
+    public FileCategory getCategory() {
+        return category;
+    }
+    public void setCategory(FileCategory category) {
+        this.category = category;
+    }
+
     public String getS3Key() {
         return s3Key;
     }
@@ -0,0 +1,41 @@
+package com.cloudstorage.backend.entity;
+
+// FileCategory - Which dashboard category a file belongs to, derived from its MIME type
+// The same rule as the category pages: documents are application/* and text/*
+public enum FileCategory {
+
+    DOCUMENTS,
+    IMAGES,
+    VIDEOS,
+    AUDIO,
+    OTHER;
+
+    // The rule below as SQL over a files.mime_type column (used to backfill files.category)
+    public static final String SQL_CASE =
+        "CASE WHEN mime_type LIKE 'image/%' THEN 'IMAGES' " +
+        "WHEN mime_type LIKE 'video/%' THEN 'VIDEOS' " +
+        "WHEN mime_type LIKE 'audio/%' THEN 'AUDIO' " +
+        "WHEN mime_type LIKE 'application/%' OR mime_type LIKE 'text/%' THEN 'DOCUMENTS' " +
+        "ELSE 'OTHER' END";
+
+    // Category of a MIME type (unknown or missing types are OTHER)
+    public static FileCategory fromMimeType(String mimeType) {
+        if (mimeType == null) {
+            return OTHER;
+        }
+        if (mimeType.startsWith("image/")) {
+            return IMAGES;
+        }
+        if (mimeType.startsWith("video/")) {
+            return VIDEOS;
+        }
+        if (mimeType.startsWith("audio/")) {
+            return AUDIO;
+        }
+        if (mimeType.startsWith("application/") || mimeType.startsWith("text/")) {
+            return DOCUMENTS;
+        }
+        return OTHER;
+    }
+
+}
@@ -2,6 +2,7 @@ package com.cloudstorage.backend.entity;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 import java.time.LocalDateTime;
@@ -16,7 +17,14 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 // folder organization, and owner links each folder to its creating user.
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 @Entity
-@Table(name = "folders")
+@Table(name = "folders",
+       indexes = {
+           // Keyset-paginated listings: (scope, sort column, id) - see Keyset
+           @Index(name = "idx_folders_owner_name", columnList = "owner_id, name, id"),
+           @Index(name = "idx_folders_owner_created", columnList = "owner_id, created_at, id"),
+           @Index(name = "idx_folders_parent_name", columnList = "parent_id, name, id"),
+           @Index(name = "idx_folders_parent_created", columnList = "parent_id, created_at, id")
+       })
 public class Folder {
 
     @Id
@@ -49,6 +57,24 @@ public class Folder {
     @OneToMany(mappedBy = "parent", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<Folder> subfolders;
 
+    // ROLLUPS: everything below this folder, at any depth (files in it and in all of its subfolders)
+    // Maintained by deltas along the ancestor chain in the transaction that changes the tree
+    // (see FolderRollupService) and only ever written by that SQL - entity saves leave them alone,
+    // so a stale Folder object can't overwrite a concurrent delta. A background job repairs drift.
+
+    @ColumnDefault("0")
+    @Column(name = "total_bytes", nullable = false, insertable = false, updatable = false)
+    private Long totalBytes = 0L;
+
+    @ColumnDefault("0")
+    @Column(name = "file_count", nullable = false, insertable = false, updatable = false)
+    private Long fileCount = 0L;
+
+    // Subfolders at any depth (not counting this folder)
+    @ColumnDefault("0")
+    @Column(name = "folder_count", nullable = false, insertable = false, updatable = false)
+    private Long folderCount = 0L;
+
     @CreationTimestamp
     private LocalDateTime createdAt;
 
@@ -109,6 +135,18 @@ public class Folder {
         this.subfolders = subfolders;
     }
 
+    public Long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public Long getFileCount() {
+        return fileCount;
+    }
+
+    public Long getFolderCount() {
+        return folderCount;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
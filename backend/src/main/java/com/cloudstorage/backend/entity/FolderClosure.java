@@ -0,0 +1,98 @@
+package com.cloudstorage.backend.entity;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.util.Objects;
+
+// FolderClosure Entity - One (ancestor, descendant) pair of the folder hierarchy (closure table)
+// Every folder has a row for itself (depth 0) and one for each of its ancestors, so:
+//   subtree of X    = rows WHERE ancestor_id = X      (idx_folder_closure_ancestor_depth, by depth)
+//   ancestors of X  = rows WHERE descendant_id = X    (idx_folder_closure_descendant, by depth)
+//   is A above B?   = row (A, B) exists               (primary key lookup)
+// each a single indexed query however deep or wide the tree is (a folder N levels deep has
+// N + 1 rows). Maintained by FolderService on create, move and delete; folders.parent_id
+// stays the source of truth and DatabaseInitializer fills the table for existing folders.
+@Entity
+@Table(name = "folder_closure",
+       indexes = {
+           @Index(name = "idx_folder_closure_ancestor_depth", columnList = "ancestor_id, depth, descendant_id"),
+           @Index(name = "idx_folder_closure_descendant", columnList = "descendant_id, depth")
+       })
+@IdClass(FolderClosure.Key.class)
+public class FolderClosure {
+
+    @Id
+    @Column(name = "ancestor_id")
+    private Long ancestorId;
+
+    @Id
+    @Column(name = "descendant_id")
+    private Long descendantId;
+
+    // Levels between the two folders (0 = the folder itself, 1 = parent/child, ...)
+    @Column(nullable = false)
+    private Integer depth;
+
+    // Constructors
+
+    public FolderClosure() {}
+
+    public FolderClosure(Long ancestorId, Long descendantId, Integer depth) {
+        this.ancestorId = ancestorId;
+        this.descendantId = descendantId;
+        this.depth = depth;
+    }
+
+    // Getters and Setters
+
+    public Long getAncestorId() {
+        return ancestorId;
+    }
+    public void setAncestorId(Long ancestorId) {
+        this.ancestorId = ancestorId;
+    }
+
+    public Long getDescendantId() {
+        return descendantId;
+    }
+    public void setDescendantId(Long descendantId) {
+        this.descendantId = descendantId;
+    }
+
+    public Integer getDepth() {
+        return depth;
+    }
+    public void setDepth(Integer depth) {
+        this.depth = depth;
+    }
+
+    // Composite primary key (ancestor_id, descendant_id)
+    public static class Key implements Serializable {
+        private Long ancestorId;
+        private Long descendantId;
+
+        public Key() {}
+
+        public Key(Long ancestorId, Long descendantId) {
+            this.ancestorId = ancestorId;
+            this.descendantId = descendantId;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof Key key)) {
+                return false;
+            }
+            return Objects.equals(ancestorId, key.ancestorId) && Objects.equals(descendantId, key.descendantId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(ancestorId, descendantId);
+        }
+    }
+
+}
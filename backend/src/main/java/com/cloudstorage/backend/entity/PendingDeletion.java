@@ -0,0 +1,98 @@
+package com.cloudstorage.backend.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.CreationTimestamp;
+import java.time.LocalDateTime;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+// PendingDeletion Entity - Stored content waiting to be deleted (transactional outbox)
+// Written in the same transaction that removes the metadata pointing at the content,
+// so a committed delete can never leak its S3 object. A background worker deletes
+// the objects in batches and removes the rows; failed ones are retried with backoff.
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+@Entity
+@Table(name = "pending_deletions",
+       indexes = {
+           @Index(name = "idx_pending_deletions_next_attempt", columnList = "next_attempt_at"),
+           @Index(name = "idx_pending_deletions_s3_key", columnList = "s3_key")
+       })
+public class PendingDeletion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Storage key to delete
+    @Column(name = "s3_key", nullable = false)
+    private String s3Key;
+
+    // Failed delete attempts so far
+    @Column(nullable = false)
+    private Integer attempts;
+
+    // Not picked up by the worker before this time (backoff after failures)
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    // Error from the last failed attempt
+    @Column(length = 1000)
+    private String lastError;
+
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+
+    // Constructors
+
+    public PendingDeletion() {}
+
+    public PendingDeletion(String s3Key) {
+        this.s3Key = s3Key;
+        this.attempts = 0;
+        this.nextAttemptAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+
+    public Long getId() {
+        return id;
+    }
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getS3Key() {
+        return s3Key;
+    }
+    public void setS3Key(String s3Key) {
+        this.s3Key = s3Key;
+    }
+
+    public Integer getAttempts() {
+        return attempts;
+    }
+    public void setAttempts(Integer attempts) {
+        this.attempts = attempts;
+    }
+
+    public LocalDateTime getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+}
@@ -13,7 +13,8 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 // through sharing relationships with specific permission levels.
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 @Entity
-@Table(name = "shares")
+@Table(name = "shares",
+       indexes = @Index(name = "idx_shares_shared_with_date", columnList = "shared_with_id, shared_date, id"))
 public class Share {
 
     @Id
@@ -0,0 +1,95 @@
+package com.cloudstorage.backend.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.CreationTimestamp;
+import java.time.LocalDateTime;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+// UploadPart Entity - One chunk received for a resumable upload session
+// Stores the ETag S3 returned for the part, which is needed to complete
+// the multipart upload. A chunk that is sent again replaces the old row.
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+@Entity
+@Table(name = "upload_parts",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"session_id", "part_number"}))
+public class UploadPart {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "part_number", nullable = false)
+    private Integer partNumber; // Starts at 1 (S3 part numbering)
+
+    @Column(nullable = false)
+    private Long size; // Bytes in this chunk
+
+    @Column(nullable = false)
+    private String etag; // Returned by S3 for the part
+
+    // RELATIONSHIPS:
+
+    // Session this chunk belongs to
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "session_id", nullable = false)
+    private UploadSession session;
+
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+
+    // Constructors
+
+    public UploadPart() {}
+
+    public UploadPart(UploadSession session, Integer partNumber, Long size, String etag) {
+        this.session = session;
+        this.partNumber = partNumber;
+        this.size = size;
+        this.etag = etag;
+    }
+
+    // Getters and Setters
+
+    public Long getId() {
+        return id;
+    }
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Integer getPartNumber() {
+        return partNumber;
+    }
+    public void setPartNumber(Integer partNumber) {
+        this.partNumber = partNumber;
+    }
+
+    public Long getSize() {
+        return size;
+    }
+    public void setSize(Long size) {
+        this.size = size;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+    public void setEtag(String etag) {
+        this.etag = etag;
+    }
+
+    public UploadSession getSession() {
+        return session;
+    }
+    public void setSession(UploadSession session) {
+        this.session = session;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+}
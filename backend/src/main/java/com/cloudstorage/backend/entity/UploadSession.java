@@ -0,0 +1,203 @@
+package com.cloudstorage.backend.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+// UploadSession Entity - Represents a resumable upload that is still in progress
+// Each session is backed by an S3 multipart upload: the client sends numbered
+// chunks that map one-to-one onto S3 parts, so an interrupted upload can resume
+// from the missing chunks instead of starting over. On commit the parts are
+// stitched together in S3 and a regular File record is created.
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+@Entity
+@Table(name = "upload_sessions")
+public class UploadSession {
+
+    // Session lifecycle states
+    public static final String STATUS_ACTIVE = "ACTIVE";
+    public static final String STATUS_COMPLETING = "COMPLETING"; // S3 is (or was) stitching the parts, metadata not saved yet
+    public static final String STATUS_COMPLETED = "COMPLETED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Metadata of the file being uploaded (becomes the File record on commit)
+
+    @Column(nullable = false)
+    @NotBlank(message = "Filename is required")
+    private String filename;
+
+    @Column(nullable = false)
+    @NotNull(message = "File size is required")
+    @Min(value = 1, message = "File size must be greater than 0")
+    private Long fileSize; // Total size in bytes
+
+    @Column(nullable = false)
+    @NotBlank(message = "MIME type is required")
+    private String mimeType;
+
+    // S3 multipart upload backing this session
+
+    @Column(nullable = false)
+    private String s3Key; // Final location of the file in S3
+
+    @Column(nullable = false)
+    private String uploadId; // S3 multipart upload ID
+
+    @Column(nullable = false)
+    private Long partSize; // Size of every chunk except the last one
+
+    @Column(nullable = false)
+    private String status; // ACTIVE, COMPLETING or COMPLETED
+
+    // RELATIONSHIPS:
+
+    // Who is uploading the file
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "owner_id", nullable = false)
+    private User owner;
+
+    // Folder the file will be placed in (null for root)
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "folder_id", nullable = true)
+    private Folder folder;
+
+    // File record created when the session is committed
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "file_id", nullable = true)
+    private File file;
+
+    // Chunks received so far
+    @JsonIgnore
+    @OneToMany(mappedBy = "session", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    private List<UploadPart> parts;
+
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+
+    // Constructors
+
+    public UploadSession() {}
+
+    // Number of chunks the file is split into
+    public int getPartCount() {
+        return (int) ((fileSize + partSize - 1) / partSize);
+    }
+
+    // Expected size of a given chunk (the last one holds the remainder)
+    public long getExpectedPartSize(int partNumber) {
+        long offset = (partNumber - 1) * partSize;
+        return Math.min(partSize, fileSize - offset);
+    }
+
+    // Getters and Setters
+
+    public Long getId() {
+        return id;
+    }
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getFilename() {
+        return filename;
+    }
+    public void setFilename(String filename) {
+        this.filename = filename;
+    }
+
+    public Long getFileSize() {
+        return fileSize;
+    }
+    public void setFileSize(Long fileSize) {
+        this.fileSize = fileSize;
+    }
+
+    public String getMimeType() {
+        return mimeType;
+    }
+    public void setMimeType(String mimeType) {
+        this.mimeType = mimeType;
+    }
+
+    public String getS3Key() {
+        return s3Key;
+    }
+    public void setS3Key(String s3Key) {
+        this.s3Key = s3Key;
+    }
+
+    public String getUploadId() {
+        return uploadId;
+    }
+    public void setUploadId(String uploadId) {
+        this.uploadId = uploadId;
+    }
+
+    public Long getPartSize() {
+        return partSize;
+    }
+    public void setPartSize(Long partSize) {
+        this.partSize = partSize;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public User getOwner() {
+        return owner;
+    }
+    public void setOwner(User owner) {
+        this.owner = owner;
+    }
+
+    public Folder getFolder() {
+        return folder;
+    }
+    public void setFolder(Folder folder) {
+        this.folder = folder;
+    }
+
+    public File getFile() {
+        return file;
+    }
+    public void setFile(File file) {
+        this.file = file;
+    }
+
+    public List<UploadPart> getParts() {
+        return parts;
+    }
+    public void setParts(List<UploadPart> parts) {
+        this.parts = parts;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+}
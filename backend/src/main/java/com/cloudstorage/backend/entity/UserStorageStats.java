@@ -0,0 +1,88 @@
+package com.cloudstorage.backend.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.UpdateTimestamp;
+import java.time.LocalDateTime;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+// UserStorageStats Entity - Running file count and byte total of one user in one category
+// Kept up to date by deltas written in the same transaction as the file rows
+// (see StorageStatsService), so the dashboard reads five small rows instead of
+// scanning the user's files. A background job repairs any drift.
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+@Entity
+@Table(name = "user_storage_stats",
+       uniqueConstraints = @UniqueConstraint(name = "uk_user_storage_stats_user_category",
+                                             columnNames = {"user_id", "category"}))
+public class UserStorageStats {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private FileCategory category;
+
+    @Column(name = "file_count", nullable = false)
+    private Long fileCount;
+
+    @Column(name = "total_bytes", nullable = false)
+    private Long totalBytes;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    // Constructors
+
+    public UserStorageStats() {}
+
+    // Getters and Setters
+
+    public Long getId() {
+        return id;
+    }
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public FileCategory getCategory() {
+        return category;
+    }
+    public void setCategory(FileCategory category) {
+        this.category = category;
+    }
+
+    public Long getFileCount() {
+        return fileCount;
+    }
+    public void setFileCount(Long fileCount) {
+        this.fileCount = fileCount;
+    }
+
+    public Long getTotalBytes() {
+        return totalBytes;
+    }
+    public void setTotalBytes(Long totalBytes) {
+        this.totalBytes = totalBytes;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+}
@@ -0,0 +1,41 @@
+package com.cloudstorage.backend.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import com.cloudstorage.backend.entity.Blob;
+import jakarta.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface BlobRepository extends JpaRepository<Blob, Long> {
+
+    // Add a reference to an existing blob in one atomic UPDATE
+    // Returns 0 if no blob with this digest exists yet
+    @Transactional
+    @Modifying
+    @Query("UPDATE Blob b SET b.refCount = b.refCount + 1, b.updatedAt = CURRENT_TIMESTAMP WHERE b.digest = :digest")
+    int incrementRefCount(@Param("digest") String digest);
+
+    // Find blob by S3 key and lock its row until the transaction ends
+    // Used when releasing a reference so a concurrent upload can't re-use a blob being deleted
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<Blob> findForUpdateByS3Key(String s3Key);
+
+    // Find blob by content digest
+    Optional<Blob> findByDigest(String digest);
+
+    // Next page of blob keys after the given key, in S3 listing order (see FileRepository)
+    @Query(value = "SELECT s3_key FROM blobs WHERE s3_key LIKE :prefix AND s3_key COLLATE \"C\" > :after " +
+                   "ORDER BY s3_key COLLATE \"C\" LIMIT :limit",
+           nativeQuery = true)
+    List<String> findS3KeysAfter(@Param("prefix") String prefix, @Param("after") String after, @Param("limit") int limit);
+
+    // Which of these S3 keys belong to a registered blob
+    @Query("SELECT b.s3Key FROM Blob b WHERE b.s3Key IN :s3Keys")
+    List<String> findS3KeysIn(@Param("s3Keys") Collection<String> s3Keys);
+}
@@ -0,0 +1,26 @@
+package com.cloudstorage.backend.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import com.cloudstorage.backend.entity.DirectUpload;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface DirectUploadRepository extends JpaRepository<DirectUpload, Long> {
+
+    // The issued key a finalize request refers to
+    Optional<DirectUpload> findByS3Key(String s3Key);
+
+    // Keys issued before the cutoff and never finalized (abandoned uploads)
+    List<DirectUpload> findByCreatedAtBefore(LocalDateTime cutoff);
+
+    // Remove an issued key once it has been used
+    // Returns 0 when another request already used it (the caller's transaction then rolls back)
+    @Modifying
+    @Query("DELETE FROM DirectUpload d WHERE d.id = :id")
+    int deleteIssued(@Param("id") Long id);
+
+}
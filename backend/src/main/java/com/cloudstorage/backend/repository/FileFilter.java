@@ -0,0 +1,114 @@
+package com.cloudstorage.backend.repository;
+
+import com.cloudstorage.backend.entity.FileCategory;
+import jakarta.persistence.Query;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+
+// FileFilter - Optional filters of a file listing: category, size range and upload date range
+// Turned into extra WHERE conditions of the listing query, so only matching rows are read and
+// returned. The category is a stored, indexed column (files.category, set when the row is
+// written), so a category page is a range scan over (owner_id, category, sort column, id).
+public class FileFilter {
+
+    public static final FileFilter NONE = new FileFilter(null, null, null, null, null);
+
+    private final FileCategory category;
+    private final Long minSize;             // bytes, inclusive
+    private final Long maxSize;             // bytes, inclusive
+    private final LocalDateTime createdFrom; // inclusive
+    private final LocalDateTime createdTo;   // exclusive
+
+    private FileFilter(FileCategory category, Long minSize, Long maxSize, LocalDateTime createdFrom, LocalDateTime createdTo) {
+        this.category = category;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.createdFrom = createdFrom;
+        this.createdTo = createdTo;
+    }
+
+    // Builds a filter from the query parameters (all optional)
+    // category: documents, images, videos, audio or other
+    // from / to: upload dates (yyyy-MM-dd), both inclusive
+    public static FileFilter of(String category, Long minSize, Long maxSize, String from, String to) {
+        FileCategory categoryToUse = null;
+        if (category != null && !category.isBlank()) {
+            try {
+                categoryToUse = FileCategory.valueOf(category.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new RuntimeException("Invalid category '" + category + "': use documents, images, videos, audio or other");
+            }
+        }
+        if (minSize != null && maxSize != null && minSize > maxSize) {
+            throw new RuntimeException("minSize must not be greater than maxSize");
+        }
+
+        LocalDate fromDate = parseDate(from);
+        LocalDate toDate = parseDate(to);
+        if (fromDate != null && toDate != null && fromDate.isAfter(toDate)) {
+            throw new RuntimeException("from must not be after to");
+        }
+        return new FileFilter(categoryToUse, minSize, maxSize,
+            fromDate != null ? fromDate.atStartOfDay() : null,
+            toDate != null ? toDate.plusDays(1).atStartOfDay() : null); // whole "to" day included
+    }
+
+    public FileCategory getCategory() {
+        return category;
+    }
+
+    // " AND category = :category AND file_size >= :minSize ..." - only for the filters that are set
+    String conditions() {
+        StringBuilder sql = new StringBuilder();
+        if (category != null) {
+            sql.append(" AND category = :category");
+        }
+        if (minSize != null) {
+            sql.append(" AND file_size >= :minSize");
+        }
+        if (maxSize != null) {
+            sql.append(" AND file_size <= :maxSize");
+        }
+        if (createdFrom != null) {
+            sql.append(" AND created_at >= :createdFrom");
+        }
+        if (createdTo != null) {
+            sql.append(" AND created_at < :createdTo");
+        }
+        return sql.toString();
+    }
+
+    // Binds the parameters used by conditions()
+    void bind(Query query) {
+        if (category != null) {
+            query.setParameter("category", category.name());
+        }
+        if (minSize != null) {
+            query.setParameter("minSize", minSize);
+        }
+        if (maxSize != null) {
+            query.setParameter("maxSize", maxSize);
+        }
+        if (createdFrom != null) {
+            query.setParameter("createdFrom", createdFrom);
+        }
+        if (createdTo != null) {
+            query.setParameter("createdTo", createdTo);
+        }
+    }
+
+    // helper method:
+    private static LocalDate parseDate(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value.trim());
+        } catch (DateTimeParseException e) {
+            throw new RuntimeException("Invalid date '" + value + "': use yyyy-MM-dd");
+        }
+    }
+
+}
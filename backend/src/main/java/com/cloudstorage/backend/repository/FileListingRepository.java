@@ -0,0 +1,19 @@
+package com.cloudstorage.backend.repository;
+
+import com.cloudstorage.backend.dto.CursorPage;
+import com.cloudstorage.backend.dto.FileSummary;
+
+// Keyset-paginated file listings (sortable by name, size or created date), see Keyset
+// Optionally filtered by category, size and upload date, see FileFilter
+public interface FileListingRepository {
+
+    // All files of an owner
+    CursorPage<FileSummary> findPageByOwner(Long ownerId, FileFilter filter, Keyset keyset);
+
+    // Files in a folder
+    CursorPage<FileSummary> findPageByFolder(Long folderId, FileFilter filter, Keyset keyset);
+
+    // Files of an owner that aren't in any folder
+    CursorPage<FileSummary> findRootPageByOwner(Long ownerId, FileFilter filter, Keyset keyset);
+
+}
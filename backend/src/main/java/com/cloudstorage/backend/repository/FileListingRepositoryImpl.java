@@ -0,0 +1,86 @@
+package com.cloudstorage.backend.repository;
+
+import com.cloudstorage.backend.dto.CursorPage;
+import com.cloudstorage.backend.dto.FileSummary;
+import com.cloudstorage.backend.entity.FileCategory;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.query.NativeQuery;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+// Native keyset queries behind FileListingRepository
+// Each scope has composite indexes ending in (sort column, id) - see File and DatabaseInitializer
+// (owner listings also per category, for the category pages)
+// Rows are read as typed scalars straight into FileSummary - one statement per page, no entities
+public class FileListingRepositoryImpl implements FileListingRepository {
+
+    private static final Map<String, String> SORT_COLUMNS = Map.of(
+        "name", "filename",
+        "size", "file_size",
+        "created", "created_at");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public CursorPage<FileSummary> findPageByOwner(Long ownerId, FileFilter filter, Keyset keyset) {
+        return findPage("owner_id = :scopeId", ownerId, filter, keyset);
+    }
+
+    @Override
+    public CursorPage<FileSummary> findPageByFolder(Long folderId, FileFilter filter, Keyset keyset) {
+        return findPage("folder_id = :scopeId", folderId, filter, keyset);
+    }
+
+    @Override
+    public CursorPage<FileSummary> findRootPageByOwner(Long ownerId, FileFilter filter, Keyset keyset) {
+        return findPage("owner_id = :scopeId AND folder_id IS NULL", ownerId, filter, keyset);
+    }
+
+    // helper method:
+    // One page of files matching the scope condition and the filter
+    private CursorPage<FileSummary> findPage(String scope, Long scopeId, FileFilter filter, Keyset keyset) {
+        String column = keyset.column(SORT_COLUMNS);
+        @SuppressWarnings("unchecked")
+        NativeQuery<Object[]> query = entityManager.createNativeQuery(
+            "SELECT id, filename, file_size, mime_type, category, owner_id, folder_id, created_at, updated_at " +
+            "FROM files WHERE " + scope + filter.conditions()
+                + keyset.condition(column, "id") + keyset.orderBy(column, "id"))
+            .unwrap(NativeQuery.class)
+            .addScalar("id", Long.class)
+            .addScalar("filename", String.class)
+            .addScalar("file_size", Long.class)
+            .addScalar("mime_type", String.class)
+            .addScalar("category", String.class)
+            .addScalar("owner_id", Long.class)
+            .addScalar("folder_id", Long.class)
+            .addScalar("created_at", LocalDateTime.class)
+            .addScalar("updated_at", LocalDateTime.class);
+        query.setParameter("scopeId", scopeId);
+        filter.bind(query);
+        keyset.bind(query);
+
+        List<FileSummary> rows = query.getResultList().stream()
+            .map(row -> new FileSummary((Long) row[0], (String) row[1], (Long) row[2], (String) row[3],
+                row[4] != null ? FileCategory.valueOf((String) row[4]) : null,
+                (Long) row[5], (Long) row[6], (LocalDateTime) row[7], (LocalDateTime) row[8]))
+            .toList();
+        return keyset.toPage(rows, file -> sortValue(file, keyset.getSort()), FileSummary::getId);
+    }
+
+    // helper method:
+    // Value of the sort column, for the next page's cursor
+    private static Object sortValue(FileSummary file, String sort) {
+        switch (sort) {
+            case "size":
+                return file.getFileSize();
+            case "created":
+                return file.getCreatedAt();
+            default:
+                return file.getFilename();
+        }
+    }
+
+}
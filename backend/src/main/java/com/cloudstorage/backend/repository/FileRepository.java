@@ -1,10 +1,31 @@
 package com.cloudstorage.backend.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import com.cloudstorage.backend.dto.FileSummary;
 import com.cloudstorage.backend.entity.File;
+import java.util.Collection;
 import java.util.List;
 
-public interface FileRepository extends JpaRepository<File, Long> {
+public interface FileRepository extends JpaRepository<File, Long>, FileListingRepository {
+
+    // Listings select straight into FileSummary: one statement, no entities, no lazy associations
+    // (f.owner.id and f.folder.id read the foreign key columns, they don't join)
+    String FILE_SUMMARY = "SELECT new com.cloudstorage.backend.dto.FileSummary(f.id, f.filename, f.fileSize, " +
+                          "f.mimeType, f.category, f.owner.id, f.folder.id, f.createdAt, f.updatedAt) FROM File f ";
+
+    // Summaries of all files of an owner
+    @Query(FILE_SUMMARY + "WHERE f.owner.id = :ownerId")
+    List<FileSummary> findSummariesByOwnerId(@Param("ownerId") Long ownerId);
+
+    // Summaries of the files in a folder
+    @Query(FILE_SUMMARY + "WHERE f.folder.id = :folderId")
+    List<FileSummary> findSummariesByFolderId(@Param("folderId") Long folderId);
+
+    // Summaries of an owner's root-level files
+    @Query(FILE_SUMMARY + "WHERE f.owner.id = :ownerId AND f.folder IS NULL")
+    List<FileSummary> findRootSummariesByOwnerId(@Param("ownerId") Long ownerId);
 
     // Find files by owner (using JPA property path syntax)
     List<File> findByOwner_Id(Long ownerId);
@@ -18,10 +39,29 @@ public interface FileRepository extends JpaRepository<File, Long> {
     // Find files at root level for specific owner (combined query)
     List<File> findByFolderIsNullAndOwner_Id(Long ownerId);
     
+    // Files anywhere in a folder's subtree (read through the folder closure table)
+    @Query("SELECT f FROM File f WHERE f.folder.id IN " +
+           "(SELECT c.descendantId FROM FolderClosure c WHERE c.ancestorId = :folderId) ORDER BY f.id")
+    List<File> findInSubtree(@Param("folderId") Long folderId);
+
     // Check if file exists by name and owner (using JPA property path syntax)
     boolean existsByFilenameAndOwner_Id(String filename, Long ownerId);
+
+    // Which of these filenames the owner already has (one query for a whole upload batch)
+    @Query("SELECT f.filename FROM File f WHERE f.owner.id = :ownerId AND f.filename IN :filenames")
+    List<String> findFilenamesByOwnerIdAndFilenameIn(@Param("ownerId") Long ownerId, @Param("filenames") Collection<String> filenames);
     
     // Find file by S3 key (this one stays the same - no relationship involved)
     File findByS3Key(String s3Key);
 
-}
\ No newline at end of file
+    // Next page of stored keys under a prefix, after the given key
+    // COLLATE "C" sorts by UTF-8 bytes - the same order S3 lists keys in
+    @Query(value = "SELECT s3_key FROM files WHERE s3_key LIKE :prefix AND s3_key COLLATE \"C\" > :after " +
+                   "ORDER BY s3_key COLLATE \"C\" LIMIT :limit",
+           nativeQuery = true)
+    List<String> findS3KeysAfter(@Param("prefix") String prefix, @Param("after") String after, @Param("limit") int limit);
+
+    // Which of these S3 keys are still referenced by a file
+    @Query("SELECT DISTINCT f.s3Key FROM File f WHERE f.s3Key IN :s3Keys")
+    List<String> findS3KeysIn(@Param("s3Keys") Collection<String> s3Keys);
+}
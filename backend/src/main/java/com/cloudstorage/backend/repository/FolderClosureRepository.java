@@ -0,0 +1,61 @@
+package com.cloudstorage.backend.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import com.cloudstorage.backend.dto.FolderSummary;
+import com.cloudstorage.backend.entity.FolderClosure;
+import java.util.List;
+
+// Queries and maintenance statements of the folder closure table (see FolderClosure)
+// "Is A an ancestor of B" is existsById(new FolderClosure.Key(A, B))
+public interface FolderClosureRepository extends JpaRepository<FolderClosure, FolderClosure.Key> {
+
+    // A folder and all of its descendants, parents before children (depth order)
+    // Served by idx_folder_closure_ancestor_depth, so it streams in index order without a sort
+    @Query("SELECT new com.cloudstorage.backend.dto.FolderSummary(f.id, f.name, f.owner.id, f.parent.id, " +
+           "f.totalBytes, f.fileCount, f.folderCount, f.createdAt, f.updatedAt) " +
+           "FROM FolderClosure c JOIN Folder f ON f.id = c.descendantId " +
+           "WHERE c.ancestorId = :folderId ORDER BY c.depth, c.descendantId")
+    List<FolderSummary> findSubtree(@Param("folderId") Long folderId);
+
+    // Path from the root down to a folder (the folder itself last), for breadcrumbs
+    @Query("SELECT new com.cloudstorage.backend.dto.FolderSummary(f.id, f.name, f.owner.id, f.parent.id, " +
+           "f.totalBytes, f.fileCount, f.folderCount, f.createdAt, f.updatedAt) " +
+           "FROM FolderClosure c JOIN Folder f ON f.id = c.ancestorId " +
+           "WHERE c.descendantId = :folderId ORDER BY c.depth DESC")
+    List<FolderSummary> findPath(@Param("folderId") Long folderId);
+
+    // New folder: its own row (depth 0)
+    @Modifying
+    @Query(value = "INSERT INTO folder_closure (ancestor_id, descendant_id, depth) VALUES (:folderId, :folderId, 0)",
+           nativeQuery = true)
+    int insertSelf(@Param("folderId") Long folderId);
+
+    // New folder: one row per ancestor, copied from the parent's rows one level deeper
+    @Modifying
+    @Query(value = "INSERT INTO folder_closure (ancestor_id, descendant_id, depth) " +
+                   "SELECT ancestor_id, :folderId, depth + 1 FROM folder_closure WHERE descendant_id = :parentId",
+           nativeQuery = true)
+    int insertAncestors(@Param("folderId") Long folderId, @Param("parentId") Long parentId);
+
+    // Move, step 1: cut the subtree loose - drop the rows linking the folder's old ancestors
+    // to anything in its subtree (rows inside the subtree stay as they are)
+    @Modifying
+    @Query(value = "DELETE FROM folder_closure " +
+                   "WHERE descendant_id IN (SELECT descendant_id FROM folder_closure WHERE ancestor_id = :folderId) " +
+                   "AND ancestor_id NOT IN (SELECT descendant_id FROM folder_closure WHERE ancestor_id = :folderId)",
+           nativeQuery = true)
+    int detachSubtree(@Param("folderId") Long folderId);
+
+    // Move, step 2: link every ancestor of the new parent (and the parent itself) to every folder of the subtree
+    @Modifying
+    @Query(value = "INSERT INTO folder_closure (ancestor_id, descendant_id, depth) " +
+                   "SELECT a.ancestor_id, d.descendant_id, a.depth + d.depth + 1 " +
+                   "FROM folder_closure a CROSS JOIN folder_closure d " +
+                   "WHERE a.descendant_id = :parentId AND d.ancestor_id = :folderId",
+           nativeQuery = true)
+    int attachSubtree(@Param("folderId") Long folderId, @Param("parentId") Long parentId);
+
+}
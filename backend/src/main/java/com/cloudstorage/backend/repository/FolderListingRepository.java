@@ -0,0 +1,18 @@
+package com.cloudstorage.backend.repository;
+
+import com.cloudstorage.backend.dto.CursorPage;
+import com.cloudstorage.backend.dto.FolderSummary;
+
+// Keyset-paginated folder listings (sortable by name or created date), see Keyset
+public interface FolderListingRepository {
+
+    // All folders of an owner
+    CursorPage<FolderSummary> findPageByOwner(Long ownerId, Keyset keyset);
+
+    // Subfolders of a folder
+    CursorPage<FolderSummary> findPageByParent(Long parentId, Keyset keyset);
+
+    // Top-level folders of an owner
+    CursorPage<FolderSummary> findRootPageByOwner(Long ownerId, Keyset keyset);
+
+}
@@ -0,0 +1,69 @@
+package com.cloudstorage.backend.repository;
+
+import com.cloudstorage.backend.dto.CursorPage;
+import com.cloudstorage.backend.dto.FolderSummary;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.query.NativeQuery;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+// Native keyset queries behind FolderListingRepository
+// Each scope has composite indexes ending in (sort column, id) - see Folder and DatabaseInitializer
+// Rows are read as typed scalars straight into FolderSummary - one statement per page, no entities
+public class FolderListingRepositoryImpl implements FolderListingRepository {
+
+    // Folders have no size
+    private static final Map<String, String> SORT_COLUMNS = Map.of(
+        "name", "name",
+        "created", "created_at");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public CursorPage<FolderSummary> findPageByOwner(Long ownerId, Keyset keyset) {
+        return findPage("owner_id = :scopeId", ownerId, keyset);
+    }
+
+    @Override
+    public CursorPage<FolderSummary> findPageByParent(Long parentId, Keyset keyset) {
+        return findPage("parent_id = :scopeId", parentId, keyset);
+    }
+
+    @Override
+    public CursorPage<FolderSummary> findRootPageByOwner(Long ownerId, Keyset keyset) {
+        return findPage("owner_id = :scopeId AND parent_id IS NULL", ownerId, keyset);
+    }
+
+    // helper method:
+    // One page of folders matching the scope condition
+    private CursorPage<FolderSummary> findPage(String scope, Long scopeId, Keyset keyset) {
+        String column = keyset.column(SORT_COLUMNS);
+        @SuppressWarnings("unchecked")
+        NativeQuery<Object[]> query = entityManager.createNativeQuery(
+            "SELECT id, name, owner_id, parent_id, total_bytes, file_count, folder_count, created_at, updated_at FROM folders WHERE " + scope
+                + keyset.condition(column, "id") + keyset.orderBy(column, "id"))
+            .unwrap(NativeQuery.class)
+            .addScalar("id", Long.class)
+            .addScalar("name", String.class)
+            .addScalar("owner_id", Long.class)
+            .addScalar("parent_id", Long.class)
+            .addScalar("total_bytes", Long.class)
+            .addScalar("file_count", Long.class)
+            .addScalar("folder_count", Long.class)
+            .addScalar("created_at", LocalDateTime.class)
+            .addScalar("updated_at", LocalDateTime.class);
+        query.setParameter("scopeId", scopeId);
+        keyset.bind(query);
+
+        List<FolderSummary> rows = query.getResultList().stream()
+            .map(row -> new FolderSummary((Long) row[0], (String) row[1], (Long) row[2], (Long) row[3],
+                (Long) row[4], (Long) row[5], (Long) row[6], (LocalDateTime) row[7], (LocalDateTime) row[8]))
+            .toList();
+        return keyset.toPage(rows, folder -> keyset.getSort().equals("created") ? folder.getCreatedAt() : folder.getName(),
+            FolderSummary::getId);
+    }
+
+}
@@ -1,10 +1,24 @@
 package com.cloudstorage.backend.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import com.cloudstorage.backend.dto.FolderSummary;
 import com.cloudstorage.backend.entity.Folder;
 import java.util.List;
 
-public interface FolderRepository extends JpaRepository<Folder, Long> {
+public interface FolderRepository extends JpaRepository<Folder, Long>, FolderListingRepository {
+
+    // Ids of a folder and all of its descendants, for the subtree statements below
+    // Read from the closure table (see FolderClosure) - one index range, however deep the tree
+    String SUBTREE = "WITH subtree AS (SELECT descendant_id AS id FROM folder_closure WHERE ancestor_id = :folderId) ";
+
+    // Ids of a folder and all of its ancestors - the folders whose rollups change with its content
+    String PATH = "WITH path AS (SELECT ancestor_id AS id FROM folder_closure WHERE descendant_id = :folderId) ";
+
+    // Files stored anywhere in the subtree
+    String SUBTREE_FILES = "SELECT id FROM files WHERE folder_id IN (SELECT id FROM subtree)";
 
     // Find folders by owner (using JPA property path syntax)
     List<Folder> findByOwner_Id(Long ownerId);
@@ -20,8 +34,182 @@ public interface FolderRepository extends JpaRepository<Folder, Long> {
     
     // Check if folder exists by name and owner (using JPA property path syntax)
     boolean existsByNameAndOwner_Id(String name, Long ownerId);
-    
-    // Find folders by name (this one stays the same - no relationship involved)
-    List<Folder> findByNameContainingIgnoreCase(String name);
 
-}
\ No newline at end of file
+    // Listings select straight into FolderSummary: one statement, no entities, no lazy associations
+    // (f.owner.id and f.parent.id read the foreign key columns, they don't join)
+    String FOLDER_SUMMARY = "SELECT new com.cloudstorage.backend.dto.FolderSummary(f.id, f.name, f.owner.id, " +
+                            "f.parent.id, f.totalBytes, f.fileCount, f.folderCount, f.createdAt, f.updatedAt) " +
+                            "FROM Folder f ";
+
+    // Summaries of all folders of an owner
+    @Query(FOLDER_SUMMARY + "WHERE f.owner.id = :ownerId")
+    List<FolderSummary> findSummariesByOwnerId(@Param("ownerId") Long ownerId);
+
+    // Summaries of the subfolders of a folder
+    @Query(FOLDER_SUMMARY + "WHERE f.parent.id = :parentId")
+    List<FolderSummary> findSummariesByParentId(@Param("parentId") Long parentId);
+
+    // Summaries of an owner's root-level folders
+    @Query(FOLDER_SUMMARY + "WHERE f.owner.id = :ownerId AND f.parent IS NULL")
+    List<FolderSummary> findRootSummariesByOwnerId(@Param("ownerId") Long ownerId);
+
+    // Summaries of an owner's folders whose name contains the search term (case-insensitive)
+    // lower(name) LIKE '%term%' is served by the trigram index idx_folders_owner_name_trgm
+    @Query(FOLDER_SUMMARY + "WHERE f.owner.id = :ownerId AND LOWER(f.name) LIKE CONCAT('%', LOWER(:name), '%')")
+    List<FolderSummary> findSummariesByOwnerIdAndNameContaining(@Param("ownerId") Long ownerId, @Param("name") String name);
+
+    // Every statement that changes folder rollups locks the rows it is going to update first,
+    // in one statement ordered by id - all lockers take their rows in the same order, so they
+    // queue up behind each other instead of deadlocking (see FolderRollupService.lockUntilStable)
+
+    // Lock a folder and its ancestors (FOR NO KEY UPDATE: inserting files and subfolders into the
+    // folder only needs a key-share lock on it, which this doesn't block)
+    // Used for file changes and new subfolders; returns an empty list if the folder doesn't exist
+    @Query(value = PATH + "SELECT id FROM folders WHERE id IN (SELECT id FROM path) ORDER BY id FOR NO KEY UPDATE",
+           nativeQuery = true)
+    List<Long> lockPath(@Param("folderId") Long folderId);
+
+    // Lock a folder's whole subtree and its ancestors until the transaction ends
+    // While locked, no file or folder can be created in or moved into the subtree
+    // Returns an empty list if the folder doesn't exist
+    @Query(value = SUBTREE + "SELECT id FROM folders WHERE id IN (SELECT id FROM subtree) " +
+                   "OR id IN (SELECT ancestor_id FROM folder_closure WHERE descendant_id = :folderId) " +
+                   "ORDER BY id FOR UPDATE",
+           nativeQuery = true)
+    List<Long> lockSubtreeAndPath(@Param("folderId") Long folderId);
+
+    // Same, together with another folder and its ancestors (a move's new parent)
+    @Query(value = SUBTREE + "SELECT id FROM folders WHERE id IN (SELECT id FROM subtree) " +
+                   "OR id IN (SELECT ancestor_id FROM folder_closure WHERE descendant_id IN (:folderId, :otherId)) " +
+                   "ORDER BY id FOR UPDATE",
+           nativeQuery = true)
+    List<Long> lockSubtreeAndPaths(@Param("folderId") Long folderId, @Param("otherId") Long otherId);
+
+    // Add file deltas to the rollups of a folder and all of its ancestors (lockPath first)
+    @Modifying
+    @Query(value = PATH + "UPDATE folders SET file_count = file_count + :fileCount, " +
+                   "total_bytes = total_bytes + :totalBytes WHERE id IN (SELECT id FROM path)",
+           nativeQuery = true)
+    int addFileTotals(@Param("folderId") Long folderId, @Param("fileCount") long fileCount,
+                      @Param("totalBytes") long totalBytes);
+
+    // Add (sign 1) or subtract (sign -1) a folder's rollups - plus the folder itself - to/from the
+    // rollups of its ancestors: after a create or move into a folder, before a move out or delete
+    @Modifying
+    @Query(value = "UPDATE folders a SET file_count = a.file_count + :sign * f.file_count, " +
+                   "total_bytes = a.total_bytes + :sign * f.total_bytes, " +
+                   "folder_count = a.folder_count + :sign * (f.folder_count + 1) " +
+                   "FROM folders f WHERE f.id = :folderId " +
+                   "AND a.id IN (SELECT ancestor_id FROM folder_closure WHERE descendant_id = :folderId AND depth > 0)",
+           nativeQuery = true)
+    int addSubtreeTotalsToAncestors(@Param("folderId") Long folderId, @Param("sign") int sign);
+
+    // Ids of all root-level folders, one rollup repair unit each
+    @Query("SELECT f.id FROM Folder f WHERE f.parent IS NULL")
+    List<Long> findRootIds();
+
+    // Lock a folder's subtree for a rollup repair (id order, like the statements above)
+    @Query(value = SUBTREE + "SELECT id FROM folders WHERE id IN (SELECT id FROM subtree) ORDER BY id FOR NO KEY UPDATE",
+           nativeQuery = true)
+    List<Long> lockSubtreeForRepair(@Param("folderId") Long folderId);
+
+    // Recompute the rollups of every folder in a subtree from the files and closure tables,
+    // overwriting only the ones that drifted; returns how many did
+    @Modifying
+    @Query(value = SUBTREE + ", file_totals AS (" +
+                   "SELECT folder_id, COUNT(*) AS file_count, COALESCE(SUM(file_size), 0) AS total_bytes " +
+                   "FROM files WHERE folder_id IN (SELECT id FROM subtree) GROUP BY folder_id), " +
+                   "rollups AS (" +
+                   "SELECT c.ancestor_id AS id, CAST(COALESCE(SUM(t.file_count), 0) AS bigint) AS file_count, " +
+                   "CAST(COALESCE(SUM(t.total_bytes), 0) AS bigint) AS total_bytes, COUNT(*) - 1 AS folder_count " +
+                   "FROM folder_closure c LEFT JOIN file_totals t ON t.folder_id = c.descendant_id " +
+                   "WHERE c.ancestor_id IN (SELECT id FROM subtree) GROUP BY c.ancestor_id) " +
+                   "UPDATE folders f SET file_count = r.file_count, total_bytes = r.total_bytes, " +
+                   "folder_count = r.folder_count FROM rollups r WHERE f.id = r.id " +
+                   "AND (f.file_count, f.total_bytes, f.folder_count) IS DISTINCT FROM " +
+                   "(r.file_count, r.total_bytes, r.folder_count)",
+           nativeQuery = true)
+    int repairSubtreeRollups(@Param("folderId") Long folderId);
+
+    // Queue the content of every non-deduplicated file in the subtree for background deletion
+    @Modifying
+    @Query(value = SUBTREE +
+                   "INSERT INTO pending_deletions (s3_key, attempts, next_attempt_at, created_at) " +
+                   "SELECT s3_key, 0, now(), now() FROM files " +
+                   "WHERE folder_id IN (SELECT id FROM subtree) AND s3_key NOT LIKE 'blobs/%'",
+           nativeQuery = true)
+    int enqueueSubtreeFileDeletions(@Param("folderId") Long folderId);
+
+    // Drop one reference per file in the subtree from the deduplicated blobs they point at
+    @Modifying
+    @Query(value = SUBTREE +
+                   "UPDATE blobs b SET ref_count = b.ref_count - r.refs, updated_at = now() " +
+                   "FROM (SELECT s3_key, COUNT(*) AS refs FROM files " +
+                   "WHERE folder_id IN (SELECT id FROM subtree) AND s3_key LIKE 'blobs/%' GROUP BY s3_key) r " +
+                   "WHERE b.s3_key = r.s3_key",
+           nativeQuery = true)
+    int releaseSubtreeBlobs(@Param("folderId") Long folderId);
+
+    // Remove the blobs left without references and queue their content for background deletion
+    @Modifying
+    @Query(value = SUBTREE + ", released AS (" +
+                   "DELETE FROM blobs WHERE ref_count <= 0 AND s3_key IN " +
+                   "(SELECT s3_key FROM files WHERE folder_id IN (SELECT id FROM subtree)) " +
+                   "RETURNING s3_key) " +
+                   "INSERT INTO pending_deletions (s3_key, attempts, next_attempt_at, created_at) " +
+                   "SELECT s3_key, 0, now(), now() FROM released",
+           nativeQuery = true)
+    int enqueueUnreferencedBlobDeletions(@Param("folderId") Long folderId);
+
+    // Subtract the subtree's files from their owners' storage stats, one upsert per (owner, category)
+    // Rows are locked in (owner, category name) order, the same order StorageStatsService uses
+    @Modifying
+    @Query(value = SUBTREE +
+                   "INSERT INTO user_storage_stats (user_id, category, file_count, total_bytes, updated_at) " +
+                   "SELECT owner_id, category, -COUNT(*), -COALESCE(SUM(file_size), 0), now() " +
+                   "FROM files WHERE folder_id IN (SELECT id FROM subtree) GROUP BY 1, 2 ORDER BY 1, 2 " +
+                   "ON CONFLICT (user_id, category) DO UPDATE SET " +
+                   "file_count = user_storage_stats.file_count + EXCLUDED.file_count, " +
+                   "total_bytes = user_storage_stats.total_bytes + EXCLUDED.total_bytes, " +
+                   "updated_at = now()",
+           nativeQuery = true)
+    int subtractSubtreeStorageStats(@Param("folderId") Long folderId);
+
+    // Remove shares of files in the subtree
+    @Modifying
+    @Query(value = SUBTREE + "DELETE FROM shares WHERE file_id IN (" + SUBTREE_FILES + ")",
+           nativeQuery = true)
+    int deleteSubtreeShares(@Param("folderId") Long folderId);
+
+    // Detach upload sessions from the subtree - active uploads complete at root level instead
+    @Modifying
+    @Query(value = SUBTREE + "UPDATE upload_sessions SET folder_id = NULL WHERE folder_id IN (SELECT id FROM subtree)",
+           nativeQuery = true)
+    int detachSubtreeUploadSessionFolders(@Param("folderId") Long folderId);
+
+    // Detach completed upload sessions from the files they created in the subtree
+    @Modifying
+    @Query(value = SUBTREE + "UPDATE upload_sessions SET file_id = NULL WHERE file_id IN (" + SUBTREE_FILES + ")",
+           nativeQuery = true)
+    int detachSubtreeUploadSessionFiles(@Param("folderId") Long folderId);
+
+    // Delete every file row in the subtree
+    @Modifying
+    @Query(value = SUBTREE + "DELETE FROM files WHERE folder_id IN (SELECT id FROM subtree)",
+           nativeQuery = true)
+    int deleteSubtreeFiles(@Param("folderId") Long folderId);
+
+    // Delete the folder and all of its descendants
+    @Modifying
+    @Query(value = SUBTREE + "DELETE FROM folders WHERE id IN (SELECT id FROM subtree)",
+           nativeQuery = true)
+    int deleteSubtreeFolders(@Param("folderId") Long folderId);
+
+    // Delete the subtree's closure rows (as descendant - that covers the rows where it is ancestor too)
+    // Runs last: SUBTREE itself is read from these rows
+    @Modifying
+    @Query(value = SUBTREE + "DELETE FROM folder_closure WHERE descendant_id IN (SELECT id FROM subtree)",
+           nativeQuery = true)
+    int deleteSubtreeClosure(@Param("folderId") Long folderId);
+
+}
@@ -0,0 +1,149 @@
+package com.cloudstorage.backend.repository;
+
+import com.cloudstorage.backend.dto.CursorPage;
+import jakarta.persistence.Query;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+// Keyset - One page request of a cursor (keyset) paginated listing
+// Rows are ordered by (sort column, id) and each page starts strictly after the last row of the
+// previous one: WHERE (sort column, id) > (last value, last id). With a composite index on
+// (scope, sort column, id) every page is a single index range scan, so page 1000 costs the same
+// as page 1 - unlike OFFSET, which reads and throws away every row before the page.
+// Clients get an opaque cursor (base64 of sort, order and the last row's key) to ask for the next page.
+public class Keyset {
+
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 500;
+
+    private final String sort;          // name, size or created
+    private final boolean descending;
+    private final Object afterValue;    // sort value of the previous page's last row (null = first page)
+    private final Long afterId;
+    private final int limit;
+
+    private Keyset(String sort, boolean descending, Object afterValue, Long afterId, int limit) {
+        this.sort = sort;
+        this.descending = descending;
+        this.afterValue = afterValue;
+        this.afterId = afterId;
+        this.limit = limit;
+    }
+
+    // Builds a page request from the query parameters (all optional)
+    // sort: name (default), size or created; order: asc (default) or desc
+    // cursor: nextCursor of the previous page - must come from the same sort and order
+    public static Keyset of(String sort, String order, String cursor, Integer limit) {
+        String sortToUse = sort == null || sort.isBlank() ? "name" : sort;
+        if (!sortToUse.equals("name") && !sortToUse.equals("size") && !sortToUse.equals("created")) {
+            throw new RuntimeException("Invalid sort '" + sort + "': use name, size or created");
+        }
+        if (order != null && !order.isBlank() && !order.equalsIgnoreCase("asc") && !order.equalsIgnoreCase("desc")) {
+            throw new RuntimeException("Invalid order '" + order + "': use asc or desc");
+        }
+        boolean descending = "desc".equalsIgnoreCase(order);
+        int limitToUse = limit == null ? DEFAULT_LIMIT : Math.max(1, Math.min(limit, MAX_LIMIT));
+
+        if (cursor == null || cursor.isBlank()) {
+            return new Keyset(sortToUse, descending, null, null, limitToUse);
+        }
+
+        // Cursor layout: sort|order|id|value (value last, it may contain '|')
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", 4);
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
+        if (parts.length != 4) {
+            throw new RuntimeException("Invalid cursor");
+        }
+        if (!parts[0].equals(sortToUse) || !parts[1].equals(descending ? "desc" : "asc")) {
+            throw new RuntimeException("Cursor belongs to a different sort order - start again without a cursor");
+        }
+        try {
+            return new Keyset(sortToUse, descending, parseValue(sortToUse, parts[3]), Long.valueOf(parts[2]), limitToUse);
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
+    }
+
+    public String getSort() {
+        return sort;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    // Cursor pointing just after a row with this sort value and id
+    public String cursorAfter(Object value, Long id) {
+        String raw = sort + "|" + (descending ? "desc" : "asc") + "|" + id + "|" + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // " AND (column, idColumn) > (:afterValue, :afterId)" - empty on the first page
+    // A row-value comparison, so Postgres turns it into an index range instead of a filter
+    String condition(String column, String idColumn) {
+        if (afterValue == null) {
+            return "";
+        }
+        return " AND (" + column + ", " + idColumn + ") " + (descending ? "<" : ">") + " (:afterValue, :afterId)";
+    }
+
+    // " ORDER BY column, idColumn LIMIT :limit" - one extra row tells whether there is a next page
+    String orderBy(String column, String idColumn) {
+        String direction = descending ? " DESC" : " ASC";
+        return " ORDER BY " + column + direction + ", " + idColumn + direction + " LIMIT :limit";
+    }
+
+    // Binds the parameters used by condition() and orderBy()
+    void bind(Query query) {
+        if (afterValue != null) {
+            query.setParameter("afterValue", afterValue);
+            query.setParameter("afterId", afterId);
+        }
+        query.setParameter("limit", limit + 1);
+    }
+
+    // Column to sort on for this page, from the listing's sort-name -> column mapping
+    String column(Map<String, String> columns) {
+        String column = columns.get(sort);
+        if (column == null) {
+            throw new RuntimeException("Sorting by " + sort + " is not supported here");
+        }
+        return column;
+    }
+
+    // Trims the extra row fetched by orderBy() and builds the cursor of the next page
+    <T> CursorPage<T> toPage(List<T> rows, Function<T, Object> sortValue, Function<T, Long> id) {
+        if (rows.size() <= limit) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, limit);
+        T last = items.get(items.size() - 1);
+        return new CursorPage<>(items, cursorAfter(sortValue.apply(last), id.apply(last)));
+    }
+
+    // helper method:
+    // Parses a cursor value back into the type of the sort column
+    private static Object parseValue(String sort, String value) {
+        switch (sort) {
+            case "size":
+                return Long.valueOf(value);
+            case "created":
+                return LocalDateTime.parse(value);
+            default:
+                return value;
+        }
+    }
+
+}
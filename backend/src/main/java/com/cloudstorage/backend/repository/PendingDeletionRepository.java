@@ -0,0 +1,32 @@
+package com.cloudstorage.backend.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import com.cloudstorage.backend.entity.PendingDeletion;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface PendingDeletionRepository extends JpaRepository<PendingDeletion, Long> {
+
+    // Claim the next due deletions and lock their rows until the transaction ends
+    // SKIP LOCKED: several app instances can drain the outbox without taking the same rows
+    @Query(value = "SELECT * FROM pending_deletions WHERE next_attempt_at <= :now " +
+                   "ORDER BY next_attempt_at LIMIT :limit FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<PendingDeletion> findDueForUpdate(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    // Drop queued deletions of a key that is being stored again
+    // Waits for a worker currently deleting the key, so the new object is written after that delete
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM PendingDeletion p WHERE p.s3Key = :s3Key")
+    int deleteByS3Key(@Param("s3Key") String s3Key);
+
+    // Which of these S3 keys are already queued for deletion
+    @Query("SELECT DISTINCT p.s3Key FROM PendingDeletion p WHERE p.s3Key IN :s3Keys")
+    List<String> findS3KeysIn(@Param("s3Keys") Collection<String> s3Keys);
+}
@@ -0,0 +1,164 @@
+package com.cloudstorage.backend.repository;
+
+import jakarta.persistence.Query;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Locale;
+
+// SearchQuery - One page request of a filename search (see SearchRepository)
+// Holds the normalized term, which kinds of item to search, and where the page starts.
+// Results are ordered by (rank desc, lowercased name, kind, id); like Keyset, each page starts
+// strictly after the last row of the previous one, carried in an opaque cursor.
+public class SearchQuery {
+
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 200;
+    public static final int MAX_TERM_LENGTH = 100;
+
+    // Shorter terms have no complete trigram - they only match name prefixes
+    public static final int MIN_FUZZY_LENGTH = 3;
+
+    private final String term;          // trimmed, lowercased
+    private final String type;          // all, files or folders
+    private final Integer afterRank;    // key of the previous page's last row (null = first page)
+    private final Integer afterKind;
+    private final Long afterId;
+    private final String afterName;
+    private final int limit;
+
+    private SearchQuery(String term, String type, Integer afterRank, Integer afterKind, Long afterId,
+                        String afterName, int limit) {
+        this.term = term;
+        this.type = type;
+        this.afterRank = afterRank;
+        this.afterKind = afterKind;
+        this.afterId = afterId;
+        this.afterName = afterName;
+        this.limit = limit;
+    }
+
+    // Builds a search request from the query parameters
+    // q: the text to look for (required); type: all (default), files or folders
+    // cursor: nextCursor of the previous page - must come from the same q and type
+    public static SearchQuery of(String q, String type, String cursor, Integer limit) {
+        String termToUse = q == null ? "" : q.trim().toLowerCase(Locale.ROOT);
+        if (termToUse.isEmpty()) {
+            throw new RuntimeException("Search term is required");
+        }
+        if (termToUse.length() > MAX_TERM_LENGTH) {
+            throw new RuntimeException("Search term must be at most " + MAX_TERM_LENGTH + " characters");
+        }
+        String typeToUse = type == null || type.isBlank() ? "all" : type.trim().toLowerCase(Locale.ROOT);
+        if (!typeToUse.equals("all") && !typeToUse.equals("files") && !typeToUse.equals("folders")) {
+            throw new RuntimeException("Invalid type '" + type + "': use all, files or folders");
+        }
+        int limitToUse = limit == null ? DEFAULT_LIMIT : Math.max(1, Math.min(limit, MAX_LIMIT));
+
+        if (cursor == null || cursor.isBlank()) {
+            return new SearchQuery(termToUse, typeToUse, null, null, null, null, limitToUse);
+        }
+
+        // Cursor layout: type|rank|kind|id|term|name - the term is checked so a cursor can't be
+        // replayed against a different search (name last, it may contain '|')
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", 6);
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
+        if (parts.length != 6) {
+            throw new RuntimeException("Invalid cursor");
+        }
+        if (!parts[0].equals(typeToUse) || !parts[4].equals(Integer.toHexString(termToUse.hashCode()))) {
+            throw new RuntimeException("Cursor belongs to a different search - start again without a cursor");
+        }
+        try {
+            return new SearchQuery(termToUse, typeToUse, Integer.valueOf(parts[1]), Integer.valueOf(parts[2]),
+                Long.valueOf(parts[3]), parts[5], limitToUse);
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
+    }
+
+    public String getTerm() {
+        return term;
+    }
+
+    public boolean includesFiles() {
+        return !type.equals("folders");
+    }
+
+    public boolean includesFolders() {
+        return !type.equals("files");
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    // Long enough for trigram (substring and fuzzy) matching, not just prefixes
+    public boolean isFuzzy() {
+        return term.codePointCount(0, term.length()) >= MIN_FUZZY_LENGTH;
+    }
+
+    // Cursor pointing just after a row with this key
+    public String cursorAfter(int rank, int kind, Long id, String name) {
+        String raw = type + "|" + rank + "|" + kind + "|" + id + "|" + Integer.toHexString(term.hashCode()) + "|" + name;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // LIKE pattern matching names that start with the term (wildcards in the term escaped)
+    String prefixPattern() {
+        return escapeLike(term) + "%";
+    }
+
+    // LIKE pattern matching names that contain the term
+    String containsPattern() {
+        return "%" + escapeLike(term) + "%";
+    }
+
+    // Smallest string above every string starting with the term, in byte order (text_pattern_ops):
+    // the term with its last character incremented. Lets the prefix match be a plain index range
+    // even in a generic (parameterized) plan, which can't turn LIKE 'term%' into one.
+    String prefixUpperBound() {
+        int last = term.codePointBefore(term.length());
+        int lastStart = term.offsetByCodePoints(term.length(), -1);
+        int next = last + 1;
+        if (next >= Character.MIN_SURROGATE && next <= Character.MAX_SURROGATE) {
+            next = Character.MAX_SURROGATE + 1;
+        }
+        if (next > Character.MAX_CODE_POINT) {
+            return null; // Nothing sorts above it - the range stays open-ended
+        }
+        return term.substring(0, lastStart) + new String(Character.toChars(next));
+    }
+
+    // " AND (rank < :afterRank OR (rank = :afterRank AND (sort_name, kind, id) > (...)))" - empty on the first page
+    String condition() {
+        if (afterRank == null) {
+            return "";
+        }
+        return " AND (rank < :afterRank OR (rank = :afterRank AND (sort_name, kind, id) > (:afterName, :afterKind, :afterId)))";
+    }
+
+    // Binds the term parameters and those used by condition()
+    void bind(Query query) {
+        query.setParameter("term", term);
+        query.setParameter("prefix", prefixPattern());
+        query.setParameter("contains", containsPattern());
+        if (afterRank != null) {
+            query.setParameter("afterRank", afterRank);
+            query.setParameter("afterName", afterName);
+            query.setParameter("afterKind", afterKind);
+            query.setParameter("afterId", afterId);
+        }
+        query.setParameter("limit", limit + 1); // One extra row tells whether there is a next page
+    }
+
+    // helper method:
+    // Escapes LIKE wildcards (the default escape character is the backslash)
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+}
@@ -0,0 +1,148 @@
+package com.cloudstorage.backend.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+import com.cloudstorage.backend.dto.CursorPage;
+import com.cloudstorage.backend.dto.SearchResult;
+import com.cloudstorage.backend.entity.FileCategory;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.query.NativeQuery;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// SearchRepository - Per-owner filename search over files and folders, in one statement
+// Served by two indexes per table (see DatabaseInitializer.createSearchIndexes):
+//  - a btree on (owner_id, lower(name) text_pattern_ops): names starting with the term,
+//    read in name order - the only match for terms under three characters
+//  - a pg_trgm GIN index on (owner_id, lower(name)): names containing the term (LIKE '%term%')
+//    or similar to it (word_similarity, so typos still match), for longer terms
+// Each kind contributes at most search.maxCandidates matches of each sort, picked in a fixed
+// order (so every page sees the same ones), and a term matching most of a user's names still
+// costs a bounded amount of work. The candidates are then ranked (whole name > prefix >
+// substring > similar, then by similarity) and paged with a cursor.
+// Without the pg_trgm extension (see DatabaseInitializer) search falls back to prefix and
+// substring (LIKE) matches only, ranked by match class - similar names no longer match.
+@Repository
+public class SearchRepository {
+
+    private static final int FOLDER = 0;
+    private static final int FILE = 1;
+
+    // Rank of a lowercased name: match class (thousands) plus trigram similarity (0-999, pg_trgm only)
+    private static final String RANK = "CASE WHEN %1$s = :term THEN 3000 WHEN %1$s LIKE :prefix THEN 2000 " +
+        "WHEN %1$s LIKE :contains THEN 1000 ELSE 0 END";
+    private static final String SIMILARITY = " + CAST(word_similarity(:term, %1$s) * 999 AS int)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Candidate matches read per kind and match sort (prefix / trigram)
+    @Value("${search.maxCandidates:1000}")
+    private int maxCandidates;
+
+    // Whether pg_trgm is installed - looked up on the first search (null until then)
+    private volatile Boolean trigrams;
+
+    // One page of an owner's files and/or folders matching the search, best matches first
+    public CursorPage<SearchResult> search(Long ownerId, SearchQuery search) {
+        boolean trigrams = hasTrigrams();
+        String rank = RANK + (trigrams ? SIMILARITY : "");
+        List<String> ctes = new ArrayList<>();
+        List<String> hits = new ArrayList<>();
+        if (search.includesFiles()) {
+            ctes.add("file_hits AS (" + candidates("files", "filename", search, trigrams) + ")");
+            hits.add("SELECT " + FILE + " AS kind, f.id, f.filename AS name, f.folder_id AS parent_id, " +
+                "f.file_size AS size, f.mime_type, f.category, f.created_at, f.updated_at, " +
+                String.format(rank, "lower(f.filename)") + " AS rank, lower(f.filename) AS sort_name " +
+                "FROM files f WHERE f.id IN (SELECT id FROM file_hits)");
+        }
+        if (search.includesFolders()) {
+            ctes.add("folder_hits AS (" + candidates("folders", "name", search, trigrams) + ")");
+            hits.add("SELECT " + FOLDER + " AS kind, d.id, d.name, d.parent_id, d.total_bytes AS size, " +
+                "CAST(NULL AS varchar) AS mime_type, CAST(NULL AS varchar) AS category, d.created_at, d.updated_at, " +
+                String.format(rank, "lower(d.name)") + " AS rank, lower(d.name) AS sort_name " +
+                "FROM folders d WHERE d.id IN (SELECT id FROM folder_hits)");
+        }
+
+        @SuppressWarnings("unchecked")
+        NativeQuery<Object[]> query = entityManager.createNativeQuery(
+            "WITH " + String.join(", ", ctes) + " " +
+            "SELECT * FROM (" + String.join(" UNION ALL ", hits) + ") hits WHERE TRUE" + search.condition() +
+            " ORDER BY rank DESC, sort_name, kind, id LIMIT :limit")
+            .unwrap(NativeQuery.class)
+            .addScalar("kind", Integer.class)
+            .addScalar("id", Long.class)
+            .addScalar("name", String.class)
+            .addScalar("parent_id", Long.class)
+            .addScalar("size", Long.class)
+            .addScalar("mime_type", String.class)
+            .addScalar("category", String.class)
+            .addScalar("created_at", LocalDateTime.class)
+            .addScalar("updated_at", LocalDateTime.class)
+            .addScalar("rank", Integer.class)
+            .addScalar("sort_name", String.class);
+        query.setParameter("ownerId", ownerId);
+        query.setParameter("candidates", maxCandidates);
+        String upperBound = search.prefixUpperBound();
+        if (upperBound != null) {
+            query.setParameter("prefixEnd", upperBound);
+        }
+        search.bind(query);
+
+        List<Object[]> rows = query.getResultList();
+        boolean hasMore = rows.size() > search.getLimit();
+        if (hasMore) {
+            rows = rows.subList(0, search.getLimit());
+        }
+
+        List<SearchResult> items = rows.stream()
+            .map(row -> new SearchResult((Integer) row[0] == FILE ? "file" : "folder", (Long) row[1],
+                (String) row[2], (Long) row[3], (Long) row[4], (String) row[5],
+                row[6] != null ? FileCategory.valueOf((String) row[6]) : null,
+                (LocalDateTime) row[7], (LocalDateTime) row[8]))
+            .toList();
+        String nextCursor = null;
+        if (hasMore) {
+            Object[] last = rows.get(rows.size() - 1);
+            nextCursor = search.cursorAfter((Integer) last[9], (Integer) last[0], (Long) last[1], (String) last[10]);
+        }
+        return new CursorPage<>(items, nextCursor);
+    }
+
+    // helper method:
+    // pg_trgm may be missing when the database role couldn't create it - checked once, it only
+    // changes when the extension is installed and the app restarted
+    private boolean hasTrigrams() {
+        Boolean installed = trigrams;
+        if (installed == null) {
+            installed = (Boolean) entityManager.createNativeQuery(
+                "SELECT EXISTS (SELECT 1 FROM pg_extension WHERE extname = 'pg_trgm')").getSingleResult();
+            if (!installed) {
+                System.err.println("pg_trgm is not installed - search only matches name prefixes and substrings");
+            }
+            trigrams = installed;
+        }
+        return installed;
+    }
+
+    // helper method:
+    // Ids of one table's candidate matches: prefix matches in name order (btree range), plus -
+    // for terms long enough to have trigrams - substring and (with pg_trgm) similar-name matches (GIN)
+    private static String candidates(String table, String nameColumn, SearchQuery search, boolean trigrams) {
+        String name = "lower(" + nameColumn + ")";
+        String prefixRange = name + " ~>=~ :term" + (search.prefixUpperBound() != null ? " AND " + name + " ~<~ :prefixEnd" : "");
+        String sql = "(SELECT id FROM " + table + " WHERE owner_id = :ownerId AND " + prefixRange +
+            " ORDER BY " + name + " USING ~<~ LIMIT :candidates)";
+        if (search.isFuzzy()) {
+            // Ordered before the LIMIT, so every page of a search sees the same candidates
+            String similar = trigrams ? " OR :term <% " + name : "";
+            String order = trigrams ? "word_similarity(:term, " + name + ") DESC, id" : "id";
+            sql += " UNION (SELECT id FROM " + table + " WHERE owner_id = :ownerId AND (" + name + " LIKE :contains" +
+                similar + ") ORDER BY " + order + " LIMIT :candidates)";
+        }
+        return sql;
+    }
+
+}
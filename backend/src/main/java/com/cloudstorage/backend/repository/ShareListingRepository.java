@@ -0,0 +1,12 @@
+package com.cloudstorage.backend.repository;
+
+import com.cloudstorage.backend.dto.CursorPage;
+import com.cloudstorage.backend.dto.ShareSummary;
+
+// Keyset-paginated "shared with me" listing, see Keyset
+public interface ShareListingRepository {
+
+    // Shares received by a user, sorted by the shared file's name or size, or by when it was shared
+    CursorPage<ShareSummary> findPageBySharedWith(Long sharedWithId, Keyset keyset);
+
+}
@@ -0,0 +1,67 @@
+package com.cloudstorage.backend.repository;
+
+import com.cloudstorage.backend.dto.CursorPage;
+import com.cloudstorage.backend.dto.ShareSummary;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.query.NativeQuery;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+// Native keyset query behind ShareListingRepository
+// "created" (date shared) is served by the (shared_with_id, shared_date, id) index on shares;
+// name and size live on files, so those orders join and sort the user's shares
+// The file's columns come from the same join, straight into ShareSummary - one statement per page
+public class ShareListingRepositoryImpl implements ShareListingRepository {
+
+    private static final Map<String, String> SORT_COLUMNS = Map.of(
+        "name", "f.filename",
+        "size", "f.file_size",
+        "created", "s.shared_date");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public CursorPage<ShareSummary> findPageBySharedWith(Long sharedWithId, Keyset keyset) {
+        String column = keyset.column(SORT_COLUMNS);
+        @SuppressWarnings("unchecked")
+        NativeQuery<Object[]> query = entityManager.createNativeQuery(
+            "SELECT s.id, s.permission, f.id AS file_id, f.filename, f.file_size, f.mime_type, s.shared_with_id, " +
+            "s.shared_date, s.updated_at FROM shares s JOIN files f ON f.id = s.file_id WHERE s.shared_with_id = :sharedWithId" +
+            keyset.condition(column, "s.id") + keyset.orderBy(column, "s.id"))
+            .unwrap(NativeQuery.class)
+            .addScalar("id", Long.class)
+            .addScalar("permission", String.class)
+            .addScalar("file_id", Long.class)
+            .addScalar("filename", String.class)
+            .addScalar("file_size", Long.class)
+            .addScalar("mime_type", String.class)
+            .addScalar("shared_with_id", Long.class)
+            .addScalar("shared_date", LocalDateTime.class)
+            .addScalar("updated_at", LocalDateTime.class);
+        query.setParameter("sharedWithId", sharedWithId);
+        keyset.bind(query);
+
+        List<ShareSummary> rows = query.getResultList().stream()
+            .map(row -> new ShareSummary((Long) row[0], (String) row[1], (Long) row[2], (String) row[3], (Long) row[4],
+                (String) row[5], (Long) row[6], (LocalDateTime) row[7], (LocalDateTime) row[8]))
+            .toList();
+        return keyset.toPage(rows, share -> sortValue(share, keyset.getSort()), ShareSummary::getId);
+    }
+
+    // helper method:
+    // Value of the sort column, for the next page's cursor
+    private static Object sortValue(ShareSummary share, String sort) {
+        switch (sort) {
+            case "size":
+                return share.getFileSize();
+            case "created":
+                return share.getSharedDate();
+            default:
+                return share.getFilename();
+        }
+    }
+
+}
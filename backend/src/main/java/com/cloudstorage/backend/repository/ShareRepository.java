@@ -1,10 +1,13 @@
 package com.cloudstorage.backend.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import com.cloudstorage.backend.dto.ShareSummary;
 import com.cloudstorage.backend.entity.Share;
 import java.util.List;
 
-public interface ShareRepository extends JpaRepository<Share, Long> {
+public interface ShareRepository extends JpaRepository<Share, Long>, ShareListingRepository {
 
     // Find shares by file (using JPA property path syntax)
     List<Share> findByFile_Id(Long fileId);
@@ -21,4 +24,21 @@ public interface ShareRepository extends JpaRepository<Share, Long> {
     // Find shares by permission type (this one stays the same - no relationship involved)
     List<Share> findByPermission(String permission);
 
+    // Listings select straight into ShareSummary, joining the shared file in the same statement
+    // (s.sharedWith.id reads the foreign key column, it doesn't join)
+    String SHARE_SUMMARY = "SELECT new com.cloudstorage.backend.dto.ShareSummary(s.id, s.permission, f.id, f.filename, " +
+                           "f.fileSize, f.mimeType, s.sharedWith.id, s.sharedDate, s.updatedAt) FROM Share s JOIN s.file f ";
+
+    // Summaries of the shares of a file
+    @Query(SHARE_SUMMARY + "WHERE f.id = :fileId")
+    List<ShareSummary> findSummariesByFileId(@Param("fileId") Long fileId);
+
+    // Summaries of the shares a user received
+    @Query(SHARE_SUMMARY + "WHERE s.sharedWith.id = :sharedWithId")
+    List<ShareSummary> findSummariesBySharedWithId(@Param("sharedWithId") Long sharedWithId);
+
+    // Summaries of the shares with a permission type
+    @Query(SHARE_SUMMARY + "WHERE s.permission = :permission")
+    List<ShareSummary> findSummariesByPermission(@Param("permission") String permission);
+
 }
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.cloudstorage.backend.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import com.cloudstorage.backend.entity.UploadPart;
+import java.util.List;
+import java.util.Optional;
+
+public interface UploadPartRepository extends JpaRepository<UploadPart, Long> {
+
+    // All chunks received for a session, in part order (ready for CompleteMultipartUpload)
+    List<UploadPart> findBySession_IdOrderByPartNumberAsc(Long sessionId);
+
+    // Find a specific chunk (used when a chunk is re-sent)
+    Optional<UploadPart> findBySession_IdAndPartNumber(Long sessionId, Integer partNumber);
+
+}
@@ -0,0 +1,39 @@
+package com.cloudstorage.backend.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import com.cloudstorage.backend.entity.UploadSession;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface UploadSessionRepository extends JpaRepository<UploadSession, Long> {
+
+    // Find sessions by owner (using JPA property path syntax)
+    List<UploadSession> findByOwner_IdAndStatus(Long ownerId, String status);
+
+    // Find sessions with no activity since the cutoff (abandoned uploads)
+    List<UploadSession> findByStatusAndUpdatedAtBefore(String status, LocalDateTime cutoff);
+
+    // Move a session from one status to another only if it is still in the expected one
+    // Returns 0 when another request got there first
+    @Modifying
+    @Transactional
+    @Query("UPDATE UploadSession s SET s.status = :newStatus, s.updatedAt = CURRENT_TIMESTAMP WHERE s.id = :id AND s.status = :expectedStatus")
+    int updateStatus(@Param("id") Long id, @Param("expectedStatus") String expectedStatus, @Param("newStatus") String newStatus);
+
+    // Mark an active session as used just now, without writing back the rest of the entity
+    // Returns 0 once a commit has claimed the session (or it is gone)
+    @Modifying
+    @Transactional
+    @Query("UPDATE UploadSession s SET s.updatedAt = CURRENT_TIMESTAMP WHERE s.id = :id AND s.status = 'ACTIVE'")
+    int touchActive(@Param("id") Long id);
+
+    // Detach completed sessions from a file that is being deleted (upload_sessions.file_id is a foreign key)
+    @Modifying
+    @Query("UPDATE UploadSession s SET s.file = NULL WHERE s.file.id = :fileId")
+    int detachFile(@Param("fileId") Long fileId);
+
+}
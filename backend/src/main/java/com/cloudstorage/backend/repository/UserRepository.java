@@ -1,7 +1,9 @@
 package com.cloudstorage.backend.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import com.cloudstorage.backend.entity.User; 
+import java.util.List;
 
 public interface UserRepository extends JpaRepository<User, Long> {
 
@@ -11,4 +13,8 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     User findByCognitoUserId(String cognitoUserId);
 
+    // Ids of all users (for background jobs that go user by user)
+    @Query("SELECT u.id FROM User u ORDER BY u.id")
+    List<Long> findAllIds();
+
 }
@@ -0,0 +1,50 @@
+package com.cloudstorage.backend.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import com.cloudstorage.backend.entity.FileCategory;
+import com.cloudstorage.backend.entity.UserStorageStats;
+import java.util.List;
+
+public interface UserStorageStatsRepository extends JpaRepository<UserStorageStats, Long> {
+
+    // Actual totals of one category, computed from the files table
+    interface CategoryTotals {
+        String getCategory();
+        Long getFileCount();
+        Long getTotalBytes();
+    }
+
+    // Find all category rows of a user
+    List<UserStorageStats> findByUserId(Long userId);
+
+    // Add a delta to one (user, category) row in one atomic statement, creating the row on first use
+    // The row stays locked until the transaction ends, so concurrent deltas queue up instead of getting lost
+    @Modifying
+    @Query(value = "INSERT INTO user_storage_stats (user_id, category, file_count, total_bytes, updated_at) " +
+                   "VALUES (:userId, :category, :fileCount, :totalBytes, now()) " +
+                   "ON CONFLICT (user_id, category) DO UPDATE SET " +
+                   "file_count = user_storage_stats.file_count + EXCLUDED.file_count, " +
+                   "total_bytes = user_storage_stats.total_bytes + EXCLUDED.total_bytes, " +
+                   "updated_at = now()",
+           nativeQuery = true)
+    int addDelta(@Param("userId") Long userId, @Param("category") String category,
+                 @Param("fileCount") long fileCount, @Param("totalBytes") long totalBytes);
+
+    // Recount a user's files per category (used by the repair job)
+    @Query(value = "SELECT category, COUNT(*) AS fileCount, " +
+                   "CAST(COALESCE(SUM(file_size), 0) AS bigint) AS totalBytes " +
+                   "FROM files WHERE owner_id = :userId GROUP BY 1",
+           nativeQuery = true)
+    List<CategoryTotals> countFilesByCategory(@Param("userId") Long userId);
+
+    // Overwrite one row with recounted totals
+    @Modifying
+    @Query("UPDATE UserStorageStats s SET s.fileCount = :fileCount, s.totalBytes = :totalBytes, s.updatedAt = CURRENT_TIMESTAMP " +
+           "WHERE s.userId = :userId AND s.category = :category")
+    int setTotals(@Param("userId") Long userId, @Param("category") FileCategory category,
+                  @Param("fileCount") long fileCount, @Param("totalBytes") long totalBytes);
+
+}
@@ -0,0 +1,149 @@
+package com.cloudstorage.backend.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
+import com.cloudstorage.backend.entity.Blob;
+import com.cloudstorage.backend.entity.PendingDeletion;
+import com.cloudstorage.backend.repository.BlobRepository;
+import com.cloudstorage.backend.repository.PendingDeletionRepository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+
+
+// BlobStorageService - Content-addressed, deduplicated file storage
+// When enabled, uploads are stored once per unique content under blobs/<sha256>.
+// Re-uploading bytes that already exist only adds a reference - no S3 PUT at all.
+// Deleting a file releases its reference; the S3 object goes away with the last one
+// (queued in the deletion outbox, see DeletionOutboxService).
+@Service
+public class BlobStorageService {
+
+    // S3 prefix for deduplicated content (regular uploads live under files/)
+    public static final String BLOB_PREFIX = "blobs/";
+
+    private final BlobRepository blobRepository;
+    // Outbox rows are written directly - DeletionOutboxService depends on the storage backend, which depends on us
+    private final PendingDeletionRepository pendingDeletionRepository;
+    private final S3Service s3Service;
+    private final MultipartUploadService multipartUploadService;
+
+    // Turns content-addressed storage on for new uploads (existing files/ keys keep working either way)
+    @Value("${aws.s3.dedup.enabled:false}")
+    private boolean enabled;
+
+    // Read buffer used while hashing the upload
+    @Value("${aws.s3.upload.bufferSize:65536}")
+    private int hashBufferSize;
+
+    public BlobStorageService(BlobRepository blobRepository, PendingDeletionRepository pendingDeletionRepository,
+                              S3Service s3Service, MultipartUploadService multipartUploadService) {
+        this.blobRepository = blobRepository;
+        this.pendingDeletionRepository = pendingDeletionRepository;
+        this.s3Service = s3Service;
+        this.multipartUploadService = multipartUploadService;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Checks whether an S3 key points at shared, reference-counted content
+    public boolean isBlobKey(String s3Key) {
+        return s3Key != null && s3Key.startsWith(BLOB_PREFIX);
+    }
+
+    // Store an upload and return the S3 key the File record should point at
+    // Existing content: reference count goes up, nothing is sent to S3
+    // New content: streamed to S3 under its digest, then registered with one reference
+    public String storeFile(MultipartFile file) throws IOException {
+        String digest = computeDigest(file);
+        String s3Key = BLOB_PREFIX + digest;
+
+        // Fast path - same bytes already stored
+        if (blobRepository.incrementRefCount(digest) > 0) {
+            System.out.println("Duplicate upload, reusing existing blob: " + s3Key);
+            return s3Key;
+        }
+
+        // The last reference may have just been released with the object still queued for deletion
+        // Un-queue it first - this waits for a worker already deleting it, so our PUT lands after that
+        pendingDeletionRepository.deleteByS3Key(s3Key);
+
+        // New content - upload it (large files through the multipart engine)
+        if (multipartUploadService.shouldUseMultipart(file.getSize())) {
+            multipartUploadService.uploadFile(file, s3Key);
+        } else {
+            s3Service.uploadFile(file, s3Key);
+        }
+
+        try {
+            blobRepository.save(new Blob(digest, s3Key, file.getSize()));
+        } catch (DataIntegrityViolationException e) {
+            // Another request uploaded the same content at the same time and registered it first
+            // Both PUTs wrote identical bytes to the same key, so just add our reference
+            if (blobRepository.incrementRefCount(digest) == 0) {
+                throw new RuntimeException("Failed to register blob " + digest, e);
+            }
+        }
+        return s3Key;
+    }
+
+    // Release one reference to a blob after its File record was deleted
+    // Queues the S3 object for deletion when this was the last reference
+    // Returns false for keys that are not blobs (caller deletes those itself)
+    @Transactional
+    public boolean release(String s3Key) {
+        if (!isBlobKey(s3Key)) {
+            return false;
+        }
+
+        // Row lock makes concurrent uploads of the same content wait until we are done
+        Optional<Blob> blobOpt = blobRepository.findForUpdateByS3Key(s3Key);
+        if (blobOpt.isEmpty()) {
+            System.err.println("Blob not registered, nothing to release: " + s3Key);
+            return true;
+        }
+
+        Blob blob = blobOpt.get();
+        if (blob.getRefCount() > 1) {
+            blob.setRefCount(blob.getRefCount() - 1);
+            blobRepository.save(blob);
+            return true;
+        }
+
+        // Last reference: queue the object for deletion and remove the row, in the caller's transaction
+        // A concurrent upload of the same bytes will find no row, un-queue the key and upload a fresh copy
+        pendingDeletionRepository.save(new PendingDeletion(s3Key));
+        blobRepository.delete(blob);
+        return true;
+    }
+
+    // helper method:
+    // SHA-256 of the upload, read from the spooled temp file in bounded chunks
+    private String computeDigest(MultipartFile file) throws IOException {
+        MessageDigest sha256;
+        try {
+            sha256 = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+
+        byte[] buffer = new byte[hashBufferSize];
+        try (InputStream in = file.getInputStream()) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                sha256.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(sha256.digest());
+    }
+
+}
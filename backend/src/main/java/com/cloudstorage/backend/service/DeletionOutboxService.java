@@ -0,0 +1,121 @@
+package com.cloudstorage.backend.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import com.cloudstorage.backend.entity.PendingDeletion;
+import com.cloudstorage.backend.repository.PendingDeletionRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+// DeletionOutboxService - Deletes stored content in the background, in batches
+// Deleting a file only writes a pending_deletions row in the same transaction as the
+// metadata delete (one DB write on the request path). The worker below claims due rows,
+// deletes their objects with one DeleteObjects call per batch, and retries failures
+// with exponential backoff - so objects are never leaked by a failed or skipped delete.
+@Service
+public class DeletionOutboxService {
+
+    // DeleteObjects accepts at most 1000 keys per request
+    private static final int MAX_BATCH_SIZE = 1000;
+
+    private final PendingDeletionRepository pendingDeletionRepository;
+    private final StorageBackend storageBackend;
+    private final TransactionTemplate transactionTemplate;
+
+    // Keys deleted per batch (capped at 1000)
+    @Value("${storage.deletion.batchSize:1000}")
+    private int batchSize;
+
+    // Delay before the first retry of a failed delete (ms) - doubles with every failure
+    @Value("${storage.deletion.retryBaseMs:10000}")
+    private long retryBaseMs;
+
+    // Longest delay between retries (ms)
+    @Value("${storage.deletion.retryMaxMs:3600000}")
+    private long retryMaxMs;
+
+    public DeletionOutboxService(PendingDeletionRepository pendingDeletionRepository, StorageBackend storageBackend,
+                                 TransactionTemplate transactionTemplate) {
+        this.pendingDeletionRepository = pendingDeletionRepository;
+        this.storageBackend = storageBackend;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    // Queue a key for deletion - must run inside the transaction that removes its metadata
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(String s3Key) {
+        pendingDeletionRepository.save(new PendingDeletion(s3Key));
+    }
+
+    // Background worker: drains the outbox, one transaction per batch
+    // Keeps going while batches come back full, so a backlog clears in one run
+    @Scheduled(fixedDelayString = "${storage.deletion.intervalMs:5000}")
+    public void processPendingDeletions() {
+        int limit = Math.min(batchSize, MAX_BATCH_SIZE);
+        int processed;
+        do {
+            Integer result = transactionTemplate.execute(status -> processBatch(limit));
+            processed = result != null ? result : 0;
+        } while (processed == limit);
+    }
+
+    // helper method:
+    // Deletes one batch of due keys; their rows stay locked until the objects are gone,
+    // which is what makes a re-upload of the same key (see BlobStorageService) wait for it
+    // Returns the number of rows claimed
+    private int processBatch(int limit) {
+        List<PendingDeletion> batch = pendingDeletionRepository.findDueForUpdate(LocalDateTime.now(), limit);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        List<String> keys = batch.stream().map(PendingDeletion::getS3Key).distinct().toList();
+        Map<String, String> failed;
+        try {
+            failed = storageBackend.deleteAll(keys);
+        } catch (RuntimeException e) {
+            // Whole request failed (e.g. S3 unreachable) - retry every key later
+            failed = new HashMap<>();
+            for (String key : keys) {
+                failed.put(key, e.getMessage());
+            }
+        }
+
+        for (PendingDeletion deletion : batch) {
+            if (failed.containsKey(deletion.getS3Key())) {
+                scheduleRetry(deletion, failed.get(deletion.getS3Key()));
+            } else {
+                pendingDeletionRepository.delete(deletion);
+            }
+        }
+        if (!failed.isEmpty()) {
+            System.err.println("Storage delete failed for " + failed.size() + " keys, will retry: " + failed.keySet());
+        }
+        return batch.size();
+    }
+
+    // helper method:
+    // Exponential backoff: retryBaseMs, 2x, 4x ... capped at retryMaxMs
+    private void scheduleRetry(PendingDeletion deletion, String error) {
+        int attempts = deletion.getAttempts() + 1;
+        long delayMs = retryBaseMs << Math.min(attempts - 1, 30);
+        if (delayMs <= 0 || delayMs > retryMaxMs) {
+            delayMs = retryMaxMs;
+        }
+
+        deletion.setAttempts(attempts);
+        deletion.setNextAttemptAt(LocalDateTime.now().plus(Duration.ofMillis(delayMs)));
+        deletion.setLastError(error != null && error.length() > 1000 ? error.substring(0, 1000) : error);
+        pendingDeletionRepository.save(deletion);
+    }
+
+}
@@ -0,0 +1,189 @@
+package com.cloudstorage.backend.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import com.cloudstorage.backend.entity.DirectUpload;
+import com.cloudstorage.backend.entity.File;
+import com.cloudstorage.backend.entity.User;
+import com.cloudstorage.backend.repository.DirectUploadRepository;
+import com.cloudstorage.backend.repository.UserRepository;
+
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.NoSuchUploadException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+
+// DirectUploadService - Business logic for browser-to-S3 uploads
+// The backend only hands out pre-signed URLs and records metadata; the file
+// bytes go straight from the browser to S3. Small files use one pre-signed PUT,
+// large files use pre-signed multipart part URLs (same threshold as proxied uploads).
+// Every key handed out is recorded (DirectUpload), and only those keys can be finalized.
+// Only registered with the S3 storage backend - the files would be unreadable otherwise.
+@Service
+@ConditionalOnProperty(name = "storage.backend", havingValue = "s3", matchIfMissing = true)
+public class DirectUploadService {
+
+    // How long the pre-signed upload URLs stay valid
+    private static final int UPLOAD_URL_EXPIRATION_MINUTES = 60;
+
+    private final S3Service s3Service;
+    private final MultipartUploadService multipartUploadService;
+    private final FileService fileService;
+    private final UserRepository userRepository;
+    private final DirectUploadRepository directUploadRepository;
+    private final DeletionOutboxService deletionOutboxService;
+    private final TransactionTemplate transactionTemplate;
+
+    // Largest file the backend will hand out upload URLs for (default 500MB, same as proxied uploads)
+    @Value("${uploads.direct.maxFileSize:524288000}")
+    private long maxFileSize;
+
+    // Issued keys not finalized within this many hours are cleaned up (the URLs expire long before)
+    @Value("${uploads.direct.expiryHours:24}")
+    private long expiryHours;
+
+    public DirectUploadService(S3Service s3Service, MultipartUploadService multipartUploadService, FileService fileService,
+                               UserRepository userRepository, DirectUploadRepository directUploadRepository,
+                               DeletionOutboxService deletionOutboxService, TransactionTemplate transactionTemplate) {
+        this.s3Service = s3Service;
+        this.multipartUploadService = multipartUploadService;
+        this.fileService = fileService;
+        this.userRepository = userRepository;
+        this.directUploadRepository = directUploadRepository;
+        this.deletionOutboxService = deletionOutboxService;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    // Step 1: reserve an S3 key and return the URL(s) the browser should upload to
+    // Single PUT response:  { s3Key, uploadUrl }
+    // Multipart response:   { s3Key, uploadId, partSize, partUrls: [url for part 1, part 2, ...] }
+    public Map<String, Object> prepareUpload(String filename, Long fileSize, String contentType, Long ownerId) {
+
+        if (filename == null || filename.trim().isEmpty()) {
+            throw new RuntimeException("Filename cannot be empty");
+        }
+        if (fileSize == null || fileSize <= 0 || fileSize > maxFileSize) {
+            throw new RuntimeException("File size must be between 1 and " + maxFileSize + " bytes");
+        }
+        User owner = userRepository.findById(ownerId)
+            .orElseThrow(() -> new RuntimeException("User not found with ID: " + ownerId));
+
+        String mimeType = contentType != null ? contentType : "application/octet-stream";
+        String s3Key = s3Service.generateS3Key(filename);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("s3Key", s3Key);
+
+        if (!multipartUploadService.shouldUseMultipart(fileSize)) {
+            directUploadRepository.save(new DirectUpload(s3Key, null, fileSize, mimeType, owner));
+            response.put("uploadUrl", s3Service.generateUploadUrl(s3Key, mimeType, fileSize, UPLOAD_URL_EXPIRATION_MINUTES));
+            return response;
+        }
+
+        // Large file: one pre-signed URL per part, uploaded by the browser in parallel
+        long partSize = multipartUploadService.getEffectivePartSize(fileSize);
+        int partCount = (int) ((fileSize + partSize - 1) / partSize);
+        String uploadId = s3Service.startMultipartUpload(s3Key, mimeType);
+        directUploadRepository.save(new DirectUpload(s3Key, uploadId, fileSize, mimeType, owner));
+
+        List<String> partUrls = new ArrayList<>();
+        for (int partNumber = 1; partNumber <= partCount; partNumber++) {
+            partUrls.add(s3Service.generateUploadPartUrl(s3Key, uploadId, partNumber, UPLOAD_URL_EXPIRATION_MINUTES));
+        }
+
+        response.put("uploadId", uploadId);
+        response.put("partSize", partSize);
+        response.put("partUrls", partUrls);
+        return response;
+    }
+
+    // Step 2: after the browser finished uploading, confirm the object exists and save its metadata
+    // For multipart uploads, parts holds the partNumber -> ETag pairs the browser collected
+    public File finalizeUpload(String s3Key, String filename, Long ownerId, Long folderId,
+                               String uploadId, List<Map<String, Object>> parts) {
+
+        // Only keys handed out by prepareUpload can be finalized - by the same user, and only once
+        DirectUpload issued = directUploadRepository.findByS3Key(s3Key)
+            .orElseThrow(() -> new RuntimeException("Unknown or already finalized upload: " + s3Key));
+        if (!issued.getOwner().getId().equals(ownerId)) {
+            throw new RuntimeException("Upload " + s3Key + " was not issued to user " + ownerId);
+        }
+        if (!Objects.equals(uploadId, issued.getUploadId())) {
+            throw new RuntimeException("Upload ID does not match the one issued for " + s3Key);
+        }
+
+        if (uploadId != null) {
+            if (parts == null || parts.isEmpty()) {
+                throw new RuntimeException("Parts are required to finalize a multipart upload");
+            }
+            List<CompletedPart> completedParts = parts.stream()
+                .map(part -> CompletedPart.builder()
+                    .partNumber(Integer.valueOf(part.get("partNumber").toString()))
+                    .eTag((String) part.get("eTag"))
+                    .build())
+                .sorted(Comparator.comparing(CompletedPart::partNumber))
+                .toList();
+            try {
+                s3Service.completeMultipartUpload(s3Key, uploadId, completedParts);
+            } catch (NoSuchUploadException e) {
+                // A finalize that failed after this point is being retried - the size check below
+                // confirms the object is there
+                System.out.println("Direct upload " + s3Key + " was already completed in S3");
+            }
+        }
+
+        // HeadObject proves the upload actually landed with the announced size
+        long storedSize = s3Service.getObjectMetadata(s3Key).contentLength();
+        if (storedSize != issued.getFileSize()) {
+            s3Service.deleteFile(s3Key);
+            throw new RuntimeException("Uploaded " + storedSize + " bytes but " + issued.getFileSize() + " were announced");
+        }
+
+        // Using up the issued key and saving the metadata commit together, so two finalize
+        // requests for the same key can't both create a file
+        return transactionTemplate.execute(status -> {
+            if (directUploadRepository.deleteIssued(issued.getId()) == 0) {
+                throw new RuntimeException("Upload already finalized: " + s3Key);
+            }
+
+            // Save file metadata to database with S3 key bridge (same as a regular upload)
+            return fileService.saveFile(filename, issued.getFileSize(), issued.getMimeType(), s3Key, ownerId, folderId);
+        });
+    }
+
+    // Background cleanup: forgets issued keys that were never finalized
+    // Aborts the multipart upload (its parts are billed) and queues the key for deletion,
+    // in case the browser did upload the object
+    @Scheduled(fixedDelayString = "${uploads.direct.cleanupIntervalMs:3600000}")
+    public void removeExpiredUploads() {
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(expiryHours);
+
+        for (DirectUpload issued : directUploadRepository.findByCreatedAtBefore(cutoff)) {
+            try {
+                if (issued.getUploadId() != null) {
+                    s3Service.abortMultipartUpload(issued.getS3Key(), issued.getUploadId());
+                }
+                transactionTemplate.execute(status -> {
+                    // Skipped if a finalize used the key in the meantime
+                    if (directUploadRepository.deleteIssued(issued.getId()) > 0) {
+                        deletionOutboxService.enqueue(issued.getS3Key());
+                    }
+                    return null;
+                });
+            } catch (Exception e) {
+                System.err.println("Failed to clean up expired direct upload " + issued.getS3Key() + ": " + e.getMessage());
+            }
+        }
+    }
+
+}
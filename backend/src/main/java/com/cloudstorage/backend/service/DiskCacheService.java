@@ -0,0 +1,279 @@
+package com.cloudstorage.backend.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+
+// DiskCacheService - Read-through cache of S3 objects on local disk (SSD)
+// Thumbnails, small documents and fresh uploads are read again and again; serving them
+// from local disk saves an S3 round trip (~20-80 ms) each time. Cached files are opened
+// before they are returned and copied with FileChannel.transferTo - not sendfile, since an
+// eviction may delete the file before Tomcat gets to it. Only objects up to maxObjectSize
+// are cached, and the least recently used ones are evicted once the cache holds more
+// than maxBytes. The index lives in memory, so the directory is emptied on startup.
+// Metrics: storage.cache.requests (result=hit|miss), storage.cache.hit.ratio,
+// storage.cache.served.bytes and storage.cache.size.bytes
+@Service
+public class DiskCacheService {
+
+    private final MeterRegistry meterRegistry;
+
+    // Turns the cache on (S3 storage backend only)
+    @Value("${storage.cache.enabled:false}")
+    private boolean enabled;
+
+    // Directory for cached objects - its contents are deleted on startup
+    @Value("${storage.cache.directory:./cache}")
+    private String cacheDirectory;
+
+    // Most bytes kept on disk (default 10GB)
+    @Value("${storage.cache.maxBytes:10737418240}")
+    private long maxBytes;
+
+    // Largest object that gets cached (default 16MB) - bigger ones always stream from S3
+    @Value("${storage.cache.maxObjectSize:16777216}")
+    private long maxObjectSize;
+
+    private Path root;
+
+    // S3 key -> cached copy, least recently used first (guarded by itself, like totalBytes)
+    private final LinkedHashMap<String, CacheEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    private Counter hits;
+    private Counter misses;
+    private Counter servedBytes;
+
+    public DiskCacheService(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    // Prepares an empty cache directory and registers the metrics
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        root = Paths.get(cacheDirectory).toAbsolutePath().normalize();
+        try {
+            Files.createDirectories(root);
+            try (Stream<Path> leftovers = Files.list(root)) {
+                for (Path leftover : (Iterable<Path>) leftovers::iterator) {
+                    Files.deleteIfExists(leftover);
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to prepare cache directory " + root + ": " + e.getMessage(), e);
+        }
+
+        hits = Counter.builder("storage.cache.requests").tag("result", "hit").register(meterRegistry);
+        misses = Counter.builder("storage.cache.requests").tag("result", "miss").register(meterRegistry);
+        servedBytes = Counter.builder("storage.cache.served.bytes")
+                .description("Bytes served from the disk cache instead of S3")
+                .register(meterRegistry);
+        Gauge.builder("storage.cache.hit.ratio", this, cache -> cache.hitRatio()).register(meterRegistry);
+        Gauge.builder("storage.cache.size.bytes", this, cache -> cache.getTotalBytes()).register(meterRegistry);
+        System.out.println("Disk cache: " + root + " (max " + maxBytes + " bytes)");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Checks whether an object of this size would be cached
+    public boolean accepts(long size) {
+        return enabled && size <= maxObjectSize && size <= maxBytes;
+    }
+
+    // Cached copy of an object, opened for this request (Range / If-Range applied)
+    // Returns null on a miss
+    public StorageBackend.StoredObject get(String key, String range, String ifRange) {
+        if (!enabled) {
+            return null;
+        }
+        CacheEntry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        FileChannel channel = entry != null ? openRegistered(key, entry) : null;
+        if (channel == null) {
+            misses.increment();
+            return null;
+        }
+
+        hits.increment();
+        StorageBackend.StoredObject content = open(entry, channel, range, ifRange);
+        servedBytes.increment(content.getContentLength());
+        return content;
+    }
+
+    // Read-through: cache an object just fetched from S3 and open it for the request that fetched it
+    // Returns null when the object isn't cached (too large, or the stream ended early)
+    public StorageBackend.StoredObject fill(String key, InputStream content, long size, String contentType,
+                                            String eTag, Instant lastModified, String range, String ifRange) throws IOException {
+        CacheEntry entry = add(key, content, size, contentType, eTag, lastModified);
+        FileChannel channel = entry != null ? openRegistered(key, entry) : null;
+        return channel != null ? open(entry, channel, range, ifRange) : null;
+    }
+
+    // Write-through: cache a freshly uploaded object
+    // Returns false when it isn't cached
+    public boolean put(String key, InputStream content, long size, String contentType,
+                       String eTag, Instant lastModified) throws IOException {
+        return add(key, content, size, contentType, eTag, lastModified) != null;
+    }
+
+    // Drop an object (deleted from S3)
+    public void invalidate(String key) {
+        if (!enabled) {
+            return;
+        }
+        CacheEntry removed;
+        synchronized (entries) {
+            removed = entries.remove(key);
+            if (removed != null) {
+                totalBytes -= removed.size;
+            }
+        }
+        if (removed != null) {
+            deleteQuietly(removed.path);
+        }
+    }
+
+    // Bytes currently on disk
+    public long getTotalBytes() {
+        synchronized (entries) {
+            return totalBytes;
+        }
+    }
+
+    // helper method:
+    // Copies the content to a new cache file, registers it and evicts down to maxBytes
+    // If another request cached the same key first, that copy is kept and this one dropped
+    private CacheEntry add(String key, InputStream content, long size, String contentType,
+                           String eTag, Instant lastModified) throws IOException {
+        if (!accepts(size)) {
+            return null;
+        }
+
+        // Cache file names are random - keys never become paths
+        Path path = root.resolve(UUID.randomUUID().toString());
+        Path temp = Files.createTempFile(root, ".fill-", ".part");
+        try {
+            long copied = Files.copy(content, temp, StandardCopyOption.REPLACE_EXISTING);
+            if (copied != size) {
+                Files.deleteIfExists(temp);
+                return null;
+            }
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+
+        CacheEntry entry = new CacheEntry(path, size, contentType, eTag, lastModified);
+        List<Path> evicted = new ArrayList<>();
+        synchronized (entries) {
+            CacheEntry existing = entries.get(key);
+            if (existing != null) {
+                evicted.add(path);
+                entry = existing;
+            } else {
+                entries.put(key, entry);
+                totalBytes += size;
+                Iterator<CacheEntry> leastRecentlyUsed = entries.values().iterator();
+                while (totalBytes > maxBytes && leastRecentlyUsed.hasNext()) {
+                    CacheEntry eldest = leastRecentlyUsed.next();
+                    leastRecentlyUsed.remove();
+                    totalBytes -= eldest.size;
+                    evicted.add(eldest.path);
+                }
+            }
+        }
+
+        // File deletes happen outside the lock
+        for (Path evictedPath : evicted) {
+            deleteQuietly(evictedPath);
+        }
+        return entry;
+    }
+
+    // helper method:
+    // Opens the entry's file while it is still in the index - evictions only delete files after
+    // removing them from the index, so the file is there, and an open channel survives its deletion
+    // Returns null if the entry was evicted (or can't be read), which callers treat as a miss
+    private FileChannel openRegistered(String key, CacheEntry entry) {
+        synchronized (entries) {
+            if (entries.get(key) != entry) {
+                return null;
+            }
+            try {
+                return FileChannel.open(entry.path, StandardOpenOption.READ);
+            } catch (IOException e) {
+                System.err.println("Failed to open cache file " + entry.path + ": " + e.getMessage());
+                return null;
+            }
+        }
+    }
+
+    // helper method:
+    private static StorageBackend.StoredObject open(CacheEntry entry, FileChannel channel, String range, String ifRange) {
+        return LocalStorageBackend.openChannel(entry.path, channel, entry.size, entry.contentType, entry.eTag,
+                entry.lastModified, range, ifRange);
+    }
+
+    // helper method:
+    private double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0 : hits.count() / total;
+    }
+
+    // helper method:
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            System.err.println("Failed to delete cache file " + path + ": " + e.getMessage());
+        }
+    }
+
+    // A cached object: its file plus the S3 metadata it is served with
+    private static class CacheEntry {
+
+        private final Path path;
+        private final long size;
+        private final String contentType;
+        private final String eTag;
+        private final Instant lastModified;
+
+        CacheEntry(Path path, long size, String contentType, String eTag, Instant lastModified) {
+            this.path = path;
+            this.size = size;
+            this.contentType = contentType;
+            this.eTag = eTag;
+            this.lastModified = lastModified;
+        }
+    }
+
+}
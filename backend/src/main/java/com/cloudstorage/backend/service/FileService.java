@@ -1,14 +1,23 @@
 package com.cloudstorage.backend.service;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import com.cloudstorage.backend.dto.CursorPage;
+import com.cloudstorage.backend.dto.FileSummary;
 import com.cloudstorage.backend.entity.File;
+import com.cloudstorage.backend.entity.FileCategory;
 import com.cloudstorage.backend.entity.User;
 import com.cloudstorage.backend.entity.Folder;
 import com.cloudstorage.backend.repository.FileRepository;
+import com.cloudstorage.backend.repository.FileFilter;
+import com.cloudstorage.backend.repository.Keyset;
+import com.cloudstorage.backend.repository.UploadSessionRepository;
 import com.cloudstorage.backend.repository.UserRepository;
 import com.cloudstorage.backend.repository.FolderRepository;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 
 // FileService - Business logic for file metadata management
@@ -20,15 +29,30 @@ public class FileService {
     private final FileRepository fileRepository;
     private final UserRepository userRepository;
     private final FolderRepository folderRepository;
-
-    public FileService(FileRepository fileRepository, UserRepository userRepository, FolderRepository folderRepository) {
+    private final BlobStorageService blobStorageService;
+    private final DeletionOutboxService deletionOutboxService;
+    private final StorageStatsService storageStatsService;
+    private final FolderRollupService folderRollupService;
+    private final UploadSessionRepository uploadSessionRepository;
+
+    public FileService(FileRepository fileRepository, UserRepository userRepository, FolderRepository folderRepository,
+                       BlobStorageService blobStorageService, DeletionOutboxService deletionOutboxService,
+                       StorageStatsService storageStatsService, FolderRollupService folderRollupService,
+                       UploadSessionRepository uploadSessionRepository) {
         this.fileRepository = fileRepository;
         this.userRepository = userRepository;
         this.folderRepository = folderRepository;
+        this.blobStorageService = blobStorageService;
+        this.deletionOutboxService = deletionOutboxService;
+        this.storageStatsService = storageStatsService;
+        this.folderRollupService = folderRollupService;
+        this.uploadSessionRepository = uploadSessionRepository;
     }
 
     // Create and save file metadata to database
     // Called after file is successfully uploaded to S3
+    // The user's storage stats and the folder rollups are updated in the same transaction
+    @Transactional
     public File saveFile(String filename, Long fileSize, String mimeType, String s3Key, Long ownerId, Long folderId) {
         
         // Convert owner ID to User object (validates user exists)
@@ -42,32 +66,89 @@ public class FileService {
         newFile.setFilename(uniqueFilename);
         newFile.setFileSize(fileSize);
         newFile.setMimeType(mimeType);
+        newFile.setCategory(FileCategory.fromMimeType(mimeType)); // Stored for the category listings
         newFile.setS3Key(s3Key);    // Bridge to actual file in S3
         newFile.setOwner(owner);    // Set User object instead of Long
 
         // Optional folder assignment (can be null for root files)
         if (folderId != null) {
+            folderRollupService.recordAdded(folderId, List.of(newFile));
             Folder folder = folderRepository.findById(folderId)
                 .orElseThrow(() -> new RuntimeException("Folder not found with ID: " + folderId));
             newFile.setFolder(folder);
         }
 
-        return fileRepository.save(newFile);
+        File savedFile = fileRepository.save(newFile);
+        storageStatsService.recordAdded(List.of(savedFile));
+        return savedFile;
+    }
+
+    // Save metadata for several uploaded files in one transaction
+    // Owner/folder are looked up once, and the INSERTs go out as JDBC batches
+    // (File ids come from a pooled sequence, which is what lets Hibernate batch them)
+    @Transactional
+    public List<File> saveFiles(List<File> newFiles, Long ownerId, Long folderId) {
+
+        User owner = userRepository.findById(ownerId)
+            .orElseThrow(() -> new RuntimeException("User not found with ID: " + ownerId));
+
+        Folder folder = null;
+        if (folderId != null) {
+            folderRollupService.recordAdded(folderId, newFiles);
+            folder = folderRepository.findById(folderId)
+                .orElseThrow(() -> new RuntimeException("Folder not found with ID: " + folderId));
+        }
+
+        // One query for the names that already exist, instead of one check per file
+        List<String> requestedNames = newFiles.stream().map(File::getFilename).toList();
+        Set<String> takenNames = new HashSet<>(fileRepository.findFilenamesByOwnerIdAndFilenameIn(ownerId, requestedNames));
+
+        for (File newFile : newFiles) {
+            String filename = newFile.getFilename();
+            if (takenNames.contains(filename)) {
+                filename = getUniqueFilename(filename, ownerId, takenNames);
+            }
+            takenNames.add(filename); // Names in the same batch must not collide either
+
+            newFile.setFilename(filename);
+            newFile.setCategory(FileCategory.fromMimeType(newFile.getMimeType()));
+            newFile.setOwner(owner);
+            newFile.setFolder(folder);
+        }
+
+        List<File> savedFiles = fileRepository.saveAll(newFiles);
+        storageStatsService.recordAdded(savedFiles);
+        return savedFiles;
     }
 
     // Get all files owned by a user
-    public List<File> getFilesByOwner(Long ownerId) {
-        return fileRepository.findByOwner_Id(ownerId);
+    public List<FileSummary> getFilesByOwner(Long ownerId) {
+        return fileRepository.findSummariesByOwnerId(ownerId);
     }
 
     // Get all files in a specific folder
-    public List<File> getFilesByFolder(Long folderId) {
-        return fileRepository.findByFolder_Id(folderId);
+    public List<FileSummary> getFilesByFolder(Long folderId) {
+        return fileRepository.findSummariesByFolderId(folderId);
     }
 
     // Get all root-level files (not in any folder)
-    public List<File> getRootFiles(Long ownerId) {
-        return fileRepository.findByFolderIsNullAndOwner_Id(ownerId);
+    public List<FileSummary> getRootFiles(Long ownerId) {
+        return fileRepository.findRootSummariesByOwnerId(ownerId);
+    }
+
+    // One page of a user's files (cursor pagination, see Keyset)
+    public CursorPage<FileSummary> getFilesByOwnerPage(Long ownerId, FileFilter filter, Keyset keyset) {
+        return fileRepository.findPageByOwner(ownerId, filter, keyset);
+    }
+
+    // One page of the files in a folder
+    public CursorPage<FileSummary> getFilesByFolderPage(Long folderId, FileFilter filter, Keyset keyset) {
+        return fileRepository.findPageByFolder(folderId, filter, keyset);
+    }
+
+    // One page of a user's root-level files
+    public CursorPage<FileSummary> getRootFilesPage(Long ownerId, FileFilter filter, Keyset keyset) {
+        return fileRepository.findRootPageByOwner(ownerId, filter, keyset);
     }
 
     // Get a specific file by ID
@@ -80,12 +161,23 @@ public class FileService {
         return fileRepository.findByS3Key(s3Key);
     }
 
-    // Delete file metadata from database
+    // Delete file metadata from database and queue its stored content for deletion
+    // One transaction: the row goes away and the outbox row appears together (or neither does)
+    // Deduplicated blobs are shared, so they're only queued when the last reference goes
+    @Transactional
     public void deleteFile(Long fileId) {
-        if (!fileRepository.existsById(fileId)) {
-            throw new RuntimeException("File not found with ID: " + fileId);
+        File file = fileRepository.findById(fileId)
+            .orElseThrow(() -> new RuntimeException("File not found with ID: " + fileId));
+        if (file.getFolder() != null) {
+            folderRollupService.recordRemoved(file.getFolder().getId(), file);
+        }
+        uploadSessionRepository.detachFile(fileId); // Files from resumable uploads are still referenced by their session
+        fileRepository.delete(file);
+        storageStatsService.recordRemoved(file);
+
+        if (!blobStorageService.release(file.getS3Key())) {
+            deletionOutboxService.enqueue(file.getS3Key());
         }
-        fileRepository.deleteById(fileId);
     }
 
     // Update file metadata (rename operation)
@@ -117,6 +209,12 @@ public class FileService {
         if (!fileRepository.existsByFilenameAndOwner_Id(originalFilename, ownerId)) {
             return originalFilename; // "resume.pdf"
         }
+
+        return getUniqueFilename(originalFilename, ownerId, Set.of());
+    }
+
+    // Same as above, but also avoids names reserved by other files in the current batch
+    private String getUniqueFilename(String originalFilename, Long ownerId, Set<String> reservedNames) {
         
         // Split filename into base name and extension
         String baseName;
@@ -137,7 +235,7 @@ public class FileService {
         do {
             newFilename = baseName + " (" + counter + ")" + extension; // "resume (1).pdf"
             counter++;
-        } while (fileRepository.existsByFilenameAndOwner_Id(newFilename, ownerId));
+        } while (reservedNames.contains(newFilename) || fileRepository.existsByFilenameAndOwner_Id(newFilename, ownerId));
         
         return newFilename; // "resume (1).pdf"
     }
@@ -0,0 +1,309 @@
+package com.cloudstorage.backend.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import com.cloudstorage.backend.entity.File;
+import com.cloudstorage.backend.entity.Folder;
+import com.cloudstorage.backend.repository.FileRepository;
+import com.cloudstorage.backend.dto.FolderSummary;
+import com.cloudstorage.backend.repository.FolderClosureRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+
+// FolderArchiveService - Streams a whole folder tree as one ZIP download
+// The archive is written straight to the response while it is being built - nothing
+// is staged on disk. The next few small files are read from the storage backend (S3 or
+// local disk) in parallel while the current one is written, within a fixed memory budget
+// per archive; large files are streamed when their turn comes. Files that are already
+// compressed (images, video, archives...) are not deflated again.
+// ZipOutputStream switches to ZIP64 records by itself for entries/archives over 4GB.
+@Service
+public class FolderArchiveService {
+
+    // Content types whose data is already compressed - deflating them again only costs CPU
+    private static final Set<String> COMPRESSED_TYPES = Set.of(
+        "application/zip", "application/gzip", "application/x-gzip", "application/x-7z-compressed",
+        "application/x-rar-compressed", "application/vnd.rar", "application/x-bzip2", "application/x-xz",
+        "application/zstd", "application/pdf"
+    );
+
+    // Same check by file extension, for uploads without a useful content type
+    private static final Set<String> COMPRESSED_EXTENSIONS = Set.of(
+        "jpg", "jpeg", "png", "gif", "webp", "heic", "avif",
+        "mp4", "m4v", "mov", "mkv", "webm", "avi",
+        "mp3", "m4a", "aac", "ogg", "opus", "flac",
+        "zip", "gz", "tgz", "7z", "rar", "bz2", "xz", "zst",
+        "pdf", "docx", "xlsx", "pptx"
+    );
+
+    private final StorageBackend storageBackend;
+    private final FileRepository fileRepository;
+    private final FolderClosureRepository closureRepository;
+
+    // How many upcoming small files are read ahead of the one being written
+    @Value("${downloads.zip.prefetchCount:4}")
+    private int prefetchCount;
+
+    // Memory budget per archive for prefetched file contents (default 64MB)
+    // Files larger than budget / prefetchCount are streamed from storage instead of buffered
+    @Value("${downloads.zip.prefetchBudget:67108864}")
+    private long prefetchBudget;
+
+    // Threads fetching from storage for all archives being built at the same time
+    @Value("${downloads.zip.prefetchThreads:16}")
+    private int prefetchThreads;
+
+    private ExecutorService prefetchExecutor;
+
+    public FolderArchiveService(StorageBackend storageBackend, FileRepository fileRepository, FolderClosureRepository closureRepository) {
+        this.storageBackend = storageBackend;
+        this.fileRepository = fileRepository;
+        this.closureRepository = closureRepository;
+    }
+
+    // Creates the prefetch pool once the @Value settings are injected
+    @PostConstruct
+    public void init() {
+        prefetchExecutor = Executors.newFixedThreadPool(prefetchThreads, new CustomizableThreadFactory("zip-prefetch-"));
+    }
+
+    // List everything in the folder subtree that goes into the archive
+    // Paths start with the folder's own name; every folder gets a directory entry
+    // so empty folders survive the round trip. Names that would repeat a path (e.g. two owners'
+    // files with one name, or "a/b" and "a_b" in one folder) get a " (n)" suffix - a ZIP can't
+    // hold the same entry twice
+    // Two queries for the whole tree: its folders (parents first) and its files
+    public List<ArchiveEntry> listEntries(Folder root) {
+        Map<Long, List<File>> filesByFolder = new HashMap<>();
+        for (File file : fileRepository.findInSubtree(root.getId())) {
+            filesByFolder.computeIfAbsent(file.getFolder().getId(), id -> new ArrayList<>()).add(file);
+        }
+
+        List<ArchiveEntry> entries = new ArrayList<>();
+        Map<Long, String> paths = new HashMap<>();
+        Set<String> usedPaths = new HashSet<>();
+        for (FolderSummary folder : closureRepository.findSubtree(root.getId())) {
+            String path = folder.getId().equals(root.getId())
+                ? uniquePath("", root.getName(), true, usedPaths)
+                : uniquePath(paths.get(folder.getParentId()), folder.getName(), true, usedPaths);
+            paths.put(folder.getId(), path);
+            entries.add(new ArchiveEntry(path, null, 0, null, folder.getUpdatedAt()));
+
+            for (File file : filesByFolder.getOrDefault(folder.getId(), List.of())) {
+                entries.add(new ArchiveEntry(uniquePath(path, file.getFilename(), false, usedPaths), file.getS3Key(),
+                        file.getFileSize(), file.getMimeType(), file.getUpdatedAt()));
+            }
+        }
+        return entries;
+    }
+
+    // Write the archive to the output stream (the HTTP response)
+    // Keeps the next prefetchCount small files being read ahead of the entry being written
+    // Large files are not prefetched - holding their streams open ahead of time would only
+    // tie up S3 connections - they are opened when the writer reaches them
+    public void writeArchive(List<ArchiveEntry> entries, OutputStream output) throws IOException {
+        long maxBufferedSize = prefetchBudget / prefetchCount;
+
+        // Reads of the upcoming buffered entries, in archive order
+        Deque<Future<FetchedContent>> window = new ArrayDeque<>();
+        Iterator<ArchiveEntry> upcoming = entries.iterator();
+        ZipOutputStream zip = new ZipOutputStream(output);
+
+        try {
+            for (ArchiveEntry entry : entries) {
+                while (window.size() < prefetchCount && upcoming.hasNext()) {
+                    ArchiveEntry next = upcoming.next();
+                    if (isBuffered(next, maxBufferedSize)) {
+                        window.add(prefetchExecutor.submit(() -> fetch(next)));
+                    }
+                }
+
+                FetchedContent content = isBuffered(entry, maxBufferedSize) ? window.poll().get() : null;
+                writeEntry(zip, entry, content);
+            }
+            // Writes the central directory - the response stream itself is closed by Spring
+            zip.finish();
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Archive download interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to read file from storage: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            for (Future<FetchedContent> pending : window) {
+                pending.cancel(true);
+            }
+        }
+    }
+
+    // Shut down the prefetch pool when the app stops
+    @PreDestroy
+    public void cleanup() {
+        if (prefetchExecutor != null) {
+            prefetchExecutor.shutdownNow();
+        }
+    }
+
+    // helper method:
+    // Files small enough to read fully ahead of time (so they can be STORED with a known CRC)
+    private static boolean isBuffered(ArchiveEntry entry, long maxBufferedSize) {
+        return !entry.isDirectory() && entry.size <= maxBufferedSize;
+    }
+
+    // helper method:
+    // Read one small file from storage into memory
+    private FetchedContent fetch(ArchiveEntry entry) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream((int) entry.size);
+        storageBackend.open(entry.s3Key, null, null).writeTo(buffer);
+        byte[] data = buffer.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        return new FetchedContent(data, crc.getValue());
+    }
+
+    // helper method:
+    // Adds one entry (directory, buffered file or streamed file) to the archive
+    // Content is null for directories and for files too large to buffer
+    private void writeEntry(ZipOutputStream zip, ArchiveEntry entry, FetchedContent content) throws IOException {
+        ZipEntry zipEntry = new ZipEntry(entry.path);
+        if (entry.lastModified != null) {
+            zipEntry.setTimeLocal(entry.lastModified);
+        }
+
+        if (entry.isDirectory()) {
+            zip.putNextEntry(zipEntry);
+            zip.closeEntry();
+            return;
+        }
+
+        boolean alreadyCompressed = isAlreadyCompressed(entry);
+
+        if (content != null) {
+            if (alreadyCompressed) {
+                // STORED - bytes copied as-is, size and CRC known up front
+                zipEntry.setMethod(ZipEntry.STORED);
+                zipEntry.setSize(content.data.length);
+                zipEntry.setCompressedSize(content.data.length);
+                zipEntry.setCrc(content.crc);
+            } else {
+                zip.setLevel(Deflater.DEFAULT_COMPRESSION);
+            }
+            zip.putNextEntry(zipEntry);
+            zip.write(content.data);
+            zip.closeEntry();
+            return;
+        }
+
+        // Streamed file: STORED would need the CRC before the data, so already-compressed
+        // content uses deflate level 0 instead (stored blocks - no compression work)
+        zip.setLevel(alreadyCompressed ? Deflater.NO_COMPRESSION : Deflater.DEFAULT_COMPRESSION);
+        zip.putNextEntry(zipEntry);
+        storageBackend.open(entry.s3Key, null, null).writeTo(zip);
+        zip.closeEntry();
+    }
+
+    // helper method:
+    // Checks content type and extension for formats that don't compress any further
+    private boolean isAlreadyCompressed(ArchiveEntry entry) {
+        String mimeType = entry.mimeType != null ? entry.mimeType.toLowerCase() : "";
+        if ((mimeType.startsWith("image/") && !mimeType.equals("image/svg+xml") && !mimeType.equals("image/bmp"))
+                || mimeType.startsWith("video/") || mimeType.startsWith("audio/")
+                || COMPRESSED_TYPES.contains(mimeType)) {
+            return true;
+        }
+        int dot = entry.path.lastIndexOf('.');
+        return dot >= 0 && COMPRESSED_EXTENSIONS.contains(entry.path.substring(dot + 1).toLowerCase());
+    }
+
+    // helper method:
+    // Entry path for a name inside parent that no earlier entry has taken (folder paths end in "/")
+    // A taken name gets " (1)", " (2)"... before its extension, like FileService.getUniqueFilename.
+    // Paths are compared without the "/", so a file and a folder can't share a name either
+    private static String uniquePath(String parent, String name, boolean directory, Set<String> usedPaths) {
+        String safe = entryName(name);
+        String path = parent + safe;
+        if (!usedPaths.add(path)) {
+            int lastDotIndex = directory ? -1 : safe.lastIndexOf('.');
+            String baseName = lastDotIndex > 0 ? safe.substring(0, lastDotIndex) : safe;
+            String extension = lastDotIndex > 0 ? safe.substring(lastDotIndex) : "";
+            int counter = 1;
+            do {
+                path = parent + baseName + " (" + counter + ")" + extension;
+                counter++;
+            } while (!usedPaths.add(path));
+        }
+        return directory ? path + "/" : path;
+    }
+
+    // helper method:
+    // Folder/file name as one path segment - no separators or "..", so entries
+    // can't escape the extraction directory
+    private static String entryName(String name) {
+        String safe = name.replace('/', '_').replace('\\', '_');
+        return safe.equals(".") || safe.equals("..") || safe.isEmpty() ? "_" : safe;
+    }
+
+    // One file or directory in the archive (directory entries have no S3 key)
+    public static class ArchiveEntry {
+
+        private final String path;
+        private final String s3Key;
+        private final long size;
+        private final String mimeType;
+        private final LocalDateTime lastModified;
+
+        ArchiveEntry(String path, String s3Key, long size, String mimeType, LocalDateTime lastModified) {
+            this.path = path;
+            this.s3Key = s3Key;
+            this.size = size;
+            this.mimeType = mimeType;
+            this.lastModified = lastModified;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public boolean isDirectory() {
+            return s3Key == null;
+        }
+    }
+
+    // Small file read ahead of time: its contents and their CRC
+    private static class FetchedContent {
+
+        private final byte[] data;
+        private final long crc;
+
+        FetchedContent(byte[] data, long crc) {
+            this.data = data;
+            this.crc = crc;
+        }
+    }
+
+}
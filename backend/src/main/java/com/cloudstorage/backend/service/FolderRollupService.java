@@ -0,0 +1,112 @@
+package com.cloudstorage.backend.service;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import com.cloudstorage.backend.entity.File;
+import com.cloudstorage.backend.repository.FolderRepository;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+
+// FolderRollupService - Recursive size and item counts of folders (totalBytes, fileCount, folderCount)
+// Every file change adds a delta to the rollups of its folder and all of the folder's ancestors, in
+// the transaction that changes the file - so showing a folder's size is a read of one row, however
+// much is below it. Folder creates, moves and deletes move whole subtree totals the same way
+// (see FolderService). The rows are locked in id order before they're updated, which keeps
+// concurrent deltas from deadlocking, and each delta is one atomic UPDATE, so none get lost.
+// A nightly job recounts every folder tree and repairs any drift.
+@Service
+public class FolderRollupService {
+
+    private final FolderRepository folderRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public FolderRollupService(FolderRepository folderRepository, TransactionTemplate transactionTemplate) {
+        this.folderRepository = folderRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    // Count files added to a folder - must run in the transaction that inserts them,
+    // before the insert (the folder rows are locked here, ahead of the file rows)
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordAdded(Long folderId, List<File> files) {
+        applyDelta(folderId, files, 1);
+    }
+
+    // Uncount a file removed from a folder - must run in the transaction that deletes it
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordRemoved(Long folderId, File file) {
+        applyDelta(folderId, List.of(file), -1);
+    }
+
+    // Background job: recount every folder tree and fix rollups that drifted
+    @Scheduled(cron = "${folders.rollup.repairCron:0 0 4 * * *}")
+    public void repairAll() {
+        int repaired = 0;
+        for (Long rootId : folderRepository.findRootIds()) {
+            try {
+                repaired += repairTree(rootId);
+            } catch (RuntimeException e) {
+                System.err.println("Folder rollup repair failed for folder " + rootId + ": " + e.getMessage());
+            }
+        }
+        if (repaired > 0) {
+            System.out.println("Folder rollups repaired for " + repaired + " folders");
+        }
+    }
+
+    // Recounts one folder tree and overwrites rollups that don't match (one transaction)
+    // Returns the number of folders that had drifted
+    public int repairTree(Long rootId) {
+        Integer drifted = transactionTemplate.execute(status -> {
+
+            // Lock the whole tree first. Every change below the root locks the root too (it is on
+            // every path), so running uploads, deletes and moves wait and apply their deltas after
+            // the recount - their rows aren't committed yet, so the recount doesn't include them either
+            if (lockUntilStable(() -> folderRepository.lockSubtreeForRepair(rootId)).isEmpty()) {
+                return 0; // Deleted in the meantime
+            }
+            return folderRepository.repairSubtreeRollups(rootId);
+        });
+        return drifted != null ? drifted : 0;
+    }
+
+    // Runs a lock statement until it returns the same rows twice
+    // The set of rows to lock is read from folder_closure before the locks are taken: if a move that
+    // held one of them commits in between, the set is outdated. Once the statement returns, the folder
+    // it started from is locked and the set can't change any more, so a second run confirms it (and
+    // locks whatever the first run missed). Returns the locked ids, empty if the folder doesn't exist.
+    static List<Long> lockUntilStable(Supplier<List<Long>> lockStatement) {
+        List<Long> locked = lockStatement.get();
+        while (!locked.isEmpty()) {
+            List<Long> again = lockStatement.get();
+            if (again.equals(locked)) {
+                break;
+            }
+            locked = again;
+        }
+        return locked;
+    }
+
+    // helper method:
+    // Locks the folder's path, then adds one delta to every folder on it
+    private void applyDelta(Long folderId, List<File> files, int sign) {
+        if (folderId == null || files.isEmpty()) {
+            return; // Root-level files aren't in any folder's rollup
+        }
+        if (lockUntilStable(() -> folderRepository.lockPath(folderId)).isEmpty()) {
+            throw new RuntimeException("Folder not found with ID: " + folderId);
+        }
+
+        long bytes = 0;
+        for (File file : files) {
+            bytes += file.getFileSize() != null ? file.getFileSize() : 0;
+        }
+        folderRepository.addFileTotals(folderId, sign * (long) files.size(), sign * bytes);
+    }
+
+}
@@ -1,28 +1,42 @@
 package com.cloudstorage.backend.service;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import com.cloudstorage.backend.dto.CursorPage;
+import com.cloudstorage.backend.dto.FolderSummary;
 import com.cloudstorage.backend.entity.Folder;
+import com.cloudstorage.backend.entity.FolderClosure;
 import com.cloudstorage.backend.entity.User;
+import com.cloudstorage.backend.repository.FolderClosureRepository;
 import com.cloudstorage.backend.repository.FolderRepository;
+import com.cloudstorage.backend.repository.Keyset;
 import com.cloudstorage.backend.repository.UserRepository;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 // FolderService - Business logic for folder management
 // Handles folder operations, hierarchy validation, and relationships.
 // Creates nested folder structures and manages folder organization.
+// The hierarchy is also kept in a closure table (see FolderClosure), updated in the
+// same transaction as every create, move and delete - as are the ancestors' size and
+// item-count rollups (see FolderRollupService).
 @Service
 public class FolderService {
     
     private final FolderRepository folderRepository;
+    private final FolderClosureRepository closureRepository;
     private final UserRepository userRepository;
 
-    public FolderService(FolderRepository folderRepository, UserRepository userRepository) {
+    public FolderService(FolderRepository folderRepository, FolderClosureRepository closureRepository,
+                         UserRepository userRepository) {
         this.folderRepository = folderRepository;
+        this.closureRepository = closureRepository;
         this.userRepository = userRepository;
     }
 
     // Creates a new folder with owner and optional parent
+    @Transactional
     public Folder createFolder(String name, Long ownerId, Long parentId) {
 
         // Find the user who will own this folder
@@ -39,28 +53,54 @@ public class FolderService {
         newFolder.setOwner(owner);
 
         // Set parent folder (null = root level folder)
+        // The parent and its ancestors are locked: their rollups count the new folder, and the
+        // parent can't be moved or deleted before the closure rows below commit
         if (parentId != null) {
+            if (FolderRollupService.lockUntilStable(() -> folderRepository.lockPath(parentId)).isEmpty()) {
+                throw new RuntimeException("Parent folder not found with ID: " + parentId);
+            }
             Folder parent = folderRepository.findById(parentId)
                 .orElseThrow(() -> new RuntimeException("Parent folder not found with ID: " + parentId));
             newFolder.setParent(parent);
         }
 
-        return folderRepository.save(newFolder);
+        Folder savedFolder = folderRepository.save(newFolder);
+        closureRepository.insertSelf(savedFolder.getId());
+        if (parentId != null) {
+            closureRepository.insertAncestors(savedFolder.getId(), parentId);
+            folderRepository.addSubtreeTotalsToAncestors(savedFolder.getId(), 1);
+        }
+        return savedFolder;
     }
 
     // Gets all folders owned by a specific user
-    public List<Folder> getFoldersByOwner(Long ownerId) {
-        return folderRepository.findByOwner_Id(ownerId);
+    public List<FolderSummary> getFoldersByOwner(Long ownerId) {
+        return folderRepository.findSummariesByOwnerId(ownerId);
     }
 
     // Get all subfolders within a parent folder
-    public List<Folder> getSubfolders(Long parentId) {
-        return folderRepository.findByParent_Id(parentId);
+    public List<FolderSummary> getSubfolders(Long parentId) {
+        return folderRepository.findSummariesByParentId(parentId);
     }
 
     // Get all root-level folders for a user (no parent)
-    public List<Folder> getRootFolders(Long ownerId) {
-        return folderRepository.findByParentIsNullAndOwner_Id(ownerId);
+    public List<FolderSummary> getRootFolders(Long ownerId) {
+        return folderRepository.findRootSummariesByOwnerId(ownerId);
+    }
+
+    // One page of a user's folders (cursor pagination, see Keyset)
+    public CursorPage<FolderSummary> getFoldersByOwnerPage(Long ownerId, Keyset keyset) {
+        return folderRepository.findPageByOwner(ownerId, keyset);
+    }
+
+    // One page of the subfolders of a folder
+    public CursorPage<FolderSummary> getSubfoldersPage(Long parentId, Keyset keyset) {
+        return folderRepository.findPageByParent(parentId, keyset);
+    }
+
+    // One page of a user's root-level folders
+    public CursorPage<FolderSummary> getRootFoldersPage(Long ownerId, Keyset keyset) {
+        return folderRepository.findRootPageByOwner(ownerId, keyset);
     }
 
     // Get a specific folder by ID
@@ -68,24 +108,62 @@ public class FolderService {
         return folderRepository.findById(folderId);
     }
 
-    // Search folders by name (case-insensitive)
-    public List<Folder> searchFolders(String searchTerm) {
-        return folderRepository.findByNameContainingIgnoreCase(searchTerm);
+    // A folder and everything below it, parents before children (one query)
+    public List<FolderSummary> getSubtree(Long folderId) {
+        List<FolderSummary> subtree = closureRepository.findSubtree(folderId);
+        if (subtree.isEmpty()) {
+            throw new RuntimeException("Folder not found with ID: " + folderId);
+        }
+        return subtree;
     }
 
-    // Delete a folder (should be empty of files first)
-    public void deleteFolder(Long folderId) {
-        if (!folderRepository.existsById(folderId)) {
+    // Path from the root folder down to this one, for breadcrumbs (one query)
+    public List<FolderSummary> getPath(Long folderId) {
+        List<FolderSummary> path = closureRepository.findPath(folderId);
+        if (path.isEmpty()) {
             throw new RuntimeException("Folder not found with ID: " + folderId);
         }
-        
-        // Check if folder has subfolders - can't delete if it does
-        List<Folder> subfolders = folderRepository.findByParent_Id(folderId);
-        if (!subfolders.isEmpty()) {
-            throw new RuntimeException("Cannot delete folder: contains " + subfolders.size() + " subfolders");
+        return path;
+    }
+
+    // Search a user's folders by name (case-insensitive substring match)
+    // For ranked, fuzzy, paginated search over files and folders see SearchService
+    public List<FolderSummary> searchFolders(Long ownerId, String searchTerm) {
+        return folderRepository.findSummariesByOwnerIdAndNameContaining(ownerId, searchTerm);
+    }
+
+    // Delete a folder with all of its subfolders and files
+    // Set-based: a fixed number of statements however large the subtree is. The stored
+    // content is only queued here; DeletionOutboxService removes it in the background
+    // with batched DeleteObjects calls, so this returns quickly even for huge folders.
+    // Returns the number of files deleted
+    @Transactional
+    public int deleteFolder(Long folderId) {
+
+        // The subtree and its ancestors (whose rollups lose the subtree's totals)
+        List<Long> locked = FolderRollupService.lockUntilStable(() -> folderRepository.lockSubtreeAndPath(folderId));
+        if (!locked.contains(folderId)) {
+            throw new RuntimeException("Folder not found with ID: " + folderId);
         }
-        
-        folderRepository.deleteById(folderId);
+
+        // Queue content and update storage stats and rollups first - these statements read the
+        // file and folder rows deleted below
+        folderRepository.enqueueSubtreeFileDeletions(folderId);
+        folderRepository.releaseSubtreeBlobs(folderId);
+        folderRepository.enqueueUnreferencedBlobDeletions(folderId);
+        folderRepository.subtractSubtreeStorageStats(folderId);
+        folderRepository.addSubtreeTotalsToAncestors(folderId, -1);
+
+        // Rows referencing the files and folders, then the files and folders themselves
+        folderRepository.deleteSubtreeShares(folderId);
+        folderRepository.detachSubtreeUploadSessionFolders(folderId);
+        folderRepository.detachSubtreeUploadSessionFiles(folderId);
+        int deletedFiles = folderRepository.deleteSubtreeFiles(folderId);
+        int deletedFolders = folderRepository.deleteSubtreeFolders(folderId);
+        folderRepository.deleteSubtreeClosure(folderId);
+
+        System.out.println("Deleted folder " + folderId + ": " + deletedFolders + " folders, " + deletedFiles + " files");
+        return deletedFiles;
     }
 
     // Renames a folder to a new name
@@ -108,23 +186,50 @@ public class FolderService {
     }
 
     // Move folder to different parent (for drag & drop functionality)
+    // Rejects moves into the folder itself or one of its subfolders, which would cut the
+    // subtree off from the root in a cycle. The closure rows of the whole subtree are
+    // re-linked with two set-based statements, and its totals move from the old ancestors'
+    // rollups to the new ones'.
+    @Transactional
     public Folder moveFolder(Long folderId, Long newParentId) {
-        Optional<Folder> existingFolder = folderRepository.findById(folderId);
-        if (existingFolder.isEmpty()) {
+
+        // Lock the subtree, its ancestors and the new parent's path first (in id order): concurrent
+        // creates, moves, deletes and file changes touching them wait, so the cycle check and the
+        // totals moved below can't be outdated
+        List<Long> locked = FolderRollupService.lockUntilStable(() -> newParentId != null
+            ? folderRepository.lockSubtreeAndPaths(folderId, newParentId)
+            : folderRepository.lockSubtreeAndPath(folderId));
+        if (!locked.contains(folderId)) {
             throw new RuntimeException("Folder not found with ID: " + folderId);
         }
 
-        Folder folder = existingFolder.get();
-        
+        Folder folder = folderRepository.findById(folderId)
+            .orElseThrow(() -> new RuntimeException("Folder not found with ID: " + folderId));
+        Long currentParentId = folder.getParent() != null ? folder.getParent().getId() : null;
+        if (Objects.equals(currentParentId, newParentId)) {
+            return folder; // Already there
+        }
+
         // Set new parent (null = move to root level)
         if (newParentId != null) {
-            Folder newParent = folderRepository.findById(newParentId)
-                .orElseThrow(() -> new RuntimeException("Parent folder not found with ID: " + newParentId));
-            folder.setParent(newParent);
+            if (!locked.contains(newParentId)) {
+                throw new RuntimeException("Parent folder not found with ID: " + newParentId);
+            }
+            // (folder, newParent) closure row = the new parent is the folder or below it
+            if (closureRepository.existsById(new FolderClosure.Key(folderId, newParentId))) {
+                throw new RuntimeException("Cannot move a folder into itself or one of its subfolders");
+            }
+            folder.setParent(folderRepository.getReferenceById(newParentId));
         } else {
             folder.setParent(null);
         }
-        
+
+        folderRepository.addSubtreeTotalsToAncestors(folderId, -1);
+        closureRepository.detachSubtree(folderId);
+        if (newParentId != null) {
+            closureRepository.attachSubtree(folderId, newParentId);
+            folderRepository.addSubtreeTotalsToAncestors(folderId, 1);
+        }
         return folderRepository.save(folder);
     }
     
@@ -0,0 +1,86 @@
+package com.cloudstorage.backend.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import com.cloudstorage.backend.dto.CursorPage;
+import com.cloudstorage.backend.dto.FileSummary;
+import com.cloudstorage.backend.dto.FolderSummary;
+import com.cloudstorage.backend.dto.FolderView;
+import com.cloudstorage.backend.repository.FileFilter;
+import com.cloudstorage.backend.repository.FileRepository;
+import com.cloudstorage.backend.repository.FolderClosureRepository;
+import com.cloudstorage.backend.repository.FolderRepository;
+import com.cloudstorage.backend.repository.Keyset;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+
+// FolderViewService - Opens a folder in one call: breadcrumb path, subfolders and files
+// The three queries don't depend on each other, so the path and subfolder queries run on a
+// small pool while the request thread reads the files - the response takes as long as the
+// slowest query instead of the sum of three round trips.
+@Service
+public class FolderViewService {
+
+    private final FolderClosureRepository closureRepository;
+    private final FolderRepository folderRepository;
+    private final FileRepository fileRepository;
+
+    // Threads running the path/subfolder queries of folder views (each holds a DB connection while it runs)
+    @Value("${folders.view.threads:8}")
+    private int viewThreads;
+
+    private ExecutorService viewExecutor;
+
+    public FolderViewService(FolderClosureRepository closureRepository, FolderRepository folderRepository,
+                             FileRepository fileRepository) {
+        this.closureRepository = closureRepository;
+        this.folderRepository = folderRepository;
+        this.fileRepository = fileRepository;
+    }
+
+    // Creates the query pool once the @Value settings are injected
+    @PostConstruct
+    public void init() {
+        viewExecutor = Executors.newFixedThreadPool(viewThreads, new CustomizableThreadFactory("folder-view-"));
+    }
+
+    // The folder, its path and one page each of subfolders and files
+    // folderKeyset / fileKeyset page the two listings independently (see Keyset)
+    public FolderView getView(Long folderId, Keyset folderKeyset, Keyset fileKeyset) {
+        CompletableFuture<List<FolderSummary>> path =
+            CompletableFuture.supplyAsync(() -> closureRepository.findPath(folderId), viewExecutor);
+        CompletableFuture<CursorPage<FolderSummary>> subfolders =
+            CompletableFuture.supplyAsync(() -> folderRepository.findPageByParent(folderId, folderKeyset), viewExecutor);
+
+        try {
+            CursorPage<FileSummary> files = fileRepository.findPageByFolder(folderId, FileFilter.NONE, fileKeyset);
+
+            List<FolderSummary> folderPath = path.join();
+            if (folderPath.isEmpty()) {
+                throw new RuntimeException("Folder not found with ID: " + folderId);
+            }
+            return new FolderView(folderPath.get(folderPath.size() - 1), folderPath, subfolders.join(), files);
+        } catch (CompletionException e) {
+            Throwable cause = S3AsyncService.unwrap(e);
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : new RuntimeException(cause.getMessage(), cause);
+        }
+    }
+
+    // Cleanup method - stops the query threads when app shuts down
+    @PreDestroy
+    public void cleanup() {
+        if (viewExecutor != null) {
+            viewExecutor.shutdownNow();
+        }
+    }
+
+}
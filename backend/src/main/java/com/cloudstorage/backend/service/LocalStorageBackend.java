@@ -0,0 +1,345 @@
+package com.cloudstorage.backend.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import com.cloudstorage.backend.entity.File;
+import com.cloudstorage.backend.repository.FileRepository;
+
+import jakarta.annotation.PostConstruct;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+
+// LocalStorageBackend - Stores file contents on a local (or mounted) disk instead of S3
+// Enabled with storage.backend=local - for development, CI load tests and on-prem installs.
+// Uploads are written with FileChannel into a temp file and moved into place, so a key
+// never points at a half-written file. Downloads go out zero-copy: FileController lets
+// Tomcat send the file with sendfile, and the fallback copy uses FileChannel.transferTo.
+// Download/view URLs point at /api/files/{id}/content, which needs the user's token.
+@Service
+@ConditionalOnProperty(name = "storage.backend", havingValue = "local")
+public class LocalStorageBackend implements StorageBackend {
+
+    // Most bytes moved per transferFrom/transferTo call
+    private static final long TRANSFER_CHUNK = 8L * 1024 * 1024;
+
+    private final FileRepository fileRepository;
+
+    // Directory holding all stored files (keys are paths below it)
+    @Value("${storage.local.root:./storage}")
+    private String rootDirectory;
+
+    // Address of this backend as seen by the browser, for download/view URLs
+    @Value("${storage.local.publicUrl:http://localhost:8080}")
+    private String publicUrl;
+
+    private Path root;
+
+    public LocalStorageBackend(FileRepository fileRepository) {
+        this.fileRepository = fileRepository;
+    }
+
+    // Creates the storage directory once the @Value settings are injected
+    @PostConstruct
+    public void init() {
+        root = Paths.get(rootDirectory).toAbsolutePath().normalize();
+        try {
+            Files.createDirectories(root);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to create storage directory " + root + ": " + e.getMessage(), e);
+        }
+        System.out.println("Local storage backend: " + root);
+    }
+
+    // Same key layout as S3 uploads: files/uuid-originalname
+    @Override
+    public String store(MultipartFile file) throws IOException {
+        String key = "files/" + UUID.randomUUID() + "-" + safeName(file.getOriginalFilename());
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+
+        Path temp = Files.createTempFile(target.getParent(), ".upload-", ".part");
+        try (InputStream in = file.getInputStream();
+             ReadableByteChannel source = Channels.newChannel(in);
+             FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+
+            long position = 0;
+            long transferred;
+            while ((transferred = channel.transferFrom(source, position, TRANSFER_CHUNK)) > 0) {
+                position += transferred;
+            }
+            // On disk before the File record points at it
+            channel.force(true);
+            channel.close();
+
+            // Only now visible under its key
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw new RuntimeException("Failed to store file on disk: " + e.getMessage(), e);
+        }
+
+        System.out.println("File stored on disk: " + key);
+        return key;
+    }
+
+    @Override
+    public void delete(String key) {
+        try {
+            Files.deleteIfExists(resolve(key));
+            System.out.println("File deleted from disk: " + key);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to delete file from disk: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Map<String, String> deleteAll(List<String> keys) {
+        Map<String, String> failed = new LinkedHashMap<>();
+        for (String key : keys) {
+            try {
+                delete(key);
+            } catch (RuntimeException e) {
+                failed.put(key, e.getMessage());
+            }
+        }
+        return failed;
+    }
+
+    // ETag and Last-Modified come from the file's size and modification time
+    @Override
+    public StoredObject open(String key, String range, String ifRange) {
+        Path path = resolve(key);
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            throw new RuntimeException("File not found on disk: " + key, e);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read file from disk: " + e.getMessage(), e);
+        }
+
+        long size = attributes.size();
+        // HTTP dates only have whole seconds
+        Instant lastModified = attributes.lastModifiedTime().toInstant().truncatedTo(ChronoUnit.SECONDS);
+        String eTag = "\"" + Long.toHexString(lastModified.getEpochSecond()) + "-" + Long.toHexString(size) + "\"";
+
+        return openFile(path, size, null, eTag, lastModified, range, ifRange);
+    }
+
+    // Opens (a range of) a file on local disk, with the validators given for it
+    // Shared with the S3 disk cache, which serves cached objects with their S3 ETag
+    static StoredObject openFile(Path path, long size, String contentType, String eTag, Instant lastModified,
+                                 String range, String ifRange) {
+        long[] bounds = range != null && rangeApplies(ifRange, eTag, lastModified) ? parseRange(range, size) : null;
+        if (bounds == null) {
+            return new LocalObject(path, null, 0, size, null, contentType, eTag, lastModified);
+        }
+        long length = bounds[1] - bounds[0] + 1;
+        String contentRange = "bytes " + bounds[0] + "-" + bounds[1] + "/" + size;
+        return new LocalObject(path, null, bounds[0], length, contentRange, contentType, eTag, lastModified);
+    }
+
+    // Same as openFile, for a file the caller has already opened (the S3 disk cache, whose files can be
+    // evicted at any time): the content is read from that channel, which stays readable after the file
+    // is deleted, and is never handed to sendfile - Tomcat would reopen the file by name.
+    // The channel is closed once the content is written, or right away if the range doesn't fit
+    static StoredObject openChannel(Path path, FileChannel channel, long size, String contentType, String eTag,
+                                    Instant lastModified, String range, String ifRange) {
+        long[] bounds;
+        try {
+            bounds = range != null && rangeApplies(ifRange, eTag, lastModified) ? parseRange(range, size) : null;
+        } catch (RuntimeException e) {
+            try {
+                channel.close();
+            } catch (IOException closeError) {
+                e.addSuppressed(closeError);
+            }
+            throw e;
+        }
+        if (bounds == null) {
+            return new LocalObject(path, channel, 0, size, null, contentType, eTag, lastModified);
+        }
+        long length = bounds[1] - bounds[0] + 1;
+        String contentRange = "bytes " + bounds[0] + "-" + bounds[1] + "/" + size;
+        return new LocalObject(path, channel, bounds[0], length, contentRange, contentType, eTag, lastModified);
+    }
+
+    // Served by this backend through the streaming endpoint
+    @Override
+    public String getDownloadUrl(File file) {
+        return contentUrl(file) + "?attachment=true";
+    }
+
+    @Override
+    public String getViewUrl(File file) {
+        return contentUrl(file);
+    }
+
+    @Override
+    public Map<Long, String> getViewUrls(List<Long> fileIds) {
+        Map<Long, String> viewUrls = new LinkedHashMap<>();
+        for (File file : fileRepository.findAllById(fileIds)) {
+            viewUrls.put(file.getId(), getViewUrl(file));
+        }
+        return viewUrls;
+    }
+
+    // helper method:
+    private String contentUrl(File file) {
+        return publicUrl + "/api/files/" + file.getId() + "/content";
+    }
+
+    // helper method:
+    // Path for a key - keys can't point outside the storage directory
+    private Path resolve(String key) {
+        Path path = root.resolve(key).normalize();
+        if (!path.startsWith(root) || path.equals(root)) {
+            throw new RuntimeException("Invalid storage key: " + key);
+        }
+        return path;
+    }
+
+    // helper method:
+    // Original filename as one path segment
+    private static String safeName(String filename) {
+        if (filename == null || filename.isBlank()) {
+            return "file";
+        }
+        String safe = filename.replace('/', '_').replace('\\', '_');
+        return safe.equals(".") || safe.equals("..") ? "_" : safe;
+    }
+
+    // helper method:
+    // If-Range: the range only applies while the file is unchanged (strong ETag or exact date)
+    private static boolean rangeApplies(String ifRange, String eTag, Instant lastModified) {
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"")) {
+            return ifRange.equals(eTag);
+        }
+        if (ifRange.startsWith("W/")) {
+            // Weak ETags never match for If-Range
+            return false;
+        }
+        try {
+            return lastModified != null
+                    && ZonedDateTime.parse(ifRange, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().equals(lastModified);
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    // helper method:
+    // Single byte range ("bytes=0-99", "bytes=100-", "bytes=-100") as {first, last}
+    // Returns null when the header should be ignored (malformed, several ranges)
+    private static long[] parseRange(String range, long size) {
+        if (!range.startsWith("bytes=") || range.indexOf(',') >= 0) {
+            return null;
+        }
+        String spec = range.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+
+        long first;
+        long last;
+        try {
+            if (dash == 0) {
+                // Suffix range - the last N bytes
+                long suffix = Long.parseLong(spec.substring(1));
+                if (suffix == 0 || size == 0) {
+                    throw new RangeNotSatisfiableException("Range not satisfiable: " + range);
+                }
+                first = Math.max(0, size - suffix);
+                last = size - 1;
+            } else {
+                first = Long.parseLong(spec.substring(0, dash));
+                last = dash == spec.length() - 1 ? size - 1 : Long.parseLong(spec.substring(dash + 1));
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+
+        if (first >= size) {
+            throw new RangeNotSatisfiableException("Range not satisfiable: " + range);
+        }
+        if (last < first) {
+            return null;
+        }
+        return new long[] { first, Math.min(last, size - 1) };
+    }
+
+    // A byte range of a file on local disk
+    // openChannel is set when the caller opened the file already (sendfile is not used then)
+    private static class LocalObject extends StoredObject {
+
+        private final Path path;
+        private final FileChannel openChannel;
+        private final long position;
+
+        LocalObject(Path path, FileChannel openChannel, long position, long length, String contentRange, String contentType,
+                    String eTag, Instant lastModified) {
+            super(contentType, length, contentRange, eTag, lastModified);
+            this.path = path;
+            this.openChannel = openChannel;
+            this.position = position;
+        }
+
+        // Fallback when the container can't use sendfile: FileChannel.transferTo into the response
+        @Override
+        public void writeTo(OutputStream output) throws IOException {
+            WritableByteChannel target = Channels.newChannel(output);
+            try (FileChannel channel = openChannel != null ? openChannel : FileChannel.open(path, StandardOpenOption.READ)) {
+                long offset = position;
+                long remaining = getContentLength();
+                while (remaining > 0) {
+                    long sent = channel.transferTo(offset, Math.min(remaining, TRANSFER_CHUNK), target);
+                    if (sent <= 0) {
+                        throw new IOException("File shrank while being sent: " + path.getFileName());
+                    }
+                    offset += sent;
+                    remaining -= sent;
+                }
+            }
+        }
+
+        @Override
+        public Path getLocalFile() {
+            return openChannel == null ? path : null;
+        }
+
+        @Override
+        public long getPosition() {
+            return position;
+        }
+    }
+
+}
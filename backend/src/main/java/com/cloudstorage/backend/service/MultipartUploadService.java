@@ -0,0 +1,219 @@
+package com.cloudstorage.backend.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+
+// MultipartUploadService - Parallel S3 multipart upload engine for large files
+// Splits a file into parts and uploads them concurrently on a bounded worker pool.
+// Each part is retried on its own, and the whole upload is aborted in S3 if any part fails.
+@Service
+public class MultipartUploadService {
+
+    // S3 limits: every part except the last must be >= 5MB, and an upload has at most 10,000 parts
+    private static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+    private static final int MAX_PARTS = 10_000;
+
+    private final S3Service s3Service;
+
+    // Files at or above this size use multipart upload (default 100MB)
+    @Value("${aws.s3.multipart.threshold:104857600}")
+    private long threshold;
+
+    // Size of each part in bytes (default 16MB)
+    @Value("${aws.s3.multipart.partSize:16777216}")
+    private long partSize;
+
+    // Number of parts uploaded at the same time across all uploads
+    @Value("${aws.s3.multipart.concurrency:4}")
+    private int concurrency;
+
+    // How many times a single part is attempted before the upload is aborted
+    @Value("${aws.s3.multipart.maxAttempts:3}")
+    private int maxAttempts;
+
+    // Shared worker pool for part uploads - bounded so big uploads can't spawn unlimited threads
+    private ExecutorService partExecutor;
+
+    public MultipartUploadService(S3Service s3Service) {
+        this.s3Service = s3Service;
+    }
+
+    // Creates the worker pool once the @Value settings are injected
+    @PostConstruct
+    public void init() {
+        partExecutor = Executors.newFixedThreadPool(concurrency, new CustomizableThreadFactory("s3-part-upload-"));
+    }
+
+    // Decides whether a file is big enough to be worth a multipart upload
+    public boolean shouldUseMultipart(long fileSize) {
+        return fileSize >= threshold;
+    }
+
+    // Upload file to S3 in parallel parts and return the S3 key (same format as S3Service.uploadFile)
+    // Parts read their own slice of the multipart temp file, so no part is buffered on the heap
+    public String uploadFile(MultipartFile file) {
+        return uploadFile(file, s3Service.generateS3Key(file.getOriginalFilename()));
+    }
+
+    // Upload file in parallel parts under a key chosen by the caller
+    public String uploadFile(MultipartFile file, String s3Key) {
+        String contentType = file.getContentType() != null ? file.getContentType() : "application/octet-stream";
+        long fileSize = file.getSize();
+        long effectivePartSize = getEffectivePartSize(fileSize);
+        int partCount = (int) ((fileSize + effectivePartSize - 1) / effectivePartSize);
+
+        String uploadId = s3Service.startMultipartUpload(s3Key, contentType);
+        List<Future<CompletedPart>> pendingParts = new ArrayList<>();
+
+        try {
+            // Queue every part on the worker pool
+            for (int partNumber = 1; partNumber <= partCount; partNumber++) {
+                long offset = (partNumber - 1) * effectivePartSize;
+                long length = Math.min(effectivePartSize, fileSize - offset);
+                int currentPart = partNumber;
+                pendingParts.add(partExecutor.submit(() -> uploadPartWithRetry(file, s3Key, uploadId, currentPart, offset, length)));
+            }
+
+            // Wait for all parts - futures are in part order, which is what S3 expects
+            List<CompletedPart> completedParts = new ArrayList<>();
+            for (Future<CompletedPart> pendingPart : pendingParts) {
+                completedParts.add(pendingPart.get());
+            }
+
+            s3Service.completeMultipartUpload(s3Key, uploadId, completedParts);
+            return s3Key;
+
+        } catch (Exception e) {
+            // Stop remaining parts and tell S3 to discard what was already uploaded
+            pendingParts.forEach(pendingPart -> pendingPart.cancel(true));
+            s3Service.abortMultipartUpload(s3Key, uploadId);
+
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+            throw new RuntimeException("Multipart upload failed: " + cause.getMessage(), cause);
+        }
+    }
+
+    // Part size actually used for a file - grows past the configured size for huge files
+    // so the upload never needs more than 10,000 parts
+    public long getEffectivePartSize(long fileSize) {
+        long minimumForPartLimit = (fileSize + MAX_PARTS - 1) / MAX_PARTS;
+        return Math.max(Math.max(partSize, MIN_PART_SIZE), minimumForPartLimit);
+    }
+
+    // Uploads a single part, retrying with exponential backoff before giving up
+    private CompletedPart uploadPartWithRetry(MultipartFile file, String s3Key, String uploadId,
+                                              int partNumber, long offset, long length) throws InterruptedException {
+        RuntimeException lastError = null;
+
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                return s3Service.uploadPart(s3Key, uploadId, partNumber, partBody(file, offset, length));
+            } catch (RuntimeException e) {
+                lastError = e;
+                System.err.println("Part " + partNumber + " of " + s3Key + " failed (attempt " + attempt + "/" + maxAttempts + "): " + e.getMessage());
+                if (attempt < maxAttempts) {
+                    Thread.sleep(200L << (attempt - 1)); // 200ms, 400ms, 800ms...
+                }
+            }
+        }
+
+        throw lastError;
+    }
+
+    // Request body for one part: opens the file, skips to the part's offset and stops after its length
+    // The SDK re-opens the stream if it retries internally
+    private RequestBody partBody(MultipartFile file, long offset, long length) {
+        return RequestBody.fromContentProvider(() -> {
+            try {
+                InputStream in = file.getInputStream();
+                in.skipNBytes(offset);
+                return new PartInputStream(in, length);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to open part stream: " + e.getMessage(), e);
+            }
+        }, length, "application/octet-stream");
+    }
+
+    // Shut down the worker pool when the app stops
+    @PreDestroy
+    public void cleanup() {
+        if (partExecutor != null) {
+            partExecutor.shutdownNow();
+        }
+    }
+
+    // Input stream limited to one part's length of the underlying file stream
+    private static class PartInputStream extends FilterInputStream {
+
+        private long remaining;
+
+        PartInputStream(InputStream in, long length) {
+            super(in);
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = super.read();
+            if (b != -1) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int read = super.read(buffer, offset, (int) Math.min(length, remaining));
+            if (read != -1) {
+                remaining -= read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(Math.min(n, remaining));
+            remaining -= skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(super.available(), remaining);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+
+}
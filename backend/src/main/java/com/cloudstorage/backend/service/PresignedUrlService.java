@@ -0,0 +1,124 @@
+package com.cloudstorage.backend.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import com.cloudstorage.backend.entity.File;
+import com.cloudstorage.backend.repository.FileRepository;
+
+import jakarta.annotation.PostConstruct;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+
+// PresignedUrlService - Hands out stable, cached pre-signed download/view URLs
+// URLs are signed as of the start of a fixed time window (time-bucketed signing), so
+// every request for the same file within a window gets the exact same URL. That lets
+// browsers and CDNs cache the file bytes, and lets us cache the URLs themselves.
+// A URL signed at the start of a window stays valid for window + validity minutes,
+// so even one handed out at the very end of its window works for the full validity.
+@Service
+public class PresignedUrlService {
+
+    // Most URLs a single batch request may ask for
+    private static final int MAX_BATCH_SIZE = 1000;
+
+    private final S3Service s3Service;
+    private final FileRepository fileRepository;
+
+    // Length of one signing window - the same URL is reused within it
+    @Value("${aws.s3.presign.windowMinutes:10}")
+    private int windowMinutes;
+
+    // Minimum time a handed-out URL keeps working
+    @Value("${aws.s3.presign.validityMinutes:15}")
+    private int validityMinutes;
+
+    // Most URLs kept in memory - least recently used ones are evicted first
+    @Value("${aws.s3.presign.cacheSize:10000}")
+    private int cacheSize;
+
+    // Source of "now" (replaced in tests)
+    private Clock clock = Clock.systemUTC();
+
+    // s3Key + disposition -> URL signed for a window
+    private Map<String, CachedUrl> urlCache;
+
+    public PresignedUrlService(S3Service s3Service, FileRepository fileRepository) {
+        this.s3Service = s3Service;
+        this.fileRepository = fileRepository;
+    }
+
+    // Creates the LRU cache once the @Value settings are injected
+    @PostConstruct
+    public void init() {
+        urlCache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedUrl> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    // URL that makes the browser download the file ("attachment")
+    public String getDownloadUrl(File file) {
+        return getUrl(file.getS3Key(), "attachment; filename=\"" + file.getFilename() + "\"");
+    }
+
+    // URL that opens the file in the browser ("inline" - images, PDFs, video...)
+    public String getViewUrl(File file) {
+        return getUrl(file.getS3Key(), "inline; filename=\"" + file.getFilename() + "\"");
+    }
+
+    // View URLs for a whole listing in one call (fileId -> URL)
+    // Unknown IDs are left out of the result
+    public Map<Long, String> getViewUrls(List<Long> fileIds) {
+        if (fileIds.size() > MAX_BATCH_SIZE) {
+            throw new RuntimeException("At most " + MAX_BATCH_SIZE + " files per request");
+        }
+
+        Map<Long, String> viewUrls = new LinkedHashMap<>();
+        for (File file : fileRepository.findAllById(fileIds)) {
+            viewUrls.put(file.getId(), getViewUrl(file));
+        }
+        return viewUrls;
+    }
+
+    // helper method:
+    // Returns the cached URL for the current window, signing a new one when the window moved on
+    private String getUrl(String s3Key, String contentDisposition) {
+        Duration window = Duration.ofMinutes(windowMinutes);
+        long now = clock.millis();
+        Instant windowStart = Instant.ofEpochMilli(now - now % window.toMillis());
+
+        String cacheKey = s3Key + "\n" + contentDisposition;
+        CachedUrl cached = urlCache.get(cacheKey);
+        if (cached != null && cached.windowStart.equals(windowStart)) {
+            return cached.url;
+        }
+
+        // Signed outside the lock - two threads racing here produce the identical URL anyway
+        Instant expiration = windowStart.plus(window).plus(Duration.ofMinutes(validityMinutes));
+        String url = s3Service.generateGetUrl(s3Key, contentDisposition, windowStart, expiration);
+        urlCache.put(cacheKey, new CachedUrl(windowStart, url));
+        return url;
+    }
+
+    // A signed URL and the window it was signed for
+    private static class CachedUrl {
+
+        private final Instant windowStart;
+        private final String url;
+
+        CachedUrl(Instant windowStart, String url) {
+            this.windowStart = windowStart;
+            this.url = url;
+        }
+    }
+
+}
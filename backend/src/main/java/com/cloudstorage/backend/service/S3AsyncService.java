@@ -0,0 +1,225 @@
+package com.cloudstorage.backend.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+
+// S3AsyncService - Non-blocking S3 operations built on S3AsyncClient
+// Same operations as S3Service, but every call returns a CompletableFuture right away
+// instead of tying up the calling (servlet) thread until S3 answers. By default the
+// client runs on the AWS Common Runtime (CRT), which also splits large transfers into
+// parallel parts on its own native event loop.
+// Only registered with the S3 storage backend.
+@Service
+@ConditionalOnProperty(name = "storage.backend", havingValue = "s3", matchIfMissing = true)
+public class S3AsyncService {
+
+    // AWS credentials and configuration from application.properties
+    @Value("${aws.accessKeyId}")
+    private String accessKeyId;
+
+    @Value("${aws.secretKey}")
+    private String secretKey;
+
+    @Value("${aws.region}")
+    private String region;
+
+    @Value("${aws.s3.bucketName}")
+    private String bucketName;
+
+    // Use the CRT-based client (true) or the default Netty-based SDK client (false)
+    // Fallback for platforms where the CRT native library can't load
+    @Value("${aws.s3.async.crt:true}")
+    private boolean useCrt;
+
+    // Maximum number of concurrent S3 requests the CRT client keeps in flight
+    @Value("${aws.s3.async.maxConcurrency:64}")
+    private int maxConcurrency;
+
+    // Threads that read multipart temp files for async uploads (blocking disk reads
+    // must stay off the client's event loop)
+    @Value("${aws.s3.async.uploadReadThreads:4}")
+    private int uploadReadThreads;
+
+    private final S3Service s3Service;
+
+    private S3AsyncClient s3AsyncClient;
+    private ExecutorService uploadReadExecutor;
+
+    public S3AsyncService(S3Service s3Service) {
+        this.s3Service = s3Service;
+    }
+
+    // Build the async client once at startup (the client is thread-safe and shared)
+    @PostConstruct
+    public void init() {
+        StaticCredentialsProvider credentials = StaticCredentialsProvider.create(
+                AwsBasicCredentials.create(accessKeyId, secretKey));
+
+        if (useCrt) {
+            s3AsyncClient = S3AsyncClient.crtBuilder()
+                    .region(Region.of(region))
+                    .credentialsProvider(credentials)
+                    .maxConcurrency(maxConcurrency)
+                    .build();
+        } else {
+            s3AsyncClient = S3AsyncClient.builder()
+                    .region(Region.of(region))
+                    .credentialsProvider(credentials)
+                    .build();
+        }
+
+        uploadReadExecutor = Executors.newFixedThreadPool(uploadReadThreads, new CustomizableThreadFactory("s3-async-read-"));
+    }
+
+    // Upload file to S3 without blocking - completes with the S3 key (same format as S3Service)
+    public CompletableFuture<String> uploadFile(MultipartFile file) {
+        String s3Key = s3Service.generateS3Key(file.getOriginalFilename());
+
+        PutObjectRequest putObjectRequest = PutObjectRequest.builder()
+                .bucket(bucketName)
+                .key(s3Key)
+                .contentType(file.getContentType())
+                .contentLength(file.getSize())
+                .build();
+
+        InputStream content;
+        try {
+            content = file.getInputStream();
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(new RuntimeException("Failed to read upload: " + e.getMessage(), e));
+        }
+
+        // Streams the multipart temp file - never loads the whole file into memory
+        // The SDK doesn't close the stream, so it is closed here once S3 has answered (either way)
+        AsyncRequestBody body = AsyncRequestBody.fromInputStream(content, file.getSize(), uploadReadExecutor);
+        CompletableFuture<PutObjectResponse> upload;
+        try {
+            upload = s3AsyncClient.putObject(putObjectRequest, body);
+        } catch (RuntimeException e) {
+            closeQuietly(content);
+            throw e;
+        }
+
+        return upload
+                .handle((response, error) -> {
+                    closeQuietly(content);
+                    if (error != null) {
+                        throw new RuntimeException("Failed to upload file to S3: " + rootMessage(error), error);
+                    }
+                    System.out.println("File uploaded successfully to S3 (async): " + s3Key);
+                    return s3Key;
+                });
+    }
+
+    // Download a file from S3 without blocking - completes with the file bytes
+    public CompletableFuture<byte[]> downloadFile(String s3Key) {
+        GetObjectRequest getObjectRequest = GetObjectRequest.builder()
+                .bucket(bucketName)
+                .key(s3Key)
+                .build();
+
+        return s3AsyncClient.getObject(getObjectRequest, AsyncResponseTransformer.toBytes())
+                .handle((response, error) -> {
+                    if (error != null) {
+                        throw new RuntimeException("Failed to download file from S3: " + rootMessage(error), error);
+                    }
+                    return response.asByteArray();
+                });
+    }
+
+    // Delete a file from S3 without blocking
+    public CompletableFuture<Void> deleteFile(String s3Key) {
+        DeleteObjectRequest deleteObjectRequest = DeleteObjectRequest.builder()
+                .bucket(bucketName)
+                .key(s3Key)
+                .build();
+
+        return s3AsyncClient.deleteObject(deleteObjectRequest)
+                .handle((response, error) -> {
+                    if (error != null) {
+                        throw new RuntimeException("Failed to delete file from S3: " + rootMessage(error), error);
+                    }
+                    System.out.println("File deleted from S3 (async): " + s3Key);
+                    return null;
+                });
+    }
+
+    // Look up an object's metadata (size, content type, ETag) without blocking
+    public CompletableFuture<HeadObjectResponse> headObject(String s3Key) {
+        HeadObjectRequest headObjectRequest = HeadObjectRequest.builder()
+                .bucket(bucketName)
+                .key(s3Key)
+                .build();
+
+        return s3AsyncClient.headObject(headObjectRequest)
+                .handle((response, error) -> {
+                    if (error != null) {
+                        if (unwrap(error) instanceof NoSuchKeyException) {
+                            throw new RuntimeException("File not found in S3: " + s3Key, error);
+                        }
+                        throw new RuntimeException("Failed to read file metadata from S3: " + rootMessage(error), error);
+                    }
+                    return response;
+                });
+    }
+
+    // Cleanup method - closes the async client and reader threads when app shuts down
+    @PreDestroy
+    public void cleanup() {
+        if (s3AsyncClient != null) {
+            s3AsyncClient.close();
+        }
+        if (uploadReadExecutor != null) {
+            uploadReadExecutor.shutdownNow();
+        }
+    }
+
+    // Futures wrap the real failure in CompletionException - dig out the actual cause
+    public static Throwable unwrap(Throwable error) {
+        Throwable cause = error;
+        while (cause.getCause() != null && (cause instanceof CompletionException
+                || cause instanceof ExecutionException)) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    // helper method:
+    // Releases the upload's temp file handle - a failed close is only logged
+    private static void closeQuietly(InputStream content) {
+        try {
+            content.close();
+        } catch (IOException e) {
+            System.err.println("Failed to close upload stream: " + e.getMessage());
+        }
+    }
+
+    // helper method:
+    // Message of the actual failure, for error responses
+    private static String rootMessage(Throwable error) {
+        return unwrap(error).getMessage();
+    }
+
+}
@@ -1,22 +1,45 @@
 package com.cloudstorage.backend.service;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import jakarta.annotation.PreDestroy;
-import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
-import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.auth.signer.AwsS3V4Signer;
+import software.amazon.awssdk.auth.signer.AwsSignerExecutionAttribute;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.signer.Presigner;
+import software.amazon.awssdk.core.signer.Signer;
 import software.amazon.awssdk.core.sync.RequestBody;
-import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.http.SdkHttpFullRequest;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.*;
 import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.UploadPartPresignRequest;
+import java.time.Clock;
 import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 
 // Handles all AWS S3 file storage operations (upload, download, delete)
@@ -24,47 +47,54 @@ import java.util.UUID;
 @Service
 public class S3Service {
 
-    // AWS credentials and configuration from application.properties
-    @Value("${aws.accessKeyId}")
-    private String accessKeyId;
+    // S3 bucket from application.properties (client settings live in S3ClientConfig)
+    @Value("${aws.s3.bucketName}")
+    private String bucketName;
 
-    @Value("${aws.secretKey}")
-    private String secretKey;
+    // Read buffer used when streaming an upload from the multipart temp file to S3
+    // This is the only part of the file held on the heap at once (default 64KB)
+    @Value("${aws.s3.upload.bufferSize:65536}")
+    private int uploadBufferSize;
 
-    @Value("${aws.region}")
-    private String region;
+    // Connections opened to S3 at startup, so the first users after a deploy
+    // don't pay for TCP + TLS setup (0 = no warm-up)
+    @Value("${aws.s3.http.warmupConnections:8}")
+    private int warmupConnections;
 
-    @Value("${aws.s3.bucketName}")
-    private String bucketName;
+    // Which storage backend holds file contents - only "s3" needs a warm pool
+    @Value("${storage.backend:s3}")
+    private String storageBackend;
 
-    // AWS S3 clients - created once, reused for all operations
-    private S3Client s3Client;        // Does actual file operations (upload, download, delete)
-    private S3Presigner s3Presigner;  // Creates temporary secure URLs that expire after a set time
+    // AWS S3 clients - shared beans from S3ClientConfig, reused for all operations
+    private final S3Client s3Client;        // Does actual file operations (upload, download, delete)
+    private final S3Presigner s3Presigner;  // Creates temporary secure URLs that expire after a set time
 
-    // Initialize S3 client with AWS credentials when service is created
-    // Lazy initialization - only creates when first needed
-    private S3Client getS3Client() {
-        if (s3Client == null) {
-            AwsBasicCredentials awsCredentials = AwsBasicCredentials.create(accessKeyId, secretKey);
-            s3Client = S3Client.builder()
-                    .region(Region.of(region))
-                    .credentialsProvider(StaticCredentialsProvider.create(awsCredentials))
-                    .build();
-        }
-        return s3Client;
+    public S3Service(S3Client s3Client, S3Presigner s3Presigner) {
+        this.s3Client = s3Client;
+        this.s3Presigner = s3Presigner;
     }
 
-    // Creates S3 presigner for generating secure URLs
-    // Presigner = creates temporary URLs that expire after set time 
-    private S3Presigner getS3Presigner() {
-        if (s3Presigner == null) {
-            AwsBasicCredentials awsCredentials = AwsBasicCredentials.create(accessKeyId, secretKey);
-            s3Presigner = S3Presigner.builder()
-                    .region(Region.of(region))
-                    .credentialsProvider(StaticCredentialsProvider.create(awsCredentials))
-                    .build();
+    // Pre-warm the connection pool once the app is up
+    // Runs warmupConnections HeadBucket calls at the same time, so each one opens its own
+    // pooled connection. Spring only reports the app ready for traffic after this returns.
+    // A failure here is logged, not fatal - requests simply open connections on demand.
+    // Skipped when S3 isn't the storage backend (e.g. local mode without AWS credentials).
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (warmupConnections <= 0 || !"s3".equals(storageBackend)) {
+            return;
+        }
+        ExecutorService warmupExecutor = Executors.newFixedThreadPool(warmupConnections, new CustomizableThreadFactory("s3-warmup-"));
+        try {
+            List<CompletableFuture<Boolean>> calls = new ArrayList<>();
+            for (int i = 0; i < warmupConnections; i++) {
+                calls.add(CompletableFuture.supplyAsync(this::testConnection, warmupExecutor));
+            }
+            long opened = calls.stream().filter(CompletableFuture::join).count();
+            System.out.println("S3 connection pool warmed up: " + opened + "/" + warmupConnections + " connections");
+        } finally {
+            warmupExecutor.shutdown();
         }
-        return s3Presigner;
     }
 
     // Test S3 connectivity
@@ -72,11 +102,10 @@ public class S3Service {
     // Returns true if connection works, false if it fails
     public boolean testConnection() {
         try {
-            S3Client client = getS3Client();
             HeadBucketRequest request = HeadBucketRequest.builder()
                     .bucket(bucketName)
                     .build();
-            client.headBucket(request);
+            s3Client.headBucket(request);
             return true;
         } catch (Exception e) {
             System.err.println("S3 Connection failed: " + e.getMessage());
@@ -88,11 +117,13 @@ public class S3Service {
     // S3 key format: files/uuid-originalfilename.ext
     // Example: files/123e4567-e89b-12d3-a456-426614174000-document.pdf
     public String uploadFile(MultipartFile file) throws IOException {
+        // Create unique S3 key (to prevent filename conflicts): files/uuid-originalname
+        return uploadFile(file, generateS3Key(file.getOriginalFilename()));
+    }
+
+    // Upload file to S3 under a key chosen by the caller (e.g. blobs/<digest> for deduplicated content)
+    public String uploadFile(MultipartFile file, String s3Key) throws IOException {
         try {
-            // Create unique S3 key (to prevent filename conflicts): files/uuid-originalname
-            String s3Key = "files/" + UUID.randomUUID() + "-" + file.getOriginalFilename();
-            
-            S3Client client = getS3Client();
             
             // Build the upload request with file metadata
             // Think of this as: Filling out a detailed form telling AWS 
@@ -104,8 +135,8 @@ public class S3Service {
                     .contentLength(file.getSize())      // File size in bytes
                     .build();
 
-            // Actually upload the file bytes to S3
-            client.putObject(putObjectRequest, RequestBody.fromBytes(file.getBytes()));
+            // Stream the file bytes to S3 - never loads the whole file with getBytes()
+            s3Client.putObject(putObjectRequest, streamingBody(file));
             
             System.out.println("File uploaded successfully to S3: " + s3Key);
             return s3Key; // Return S3 key to save in database
@@ -115,37 +146,182 @@ public class S3Service {
         }
     }
 
+    // Create unique S3 key for a new upload: files/uuid-originalname
+    public String generateS3Key(String originalFilename) {
+        return "files/" + UUID.randomUUID() + "-" + originalFilename;
+    }
+
+    // MULTIPART UPLOAD PRIMITIVES:
+    // Large files are split into parts that are uploaded separately and stitched together by S3
+    // Flow: startMultipartUpload -> uploadPart (per part) -> completeMultipartUpload (or abort)
+
+    // Starts a multipart upload and returns the upload ID that ties the parts together
+    public String startMultipartUpload(String s3Key, String contentType) {
+        try {
+            CreateMultipartUploadRequest request = CreateMultipartUploadRequest.builder()
+                    .bucket(bucketName)
+                    .key(s3Key)
+                    .contentType(contentType)
+                    .build();
+
+            return s3Client.createMultipartUpload(request).uploadId();
+
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to start multipart upload: " + e.getMessage(), e);
+        }
+    }
+
+    // Uploads one part (part numbers start at 1) and returns it with the ETag S3 assigned
+    // Every part except the last must be at least 5MB
+    public CompletedPart uploadPart(String s3Key, String uploadId, int partNumber, RequestBody body) {
+        try {
+            UploadPartRequest request = UploadPartRequest.builder()
+                    .bucket(bucketName)
+                    .key(s3Key)
+                    .uploadId(uploadId)
+                    .partNumber(partNumber)
+                    .contentLength(body.optionalContentLength().orElse(null))
+                    .build();
+
+            String eTag = s3Client.uploadPart(request, body).eTag();
+            return CompletedPart.builder().partNumber(partNumber).eTag(eTag).build();
+
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to upload part " + partNumber + ": " + e.getMessage(), e);
+        }
+    }
+
+    // Stitches the uploaded parts into the final object (parts must be in ascending order)
+    // Throws NoSuchUploadException if S3 no longer knows the upload id
+    public void completeMultipartUpload(String s3Key, String uploadId, List<CompletedPart> parts) {
+        try {
+            CompleteMultipartUploadRequest request = CompleteMultipartUploadRequest.builder()
+                    .bucket(bucketName)
+                    .key(s3Key)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
+                    .build();
+
+            s3Client.completeMultipartUpload(request);
+            System.out.println("Multipart upload completed in S3: " + s3Key + " (" + parts.size() + " parts)");
+
+        } catch (NoSuchUploadException e) {
+            // Passed through unwrapped: callers retrying a commit treat it as "already completed or aborted"
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to complete multipart upload: " + e.getMessage(), e);
+        }
+    }
+
+    // Aborts a multipart upload so S3 discards the parts already stored (otherwise they are billed)
+    // Best effort - called from failure paths, so errors are only logged
+    public void abortMultipartUpload(String s3Key, String uploadId) {
+        try {
+            AbortMultipartUploadRequest request = AbortMultipartUploadRequest.builder()
+                    .bucket(bucketName)
+                    .key(s3Key)
+                    .uploadId(uploadId)
+                    .build();
+
+            s3Client.abortMultipartUpload(request);
+            System.out.println("Multipart upload aborted in S3: " + s3Key);
+
+        } catch (Exception e) {
+            System.err.println("Failed to abort multipart upload " + uploadId + " - parts may need manual cleanup: " + e.getMessage());
+        }
+    }
+
+    // Builds a request body that streams straight from the uploaded file
+    // Spring spools multipart uploads to a temp file, so getInputStream() reads from disk
+    // The SDK calls the provider again on retry, which re-opens the stream from the start
+    private RequestBody streamingBody(MultipartFile file) {
+        String contentType = file.getContentType() != null ? file.getContentType() : "application/octet-stream";
+        return RequestBody.fromContentProvider(() -> {
+            try {
+                return new BufferedInputStream(file.getInputStream(), uploadBufferSize);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to open upload stream: " + e.getMessage(), e);
+            }
+        }, file.getSize(), contentType);
+    }
+
     // Download a file from S3 by its S3 key
-    // Returns file as byte array that can be sent to frontend
+    // Returns file as byte array - loads the whole object into memory, so only for small files
+    // (clients should use the streaming /content endpoint, see openObjectStream)
     public byte[] downloadFile(String s3Key) {
         try {
-            S3Client client = getS3Client();
             
             GetObjectRequest getObjectRequest = GetObjectRequest.builder()
                     .bucket(bucketName)
                     .key(s3Key)
                     .build();
 
-            return client.getObject(getObjectRequest).readAllBytes();
+            return s3Client.getObject(getObjectRequest).readAllBytes();
             
         } catch (Exception e) {
             throw new RuntimeException("Failed to download file from S3: " + e.getMessage(), e);
         }
     }
 
+    // Open a file in S3 as a stream, optionally only a byte range of it
+    // range is an HTTP Range header value ("bytes=0-1023") and is passed straight to S3
+    // ifRange is the client's If-Range header: the range is only served if the object
+    // still matches that ETag/date, otherwise the whole (changed) object is returned
+    // Caller must close the stream - S3Exception with status 416 means the range is invalid
+    public ResponseInputStream<GetObjectResponse> openObjectStream(String s3Key, String range, String ifRange) {
+        GetObjectRequest.Builder request = GetObjectRequest.builder()
+                .bucket(bucketName)
+                .key(s3Key);
+
+        if (range != null) {
+            request.range(range);
+            if (ifRange != null) {
+                if (ifRange.startsWith("\"")) {
+                    request.ifMatch(ifRange);
+                } else if (ifRange.startsWith("W/")) {
+                    // Weak ETags never match for If-Range - send the full object
+                    request.range(null);
+                } else {
+                    try {
+                        request.ifUnmodifiedSince(ZonedDateTime.parse(ifRange, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant());
+                    } catch (DateTimeParseException e) {
+                        request.range(null);
+                    }
+                }
+            }
+        }
+
+        try {
+            return s3Client.getObject(request.build());
+
+        } catch (NoSuchKeyException e) {
+            throw new RuntimeException("File not found in S3: " + s3Key, e);
+        } catch (S3Exception e) {
+            if (e.statusCode() == 412) {
+                // If-Range validator no longer matches - the file changed, send all of it
+                return openObjectStream(s3Key, null, null);
+            }
+            if (e.statusCode() == 416) {
+                throw e;
+            }
+            throw new RuntimeException("Failed to download file from S3: " + e.getMessage(), e);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to download file from S3: " + e.getMessage(), e);
+        }
+    }
+
     // Delete a file from S3 by its S3 key
     // Permanent deletion - cannot be undone
     // "touches file" (bytes)
     public void deleteFile(String s3Key) {
         try {
-            S3Client client = getS3Client();
             
             DeleteObjectRequest deleteObjectRequest = DeleteObjectRequest.builder()
                     .bucket(bucketName)
                     .key(s3Key)
                     .build();
 
-            client.deleteObject(deleteObjectRequest);
+            s3Client.deleteObject(deleteObjectRequest);
             System.out.println("File deleted from S3: " + s3Key);
             
         } catch (Exception e) {
@@ -153,6 +329,51 @@ public class S3Service {
         }
     }
 
+    // Delete up to 1000 objects with one DeleteObjects request
+    // Returns the keys S3 couldn't delete, with the reason (empty map = all deleted)
+    // Keys that don't exist count as deleted
+    public Map<String, String> deleteObjects(List<String> s3Keys) {
+        List<ObjectIdentifier> objects = new ArrayList<>();
+        for (String s3Key : s3Keys) {
+            objects.add(ObjectIdentifier.builder().key(s3Key).build());
+        }
+
+        try {
+            DeleteObjectsRequest request = DeleteObjectsRequest.builder()
+                    .bucket(bucketName)
+                    // quiet = only failures are listed in the response
+                    .delete(Delete.builder().objects(objects).quiet(true).build())
+                    .build();
+
+            Map<String, String> failed = new HashMap<>();
+            for (S3Error error : s3Client.deleteObjects(request).errors()) {
+                failed.put(error.key(), error.code() + ": " + error.message());
+            }
+            System.out.println("Deleted " + (s3Keys.size() - failed.size()) + " objects from S3");
+            return failed;
+
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to delete files from S3: " + e.getMessage(), e);
+        }
+    }
+
+    // List every object under a prefix, fetching pages of 1000 keys lazily as the caller iterates
+    // S3 returns keys in ascending UTF-8 byte order
+    public Iterable<S3Object> listObjects(String prefix) {
+        try {
+            ListObjectsV2Request request = ListObjectsV2Request.builder()
+                    .bucket(bucketName)
+                    .prefix(prefix)
+                    .maxKeys(1000)
+                    .build();
+
+            return s3Client.listObjectsV2Paginator(request).contents();
+
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to list files in S3: " + e.getMessage(), e);
+        }
+    }
+
     // Generate pre-signed URL for secure file download that expires after set time
     // Forces browser to download file (not view it)
     // Used for: Download buttons, API file downloads
@@ -171,7 +392,7 @@ public class S3Service {
                     .getObjectRequest(getObjectRequest)
                     .build();
 
-            return getS3Presigner().presignGetObject(presignRequest).url().toString();
+            return s3Presigner.presignGetObject(presignRequest).url().toString();
             
         } catch (Exception e) {
             // For production, use monitoring for any S3 failures 
@@ -197,7 +418,7 @@ public class S3Service {
                     .getObjectRequest(getObjectRequest)
                     .build();
 
-            return getS3Presigner().presignGetObject(presignRequest).url().toString();
+            return s3Presigner.presignGetObject(presignRequest).url().toString();
             
         } catch (Exception e) {
             System.err.println("Failed to generate pre-signed view URL: " + e.getMessage());
@@ -205,12 +426,128 @@ public class S3Service {
         }
     }
 
-    // Cleanup method - closes AWS connections when app shuts down
-    // Spring calls this automatically when service is destroyed
-    @PreDestroy
-    public void cleanup() {
-        if (s3Presigner != null) {
-            s3Presigner.close();
+    // Generate pre-signed GET URL signed as of a fixed time instead of "now"
+    // Same key, disposition and times always give the identical URL, so a URL handed out
+    // again within the same window is byte-for-byte the same and browsers/CDNs can cache
+    // the file behind it (see PresignedUrlService for the time windows)
+    public String generateGetUrl(String s3Key, String contentDisposition, Instant signingTime, Instant expiration) {
+        try {
+            GetObjectRequest getObjectRequest = GetObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(s3Key)
+                    .responseContentDisposition(contentDisposition)
+                    // Object keys never change content, so the bytes can be cached as long as the URL works
+                    .responseCacheControl("max-age=" + Duration.between(signingTime, expiration).getSeconds())
+                    .overrideConfiguration(config -> config.signer(new FixedTimePresigner(signingTime, expiration)))
+                    .build();
+
+            GetObjectPresignRequest presignRequest = GetObjectPresignRequest.builder()
+                    .signatureDuration(Duration.between(signingTime, expiration))
+                    .getObjectRequest(getObjectRequest)
+                    .build();
+
+            return s3Presigner.presignGetObject(presignRequest).url().toString();
+
+        } catch (Exception e) {
+            System.err.println("Failed to generate pre-signed URL: " + e.getMessage());
+            throw new RuntimeException("Failed to generate pre-signed URL: " + e.getMessage(), e);
+        }
+    }
+
+    // DIRECT BROWSER UPLOADS:
+    // The browser PUTs bytes straight to S3 with these URLs, so uploads never pass through the backend
+    // Note: the bucket needs a CORS rule allowing PUT from the frontend and exposing the ETag header
+
+    // Generate pre-signed URL for uploading a whole file with a single PUT
+    // Content type and length are part of the signature - S3 rejects a PUT that doesn't match them
+    public String generateUploadUrl(String s3Key, String contentType, long contentLength, int expirationMinutes) {
+        try {
+            PutObjectRequest putObjectRequest = PutObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(s3Key)
+                    .contentType(contentType)
+                    .contentLength(contentLength)
+                    .build();
+
+            PutObjectPresignRequest presignRequest = PutObjectPresignRequest.builder()
+                    .signatureDuration(Duration.ofMinutes(expirationMinutes))
+                    .putObjectRequest(putObjectRequest)
+                    .build();
+
+            return s3Presigner.presignPutObject(presignRequest).url().toString();
+
+        } catch (Exception e) {
+            System.err.println("Failed to generate pre-signed upload URL: " + e.getMessage());
+            throw new RuntimeException("Failed to generate upload URL: " + e.getMessage(), e);
+        }
+    }
+
+    // Generate pre-signed URL for uploading one part of a multipart upload
+    // The browser reads the ETag header from each part response and sends them back on finalize
+    public String generateUploadPartUrl(String s3Key, String uploadId, int partNumber, int expirationMinutes) {
+        try {
+            UploadPartRequest uploadPartRequest = UploadPartRequest.builder()
+                    .bucket(bucketName)
+                    .key(s3Key)
+                    .uploadId(uploadId)
+                    .partNumber(partNumber)
+                    .build();
+
+            UploadPartPresignRequest presignRequest = UploadPartPresignRequest.builder()
+                    .signatureDuration(Duration.ofMinutes(expirationMinutes))
+                    .uploadPartRequest(uploadPartRequest)
+                    .build();
+
+            return s3Presigner.presignUploadPart(presignRequest).url().toString();
+
+        } catch (Exception e) {
+            System.err.println("Failed to generate pre-signed part URL: " + e.getMessage());
+            throw new RuntimeException("Failed to generate upload part URL: " + e.getMessage(), e);
+        }
+    }
+
+    // Look up an object's metadata (size, content type, ETag) without downloading it
+    // Used to confirm a direct upload really landed in S3 before saving it to the database
+    public HeadObjectResponse getObjectMetadata(String s3Key) {
+        try {
+            HeadObjectRequest headObjectRequest = HeadObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(s3Key)
+                    .build();
+
+            return s3Client.headObject(headObjectRequest);
+
+        } catch (NoSuchKeyException e) {
+            throw new RuntimeException("File not found in S3: " + s3Key, e);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to read file metadata from S3: " + e.getMessage(), e);
+        }
+    }
+
+    // Presigner that signs with a fixed signing time and expiration instead of the current time
+    // (the SDK signer reads both from the execution attributes)
+    private static class FixedTimePresigner implements Signer, Presigner {
+
+        private static final AwsS3V4Signer DELEGATE = AwsS3V4Signer.create();
+
+        private final Instant signingTime;
+        private final Instant expiration;
+
+        FixedTimePresigner(Instant signingTime, Instant expiration) {
+            this.signingTime = signingTime;
+            this.expiration = expiration;
+        }
+
+        @Override
+        public SdkHttpFullRequest sign(SdkHttpFullRequest request, ExecutionAttributes executionAttributes) {
+            return DELEGATE.sign(request, executionAttributes);
+        }
+
+        @Override
+        public SdkHttpFullRequest presign(SdkHttpFullRequest request, ExecutionAttributes executionAttributes) {
+            executionAttributes.putAttribute(AwsSignerExecutionAttribute.SIGNING_CLOCK, Clock.fixed(signingTime, ZoneOffset.UTC));
+            executionAttributes.putAttribute(AwsSignerExecutionAttribute.PRESIGNER_EXPIRATION, expiration);
+            return DELEGATE.presign(request, executionAttributes);
         }
     }
 
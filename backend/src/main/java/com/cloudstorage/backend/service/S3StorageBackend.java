@@ -0,0 +1,213 @@
+package com.cloudstorage.backend.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import com.cloudstorage.backend.entity.File;
+
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+
+
+// S3StorageBackend - Stores file contents in AWS S3 (the default backend)
+// Picks the right S3 upload path for each file (deduplicated blob, multipart or single PUT)
+// and hands out pre-signed URLs, so browsers download straight from S3.
+// With storage.cache.enabled, small objects are also kept in the local DiskCacheService:
+// filled on first read and on upload, dropped on delete.
+@Service
+@ConditionalOnProperty(name = "storage.backend", havingValue = "s3", matchIfMissing = true)
+public class S3StorageBackend implements StorageBackend {
+
+    private final S3Service s3Service;
+    private final MultipartUploadService multipartUploadService;
+    private final BlobStorageService blobStorageService;
+    private final PresignedUrlService presignedUrlService;
+    private final DiskCacheService diskCacheService;
+
+    // Copy buffer for streamed downloads - the only part of the file held in memory per request
+    @Value("${downloads.stream.bufferSize:65536}")
+    private int streamBufferSize;
+
+    public S3StorageBackend(S3Service s3Service, MultipartUploadService multipartUploadService,
+                            BlobStorageService blobStorageService, PresignedUrlService presignedUrlService,
+                            DiskCacheService diskCacheService) {
+        this.s3Service = s3Service;
+        this.multipartUploadService = multipartUploadService;
+        this.blobStorageService = blobStorageService;
+        this.presignedUrlService = presignedUrlService;
+        this.diskCacheService = diskCacheService;
+    }
+
+    // Content-addressed mode stores identical content once (and skips the upload if it exists)
+    // Otherwise large files (mostly videos) go through the parallel multipart engine
+    @Override
+    public String store(MultipartFile file) throws IOException {
+        String key;
+        if (blobStorageService.isEnabled()) {
+            key = blobStorageService.storeFile(file);
+        } else if (multipartUploadService.shouldUseMultipart(file.getSize())) {
+            key = multipartUploadService.uploadFile(file);
+        } else {
+            key = s3Service.uploadFile(file);
+        }
+        cacheUpload(key, file);
+        return key;
+    }
+
+    // Blobs give back their reference, regular keys are deleted
+    @Override
+    public void delete(String key) {
+        diskCacheService.invalidate(key);
+        if (!blobStorageService.release(key)) {
+            s3Service.deleteFile(key);
+        }
+    }
+
+    // One DeleteObjects request (callers pass at most 1000 keys)
+    @Override
+    public Map<String, String> deleteAll(List<String> keys) {
+        for (String key : keys) {
+            diskCacheService.invalidate(key);
+        }
+        return s3Service.deleteObjects(keys);
+    }
+
+    // Served from the disk cache when possible, otherwise Range / If-Range are passed through to S3
+    @Override
+    public StoredObject open(String key, String range, String ifRange) {
+        StoredObject cached = diskCacheService.get(key, range, ifRange);
+        if (cached != null) {
+            return cached;
+        }
+        if (diskCacheService.isEnabled()) {
+            StoredObject loaded = openThroughCache(key, range, ifRange);
+            if (loaded != null) {
+                return loaded;
+            }
+        }
+
+        ResponseInputStream<GetObjectResponse> object;
+        try {
+            object = s3Service.openObjectStream(key, range, ifRange);
+        } catch (S3Exception e) {
+            // openObjectStream only lets 416 through as S3Exception
+            throw new RangeNotSatisfiableException("Range not satisfiable: " + range);
+        }
+
+        return streamed(object);
+    }
+
+    // Pre-signed S3 URL (valid at least 15 minutes, same URL for repeat clicks)
+    @Override
+    public String getDownloadUrl(File file) {
+        return presignedUrlService.getDownloadUrl(file);
+    }
+
+    @Override
+    public String getViewUrl(File file) {
+        return presignedUrlService.getViewUrl(file);
+    }
+
+    @Override
+    public Map<Long, String> getViewUrls(List<Long> fileIds) {
+        return presignedUrlService.getViewUrls(fileIds);
+    }
+
+    // helper method:
+    // Cache miss: fetch the whole object, keep it on disk if it's small enough and
+    // serve the requested range from there. Large objects bypass the cache - a plain
+    // request keeps streaming the response already open, a ranged one is sent to S3
+    // for just its range (returns null). A ranged request checks the size with a HEAD
+    // first, so a large object is never fetched in full just to be dropped again.
+    private StoredObject openThroughCache(String key, String range, String ifRange) {
+        if (range != null && !fitsCache(key)) {
+            return null;
+        }
+
+        ResponseInputStream<GetObjectResponse> object = s3Service.openObjectStream(key, null, null);
+        GetObjectResponse metadata = object.response();
+
+        if (!diskCacheService.accepts(metadata.contentLength())) {
+            if (range == null) {
+                return streamed(object);
+            }
+            object.abort();
+            return null;
+        }
+
+        try (InputStream in = object) {
+            StoredObject cached = diskCacheService.fill(key, in, metadata.contentLength(), metadata.contentType(),
+                    metadata.eTag(), metadata.lastModified(), range, ifRange);
+            if (cached != null) {
+                return cached;
+            }
+        } catch (IOException e) {
+            System.err.println("Disk cache fill failed for " + key + ": " + e.getMessage());
+            object.abort();
+        }
+        return null;
+    }
+
+    // helper method:
+    // Whether the object is small enough for the cache (false if the HEAD fails - the ranged
+    // GET that follows reports a missing object the usual way)
+    private boolean fitsCache(String key) {
+        try {
+            return diskCacheService.accepts(s3Service.getObjectMetadata(key).contentLength());
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    // helper method:
+    // Write-through: keeps a small upload in the disk cache (best effort - the upload already succeeded)
+    // S3 assigns ETag and Last-Modified, so they are read back with one HeadObject
+    private void cacheUpload(String key, MultipartFile file) {
+        if (!diskCacheService.accepts(file.getSize())) {
+            return;
+        }
+        try (InputStream in = file.getInputStream()) {
+            HeadObjectResponse head = s3Service.getObjectMetadata(key);
+            diskCacheService.put(key, in, file.getSize(), head.contentType(), head.eTag(), head.lastModified());
+        } catch (Exception e) {
+            System.err.println("Disk cache write-through failed for " + key + ": " + e.getMessage());
+        }
+    }
+
+    // helper method:
+    // Response body copied from an open S3 stream
+    private StoredObject streamed(ResponseInputStream<GetObjectResponse> object) {
+        GetObjectResponse metadata = object.response();
+        return new StoredObject(metadata.contentType(), metadata.contentLength(), metadata.contentRange(),
+                metadata.eTag(), metadata.lastModified()) {
+
+            // Copies the S3 stream through one fixed buffer
+            // If the client goes away mid-download, abort the S3 connection instead of
+            // draining the rest of the object just to reuse it
+            @Override
+            public void writeTo(OutputStream output) throws IOException {
+                byte[] buffer = new byte[streamBufferSize];
+                try {
+                    int read;
+                    while ((read = object.read(buffer)) != -1) {
+                        output.write(buffer, 0, read);
+                    }
+                    object.close();
+                } catch (IOException | RuntimeException e) {
+                    object.abort();
+                    throw e;
+                }
+            }
+        };
+    }
+
+}
@@ -0,0 +1,38 @@
+package com.cloudstorage.backend.service;
+
+import org.springframework.stereotype.Service;
+import com.cloudstorage.backend.dto.CursorPage;
+import com.cloudstorage.backend.dto.SearchResult;
+import com.cloudstorage.backend.repository.SearchQuery;
+import com.cloudstorage.backend.repository.SearchRepository;
+
+
+// SearchService - Filename search over one user's files and folders
+// Prefix, substring and fuzzy (typo-tolerant) matches, ranked and cursor-paginated.
+// Everything is answered from indexes on the files and folders tables (see SearchRepository),
+// which the database keeps in step with every insert, rename, move and delete.
+@Service
+public class SearchService {
+
+    // Searches slower than this are logged
+    private static final long SLOW_SEARCH_MS = 50;
+
+    private final SearchRepository searchRepository;
+
+    public SearchService(SearchRepository searchRepository) {
+        this.searchRepository = searchRepository;
+    }
+
+    // One page of a user's files and/or folders whose names match the search, best matches first
+    public CursorPage<SearchResult> search(Long ownerId, SearchQuery search) {
+        long start = System.nanoTime();
+        CursorPage<SearchResult> page = searchRepository.search(ownerId, search);
+
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        if (elapsedMs > SLOW_SEARCH_MS) {
+            System.out.println("Slow search for user " + ownerId + " ('" + search.getTerm() + "'): " + elapsedMs + " ms");
+        }
+        return page;
+    }
+
+}
@@ -1,10 +1,13 @@
 package com.cloudstorage.backend.service;
 
 import org.springframework.stereotype.Service;
+import com.cloudstorage.backend.dto.CursorPage;
+import com.cloudstorage.backend.dto.ShareSummary;
 import com.cloudstorage.backend.entity.Share;
 import com.cloudstorage.backend.entity.File;
 import com.cloudstorage.backend.entity.User;
 import com.cloudstorage.backend.repository.ShareRepository;
+import com.cloudstorage.backend.repository.Keyset;
 import com.cloudstorage.backend.repository.FileRepository;
 import com.cloudstorage.backend.repository.UserRepository;
 import java.util.List;
@@ -49,18 +52,23 @@ public class ShareService {
     }
 
     // Gets all users who have access to a specific file
-    public List<Share> getSharesByFile(Long fileId) {
-        return shareRepository.findByFile_Id(fileId);
+    public List<ShareSummary> getSharesByFile(Long fileId) {
+        return shareRepository.findSummariesByFileId(fileId);
     }
 
     // Get all files shared with a specific user
-    public List<Share> getSharesByUser(Long sharedWithId) {
-        return shareRepository.findBySharedWith_Id(sharedWithId);
+    public List<ShareSummary> getSharesByUser(Long sharedWithId) {
+        return shareRepository.findSummariesBySharedWithId(sharedWithId);
+    }
+
+    // One page of the files shared with a user (cursor pagination, see Keyset)
+    public CursorPage<ShareSummary> getSharesByUserPage(Long sharedWithId, Keyset keyset) {
+        return shareRepository.findPageBySharedWith(sharedWithId, keyset);
     }
 
     // Gets all shares with a specific permission type
-    public List<Share> getSharesByPermission(String permission) {
-        return shareRepository.findByPermission(permission);
+    public List<ShareSummary> getSharesByPermission(String permission) {
+        return shareRepository.findSummariesByPermission(permission);
     }
 
     // Gets a single share by its ID
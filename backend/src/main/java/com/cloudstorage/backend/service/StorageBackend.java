@@ -0,0 +1,106 @@
+package com.cloudstorage.backend.service;
+
+import org.springframework.web.multipart.MultipartFile;
+import com.cloudstorage.backend.entity.File;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+
+// StorageBackend - Where file contents live (AWS S3 or a local disk)
+// FileController and UploadService only talk to this interface, so the backend can be
+// switched with storage.backend=s3|local. Keys are what File.s3Key stores, for either backend.
+public interface StorageBackend {
+
+    // Store an upload and return the key the File record should point at
+    String store(MultipartFile file) throws IOException;
+
+    // Remove stored content by key (shared, deduplicated content only when its last reference goes)
+    void delete(String key);
+
+    // Remove many keys at once - plain deletes, no reference counting (used by the deletion outbox)
+    // Returns the keys that couldn't be deleted, with the reason
+    Map<String, String> deleteAll(List<String> keys);
+
+    // Open stored content for reading, honouring a Range / If-Range request header pair
+    // A range that doesn't apply (If-Range mismatch, several ranges) gives the whole file
+    // Throws RangeNotSatisfiableException for a range outside the file
+    StoredObject open(String key, String range, String ifRange);
+
+    // URL that makes the browser download the file ("attachment")
+    String getDownloadUrl(File file);
+
+    // URL that opens the file in the browser ("inline")
+    String getViewUrl(File file);
+
+    // View URLs for many files at once (fileId -> URL), unknown IDs are left out
+    Map<Long, String> getViewUrls(List<Long> fileIds);
+
+    // Opened content plus the response headers that describe it
+    abstract class StoredObject {
+
+        private final String contentType;
+        private final long contentLength;
+        private final String contentRange;
+        private final String eTag;
+        private final Instant lastModified;
+
+        protected StoredObject(String contentType, long contentLength, String contentRange, String eTag, Instant lastModified) {
+            this.contentType = contentType;
+            this.contentLength = contentLength;
+            this.contentRange = contentRange;
+            this.eTag = eTag;
+            this.lastModified = lastModified;
+        }
+
+        // Write the (possibly partial) content to the response
+        public abstract void writeTo(OutputStream output) throws IOException;
+
+        // File on local disk holding the content, so the servlet container can send it
+        // with sendfile (null when the content isn't on local disk, or the file may be deleted before then)
+        public Path getLocalFile() {
+            return null;
+        }
+
+        // Offset of the first byte to send within getLocalFile()
+        public long getPosition() {
+            return 0;
+        }
+
+        // Content type recorded by the backend (null when it doesn't keep one)
+        public String getContentType() {
+            return contentType;
+        }
+
+        // Bytes that will be sent (the range length for partial content)
+        public long getContentLength() {
+            return contentLength;
+        }
+
+        // "bytes first-last/size" for partial content, null for the whole file
+        public String getContentRange() {
+            return contentRange;
+        }
+
+        public String getETag() {
+            return eTag;
+        }
+
+        public Instant getLastModified() {
+            return lastModified;
+        }
+    }
+
+    // Requested range starts beyond the end of the file (HTTP 416)
+    class RangeNotSatisfiableException extends RuntimeException {
+
+        public RangeNotSatisfiableException(String message) {
+            super(message);
+        }
+    }
+
+}
@@ -0,0 +1,370 @@
+package com.cloudstorage.backend.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import com.cloudstorage.backend.entity.PendingDeletion;
+import com.cloudstorage.backend.repository.BlobRepository;
+import com.cloudstorage.backend.repository.FileRepository;
+import com.cloudstorage.backend.repository.PendingDeletionRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.ToLongFunction;
+
+
+// StorageReconciliationService - Finds S3 objects no database row points at (and the reverse)
+// An upload that reaches S3 but fails to save its row leaves an orphan object behind.
+// For each key prefix this walks the S3 listing and the matching keys in the database side
+// by side, both sorted in byte order, one page at a time (a merge-join) - so neither side
+// is ever held in memory. Orphans older than a grace period are handed to the deletion
+// outbox, which removes them in batches; rows whose object is missing are only reported.
+@Service
+@ConditionalOnProperty(name = "storage.backend", havingValue = "s3", matchIfMissing = true)
+public class StorageReconciliationService {
+
+    // Most rows listed in the report as dangling
+    private static final int MAX_REPORTED_KEYS = 100;
+
+    private final S3Service s3Service;
+    private final FileRepository fileRepository;
+    private final BlobRepository blobRepository;
+    private final PendingDeletionRepository pendingDeletionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    // Run the scheduled reconciliation at all
+    @Value("${storage.reconcile.enabled:true}")
+    private boolean enabled;
+
+    // Queue orphans for deletion (false = only report them)
+    @Value("${storage.reconcile.deleteOrphans:true}")
+    private boolean deleteOrphans;
+
+    // Orphans younger than this are left alone - their upload may still be saving its row
+    @Value("${storage.reconcile.gracePeriodHours:24}")
+    private long gracePeriodHours;
+
+    // Database keys read per query, and orphans queued per transaction
+    @Value("${storage.reconcile.pageSize:1000}")
+    private int pageSize;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile Report lastReport;
+
+    private Counter orphansDeleted;
+    private Counter bytesReclaimed;
+
+    public StorageReconciliationService(S3Service s3Service, FileRepository fileRepository, BlobRepository blobRepository,
+                                        PendingDeletionRepository pendingDeletionRepository,
+                                        TransactionTemplate transactionTemplate, MeterRegistry meterRegistry) {
+        this.s3Service = s3Service;
+        this.fileRepository = fileRepository;
+        this.blobRepository = blobRepository;
+        this.pendingDeletionRepository = pendingDeletionRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    // Registers the metrics
+    @PostConstruct
+    public void init() {
+        orphansDeleted = Counter.builder("storage.reconcile.orphans.deleted")
+                .description("Orphaned S3 objects queued for deletion by the reconciler")
+                .register(meterRegistry);
+        bytesReclaimed = Counter.builder("storage.reconcile.reclaimed.bytes")
+                .description("Bytes of orphaned S3 objects queued for deletion by the reconciler")
+                .register(meterRegistry);
+        Gauge.builder("storage.reconcile.orphans", this, service -> service.lastValue(Report::getOrphansFound))
+                .description("Orphaned S3 objects found by the last run")
+                .register(meterRegistry);
+        Gauge.builder("storage.reconcile.dangling.rows", this, service -> service.lastValue(Report::getDanglingRows))
+                .description("Database rows whose S3 object was missing in the last run")
+                .register(meterRegistry);
+    }
+
+    // Nightly run (configurable with storage.reconcile.cron)
+    @Scheduled(cron = "${storage.reconcile.cron:0 0 3 * * *}")
+    public void scheduledReconcile() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            reconcile();
+        } catch (RuntimeException e) {
+            System.err.println("Storage reconciliation failed: " + e.getMessage());
+        }
+    }
+
+    // Reconciles every prefix once and returns the report (also kept as the last report)
+    public Report reconcile() {
+        if (!running.compareAndSet(false, true)) {
+            throw new RuntimeException("Storage reconciliation is already running");
+        }
+        Report report = new Report(deleteOrphans);
+        try {
+            Instant cutoff = Instant.now().minus(Duration.ofHours(gracePeriodHours));
+
+            // Plain uploads live under files/, deduplicated content under blobs/
+            reconcilePrefix("files/", fileRepository::findS3KeysAfter, cutoff, report);
+            reconcilePrefix(BlobStorageService.BLOB_PREFIX, blobRepository::findS3KeysAfter, cutoff, report);
+
+        } catch (RuntimeException e) {
+            report.error = e.getMessage();
+            throw e;
+        } finally {
+            report.finishedAt = Instant.now();
+            lastReport = report;
+            running.set(false);
+            System.out.println("Storage reconciliation: " + report.objectsScanned + " objects, " + report.rowsScanned
+                + " rows, " + report.orphansFound + " orphans (" + report.orphansDeleted + " queued, "
+                + report.bytesReclaimed + " bytes), " + report.danglingRows + " dangling rows");
+        }
+        return report;
+    }
+
+    // Report of the most recent run (null if none has run yet)
+    public Report getLastReport() {
+        return lastReport;
+    }
+
+    // helper method:
+    // Merge-join of the S3 listing and the database keys under one prefix
+    // Both sides are in byte order, so a key only on the S3 side is an orphan and a key
+    // only on the database side is a dangling row
+    private void reconcilePrefix(String prefix, KeyPageQuery query, Instant cutoff, Report report) {
+        Iterator<S3Object> objects = s3Service.listObjects(prefix).iterator();
+        KeyCursor rows = new KeyCursor(query, prefix, pageSize);
+        List<S3Object> orphans = new ArrayList<>();
+
+        S3Object object = objects.hasNext() ? objects.next() : null;
+        String row = rows.next();
+        while (object != null || row != null) {
+            int order = object == null ? 1 : row == null ? -1 : compareKeys(object.key(), row);
+
+            if (order <= 0) {
+                report.objectsScanned++;
+            }
+            if (order >= 0) {
+                report.rowsScanned++;
+            }
+
+            if (order < 0) {
+                // In S3 only - orphan, unless it's recent enough to belong to an upload in progress
+                if (object.lastModified().isBefore(cutoff)) {
+                    orphans.add(object);
+                    if (orphans.size() >= pageSize) {
+                        handleOrphans(orphans, report);
+                        orphans.clear();
+                    }
+                } else {
+                    report.recentObjectsSkipped++;
+                }
+            } else if (order > 0) {
+                // In the database only - the content is gone
+                report.danglingRows++;
+                if (report.danglingKeys.size() < MAX_REPORTED_KEYS) {
+                    report.danglingKeys.add(row);
+                }
+            }
+
+            if (order <= 0) {
+                object = objects.hasNext() ? objects.next() : null;
+            }
+            if (order >= 0) {
+                row = rows.next();
+            }
+        }
+        handleOrphans(orphans, report);
+    }
+
+    // helper method:
+    // Queues one batch of orphans in the deletion outbox (one transaction)
+    // Keys are re-checked first: a row may have been saved since the database page was read,
+    // and keys already queued are skipped so a run never queues the same object twice
+    private void handleOrphans(List<S3Object> orphans, Report report) {
+        if (orphans.isEmpty()) {
+            return;
+        }
+        report.orphansFound += orphans.size();
+        if (!deleteOrphans) {
+            return;
+        }
+
+        List<String> keys = orphans.stream().map(S3Object::key).toList();
+        List<S3Object> queued = transactionTemplate.execute(status -> {
+            Set<String> skip = new HashSet<>(fileRepository.findS3KeysIn(keys));
+            skip.addAll(blobRepository.findS3KeysIn(keys));
+            skip.addAll(pendingDeletionRepository.findS3KeysIn(keys));
+
+            List<S3Object> toDelete = orphans.stream().filter(o -> !skip.contains(o.key())).toList();
+            pendingDeletionRepository.saveAll(toDelete.stream().map(o -> new PendingDeletion(o.key())).toList());
+            return toDelete;
+        });
+
+        long bytes = queued.stream().mapToLong(S3Object::size).sum();
+        report.orphansDeleted += queued.size();
+        report.bytesReclaimed += bytes;
+        orphansDeleted.increment(queued.size());
+        bytesReclaimed.increment(bytes);
+    }
+
+    // helper method:
+    // Gauge value from the last report (0 before the first run)
+    private double lastValue(ToLongFunction<Report> value) {
+        Report report = lastReport;
+        return report != null ? value.applyAsLong(report) : 0;
+    }
+
+    // Compares keys by Unicode code point, which matches UTF-8 byte order (S3 and COLLATE "C")
+    // String.compareTo compares UTF-16 units and disagrees for characters outside the BMP
+    static int compareKeys(String a, String b) {
+        int i = 0;
+        int j = 0;
+        while (i < a.length() && j < b.length()) {
+            int ca = a.codePointAt(i);
+            int cb = b.codePointAt(j);
+            if (ca != cb) {
+                return Integer.compare(ca, cb);
+            }
+            i += Character.charCount(ca);
+            j += Character.charCount(cb);
+        }
+        return Boolean.compare(i < a.length(), j < b.length());
+    }
+
+    // One page of database keys under a prefix, after a given key, in byte order
+    interface KeyPageQuery {
+        List<String> findS3KeysAfter(String prefix, String after, int limit);
+    }
+
+    // Reads database keys one page at a time (keyset pagination), so no long transaction is held
+    // Several files can share a key, so repeated keys are returned once
+    private static class KeyCursor {
+
+        private final KeyPageQuery query;
+        private final String pattern;
+        private final int pageSize;
+        private List<String> page = List.of();
+        private int position;
+        private String lastKey = "";
+        private boolean exhausted;
+
+        KeyCursor(KeyPageQuery query, String prefix, int pageSize) {
+            this.query = query;
+            this.pattern = prefix + "%";
+            this.pageSize = pageSize;
+        }
+
+        // Next key, or null when there are no more
+        String next() {
+            while (true) {
+                if (position == page.size()) {
+                    if (exhausted) {
+                        return null;
+                    }
+                    page = query.findS3KeysAfter(pattern, lastKey, pageSize);
+                    position = 0;
+                    exhausted = page.size() < pageSize;
+                    if (page.isEmpty()) {
+                        return null;
+                    }
+                }
+                String key = page.get(position++);
+                if (!key.equals(lastKey)) {
+                    lastKey = key;
+                    return key;
+                }
+            }
+        }
+    }
+
+    // Outcome of one reconciliation run (returned by the report endpoint)
+    public static class Report {
+
+        private final Instant startedAt = Instant.now();
+        private Instant finishedAt;
+        private final boolean deleteOrphans;
+        private long objectsScanned;
+        private long rowsScanned;
+        private long orphansFound;
+        private long orphansDeleted;
+        private long bytesReclaimed;
+        private long recentObjectsSkipped;
+        private long danglingRows;
+        private final List<String> danglingKeys = new ArrayList<>();
+        private String error;
+
+        Report(boolean deleteOrphans) {
+            this.deleteOrphans = deleteOrphans;
+        }
+
+        public Instant getStartedAt() {
+            return startedAt;
+        }
+
+        public Instant getFinishedAt() {
+            return finishedAt;
+        }
+
+        // false = orphans were only reported, not queued for deletion
+        public boolean isDeleteOrphans() {
+            return deleteOrphans;
+        }
+
+        public long getObjectsScanned() {
+            return objectsScanned;
+        }
+
+        public long getRowsScanned() {
+            return rowsScanned;
+        }
+
+        public long getOrphansFound() {
+            return orphansFound;
+        }
+
+        // Orphans handed to the deletion outbox
+        public long getOrphansDeleted() {
+            return orphansDeleted;
+        }
+
+        public long getBytesReclaimed() {
+            return bytesReclaimed;
+        }
+
+        // Objects without a row that are still inside the grace period
+        public long getRecentObjectsSkipped() {
+            return recentObjectsSkipped;
+        }
+
+        public long getDanglingRows() {
+            return danglingRows;
+        }
+
+        // First dangling keys found (at most 100)
+        public List<String> getDanglingKeys() {
+            return danglingKeys;
+        }
+
+        // Why the run stopped early (null if it completed)
+        public String getError() {
+            return error;
+        }
+    }
+
+}
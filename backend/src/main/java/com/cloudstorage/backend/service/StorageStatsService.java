@@ -0,0 +1,155 @@
+package com.cloudstorage.backend.service;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import com.cloudstorage.backend.dto.StorageStats;
+import com.cloudstorage.backend.entity.File;
+import com.cloudstorage.backend.entity.FileCategory;
+import com.cloudstorage.backend.entity.UserStorageStats;
+import com.cloudstorage.backend.repository.UserRepository;
+import com.cloudstorage.backend.repository.UserStorageStatsRepository;
+
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+
+// StorageStatsService - Per-user file counts and bytes per category (dashboard statistics)
+// Every file insert/delete adds a delta to the user's counter rows in the same transaction,
+// so reading the stats is a lookup of at most five rows, however many files the user has.
+// A nightly job recounts each user's files and repairs any drift.
+@Service
+public class StorageStatsService {
+
+    // Counter rows are always locked in this order (category name), so concurrent
+    // transactions touching several categories can't deadlock on each other
+    private static final List<FileCategory> LOCK_ORDER = List.of(FileCategory.values()).stream()
+        .sorted(Comparator.comparing(FileCategory::name))
+        .toList();
+
+    private final UserStorageStatsRepository statsRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public StorageStatsService(UserStorageStatsRepository statsRepository, UserRepository userRepository,
+                               TransactionTemplate transactionTemplate) {
+        this.statsRepository = statsRepository;
+        this.userRepository = userRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    // Count newly saved files - must run in the transaction that inserts them
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordAdded(List<File> files) {
+        applyDeltas(files, 1);
+    }
+
+    // Uncount a deleted file - must run in the transaction that deletes it
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordRemoved(File file) {
+        applyDeltas(List.of(file), -1);
+    }
+
+    // Current stats of a user (categories without files are reported as zero)
+    public StorageStats getStats(Long userId) {
+        Map<FileCategory, UserStorageStats> rows = new EnumMap<>(FileCategory.class);
+        for (UserStorageStats row : statsRepository.findByUserId(userId)) {
+            rows.put(row.getCategory(), row);
+        }
+
+        Map<String, StorageStats.CategoryStats> categories = new LinkedHashMap<>();
+        long totalFiles = 0;
+        long totalBytes = 0;
+        for (FileCategory category : FileCategory.values()) {
+            UserStorageStats row = rows.get(category);
+            long fileCount = row != null ? row.getFileCount() : 0;
+            long bytes = row != null ? row.getTotalBytes() : 0;
+            categories.put(category.name().toLowerCase(Locale.ROOT), new StorageStats.CategoryStats(fileCount, bytes));
+            totalFiles += fileCount;
+            totalBytes += bytes;
+        }
+        return new StorageStats(categories, totalFiles, totalBytes);
+    }
+
+    // Background job: recount every user's files and fix counters that drifted
+    @Scheduled(cron = "${storage.stats.repairCron:0 30 3 * * *}")
+    public void repairAll() {
+        int repaired = 0;
+        for (Long userId : userRepository.findAllIds()) {
+            try {
+                if (repairUser(userId)) {
+                    repaired++;
+                }
+            } catch (RuntimeException e) {
+                System.err.println("Storage stats repair failed for user " + userId + ": " + e.getMessage());
+            }
+        }
+        if (repaired > 0) {
+            System.out.println("Storage stats repaired for " + repaired + " users");
+        }
+    }
+
+    // Recounts one user's files and overwrites counters that don't match (one transaction)
+    // Returns true if anything had drifted
+    public boolean repairUser(Long userId) {
+        Boolean drifted = transactionTemplate.execute(status -> {
+
+            // Lock (creating if needed) every counter row of the user first. Uploads and deletes
+            // that are still running wait for the lock and apply their delta after the recount -
+            // their file rows aren't committed yet, so the recount below doesn't include them either
+            for (FileCategory category : LOCK_ORDER) {
+                statsRepository.addDelta(userId, category.name(), 0, 0);
+            }
+
+            Map<FileCategory, long[]> actual = new EnumMap<>(FileCategory.class);
+            for (UserStorageStatsRepository.CategoryTotals totals : statsRepository.countFilesByCategory(userId)) {
+                actual.put(FileCategory.valueOf(totals.getCategory()),
+                    new long[] {totals.getFileCount(), totals.getTotalBytes()});
+            }
+
+            boolean changed = false;
+            for (UserStorageStats row : statsRepository.findByUserId(userId)) {
+                long[] totals = actual.getOrDefault(row.getCategory(), new long[] {0, 0});
+                if (row.getFileCount() != totals[0] || row.getTotalBytes() != totals[1]) {
+                    System.err.println("Storage stats drift for user " + userId + " " + row.getCategory() + ": "
+                        + row.getFileCount() + " files / " + row.getTotalBytes() + " bytes, actual "
+                        + totals[0] + " / " + totals[1]);
+                    statsRepository.setTotals(userId, row.getCategory(), totals[0], totals[1]);
+                    changed = true;
+                }
+            }
+            return changed;
+        });
+        return Boolean.TRUE.equals(drifted);
+    }
+
+    // helper method:
+    // One upsert per (owner, category) touched, in lock order
+    private void applyDeltas(List<File> files, int sign) {
+        Map<Long, Map<FileCategory, long[]>> deltas = new TreeMap<>();
+        for (File file : files) {
+            long[] delta = deltas
+                .computeIfAbsent(file.getOwner().getId(), id -> new TreeMap<>(Comparator.comparing(FileCategory::name)))
+                .computeIfAbsent(categoryOf(file), category -> new long[2]);
+            delta[0] += sign;
+            delta[1] += sign * (file.getFileSize() != null ? file.getFileSize() : 0);
+        }
+
+        deltas.forEach((ownerId, byCategory) -> byCategory.forEach((category, delta) ->
+            statsRepository.addDelta(ownerId, category.name(), delta[0], delta[1])));
+    }
+
+    // helper method:
+    // Stored category (set when the file was saved), derived from the MIME type as a fallback
+    private static FileCategory categoryOf(File file) {
+        return file.getCategory() != null ? file.getCategory() : FileCategory.fromMimeType(file.getMimeType());
+    }
+
+}
@@ -0,0 +1,136 @@
+package com.cloudstorage.backend.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import com.cloudstorage.backend.entity.File;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+
+// UploadService - Sends uploaded files to storage and records their metadata
+// Stores files through the configured StorageBackend (S3 or local disk) and handles
+// multi-file batches: uploads run concurrently on a bounded pool, then all
+// metadata rows are saved in one batched transaction.
+@Service
+public class UploadService {
+
+    private final StorageBackend storageBackend;
+    private final FileService fileService;
+
+    // Number of files of one batch uploaded at the same time (shared by all batches)
+    @Value("${uploads.batch.concurrency:8}")
+    private int batchConcurrency;
+
+    // Worker pool for batch uploads - separate from the multipart part pool,
+    // so a batch task waiting on its parts can never starve them
+    private ExecutorService batchExecutor;
+
+    public UploadService(StorageBackend storageBackend, FileService fileService) {
+        this.storageBackend = storageBackend;
+        this.fileService = fileService;
+    }
+
+    // Creates the worker pool once the @Value settings are injected
+    @PostConstruct
+    public void init() {
+        batchExecutor = Executors.newFixedThreadPool(batchConcurrency, new CustomizableThreadFactory("batch-upload-"));
+    }
+
+    // Upload one file to storage and return its key
+    public String storeFile(MultipartFile file) throws IOException {
+        return storageBackend.store(file);
+    }
+
+    // Undo storeFile for an upload whose metadata couldn't be saved (best effort)
+    public void discardStoredFile(String s3Key) {
+        try {
+            storageBackend.delete(s3Key);
+        } catch (Exception e) {
+            System.err.println("Storage cleanup failed - manual cleanup needed: " + s3Key);
+        }
+    }
+
+    // Upload several files at once
+    // Returns one result per file, in request order: { filename, success, file } or { filename, success, error }
+    public List<Map<String, Object>> uploadBatch(List<MultipartFile> files, Long ownerId, Long folderId) {
+
+        // Start every upload on the bounded pool
+        List<Future<String>> pendingUploads = new ArrayList<>();
+        for (MultipartFile file : files) {
+            pendingUploads.add(batchExecutor.submit(() -> storeFile(file)));
+        }
+
+        // Wait for the uploads - keep the successful ones for the metadata insert
+        List<Map<String, Object>> results = new ArrayList<>();
+        List<File> uploadedFiles = new ArrayList<>();
+        List<Map<String, Object>> uploadedResults = new ArrayList<>();
+
+        for (int i = 0; i < files.size(); i++) {
+            MultipartFile file = files.get(i);
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("filename", file.getOriginalFilename());
+            results.add(result);
+
+            try {
+                String s3Key = pendingUploads.get(i).get();
+                uploadedFiles.add(new File(file.getOriginalFilename(), file.getSize(), file.getContentType(), s3Key, null));
+                uploadedResults.add(result);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                markFailed(result, e);
+            } catch (ExecutionException e) {
+                markFailed(result, e.getCause() != null ? e.getCause() : e);
+            }
+        }
+
+        if (uploadedFiles.isEmpty()) {
+            return results;
+        }
+
+        // One transaction, JDBC-batched INSERTs for all successful uploads
+        try {
+            List<File> savedFiles = fileService.saveFiles(uploadedFiles, ownerId, folderId);
+            for (int i = 0; i < savedFiles.size(); i++) {
+                uploadedResults.get(i).put("success", true);
+                uploadedResults.get(i).put("file", savedFiles.get(i));
+            }
+        } catch (Exception e) {
+            // Metadata insert rolled back as a whole - remove the objects we just uploaded
+            for (int i = 0; i < uploadedFiles.size(); i++) {
+                discardStoredFile(uploadedFiles.get(i).getS3Key());
+                markFailed(uploadedResults.get(i), e);
+            }
+        }
+
+        return results;
+    }
+
+    // Shut down the worker pool when the app stops
+    @PreDestroy
+    public void cleanup() {
+        if (batchExecutor != null) {
+            batchExecutor.shutdownNow();
+        }
+    }
+
+    // helper method:
+    // Fills in a failed per-file result
+    private void markFailed(Map<String, Object> result, Throwable error) {
+        result.put("success", false);
+        result.put("error", error.getMessage());
+    }
+
+}
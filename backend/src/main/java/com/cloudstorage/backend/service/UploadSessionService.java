@@ -0,0 +1,322 @@
+package com.cloudstorage.backend.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import com.cloudstorage.backend.dto.UploadSessionStatus;
+import com.cloudstorage.backend.entity.File;
+import com.cloudstorage.backend.entity.Folder;
+import com.cloudstorage.backend.entity.UploadPart;
+import com.cloudstorage.backend.entity.UploadSession;
+import com.cloudstorage.backend.entity.User;
+import com.cloudstorage.backend.repository.FolderRepository;
+import com.cloudstorage.backend.repository.UploadPartRepository;
+import com.cloudstorage.backend.repository.UploadSessionRepository;
+import com.cloudstorage.backend.repository.UserRepository;
+
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.NoSuchUploadException;
+
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+
+// UploadSessionService - Business logic for resumable (chunked) uploads
+// A session wraps an S3 multipart upload: each numbered chunk the client sends
+// is streamed straight to S3 as the matching part, so the backend never holds
+// the whole file. Clients can ask which chunks arrived and resend only the rest.
+// Only registered with the S3 storage backend - the files would be unreadable otherwise.
+@Service
+@ConditionalOnProperty(name = "storage.backend", havingValue = "s3", matchIfMissing = true)
+public class UploadSessionService {
+
+    private final UploadSessionRepository uploadSessionRepository;
+    private final UploadPartRepository uploadPartRepository;
+    private final UserRepository userRepository;
+    private final FolderRepository folderRepository;
+    private final S3Service s3Service;
+    private final MultipartUploadService multipartUploadService;
+    private final FileService fileService;
+    private final DeletionOutboxService deletionOutboxService;
+    private final TransactionTemplate transactionTemplate;
+
+    // Sessions with no activity for this long are aborted (their S3 parts are discarded)
+    @Value("${uploads.session.expiryHours:24}")
+    private long expiryHours;
+
+    public UploadSessionService(UploadSessionRepository uploadSessionRepository, UploadPartRepository uploadPartRepository,
+                                UserRepository userRepository, FolderRepository folderRepository, S3Service s3Service,
+                                MultipartUploadService multipartUploadService, FileService fileService,
+                                DeletionOutboxService deletionOutboxService, TransactionTemplate transactionTemplate) {
+        this.uploadSessionRepository = uploadSessionRepository;
+        this.uploadPartRepository = uploadPartRepository;
+        this.userRepository = userRepository;
+        this.folderRepository = folderRepository;
+        this.s3Service = s3Service;
+        this.multipartUploadService = multipartUploadService;
+        this.fileService = fileService;
+        this.deletionOutboxService = deletionOutboxService;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    // Starts a new resumable upload and the S3 multipart upload behind it
+    // The returned status tells the client the chunk size and how many chunks to send
+    public UploadSessionStatus createSession(String filename, Long fileSize, String mimeType, Long ownerId, Long folderId) {
+
+        if (filename == null || filename.trim().isEmpty()) {
+            throw new RuntimeException("Filename cannot be empty");
+        }
+        if (fileSize == null || fileSize <= 0) {
+            throw new RuntimeException("File size must be greater than 0");
+        }
+
+        User owner = userRepository.findById(ownerId)
+            .orElseThrow(() -> new RuntimeException("User not found with ID: " + ownerId));
+
+        UploadSession session = new UploadSession();
+        session.setFilename(filename);
+        session.setFileSize(fileSize);
+        session.setMimeType(mimeType != null ? mimeType : "application/octet-stream");
+        session.setOwner(owner);
+        session.setPartSize(multipartUploadService.getEffectivePartSize(fileSize));
+        session.setStatus(UploadSession.STATUS_ACTIVE);
+
+        // Optional folder assignment (can be null for root files)
+        if (folderId != null) {
+            Folder folder = folderRepository.findById(folderId)
+                .orElseThrow(() -> new RuntimeException("Folder not found with ID: " + folderId));
+            session.setFolder(folder);
+        }
+
+        String s3Key = s3Service.generateS3Key(filename);
+        session.setS3Key(s3Key);
+        session.setUploadId(s3Service.startMultipartUpload(s3Key, session.getMimeType()));
+
+        return toStatus(uploadSessionRepository.save(session), List.of());
+    }
+
+    // Streams one chunk from the request body to S3 as the matching multipart part
+    // Sending a chunk again (e.g. after a dropped connection) replaces the earlier copy
+    public UploadSessionStatus uploadChunk(Long sessionId, Integer partNumber, InputStream content, long contentLength) {
+        UploadSession session = getActiveSession(sessionId);
+
+        if (partNumber == null || partNumber < 1 || partNumber > session.getPartCount()) {
+            throw new RuntimeException("Part number must be between 1 and " + session.getPartCount());
+        }
+        long expectedSize = session.getExpectedPartSize(partNumber);
+        if (contentLength != expectedSize) {
+            throw new RuntimeException("Part " + partNumber + " must be exactly " + expectedSize + " bytes (Content-Length was " + contentLength + ")");
+        }
+
+        CompletedPart completedPart = s3Service.uploadPart(
+            session.getS3Key(), session.getUploadId(), partNumber, RequestBody.fromInputStream(content, contentLength));
+
+        savePart(session, partNumber, contentLength, completedPart.eTag());
+
+        return getSessionStatus(sessionId);
+    }
+
+    // Reports which chunks have been received, so an interrupted client knows where to resume
+    public UploadSessionStatus getSessionStatus(Long sessionId) {
+        UploadSession session = uploadSessionRepository.findById(sessionId)
+            .orElseThrow(() -> new RuntimeException("Upload session not found with ID: " + sessionId));
+        return toStatus(session, uploadPartRepository.findBySession_IdOrderByPartNumberAsc(sessionId));
+    }
+
+    // Finishes the upload: S3 stitches the parts together, then the file metadata is saved
+    // The session is marked COMPLETING before the S3 call, so a commit that fails after it (e.g. the
+    // metadata save throws) can be retried: S3 no longer knows the upload id by then, so the retry
+    // checks that the object is there and goes on to save the metadata.
+    public File commitSession(Long sessionId) {
+        UploadSession session = uploadSessionRepository.findById(sessionId)
+            .orElseThrow(() -> new RuntimeException("Upload session not found with ID: " + sessionId));
+
+        if (UploadSession.STATUS_ACTIVE.equals(session.getStatus())) {
+            List<UploadPart> parts = uploadPartRepository.findBySession_IdOrderByPartNumberAsc(sessionId);
+            if (parts.size() != session.getPartCount()) {
+                throw new RuntimeException("Upload incomplete: received " + parts.size() + " of " + session.getPartCount() + " parts");
+            }
+
+            // Claim the session - chunks and aborts are refused from here on
+            if (uploadSessionRepository.updateStatus(sessionId, UploadSession.STATUS_ACTIVE, UploadSession.STATUS_COMPLETING) == 0) {
+                throw new RuntimeException("Upload session " + sessionId + " is already being committed");
+            }
+            session.setStatus(UploadSession.STATUS_COMPLETING);
+            completeUpload(session, parts);
+        } else if (UploadSession.STATUS_COMPLETING.equals(session.getStatus())) {
+            // An earlier commit got past S3 (or failed in the middle of it) - finish it from there
+            completeUpload(session, uploadPartRepository.findBySession_IdOrderByPartNumberAsc(sessionId));
+        } else {
+            throw new RuntimeException("Upload session " + sessionId + " is already " + session.getStatus().toLowerCase());
+        }
+
+        // Metadata and session state commit together, and only one commit can win the session
+        return transactionTemplate.execute(status -> {
+            if (uploadSessionRepository.updateStatus(sessionId, UploadSession.STATUS_COMPLETING, UploadSession.STATUS_COMPLETED) == 0) {
+                throw new RuntimeException("Upload session " + sessionId + " is already completed");
+            }
+
+            // Save file metadata to database with S3 key bridge (same as a regular upload)
+            File savedFile = fileService.saveFile(
+                session.getFilename(),
+                session.getFileSize(),
+                session.getMimeType(),
+                session.getS3Key(),
+                session.getOwner().getId(),
+                session.getFolder() != null ? session.getFolder().getId() : null
+            );
+
+            session.setStatus(UploadSession.STATUS_COMPLETED);
+            session.setFile(savedFile);
+            uploadSessionRepository.save(session);
+
+            return savedFile;
+        });
+    }
+
+    // Cancels an upload - S3 discards the stored parts and the session is removed
+    public void abortSession(Long sessionId) {
+        UploadSession session = getActiveSession(sessionId);
+        s3Service.abortMultipartUpload(session.getS3Key(), session.getUploadId());
+        uploadSessionRepository.delete(session);
+    }
+
+    // Background cleanup: aborts sessions that have been idle longer than the expiry
+    // Without this, abandoned uploads would leave billed parts in S3 forever
+    @Scheduled(fixedDelayString = "${uploads.session.cleanupIntervalMs:3600000}")
+    public void abortExpiredSessions() {
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(expiryHours);
+        List<UploadSession> expired = uploadSessionRepository.findByStatusAndUpdatedAtBefore(UploadSession.STATUS_ACTIVE, cutoff);
+
+        for (UploadSession session : expired) {
+            try {
+                s3Service.abortMultipartUpload(session.getS3Key(), session.getUploadId());
+                uploadSessionRepository.delete(session);
+            } catch (Exception e) {
+                System.err.println("Failed to clean up expired upload session " + session.getId() + ": " + e.getMessage());
+            }
+        }
+
+        // Commits that were never retried - S3 may already hold the finished object, but no file
+        // record points at it, so it goes to the deletion outbox together with the session
+        List<UploadSession> stranded = uploadSessionRepository.findByStatusAndUpdatedAtBefore(UploadSession.STATUS_COMPLETING, cutoff);
+
+        for (UploadSession session : stranded) {
+            try {
+                s3Service.abortMultipartUpload(session.getS3Key(), session.getUploadId());
+                transactionTemplate.execute(status -> {
+                    deletionOutboxService.enqueue(session.getS3Key());
+                    uploadSessionRepository.delete(session);
+                    return null;
+                });
+            } catch (Exception e) {
+                System.err.println("Failed to clean up stranded upload session " + session.getId() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    // helper method:
+    // Asks S3 to stitch the parts together. If S3 no longer knows the upload id, an earlier
+    // commit already completed it - accept that as long as the object is there with the right size.
+    private void completeUpload(UploadSession session, List<UploadPart> parts) {
+        List<CompletedPart> completedParts = parts.stream()
+            .map(part -> CompletedPart.builder().partNumber(part.getPartNumber()).eTag(part.getEtag()).build())
+            .collect(Collectors.toList());
+
+        try {
+            s3Service.completeMultipartUpload(session.getS3Key(), session.getUploadId(), completedParts);
+        } catch (NoSuchUploadException e) {
+            long storedSize;
+            try {
+                storedSize = s3Service.getObjectMetadata(session.getS3Key()).contentLength();
+            } catch (RuntimeException headFailure) {
+                throw new RuntimeException("Upload session " + session.getId() + " can no longer be completed - start a new upload", headFailure);
+            }
+            if (storedSize != session.getFileSize()) {
+                throw new RuntimeException("Upload session " + session.getId() + " can no longer be completed - stored object is "
+                    + storedSize + " bytes, expected " + session.getFileSize());
+            }
+            System.out.println("Upload session " + session.getId() + " was already completed in S3 - saving metadata");
+        }
+    }
+
+    // helper method:
+    // Loads a session and makes sure it can still receive chunks
+    private UploadSession getActiveSession(Long sessionId) {
+        UploadSession session = uploadSessionRepository.findById(sessionId)
+            .orElseThrow(() -> new RuntimeException("Upload session not found with ID: " + sessionId));
+        if (!UploadSession.STATUS_ACTIVE.equals(session.getStatus())) {
+            throw new RuntimeException("Upload session " + sessionId + " is already " + session.getStatus().toLowerCase());
+        }
+        return session;
+    }
+
+    // helper method:
+    // Records a received chunk, replacing the row if the chunk was sent before
+    // The session is only touched through a conditional update: saving the entity loaded before the
+    // S3 call could put a session a commit has claimed meanwhile back to ACTIVE
+    private void savePart(UploadSession session, Integer partNumber, long size, String etag) {
+        // Touch the session so the expiry cleanup sees it as active
+        if (uploadSessionRepository.touchActive(session.getId()) == 0) {
+            throw new RuntimeException("Upload session " + session.getId() + " is no longer accepting chunks");
+        }
+
+        Optional<UploadPart> existing = uploadPartRepository.findBySession_IdAndPartNumber(session.getId(), partNumber);
+        UploadPart part = existing.orElseGet(() -> new UploadPart(session, partNumber, size, etag));
+        part.setSize(size);
+        part.setEtag(etag);
+
+        try {
+            uploadPartRepository.save(part);
+        } catch (DataIntegrityViolationException e) {
+            // The same chunk was sent twice at once and the other request inserted first - update that row
+            UploadPart concurrent = uploadPartRepository.findBySession_IdAndPartNumber(session.getId(), partNumber)
+                .orElseThrow(() -> e);
+            concurrent.setSize(size);
+            concurrent.setEtag(etag);
+            uploadPartRepository.save(concurrent);
+        }
+    }
+
+    // helper method:
+    // Builds the progress report from the received parts
+    private UploadSessionStatus toStatus(UploadSession session, List<UploadPart> parts) {
+        Set<Integer> received = parts.stream().map(UploadPart::getPartNumber).collect(Collectors.toSet());
+        long bytesReceived = parts.stream().mapToLong(UploadPart::getSize).sum();
+
+        List<Integer> receivedParts = new ArrayList<>();
+        List<Integer> missingParts = new ArrayList<>();
+        List<long[]> receivedRanges = new ArrayList<>();
+
+        for (int partNumber = 1; partNumber <= session.getPartCount(); partNumber++) {
+            if (!received.contains(partNumber)) {
+                missingParts.add(partNumber);
+                continue;
+            }
+            receivedParts.add(partNumber);
+
+            // Merge consecutive parts into one [start, end) byte range
+            long start = (partNumber - 1) * session.getPartSize();
+            long end = start + session.getExpectedPartSize(partNumber);
+            long[] last = receivedRanges.isEmpty() ? null : receivedRanges.get(receivedRanges.size() - 1);
+            if (last != null && last[1] == start) {
+                last[1] = end;
+            } else {
+                receivedRanges.add(new long[] {start, end});
+            }
+        }
+
+        return new UploadSessionStatus(session.getId(), session.getStatus(), session.getFileSize(), session.getPartSize(),
+            session.getPartCount(), bytesReceived, receivedParts, missingParts, receivedRanges);
+    }
+
+}
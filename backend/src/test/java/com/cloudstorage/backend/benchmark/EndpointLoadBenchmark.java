@@ -0,0 +1,179 @@
+package com.cloudstorage.backend.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// EndpointLoadBenchmark - Load generator comparing platform and virtual thread request handling
+// Not a unit test (surefire doesn't pick it up) - run it by hand against a running backend.
+//
+// 1. Start the backend with platform threads:   java -jar app.jar --spring.threads.virtual.enabled=false
+// 2. Run the benchmark:
+//      mvn -q test-compile
+//      java -cp target/test-classes com.cloudstorage.backend.benchmark.EndpointLoadBenchmark \
+//           --token=<JWT> --ownerId=1 --concurrency=1000 --requests=20000 --label=platform
+// 3. Restart the backend with --spring.threads.virtual.enabled=true (JDK 21) and rerun with --label=virtual
+//
+// Scenarios: "list" hits GET /api/files/owner/{ownerId}, "upload" hits POST /api/files/upload
+// (every uploaded file is a real S3 object and file row - use a test account and bucket).
+public class EndpointLoadBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+
+        String baseUrl = options.getOrDefault("url", "http://localhost:8080");
+        String token = options.get("token");
+        String ownerId = options.getOrDefault("ownerId", "1");
+        String scenarios = options.getOrDefault("scenario", "list,upload");
+        String label = options.getOrDefault("label", "run");
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "500"));
+        int requests = Integer.parseInt(options.getOrDefault("requests", "10000"));
+        int uploadSize = Integer.parseInt(options.getOrDefault("uploadSize", "65536"));
+
+        if (token == null) {
+            System.err.println("--token=<JWT> is required (all file endpoints need authentication)");
+            System.exit(1);
+        }
+
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+
+        for (String scenario : scenarios.split(",")) {
+            RequestFactory factory;
+            if (scenario.equals("list")) {
+                factory = () -> HttpRequest.newBuilder(URI.create(baseUrl + "/api/files/owner/" + ownerId))
+                        .header("Authorization", "Bearer " + token)
+                        .GET()
+                        .build();
+            } else if (scenario.equals("upload")) {
+                byte[] content = new byte[uploadSize];
+                new Random(42).nextBytes(content);
+                factory = () -> uploadRequest(baseUrl, token, ownerId, content);
+            } else {
+                System.err.println("Unknown scenario: " + scenario);
+                continue;
+            }
+
+            // Warm up connections and JIT before measuring
+            run(client, factory, concurrency, Math.max(concurrency, requests / 10));
+            Result result = run(client, factory, concurrency, requests);
+            result.print(label, scenario, concurrency);
+        }
+    }
+
+    // Fires `requests` requests with at most `concurrency` in flight and records each latency
+    // The client side is fully async, so the load generator itself never runs out of threads
+    private static Result run(HttpClient client, RequestFactory factory, int concurrency, int requests) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(concurrency);
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>(requests));
+        AtomicInteger errors = new AtomicInteger();
+        List<CompletableFuture<Void>> pending = new ArrayList<>(requests);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            inFlight.acquire();
+            long sent = System.nanoTime();
+            pending.add(client.sendAsync(factory.create(), HttpResponse.BodyHandlers.discarding())
+                    .handle((response, error) -> {
+                        latencies.add(System.nanoTime() - sent);
+                        if (error != null || response.statusCode() >= 400) {
+                            errors.incrementAndGet();
+                        }
+                        inFlight.release();
+                        return null;
+                    }));
+        }
+        CompletableFuture.allOf(pending.toArray(new CompletableFuture[0])).join();
+        long elapsed = System.nanoTime() - start;
+
+        return new Result(new ArrayList<>(latencies), errors.get(), elapsed);
+    }
+
+    // helper method:
+    // Builds a multipart/form-data upload request (same fields as the frontend sends)
+    private static HttpRequest uploadRequest(String baseUrl, String token, String ownerId, byte[] content) {
+        String boundary = "----benchmark" + UUID.randomUUID();
+        ByteArrayOutputStream body = new ByteArrayOutputStream(content.length + 512);
+        writeString(body, "--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"ownerId\"\r\n\r\n"
+                + ownerId + "\r\n"
+                + "--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"benchmark-" + UUID.randomUUID() + ".bin\"\r\n"
+                + "Content-Type: application/octet-stream\r\n\r\n");
+        body.writeBytes(content);
+        writeString(body, "\r\n--" + boundary + "--\r\n");
+
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/api/files/upload"))
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+                .build();
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String text) {
+        out.writeBytes(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // helper method:
+    // Parses --name=value arguments
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        return options;
+    }
+
+    private interface RequestFactory {
+        HttpRequest create();
+    }
+
+    // Throughput and latency percentiles of one measured run
+    private static class Result {
+
+        private final List<Long> latencies;
+        private final int errors;
+        private final long elapsedNanos;
+
+        Result(List<Long> latencies, int errors, long elapsedNanos) {
+            Collections.sort(latencies);
+            this.latencies = latencies;
+            this.errors = errors;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        void print(String label, String scenario, int concurrency) {
+            double seconds = elapsedNanos / 1e9;
+            System.out.printf("%-10s %-7s concurrency=%-5d requests=%-6d errors=%-5d throughput=%8.1f req/s  "
+                            + "p50=%7.1fms  p95=%7.1fms  p99=%7.1fms  max=%7.1fms%n",
+                    label, scenario, concurrency, latencies.size(), errors, latencies.size() / seconds,
+                    percentile(0.50), percentile(0.95), percentile(0.99), percentile(1.0));
+        }
+
+        private double percentile(double p) {
+            if (latencies.isEmpty()) {
+                return 0;
+            }
+            int index = (int) Math.ceil(p * latencies.size()) - 1;
+            return latencies.get(Math.max(index, 0)) / 1e6;
+        }
+    }
+
+}
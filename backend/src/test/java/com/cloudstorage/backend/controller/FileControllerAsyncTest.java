@@ -0,0 +1,194 @@
+package com.cloudstorage.backend.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.cloudstorage.backend.entity.File;
+import com.cloudstorage.backend.service.DirectUploadService;
+import com.cloudstorage.backend.service.FileService;
+import com.cloudstorage.backend.service.S3AsyncService;
+import com.cloudstorage.backend.service.StorageBackend;
+import com.cloudstorage.backend.service.StorageStatsService;
+import com.cloudstorage.backend.service.UploadService;
+
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+
+// FileControllerAsyncTest - Tests the non-blocking FileController endpoints with a mocked service layer
+// Verifies that DeferredResults complete with the saved file / S3 metadata, that async failures
+// map to the 400 error response, and that the metadata save runs on the task executor
+@WebMvcTest(value = FileController.class, excludeAutoConfiguration = {SecurityAutoConfiguration.class})
+@Import(FileControllerAsyncTest.TaskExecutorConfig.class)
+public class FileControllerAsyncTest {
+
+    private static final String S3_KEY = "files/abc-notes.txt";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private FileService mockFileService;
+    @MockBean
+    private StorageBackend mockStorageBackend;
+    @MockBean
+    private UploadService mockUploadService;
+    @MockBean
+    private DirectUploadService mockDirectUploadService;
+    @MockBean
+    private S3AsyncService mockS3AsyncService;
+    @MockBean
+    private StorageStatsService mockStorageStatsService;
+
+    private final MockMultipartFile notes = new MockMultipartFile("file", "notes.txt", "text/plain", new byte[10]);
+
+    // Stands in for Spring Boot's applicationTaskExecutor, with recognisable thread names
+    @TestConfiguration
+    static class TaskExecutorConfig {
+
+        @Bean(name = "applicationTaskExecutor")
+        public Executor applicationTaskExecutor() {
+            ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+            executor.setThreadNamePrefix("test-task-");
+            executor.initialize();
+            return executor;
+        }
+    }
+
+    @Test
+    public void testUploadFileAsync_SavesMetadataOnTaskExecutor() throws Exception {
+
+        // Arrange - S3 finishes on its own (event loop) thread; record where the save runs
+        CompletableFuture<String> upload = new CompletableFuture<>();
+        when(mockS3AsyncService.uploadFile(any())).thenReturn(upload);
+        AtomicReference<String> saveThread = new AtomicReference<>();
+        when(mockFileService.saveFile("notes.txt", 10L, "text/plain", S3_KEY, 1L, null)).thenAnswer(invocation -> {
+            saveThread.set(Thread.currentThread().getName());
+            return new File("notes.txt", 10L, "text/plain", S3_KEY, null);
+        });
+
+        // Act - the request is released before S3 answers
+        MvcResult pending = mockMvc.perform(multipart("/api/files/upload/async").file(notes).param("ownerId", "1"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        Thread eventLoop = new Thread(() -> upload.complete(S3_KEY), "aws-event-loop");
+        eventLoop.start();
+        eventLoop.join();
+
+        // Assert
+        mockMvc.perform(asyncDispatch(pending))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.filename").value("notes.txt"))
+            .andExpect(jsonPath("$.s3Key").value(S3_KEY));
+        assertThat(saveThread.get()).startsWith("test-task-");
+    }
+
+    @Test
+    public void testUploadFileAsync_S3Failure() throws Exception {
+
+        // Arrange - the upload future fails wrapped, the way CompletableFuture chains deliver it
+        when(mockS3AsyncService.uploadFile(any())).thenReturn(CompletableFuture.failedFuture(
+            new CompletionException(new RuntimeException("Failed to upload file to S3: Access Denied"))));
+
+        // Act
+        MvcResult pending = mockMvc.perform(multipart("/api/files/upload/async").file(notes).param("ownerId", "1"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        // Assert - the unwrapped message reaches the error response, and nothing is saved
+        mockMvc.perform(asyncDispatch(pending))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error").value("Failed to upload file to S3: Access Denied"));
+        verify(mockFileService, never()).saveFile(anyString(), anyLong(), anyString(), anyString(), anyLong(), any());
+    }
+
+    @Test
+    public void testUploadFileAsync_MetadataFailureDeletesObject() throws Exception {
+
+        // Arrange
+        when(mockS3AsyncService.uploadFile(any())).thenReturn(CompletableFuture.completedFuture(S3_KEY));
+        when(mockFileService.saveFile("notes.txt", 10L, "text/plain", S3_KEY, 1L, null))
+            .thenThrow(new RuntimeException("User not found with ID: 1"));
+        when(mockS3AsyncService.deleteFile(S3_KEY)).thenReturn(CompletableFuture.completedFuture(null));
+
+        // Act
+        MvcResult pending = mockMvc.perform(multipart("/api/files/upload/async").file(notes).param("ownerId", "1"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        // Assert
+        mockMvc.perform(asyncDispatch(pending))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error").value("User not found with ID: 1"));
+        verify(mockS3AsyncService).deleteFile(S3_KEY);
+    }
+
+    @Test
+    public void testGetStorageMetadata() throws Exception {
+
+        // Arrange
+        when(mockFileService.getFileById(5L)).thenReturn(Optional.of(new File("notes.txt", 10L, "text/plain", S3_KEY, null)));
+        when(mockS3AsyncService.headObject(S3_KEY)).thenReturn(CompletableFuture.completedFuture(HeadObjectResponse.builder()
+            .contentLength(10L).contentType("text/plain").eTag("\"abc\"").lastModified(Instant.parse("2026-01-01T00:00:00Z"))
+            .build()));
+
+        // Act
+        MvcResult pending = mockMvc.perform(get("/api/files/5/metadata"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        // Assert
+        mockMvc.perform(asyncDispatch(pending))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.contentLength").value(10))
+            .andExpect(jsonPath("$.contentType").value("text/plain"))
+            .andExpect(jsonPath("$.eTag").value("\"abc\""));
+    }
+
+    @Test
+    public void testGetStorageMetadata_MissingObject() throws Exception {
+
+        // Arrange - the row exists but its object is gone from S3
+        when(mockFileService.getFileById(5L)).thenReturn(Optional.of(new File("notes.txt", 10L, "text/plain", S3_KEY, null)));
+        when(mockS3AsyncService.headObject(S3_KEY)).thenReturn(CompletableFuture.failedFuture(
+            new CompletionException(new RuntimeException("File not found in S3: " + S3_KEY))));
+
+        // Act
+        MvcResult pending = mockMvc.perform(get("/api/files/5/metadata"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        // Assert
+        mockMvc.perform(asyncDispatch(pending))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error").value("File not found in S3: " + S3_KEY));
+    }
+
+}
@@ -0,0 +1,72 @@
+package com.cloudstorage.backend.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+
+import com.cloudstorage.backend.entity.FileCategory;
+
+import jakarta.persistence.Query;
+
+// FileFilterTest - Tests the optional category/size/date conditions of file listings
+// Verifies only the filters that are set end up in the query, with inclusive date ranges
+public class FileFilterTest {
+
+    @Test
+    public void testNoFilters_AddsNoConditions() {
+
+        // Arrange
+        Query query = mock(Query.class);
+
+        // Act
+        FileFilter filter = FileFilter.of(null, null, null, "", null);
+        filter.bind(query);
+
+        // Assert
+        assertThat(filter.conditions()).isEmpty();
+        verifyNoInteractions(query);
+    }
+
+    @Test
+    public void testAllFilters_BindsCategoryAndRanges() {
+
+        // Arrange
+        Query query = mock(Query.class);
+
+        // Act
+        FileFilter filter = FileFilter.of("Images", 1024L, 4096L, "2024-05-01", "2024-05-31");
+        filter.bind(query);
+
+        // Assert - the whole "to" day is included
+        assertThat(filter.getCategory()).isEqualTo(FileCategory.IMAGES);
+        assertThat(filter.conditions()).isEqualTo(
+            " AND category = :category AND file_size >= :minSize AND file_size <= :maxSize" +
+            " AND created_at >= :createdFrom AND created_at < :createdTo");
+        verify(query).setParameter("category", "IMAGES");
+        verify(query).setParameter("minSize", 1024L);
+        verify(query).setParameter("maxSize", 4096L);
+        verify(query).setParameter("createdFrom", LocalDateTime.of(2024, 5, 1, 0, 0));
+        verify(query).setParameter("createdTo", LocalDateTime.of(2024, 6, 1, 0, 0));
+    }
+
+    @Test
+    public void testInvalidFilters_AreRejected() {
+
+        // Act & Assert
+        assertThatThrownBy(() -> FileFilter.of("spreadsheets", null, null, null, null))
+            .hasMessageContaining("Invalid category");
+        assertThatThrownBy(() -> FileFilter.of(null, 10L, 5L, null, null))
+            .hasMessage("minSize must not be greater than maxSize");
+        assertThatThrownBy(() -> FileFilter.of(null, null, null, "05/01/2024", null))
+            .hasMessageContaining("Invalid date");
+        assertThatThrownBy(() -> FileFilter.of(null, null, null, "2024-06-01", "2024-05-01"))
+            .hasMessage("from must not be after to");
+    }
+
+}
@@ -0,0 +1,79 @@
+package com.cloudstorage.backend.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.cloudstorage.backend.dto.CursorPage;
+
+// KeysetTest - Tests cursor encoding and the SQL fragments of keyset pagination
+// Verifies a page's cursor resumes strictly after its last row, in the same sort order
+public class KeysetTest {
+
+    @Test
+    public void testFirstPage_OrdersBySortColumnAndIdWithoutCondition() {
+
+        // Act
+        Keyset keyset = Keyset.of(null, null, null, null);
+
+        // Assert - defaults: by name, ascending, 100 rows (+1 to detect a next page)
+        assertThat(keyset.getSort()).isEqualTo("name");
+        assertThat(keyset.getLimit()).isEqualTo(Keyset.DEFAULT_LIMIT);
+        assertThat(keyset.condition("filename", "id")).isEmpty();
+        assertThat(keyset.orderBy("filename", "id")).isEqualTo(" ORDER BY filename ASC, id ASC LIMIT :limit");
+    }
+
+    @Test
+    public void testCursor_ResumesAfterLastRowOfPreviousPage() {
+
+        // Arrange - a page of two out of three rows, newest first
+        Keyset firstPage = Keyset.of("created", "desc", null, 2);
+        LocalDateTime created = LocalDateTime.of(2024, 5, 1, 10, 30, 15, 123456000);
+        List<long[]> rows = List.of(new long[] {9, 0}, new long[] {7, 0}, new long[] {4, 0});
+
+        // Act
+        CursorPage<long[]> page = firstPage.toPage(rows, row -> created, row -> row[0]);
+        Keyset nextPage = Keyset.of("created", "desc", page.getNextCursor(), 2);
+
+        // Assert - extra row trimmed; next page continues below (created, 7) with a row-value comparison
+        assertThat(page.getItems()).hasSize(2);
+        assertThat(page.isHasMore()).isTrue();
+        assertThat(nextPage.condition("created_at", "id")).isEqualTo(" AND (created_at, id) < (:afterValue, :afterId)");
+        assertThat(nextPage.orderBy("created_at", "id")).isEqualTo(" ORDER BY created_at DESC, id DESC LIMIT :limit");
+        assertThat(nextPage.cursorAfter(created, 7L)).isEqualTo(page.getNextCursor());
+    }
+
+    @Test
+    public void testLastPage_HasNoCursor() {
+
+        // Act
+        CursorPage<String> page = Keyset.of("name", "asc", null, 5).toPage(List.of("a", "b"), name -> name, name -> 1L);
+
+        // Assert
+        assertThat(page.getNextCursor()).isNull();
+        assertThat(page.isHasMore()).isFalse();
+    }
+
+    @Test
+    public void testCursor_RejectsDifferentSortOrTampering() {
+
+        // Arrange
+        String cursor = Keyset.of("size", "asc", null, 10).cursorAfter(2048L, 3L);
+
+        // Act & Assert
+        assertThatThrownBy(() -> Keyset.of("name", "asc", cursor, 10))
+            .hasMessageContaining("different sort order");
+        assertThatThrownBy(() -> Keyset.of("size", "asc", "not-a-cursor!", 10))
+            .hasMessage("Invalid cursor");
+        assertThatThrownBy(() -> Keyset.of("owner_id", null, null, null))
+            .hasMessageContaining("Invalid sort");
+        assertThatThrownBy(() -> Keyset.of("size", null, null, null).column(Map.of("name", "name")))
+            .hasMessageContaining("not supported");
+    }
+
+}
@@ -0,0 +1,155 @@
+package com.cloudstorage.backend.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.cloudstorage.backend.entity.File;
+import com.cloudstorage.backend.entity.FileCategory;
+import com.cloudstorage.backend.entity.Folder;
+import com.cloudstorage.backend.entity.Share;
+import com.cloudstorage.backend.entity.User;
+import com.cloudstorage.backend.service.FileService;
+import com.cloudstorage.backend.service.FolderService;
+import com.cloudstorage.backend.service.ShareService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+// ListingStatementCountTest - Tests that every listing endpoint runs exactly one SQL statement
+// Each listing is fetched and serialized to JSON (as the controllers do) with Hibernate statistics on,
+// so a lazy association loaded per row would show up as extra statements
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional // Rolls back database changes after each test
+public class ListingStatementCountTest {
+
+    private static final int FILES_PER_FOLDER = 5;
+
+    @Autowired
+    private FileService fileService;
+    @Autowired
+    private FolderService folderService;
+    @Autowired
+    private ShareService shareService;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private User owner;
+    private User recipient;
+    private Folder parent;
+    private Folder child;
+    private File sharedFile;
+
+    @BeforeEach
+    public void setUp() {
+
+        // Arrange - two folders of files plus root files, shared with another user
+        owner = persist(user("listing-owner"));
+        recipient = persist(user("listing-recipient"));
+        parent = persist(new Folder("Parent", owner, null));
+        child = persist(new Folder("Child", owner, parent));
+        for (int i = 0; i < FILES_PER_FOLDER; i++) {
+            persist(file("parent-" + i + ".pdf", parent));
+            persist(file("child-" + i + ".pdf", child));
+            sharedFile = persist(file("root-" + i + ".pdf", null));
+            persist(new Share("read", sharedFile, recipient));
+        }
+
+        // Start from an empty persistence context, like a fresh request
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    public void testFileListings_OneStatementEach() {
+        assertOneStatement(() -> fileService.getFilesByOwner(owner.getId()), 3 * FILES_PER_FOLDER);
+        assertOneStatement(() -> fileService.getFilesByFolder(parent.getId()), FILES_PER_FOLDER);
+        assertOneStatement(() -> fileService.getRootFiles(owner.getId()), FILES_PER_FOLDER);
+        assertOneStatement(() -> fileService.getFilesByOwnerPage(owner.getId(), FileFilter.NONE, page()).getItems(),
+            3 * FILES_PER_FOLDER);
+        assertOneStatement(() -> fileService.getFilesByFolderPage(parent.getId(), FileFilter.NONE, page()).getItems(),
+            FILES_PER_FOLDER);
+        assertOneStatement(() -> fileService.getRootFilesPage(owner.getId(), FileFilter.NONE, page()).getItems(),
+            FILES_PER_FOLDER);
+    }
+
+    @Test
+    public void testFolderListings_OneStatementEach() {
+        assertOneStatement(() -> folderService.getFoldersByOwner(owner.getId()), 2);
+        assertOneStatement(() -> folderService.getSubfolders(parent.getId()), 1);
+        assertOneStatement(() -> folderService.getRootFolders(owner.getId()), 1);
+        assertOneStatement(() -> folderService.searchFolders(owner.getId(), "child"), 1);
+        assertOneStatement(() -> folderService.getFoldersByOwnerPage(owner.getId(), page()).getItems(), 2);
+        assertOneStatement(() -> folderService.getSubfoldersPage(parent.getId(), page()).getItems(), 1);
+        assertOneStatement(() -> folderService.getRootFoldersPage(owner.getId(), page()).getItems(), 1);
+    }
+
+    @Test
+    public void testShareListings_OneStatementEach() {
+        assertOneStatement(() -> shareService.getSharesByFile(sharedFile.getId()), 1);
+        assertOneStatement(() -> shareService.getSharesByUser(recipient.getId()), FILES_PER_FOLDER);
+        assertOneStatement(() -> shareService.getSharesByUserPage(recipient.getId(), page()).getItems(), FILES_PER_FOLDER);
+        assertOneStatement(() -> shareService.getSharesByPermission("read"), FILES_PER_FOLDER);
+    }
+
+    // helper method:
+    // Runs a listing and serializes it, asserting it took exactly one statement
+    private void assertOneStatement(Supplier<List<?>> listing, int expectedRows) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        entityManager.clear();
+        statistics.clear();
+
+        List<?> rows = listing.get();
+        try {
+            objectMapper.writeValueAsString(rows);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+
+        assertThat(rows).hasSizeGreaterThanOrEqualTo(expectedRows);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    // helper method:
+    private static Keyset page() {
+        return Keyset.of("name", "asc", null, 100);
+    }
+
+    // helper method:
+    private <T> T persist(T entity) {
+        entityManager.persist(entity);
+        return entity;
+    }
+
+    // helper method:
+    private static User user(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setCognitoUserId("cognito-" + username);
+        return user;
+    }
+
+    // helper method:
+    private File file(String filename, Folder folder) {
+        File file = new File(filename, 1024L, "application/pdf", "files/" + filename, owner);
+        file.setCategory(FileCategory.DOCUMENTS);
+        file.setFolder(folder);
+        return file;
+    }
+
+}
@@ -0,0 +1,99 @@
+package com.cloudstorage.backend.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import org.junit.jupiter.api.Test;
+
+import jakarta.persistence.Query;
+
+// SearchQueryTest - Tests parsing, LIKE patterns and cursors of filename searches
+// Verifies terms are normalized, wildcards can't leak into patterns, and a cursor resumes the same search
+public class SearchQueryTest {
+
+    @Test
+    public void testOf_NormalizesTermAndDefaults() {
+
+        // Act
+        SearchQuery search = SearchQuery.of("  Annual REPORT ", null, null, null);
+
+        // Assert
+        assertThat(search.getTerm()).isEqualTo("annual report");
+        assertThat(search.includesFiles()).isTrue();
+        assertThat(search.includesFolders()).isTrue();
+        assertThat(search.getLimit()).isEqualTo(SearchQuery.DEFAULT_LIMIT);
+        assertThat(search.isFuzzy()).isTrue();
+        assertThat(search.condition()).isEmpty();
+    }
+
+    @Test
+    public void testShortTerm_MatchesPrefixesOnly() {
+
+        // Act
+        SearchQuery search = SearchQuery.of("ab", "files", null, 1000);
+
+        // Assert - limit capped, only files
+        assertThat(search.isFuzzy()).isFalse();
+        assertThat(search.includesFolders()).isFalse();
+        assertThat(search.getLimit()).isEqualTo(SearchQuery.MAX_LIMIT);
+        assertThat(search.prefixUpperBound()).isEqualTo("ac");
+    }
+
+    @Test
+    public void testPatterns_EscapeLikeWildcards() {
+
+        // Act
+        SearchQuery search = SearchQuery.of("100%_done\\", null, null, null);
+
+        // Assert
+        assertThat(search.prefixPattern()).isEqualTo("100\\%\\_done\\\\%");
+        assertThat(search.containsPattern()).isEqualTo("%100\\%\\_done\\\\%");
+    }
+
+    @Test
+    public void testCursor_ResumesAfterLastRowOfSameSearch() {
+
+        // Arrange
+        SearchQuery firstPage = SearchQuery.of("report", "all", null, 20);
+        String cursor = firstPage.cursorAfter(2871, 1, 42L, "report | q1.pdf");
+        Query query = mock(Query.class);
+
+        // Act
+        SearchQuery nextPage = SearchQuery.of("Report", "all", cursor, 20);
+        nextPage.bind(query);
+
+        // Assert - the name may contain the separator
+        assertThat(nextPage.condition()).isEqualTo(" AND (rank < :afterRank OR (rank = :afterRank AND " +
+            "(sort_name, kind, id) > (:afterName, :afterKind, :afterId)))");
+        verify(query).setParameter("term", "report");
+        verify(query).setParameter("prefix", "report%");
+        verify(query).setParameter("contains", "%report%");
+        verify(query).setParameter("afterRank", 2871);
+        verify(query).setParameter("afterName", "report | q1.pdf");
+        verify(query).setParameter("afterKind", 1);
+        verify(query).setParameter("afterId", 42L);
+        verify(query).setParameter("limit", 21);
+    }
+
+    @Test
+    public void testInvalidRequests_AreRejected() {
+
+        // Arrange
+        String cursor = SearchQuery.of("report", null, null, null).cursorAfter(2000, 0, 7L, "reports");
+
+        // Act & Assert
+        assertThatThrownBy(() -> SearchQuery.of("   ", null, null, null))
+            .hasMessage("Search term is required");
+        assertThatThrownBy(() -> SearchQuery.of("report", "photos", null, null))
+            .hasMessageContaining("Invalid type");
+        assertThatThrownBy(() -> SearchQuery.of("invoice", null, cursor, null))
+            .hasMessageContaining("different search");
+        assertThatThrownBy(() -> SearchQuery.of("report", "files", cursor, null))
+            .hasMessageContaining("different search");
+        assertThatThrownBy(() -> SearchQuery.of("report", null, "not-a-cursor", null))
+            .hasMessage("Invalid cursor");
+    }
+
+}
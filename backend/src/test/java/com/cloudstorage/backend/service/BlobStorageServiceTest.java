@@ -0,0 +1,129 @@
+package com.cloudstorage.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.cloudstorage.backend.entity.Blob;
+import com.cloudstorage.backend.entity.PendingDeletion;
+import com.cloudstorage.backend.repository.BlobRepository;
+import com.cloudstorage.backend.repository.PendingDeletionRepository;
+
+// BlobStorageServiceTest - Tests content-addressed storage with mocked repository and S3
+// Verifies duplicate content skips the upload and S3 objects live until the last reference
+@ExtendWith(MockitoExtension.class)
+public class BlobStorageServiceTest {
+
+    // SHA-256 of "hello world"
+    private static final String HELLO_DIGEST = "b94d27b9934d3e08a52e52d7da7dabfac484efe37a5380ee9088f7ace2efcde9";
+
+    @Mock
+    private BlobRepository mockBlobRepository;
+    @Mock
+    private PendingDeletionRepository mockPendingDeletionRepository;
+    @Mock
+    private S3Service mockS3Service;
+    @Mock
+    private MultipartUploadService mockMultipartUploadService;
+
+    @InjectMocks
+    private BlobStorageService blobStorageService;
+
+    private final MockMultipartFile helloFile =
+        new MockMultipartFile("file", "hello.txt", "text/plain", "hello world".getBytes());
+
+    @Test
+    public void testStoreFile_DuplicateContentSkipsUpload() throws Exception {
+
+        // Arrange - blob with this digest already exists
+        ReflectionTestUtils.setField(blobStorageService, "hashBufferSize", 4);
+        when(mockBlobRepository.incrementRefCount(HELLO_DIGEST)).thenReturn(1);
+
+        // Act
+        String s3Key = blobStorageService.storeFile(helloFile);
+
+        // Assert - points at the shared blob, nothing sent to S3
+        assertThat(s3Key).isEqualTo("blobs/" + HELLO_DIGEST);
+        verify(mockS3Service, never()).uploadFile(any(), anyString());
+        verify(mockBlobRepository, never()).save(any());
+    }
+
+    @Test
+    public void testStoreFile_NewContentIsUploadedUnderDigest() throws Exception {
+
+        // Arrange - first time this content is seen
+        ReflectionTestUtils.setField(blobStorageService, "hashBufferSize", 4);
+        when(mockBlobRepository.incrementRefCount(HELLO_DIGEST)).thenReturn(0);
+
+        // Act
+        String s3Key = blobStorageService.storeFile(helloFile);
+
+        // Assert - a queued deletion of the key is dropped before the upload,
+        // then the content is uploaded once and registered with a single reference
+        assertThat(s3Key).isEqualTo("blobs/" + HELLO_DIGEST);
+        InOrder inOrder = inOrder(mockPendingDeletionRepository, mockS3Service);
+        inOrder.verify(mockPendingDeletionRepository).deleteByS3Key("blobs/" + HELLO_DIGEST);
+        inOrder.verify(mockS3Service).uploadFile(helloFile, "blobs/" + HELLO_DIGEST);
+        verify(mockBlobRepository).save(any(Blob.class));
+    }
+
+    @Test
+    public void testRelease_KeepsObjectWhileReferenced() {
+
+        // Arrange - blob shared by two files
+        Blob blob = new Blob(HELLO_DIGEST, "blobs/" + HELLO_DIGEST, 11L);
+        blob.setRefCount(2L);
+        when(mockBlobRepository.findForUpdateByS3Key("blobs/" + HELLO_DIGEST)).thenReturn(Optional.of(blob));
+
+        // Act
+        boolean handled = blobStorageService.release("blobs/" + HELLO_DIGEST);
+
+        // Assert - one reference left, S3 object untouched
+        assertThat(handled).isTrue();
+        assertThat(blob.getRefCount()).isEqualTo(1L);
+        verify(mockS3Service, never()).deleteFile(anyString());
+    }
+
+    @Test
+    public void testRelease_LastReferenceQueuesObjectForDeletion() {
+
+        // Arrange - blob used by one file
+        Blob blob = new Blob(HELLO_DIGEST, "blobs/" + HELLO_DIGEST, 11L);
+        when(mockBlobRepository.findForUpdateByS3Key("blobs/" + HELLO_DIGEST)).thenReturn(Optional.of(blob));
+
+        // Act
+        blobStorageService.release("blobs/" + HELLO_DIGEST);
+
+        // Assert - blob row removed, S3 object queued in the outbox (not deleted inline)
+        ArgumentCaptor<PendingDeletion> deletionCaptor = ArgumentCaptor.forClass(PendingDeletion.class);
+        verify(mockPendingDeletionRepository).save(deletionCaptor.capture());
+        assertThat(deletionCaptor.getValue().getS3Key()).isEqualTo("blobs/" + HELLO_DIGEST);
+        verify(mockBlobRepository).delete(blob);
+        verify(mockS3Service, never()).deleteFile(anyString());
+    }
+
+    @Test
+    public void testRelease_IgnoresRegularKeys() {
+
+        // Act & Assert - files/ keys are not reference counted
+        assertThat(blobStorageService.release("files/123-report.pdf")).isFalse();
+        verify(mockBlobRepository, never()).findForUpdateByS3Key(anyString());
+    }
+
+}
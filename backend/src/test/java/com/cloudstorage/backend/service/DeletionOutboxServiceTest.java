@@ -0,0 +1,105 @@
+package com.cloudstorage.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.cloudstorage.backend.entity.PendingDeletion;
+import com.cloudstorage.backend.repository.PendingDeletionRepository;
+
+// DeletionOutboxServiceTest - Tests the background deletion worker with mocked outbox and storage
+// Verifies deleted keys leave the outbox and failed ones are rescheduled with backoff
+@ExtendWith(MockitoExtension.class)
+public class DeletionOutboxServiceTest {
+
+    @Mock
+    private PendingDeletionRepository mockPendingDeletionRepository;
+    @Mock
+    private StorageBackend mockStorageBackend;
+    @Mock
+    private TransactionTemplate mockTransactionTemplate;
+
+    @InjectMocks
+    private DeletionOutboxService deletionOutboxService;
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(deletionOutboxService, "batchSize", 1000);
+        ReflectionTestUtils.setField(deletionOutboxService, "retryBaseMs", 10_000L);
+        ReflectionTestUtils.setField(deletionOutboxService, "retryMaxMs", 60_000L);
+
+        // Run the batch callback directly, as if inside a transaction
+        when(mockTransactionTemplate.execute(any())).thenAnswer(invocation ->
+            invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    @Test
+    public void testProcessPendingDeletions_OneBatchRequest() {
+
+        // Arrange - three queued keys, S3 fails to delete one of them
+        PendingDeletion a = pending("files/1-a.txt", 0);
+        PendingDeletion b = pending("files/2-b.txt", 0);
+        PendingDeletion c = pending("files/3-c.txt", 2);
+        when(mockPendingDeletionRepository.findDueForUpdate(any(LocalDateTime.class), anyInt())).thenReturn(List.of(a, b, c));
+        when(mockStorageBackend.deleteAll(List.of("files/1-a.txt", "files/2-b.txt", "files/3-c.txt")))
+            .thenReturn(Map.of("files/3-c.txt", "InternalError: try again"));
+
+        // Act
+        LocalDateTime before = LocalDateTime.now();
+        deletionOutboxService.processPendingDeletions();
+
+        // Assert - all keys in one request; deleted rows removed, the failed one retried after 40s (10s * 2^2)
+        verify(mockStorageBackend).deleteAll(List.of("files/1-a.txt", "files/2-b.txt", "files/3-c.txt"));
+        verify(mockPendingDeletionRepository).delete(a);
+        verify(mockPendingDeletionRepository).delete(b);
+        verify(mockPendingDeletionRepository, never()).delete(c);
+        verify(mockPendingDeletionRepository).save(c);
+        assertThat(c.getAttempts()).isEqualTo(3);
+        assertThat(c.getLastError()).isEqualTo("InternalError: try again");
+        assertThat(c.getNextAttemptAt()).isAfterOrEqualTo(before.plusSeconds(40));
+    }
+
+    @Test
+    public void testProcessPendingDeletions_StorageDownRetriesEveryKey() {
+
+        // Arrange - the whole request fails; the key has failed many times already
+        PendingDeletion a = pending("files/1-a.txt", 10);
+        when(mockPendingDeletionRepository.findDueForUpdate(any(LocalDateTime.class), anyInt())).thenReturn(List.of(a));
+        when(mockStorageBackend.deleteAll(List.of("files/1-a.txt")))
+            .thenThrow(new RuntimeException("Failed to delete files from S3: Unable to execute HTTP request"));
+
+        // Act
+        LocalDateTime before = LocalDateTime.now();
+        deletionOutboxService.processPendingDeletions();
+
+        // Assert - kept in the outbox, backoff capped at retryMaxMs (60s)
+        verify(mockPendingDeletionRepository, never()).delete(any(PendingDeletion.class));
+        assertThat(a.getAttempts()).isEqualTo(11);
+        assertThat(a.getNextAttemptAt()).isBetween(before.plusSeconds(60), before.plusSeconds(61));
+    }
+
+    // helper method:
+    private static PendingDeletion pending(String s3Key, int attempts) {
+        PendingDeletion deletion = new PendingDeletion(s3Key);
+        deletion.setAttempts(attempts);
+        return deletion;
+    }
+
+}
@@ -0,0 +1,288 @@
+package com.cloudstorage.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.cloudstorage.backend.entity.DirectUpload;
+import com.cloudstorage.backend.entity.File;
+import com.cloudstorage.backend.entity.User;
+import com.cloudstorage.backend.repository.DirectUploadRepository;
+import com.cloudstorage.backend.repository.UserRepository;
+
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchUploadException;
+
+// DirectUploadServiceTest - Tests browser-to-S3 uploads with mocked repositories and S3
+// Verifies that issued keys are recorded, and that only those keys can be finalized
+// (by their owner, once, with the announced size)
+@ExtendWith(MockitoExtension.class)
+public class DirectUploadServiceTest {
+
+    private static final String S3_KEY = "files/abc-report.pdf";
+
+    @Mock
+    private S3Service mockS3Service;
+    @Mock
+    private MultipartUploadService mockMultipartUploadService;
+    @Mock
+    private FileService mockFileService;
+    @Mock
+    private UserRepository mockUserRepository;
+    @Mock
+    private DirectUploadRepository mockDirectUploadRepository;
+    @Mock
+    private DeletionOutboxService mockDeletionOutboxService;
+    @Mock
+    private TransactionTemplate mockTransactionTemplate;
+
+    private DirectUploadService directUploadService;
+
+    private User owner;
+
+    @BeforeEach
+    public void setUp() {
+        directUploadService = new DirectUploadService(mockS3Service, mockMultipartUploadService, mockFileService,
+            mockUserRepository, mockDirectUploadRepository, mockDeletionOutboxService, mockTransactionTemplate);
+        ReflectionTestUtils.setField(directUploadService, "maxFileSize", 524288000L);
+        ReflectionTestUtils.setField(directUploadService, "expiryHours", 24L);
+
+        owner = new User();
+        owner.setId(1L);
+    }
+
+    @Test
+    public void testPrepareUpload_SinglePut() {
+
+        // Arrange
+        when(mockUserRepository.findById(1L)).thenReturn(Optional.of(owner));
+        when(mockS3Service.generateS3Key("report.pdf")).thenReturn(S3_KEY);
+        when(mockMultipartUploadService.shouldUseMultipart(1024L)).thenReturn(false);
+        when(mockS3Service.generateUploadUrl(S3_KEY, "application/pdf", 1024L, 60)).thenReturn("https://put-url");
+
+        // Act
+        Map<String, Object> response = directUploadService.prepareUpload("report.pdf", 1024L, "application/pdf", 1L);
+
+        // Assert - one URL, and the key is recorded without an upload id
+        assertThat(response).containsEntry("s3Key", S3_KEY).containsEntry("uploadUrl", "https://put-url");
+        assertThat(response).doesNotContainKey("uploadId");
+        DirectUpload issued = captureIssued();
+        assertThat(issued.getS3Key()).isEqualTo(S3_KEY);
+        assertThat(issued.getUploadId()).isNull();
+        assertThat(issued.getFileSize()).isEqualTo(1024L);
+        assertThat(issued.getMimeType()).isEqualTo("application/pdf");
+        assertThat(issued.getOwner()).isSameAs(owner);
+    }
+
+    @Test
+    public void testPrepareUpload_Multipart() {
+
+        // Arrange - 25MB in 10MB parts
+        long fileSize = 25L * 1024 * 1024;
+        long partSize = 10L * 1024 * 1024;
+        when(mockUserRepository.findById(1L)).thenReturn(Optional.of(owner));
+        when(mockS3Service.generateS3Key("video.mp4")).thenReturn("files/def-video.mp4");
+        when(mockMultipartUploadService.shouldUseMultipart(fileSize)).thenReturn(true);
+        when(mockMultipartUploadService.getEffectivePartSize(fileSize)).thenReturn(partSize);
+        when(mockS3Service.startMultipartUpload("files/def-video.mp4", "video/mp4")).thenReturn("upload-1");
+        when(mockS3Service.generateUploadPartUrl(eq("files/def-video.mp4"), eq("upload-1"), any(Integer.class), eq(60)))
+            .thenAnswer(invocation -> "https://part-" + invocation.getArgument(2));
+
+        // Act
+        Map<String, Object> response = directUploadService.prepareUpload("video.mp4", fileSize, "video/mp4", 1L);
+
+        // Assert - a URL per part, and the key is recorded with its upload id
+        assertThat(response).containsEntry("uploadId", "upload-1").containsEntry("partSize", partSize);
+        assertThat(response.get("partUrls")).isEqualTo(List.of("https://part-1", "https://part-2", "https://part-3"));
+        DirectUpload issued = captureIssued();
+        assertThat(issued.getUploadId()).isEqualTo("upload-1");
+        assertThat(issued.getFileSize()).isEqualTo(fileSize);
+    }
+
+    @Test
+    public void testFinalizeUpload_SinglePut() {
+
+        // Arrange
+        DirectUpload issued = issued(null);
+        File saved = new File();
+        when(mockDirectUploadRepository.findByS3Key(S3_KEY)).thenReturn(Optional.of(issued));
+        when(mockS3Service.getObjectMetadata(S3_KEY)).thenReturn(HeadObjectResponse.builder().contentLength(1024L).build());
+        stubTransactions();
+        when(mockDirectUploadRepository.deleteIssued(7L)).thenReturn(1);
+        when(mockFileService.saveFile("report.pdf", 1024L, "application/pdf", S3_KEY, 1L, null)).thenReturn(saved);
+
+        // Act
+        File result = directUploadService.finalizeUpload(S3_KEY, "report.pdf", 1L, null, null, null);
+
+        // Assert - no multipart call, the issued key is used up
+        assertThat(result).isSameAs(saved);
+        verify(mockS3Service, never()).completeMultipartUpload(anyString(), anyString(), anyList());
+        verify(mockDirectUploadRepository).deleteIssued(7L);
+    }
+
+    @Test
+    public void testFinalizeUpload_Multipart() {
+
+        // Arrange
+        DirectUpload issued = issued("upload-1");
+        when(mockDirectUploadRepository.findByS3Key(S3_KEY)).thenReturn(Optional.of(issued));
+        when(mockS3Service.getObjectMetadata(S3_KEY)).thenReturn(HeadObjectResponse.builder().contentLength(1024L).build());
+        stubTransactions();
+        when(mockDirectUploadRepository.deleteIssued(7L)).thenReturn(1);
+        when(mockFileService.saveFile("report.pdf", 1024L, "application/pdf", S3_KEY, 1L, 3L)).thenReturn(new File());
+
+        // Act
+        directUploadService.finalizeUpload(S3_KEY, "report.pdf", 1L, 3L, "upload-1",
+            List.of(Map.of("partNumber", 2, "eTag", "etag-2"), Map.of("partNumber", 1, "eTag", "etag-1")));
+
+        // Assert - parts completed in order
+        verify(mockS3Service).completeMultipartUpload(eq(S3_KEY), eq("upload-1"), eq(List.of(
+            CompletedPart.builder().partNumber(1).eTag("etag-1").build(),
+            CompletedPart.builder().partNumber(2).eTag("etag-2").build())));
+    }
+
+    @Test
+    public void testFinalizeUpload_MultipartRetry() {
+
+        // Arrange - an earlier finalize completed the upload in S3 and then failed
+        DirectUpload issued = issued("upload-1");
+        when(mockDirectUploadRepository.findByS3Key(S3_KEY)).thenReturn(Optional.of(issued));
+        doThrow(NoSuchUploadException.builder().message("The specified upload does not exist").build())
+            .when(mockS3Service).completeMultipartUpload(eq(S3_KEY), eq("upload-1"), anyList());
+        when(mockS3Service.getObjectMetadata(S3_KEY)).thenReturn(HeadObjectResponse.builder().contentLength(1024L).build());
+        stubTransactions();
+        when(mockDirectUploadRepository.deleteIssued(7L)).thenReturn(1);
+        File saved = new File();
+        when(mockFileService.saveFile("report.pdf", 1024L, "application/pdf", S3_KEY, 1L, null)).thenReturn(saved);
+
+        // Act
+        File result = directUploadService.finalizeUpload(S3_KEY, "report.pdf", 1L, null, "upload-1",
+            List.of(Map.of("partNumber", 1, "eTag", "etag-1")));
+
+        // Assert
+        assertThat(result).isSameAs(saved);
+    }
+
+    @Test
+    public void testFinalizeUpload_UnissuedKey() {
+
+        // Arrange - a key that was never handed out, or already finalized into a file
+        when(mockDirectUploadRepository.findByS3Key(S3_KEY)).thenReturn(Optional.empty());
+
+        // Act & Assert - rejected before S3 or the database are touched
+        assertThatThrownBy(() -> directUploadService.finalizeUpload(S3_KEY, "report.pdf", 1L, null, null, null))
+            .isInstanceOf(RuntimeException.class)
+            .hasMessageContaining("Unknown or already finalized upload");
+        verifyNoInteractions(mockS3Service, mockFileService);
+    }
+
+    @Test
+    public void testFinalizeUpload_ForeignKey() {
+
+        // Arrange - key issued to user 1, finalized by user 2
+        when(mockDirectUploadRepository.findByS3Key(S3_KEY)).thenReturn(Optional.of(issued(null)));
+
+        // Act & Assert
+        assertThatThrownBy(() -> directUploadService.finalizeUpload(S3_KEY, "report.pdf", 2L, null, null, null))
+            .isInstanceOf(RuntimeException.class)
+            .hasMessageContaining("was not issued to user 2");
+        verifyNoInteractions(mockS3Service, mockFileService);
+    }
+
+    @Test
+    public void testFinalizeUpload_SizeMismatch() {
+
+        // Arrange - more bytes landed than were announced
+        when(mockDirectUploadRepository.findByS3Key(S3_KEY)).thenReturn(Optional.of(issued(null)));
+        when(mockS3Service.getObjectMetadata(S3_KEY)).thenReturn(HeadObjectResponse.builder().contentLength(4096L).build());
+
+        // Act & Assert - the object is removed and no file is saved
+        assertThatThrownBy(() -> directUploadService.finalizeUpload(S3_KEY, "report.pdf", 1L, null, null, null))
+            .isInstanceOf(RuntimeException.class)
+            .hasMessageContaining("4096 bytes but 1024 were announced");
+        verify(mockS3Service).deleteFile(S3_KEY);
+        verify(mockFileService, never()).saveFile(anyString(), anyLong(), anyString(), anyString(), anyLong(), any());
+    }
+
+    @Test
+    public void testFinalizeUpload_AlreadyUsedConcurrently() {
+
+        // Arrange - another finalize of the same key committed first
+        when(mockDirectUploadRepository.findByS3Key(S3_KEY)).thenReturn(Optional.of(issued(null)));
+        when(mockS3Service.getObjectMetadata(S3_KEY)).thenReturn(HeadObjectResponse.builder().contentLength(1024L).build());
+        stubTransactions();
+        when(mockDirectUploadRepository.deleteIssued(7L)).thenReturn(0);
+
+        // Act & Assert
+        assertThatThrownBy(() -> directUploadService.finalizeUpload(S3_KEY, "report.pdf", 1L, null, null, null))
+            .isInstanceOf(RuntimeException.class)
+            .hasMessageContaining("Upload already finalized");
+        verify(mockFileService, never()).saveFile(anyString(), anyLong(), anyString(), anyString(), anyLong(), any());
+    }
+
+    @Test
+    public void testRemoveExpiredUploads() {
+
+        // Arrange - an abandoned multipart upload
+        DirectUpload issued = issued("upload-1");
+        when(mockDirectUploadRepository.findByCreatedAtBefore(any(LocalDateTime.class))).thenReturn(List.of(issued));
+        stubTransactions();
+        when(mockDirectUploadRepository.deleteIssued(7L)).thenReturn(1);
+
+        // Act
+        directUploadService.removeExpiredUploads();
+
+        // Assert
+        verify(mockS3Service).abortMultipartUpload(S3_KEY, "upload-1");
+        verify(mockDeletionOutboxService).enqueue(S3_KEY);
+    }
+
+    // helper method:
+    // The DirectUpload row prepareUpload saved
+    private DirectUpload captureIssued() {
+        ArgumentCaptor<DirectUpload> captor = ArgumentCaptor.forClass(DirectUpload.class);
+        verify(mockDirectUploadRepository).save(captor.capture());
+        return captor.getValue();
+    }
+
+    // helper method:
+    // Key issued to user 1 for a 1024-byte PDF
+    private DirectUpload issued(String uploadId) {
+        DirectUpload issued = new DirectUpload(S3_KEY, uploadId, 1024L, "application/pdf", owner);
+        issued.setId(7L);
+        return issued;
+    }
+
+    // helper method:
+    // Runs transaction callbacks inline
+    private void stubTransactions() {
+        when(mockTransactionTemplate.execute(any())).thenAnswer(invocation ->
+            invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+}
@@ -0,0 +1,148 @@
+package com.cloudstorage.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+// DiskCacheServiceTest - Tests the local disk cache in front of S3 in a temp directory
+// Verifies byte-bounded LRU eviction, invalidation (also of entries being served), ranges on cached
+// files and the hit metrics
+@ExtendWith(MockitoExtension.class)
+public class DiskCacheServiceTest {
+
+    private static final Instant LAST_MODIFIED = Instant.parse("2024-05-01T10:00:00Z");
+
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private DiskCacheService diskCacheService;
+
+    @TempDir
+    private Path tempDir;
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(diskCacheService, "enabled", true);
+        ReflectionTestUtils.setField(diskCacheService, "cacheDirectory", tempDir.toString());
+        ReflectionTestUtils.setField(diskCacheService, "maxBytes", 250L);
+        ReflectionTestUtils.setField(diskCacheService, "maxObjectSize", 100L);
+        diskCacheService.init();
+    }
+
+    @Test
+    public void testPut_EvictsLeastRecentlyUsedByBytes() throws Exception {
+
+        // Arrange - two 100-byte objects, then a read makes "a" the most recently used
+        put("a", 100);
+        put("b", 100);
+        diskCacheService.get("a", null, null);
+
+        // Act - a third 100-byte object goes over the 250-byte budget
+        put("c", 100);
+
+        // Assert - "b" was evicted (file included), "a" and "c" are still cached
+        assertThat(diskCacheService.get("b", null, null)).isNull();
+        assertThat(diskCacheService.get("a", null, null)).isNotNull();
+        assertThat(diskCacheService.get("c", null, null)).isNotNull();
+        assertThat(diskCacheService.getTotalBytes()).isEqualTo(200);
+        try (var files = Files.list(tempDir)) {
+            assertThat(files).hasSize(2);
+        }
+    }
+
+    @Test
+    public void testPut_SkipsObjectsOverMaxObjectSize() throws Exception {
+
+        // Act
+        boolean cached = put("large", 101);
+
+        // Assert
+        assertThat(cached).isFalse();
+        assertThat(diskCacheService.getTotalBytes()).isZero();
+    }
+
+    @Test
+    public void testGet_ServesRangesWithS3Validators() throws Exception {
+
+        // Arrange
+        put("files/1-thumb.jpg", 100);
+
+        // Act
+        StorageBackend.StoredObject content = diskCacheService.get("files/1-thumb.jpg", "bytes=10-19", "\"etag-files/1-thumb.jpg\"");
+
+        // Assert - the S3 ETag still matches, so the range is served from disk
+        assertThat(content.getContentRange()).isEqualTo("bytes 10-19/100");
+        assertThat(content.getETag()).isEqualTo("\"etag-files/1-thumb.jpg\"");
+        assertThat(content.getContentType()).isEqualTo("image/jpeg");
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        content.writeTo(output);
+        assertThat(output.toByteArray()).containsExactly(10, 11, 12, 13, 14, 15, 16, 17, 18, 19);
+    }
+
+    @Test
+    public void testGet_ContentSurvivesEvictionBeforeWrite() throws Exception {
+
+        // Arrange - the entry is opened for a response, then evicted before the response is written
+        put("a", 100);
+        StorageBackend.StoredObject content = diskCacheService.get("a", null, null);
+        diskCacheService.invalidate("a");
+
+        // Act
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        content.writeTo(output);
+
+        // Assert - the full content is still sent, and never by path (sendfile would reopen the deleted file)
+        assertThat(content.getLocalFile()).isNull();
+        assertThat(output.size()).isEqualTo(100);
+        assertThat(output.toByteArray()[99]).isEqualTo((byte) 99);
+    }
+
+    @Test
+    public void testInvalidate_RemovesEntryAndCountsMetrics() throws Exception {
+
+        // Arrange
+        put("a", 100);
+        diskCacheService.get("a", null, null).writeTo(new ByteArrayOutputStream());
+
+        // Act
+        diskCacheService.invalidate("a");
+        diskCacheService.get("a", null, null);
+
+        // Assert - one hit, one miss, 100 bytes served from disk, nothing left on disk
+        assertThat(meterRegistry.get("storage.cache.requests").tag("result", "hit").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("storage.cache.requests").tag("result", "miss").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("storage.cache.served.bytes").counter().count()).isEqualTo(100);
+        assertThat(meterRegistry.get("storage.cache.hit.ratio").gauge().value()).isEqualTo(0.5);
+        assertThat(diskCacheService.getTotalBytes()).isZero();
+        try (var files = Files.list(tempDir)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    // helper method:
+    // Caches an object whose bytes are 0, 1, 2, ... (size bytes)
+    private boolean put(String key, int size) throws Exception {
+        byte[] content = new byte[size];
+        for (int i = 0; i < size; i++) {
+            content[i] = (byte) i;
+        }
+        return diskCacheService.put(key, new ByteArrayInputStream(content), size, "image/jpeg", "\"etag-" + key + "\"", LAST_MODIFIED);
+    }
+
+}
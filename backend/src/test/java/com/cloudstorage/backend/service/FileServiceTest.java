@@ -0,0 +1,140 @@
+package com.cloudstorage.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.cloudstorage.backend.entity.File;
+import com.cloudstorage.backend.entity.FileCategory;
+import com.cloudstorage.backend.entity.User;
+import com.cloudstorage.backend.repository.FileRepository;
+import com.cloudstorage.backend.repository.FolderRepository;
+import com.cloudstorage.backend.repository.UploadSessionRepository;
+import com.cloudstorage.backend.repository.UserRepository;
+
+// FileServiceTest - Tests saving file metadata with mocked repositories
+// Verifies that duplicate filenames are renamed, against the owner's existing files
+// and against other files of the same upload batch
+@ExtendWith(MockitoExtension.class)
+public class FileServiceTest {
+
+    @Mock
+    private FileRepository mockFileRepository;
+    @Mock
+    private UserRepository mockUserRepository;
+    @Mock
+    private FolderRepository mockFolderRepository;
+    @Mock
+    private BlobStorageService mockBlobStorageService;
+    @Mock
+    private DeletionOutboxService mockDeletionOutboxService;
+    @Mock
+    private StorageStatsService mockStorageStatsService;
+    @Mock
+    private FolderRollupService mockFolderRollupService;
+    @Mock
+    private UploadSessionRepository mockUploadSessionRepository;
+
+    @InjectMocks
+    private FileService fileService;
+
+    @Test
+    public void testSaveFile_RenamesExistingName() {
+
+        // Arrange - the owner already has resume.pdf and resume (1).pdf
+        when(mockUserRepository.findById(1L)).thenReturn(Optional.of(owner()));
+        when(mockFileRepository.existsByFilenameAndOwner_Id("resume.pdf", 1L)).thenReturn(true);
+        when(mockFileRepository.existsByFilenameAndOwner_Id("resume (1).pdf", 1L)).thenReturn(true);
+        when(mockFileRepository.existsByFilenameAndOwner_Id("resume (2).pdf", 1L)).thenReturn(false);
+        when(mockFileRepository.save(any(File.class)))
+            .thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        File saved = fileService.saveFile("resume.pdf", 1024L, "application/pdf", "files/abc-resume.pdf", 1L, null);
+
+        // Assert
+        assertThat(saved.getFilename()).isEqualTo("resume (2).pdf");
+        assertThat(saved.getCategory()).isEqualTo(FileCategory.fromMimeType("application/pdf"));
+    }
+
+    @Test
+    public void testSaveFiles_RenamesAgainstExistingNames() {
+
+        // Arrange - notes.txt exists, report.pdf doesn't
+        when(mockUserRepository.findById(1L)).thenReturn(Optional.of(owner()));
+        when(mockFileRepository.findFilenamesByOwnerIdAndFilenameIn(1L, List.of("notes.txt", "report.pdf")))
+            .thenReturn(List.of("notes.txt"));
+        when(mockFileRepository.existsByFilenameAndOwner_Id("notes (1).txt", 1L)).thenReturn(false);
+        when(mockFileRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        List<File> saved = fileService.saveFiles(
+            List.of(uploaded("notes.txt", "text/plain"), uploaded("report.pdf", "application/pdf")), 1L, null);
+
+        // Assert - only the clashing name changes
+        assertThat(saved).extracting(File::getFilename).containsExactly("notes (1).txt", "report.pdf");
+        verify(mockStorageStatsService).recordAdded(saved);
+    }
+
+    @Test
+    public void testSaveFiles_RenamesWithinBatch() {
+
+        // Arrange - photo.jpg exists; the batch holds it twice, plus a file already named "photo (1).jpg"
+        when(mockUserRepository.findById(1L)).thenReturn(Optional.of(owner()));
+        when(mockFileRepository.findFilenamesByOwnerIdAndFilenameIn(1L, List.of("photo.jpg", "photo.jpg", "photo (1).jpg")))
+            .thenReturn(List.of("photo.jpg"));
+        when(mockFileRepository.existsByFilenameAndOwner_Id(anyString(), eq(1L))).thenReturn(false);
+        when(mockFileRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        List<File> saved = fileService.saveFiles(List.of(
+            uploaded("photo.jpg", "image/jpeg"), uploaded("photo.jpg", "image/jpeg"), uploaded("photo (1).jpg", "image/jpeg")),
+            1L, null);
+
+        // Assert - every name in the batch is distinct, and none is the existing one
+        assertThat(saved).extracting(File::getFilename)
+            .containsExactly("photo (1).jpg", "photo (2).jpg", "photo (1) (1).jpg");
+    }
+
+    @Test
+    public void testSaveFiles_UnknownOwner() {
+
+        // Arrange
+        when(mockUserRepository.findById(1L)).thenReturn(Optional.empty());
+
+        // Act & Assert - nothing is saved, so the caller can discard the uploads
+        assertThatThrownBy(() -> fileService.saveFiles(List.of(uploaded("notes.txt", "text/plain")), 1L, null))
+            .isInstanceOf(RuntimeException.class)
+            .hasMessageContaining("User not found");
+        verify(mockFileRepository, never()).saveAll(anyList());
+    }
+
+    // helper method:
+    private static User owner() {
+        User owner = new User();
+        owner.setId(1L);
+        return owner;
+    }
+
+    // helper method:
+    // A file that reached storage and is waiting for its metadata row (as UploadService builds them)
+    private static File uploaded(String filename, String mimeType) {
+        return new File(filename, 1024L, mimeType, "files/" + filename, null);
+    }
+
+}
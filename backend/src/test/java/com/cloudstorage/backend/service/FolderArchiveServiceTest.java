@@ -0,0 +1,303 @@
+package com.cloudstorage.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.cloudstorage.backend.dto.FolderSummary;
+import com.cloudstorage.backend.entity.File;
+import com.cloudstorage.backend.entity.Folder;
+import com.cloudstorage.backend.repository.FileRepository;
+import com.cloudstorage.backend.repository.FolderClosureRepository;
+
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+
+// FolderArchiveServiceTest - Tests folder ZIP downloads with mocked repositories, read through
+// the S3 backend (on a mocked S3Service) or the local disk backend
+// Verifies the tree layout, file contents and which entries are stored vs deflated
+@ExtendWith(MockitoExtension.class)
+public class FolderArchiveServiceTest {
+
+    @Mock
+    private S3Service mockS3Service;
+    @Mock
+    private FileRepository mockFileRepository;
+    @Mock
+    private FolderClosureRepository mockClosureRepository;
+    @Mock
+    private DiskCacheService mockDiskCacheService;
+
+    private FolderArchiveService folderArchiveService;
+
+    @TempDir
+    private Path tempDir;
+
+    // Content of each S3 object, served by the mocked S3Service
+    private final Map<String, byte[]> objects = new HashMap<>();
+
+    @BeforeEach
+    public void setUp() {
+        // S3 backend with the disk cache off (the mock reports it disabled)
+        S3StorageBackend s3Backend = new S3StorageBackend(mockS3Service, null, null, null, mockDiskCacheService);
+        ReflectionTestUtils.setField(s3Backend, "streamBufferSize", 512);
+        folderArchiveService = archiveService(s3Backend);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        folderArchiveService.cleanup();
+    }
+
+    @Test
+    public void testWriteArchive_ContainsWholeTree() throws Exception {
+
+        // Arrange - Photos/ with a note and an image, Photos/2024/ with a large video
+        Folder photos = folder(1L, "Photos");
+        Folder year = folder(2L, "2024");
+        when(mockClosureRepository.findSubtree(1L)).thenReturn(List.of(summary(photos, null), summary(year, 1L)));
+        when(mockFileRepository.findInSubtree(1L)).thenReturn(List.of(
+            file("notes.txt", "text/plain", "files/1-notes.txt", repeated("note ", 100), photos),
+            file("beach.jpg", "image/jpeg", "files/2-beach.jpg", repeated("jpeg", 200), photos),
+            file("clip.mp4", "video/mp4", "files/3-clip.mp4", repeated("video", 4000), year)));
+
+        stubS3Objects();
+
+        // Act
+        Path zipPath = writeArchive(photos);
+
+        // Assert - every file and folder, with its original content
+        try (ZipFile zip = new ZipFile(zipPath.toFile())) {
+            assertThat(zip.stream().map(ZipEntry::getName)).containsExactly(
+                "Photos/", "Photos/notes.txt", "Photos/beach.jpg", "Photos/2024/", "Photos/2024/clip.mp4");
+            assertThat(zip.getInputStream(zip.getEntry("Photos/notes.txt")).readAllBytes())
+                .isEqualTo(objects.get("files/1-notes.txt"));
+            assertThat(zip.getInputStream(zip.getEntry("Photos/2024/clip.mp4")).readAllBytes())
+                .isEqualTo(objects.get("files/3-clip.mp4"));
+        }
+    }
+
+    @Test
+    public void testWriteArchive_DuplicateNamesGetSuffixes() throws Exception {
+
+        // Arrange - two notes.txt in one folder (e.g. different owners), "a/b" next to "a_b",
+        // and a subfolder named like a file
+        Folder shared = folder(1L, "Shared");
+        Folder sub = folder(2L, "notes.txt");
+        when(mockClosureRepository.findSubtree(1L)).thenReturn(List.of(summary(shared, null), summary(sub, 1L)));
+        when(mockFileRepository.findInSubtree(1L)).thenReturn(List.of(
+            file("notes.txt", "text/plain", "files/1-notes.txt", repeated("first ", 10), shared),
+            file("notes.txt", "text/plain", "files/2-notes.txt", repeated("second ", 10), shared),
+            file("a/b", "text/plain", "files/3-a-b", repeated("slash ", 10), shared),
+            file("a_b", "text/plain", "files/4-a_b", repeated("underscore ", 10), shared)));
+        stubS3Objects();
+
+        // Act - a repeated entry would fail the whole stream with "duplicate entry"
+        Path zipPath = writeArchive(shared);
+
+        // Assert - every file is kept under its own path
+        try (ZipFile zip = new ZipFile(zipPath.toFile())) {
+            assertThat(zip.stream().map(ZipEntry::getName)).containsExactly(
+                "Shared/", "Shared/notes.txt", "Shared/notes (1).txt", "Shared/a_b", "Shared/a_b (1)",
+                "Shared/notes.txt (1)/");
+            assertThat(zip.getInputStream(zip.getEntry("Shared/notes (1).txt")).readAllBytes())
+                .isEqualTo(objects.get("files/2-notes.txt"));
+            assertThat(zip.getInputStream(zip.getEntry("Shared/a_b (1)")).readAllBytes())
+                .isEqualTo(objects.get("files/4-a_b"));
+        }
+    }
+
+    @Test
+    public void testWriteArchive_CompressedFilesAreNotDeflated() throws Exception {
+
+        // Arrange - small image (buffered) and large video (streamed, over budget / prefetchCount)
+        Folder media = folder(1L, "Media");
+        when(mockClosureRepository.findSubtree(1L)).thenReturn(List.of(summary(media, null)));
+        when(mockFileRepository.findInSubtree(1L)).thenReturn(List.of(
+            file("beach.jpg", "image/jpeg", "files/1-beach.jpg", repeated("jpeg", 200), media),
+            file("clip.mp4", "video/mp4", "files/2-clip.mp4", repeated("video", 4000), media),
+            file("notes.txt", "text/plain", "files/3-notes.txt", repeated("note ", 100), media)));
+        stubS3Objects();
+
+        // Act
+        Path zipPath = writeArchive(media);
+
+        // Assert - image is STORED, the streamed video isn't compressed, text is deflated
+        try (ZipFile zip = new ZipFile(zipPath.toFile())) {
+            ZipEntry image = zip.getEntry("Media/beach.jpg");
+            ZipEntry video = zip.getEntry("Media/clip.mp4");
+            ZipEntry text = zip.getEntry("Media/notes.txt");
+
+            assertThat(image.getMethod()).isEqualTo(ZipEntry.STORED);
+            assertThat(video.getCompressedSize()).isGreaterThanOrEqualTo(video.getSize());
+            assertThat(text.getMethod()).isEqualTo(ZipEntry.DEFLATED);
+            assertThat(text.getCompressedSize()).isLessThan(text.getSize());
+        }
+    }
+
+    @Test
+    public void testWriteArchive_LargeFilesOpenedWhenReached() throws Exception {
+
+        // Arrange - large videos (over budget / prefetchCount) between small notes
+        Folder media = folder(1L, "Media");
+        when(mockClosureRepository.findSubtree(1L)).thenReturn(List.of(summary(media, null)));
+        when(mockFileRepository.findInSubtree(1L)).thenReturn(List.of(
+            file("a.mp4", "video/mp4", "files/1-a.mp4", repeated("aaaaa", 4000), media),
+            file("b.mp4", "video/mp4", "files/2-b.mp4", repeated("bbbbb", 4000), media),
+            file("one.txt", "text/plain", "files/3-one.txt", repeated("one ", 100), media),
+            file("c.mp4", "video/mp4", "files/4-c.mp4", repeated("ccccc", 4000), media),
+            file("two.txt", "text/plain", "files/5-two.txt", repeated("two ", 100), media)));
+
+        // Counts large streams that are open at the same time
+        AtomicInteger openLarge = new AtomicInteger();
+        AtomicInteger maxOpenLarge = new AtomicInteger();
+        when(mockS3Service.openObjectStream(anyString(), isNull(), isNull())).thenAnswer(invocation -> {
+            byte[] content = objects.get(invocation.<String>getArgument(0));
+            InputStream in = new ByteArrayInputStream(content);
+            if (content.length > 1024) {
+                maxOpenLarge.accumulateAndGet(openLarge.incrementAndGet(), Math::max);
+                in = new FilterInputStream(in) {
+                    @Override
+                    public void close() throws IOException {
+                        openLarge.decrementAndGet();
+                        super.close();
+                    }
+                };
+            }
+            return new ResponseInputStream<>(GetObjectResponse.builder().contentLength((long) content.length).build(),
+                AbortableInputStream.create(in));
+        });
+
+        // Act
+        Path zipPath = writeArchive(media);
+
+        // Assert - one large stream at a time, and every file intact
+        assertThat(maxOpenLarge.get()).isEqualTo(1);
+        assertThat(openLarge.get()).isZero();
+        try (ZipFile zip = new ZipFile(zipPath.toFile())) {
+            assertThat(zip.stream().map(ZipEntry::getName)).containsExactly(
+                "Media/", "Media/a.mp4", "Media/b.mp4", "Media/one.txt", "Media/c.mp4", "Media/two.txt");
+            for (String name : List.of("a.mp4", "b.mp4", "one.txt", "c.mp4", "two.txt")) {
+                String key = objects.keySet().stream().filter(k -> k.endsWith("-" + name)).findFirst().orElseThrow();
+                assertThat(zip.getInputStream(zip.getEntry("Media/" + name)).readAllBytes()).isEqualTo(objects.get(key));
+            }
+        }
+    }
+
+    @Test
+    public void testWriteArchive_LocalBackend() throws Exception {
+
+        // Arrange - same tree, contents on local disk (storage.backend=local) and never in S3
+        LocalStorageBackend localBackend = new LocalStorageBackend(mockFileRepository);
+        ReflectionTestUtils.setField(localBackend, "rootDirectory", tempDir.resolve("storage").toString());
+        localBackend.init();
+        folderArchiveService.cleanup();
+        folderArchiveService = archiveService(localBackend);
+
+        Folder photos = folder(1L, "Photos");
+        Folder year = folder(2L, "2024");
+        when(mockClosureRepository.findSubtree(1L)).thenReturn(List.of(summary(photos, null), summary(year, 1L)));
+        when(mockFileRepository.findInSubtree(1L)).thenReturn(List.of(
+            file("notes.txt", "text/plain", "files/1-notes.txt", repeated("note ", 100), photos),
+            file("clip.mp4", "video/mp4", "files/2-clip.mp4", repeated("video", 4000), year)));
+        for (Map.Entry<String, byte[]> object : objects.entrySet()) {
+            Path path = tempDir.resolve("storage").resolve(object.getKey());
+            Files.createDirectories(path.getParent());
+            Files.write(path, object.getValue());
+        }
+
+        // Act
+        Path zipPath = writeArchive(photos);
+
+        // Assert - buffered and streamed files both read from disk
+        try (ZipFile zip = new ZipFile(zipPath.toFile())) {
+            assertThat(zip.getInputStream(zip.getEntry("Photos/notes.txt")).readAllBytes())
+                .isEqualTo(objects.get("files/1-notes.txt"));
+            assertThat(zip.getInputStream(zip.getEntry("Photos/2024/clip.mp4")).readAllBytes())
+                .isEqualTo(objects.get("files/2-clip.mp4"));
+        }
+        verifyNoInteractions(mockS3Service);
+    }
+
+    // helper method:
+    // Archive service reading through the given backend
+    private FolderArchiveService archiveService(StorageBackend storageBackend) {
+        FolderArchiveService service = new FolderArchiveService(storageBackend, mockFileRepository, mockClosureRepository);
+        ReflectionTestUtils.setField(service, "prefetchCount", 2);
+        ReflectionTestUtils.setField(service, "prefetchBudget", 2048L);
+        ReflectionTestUtils.setField(service, "prefetchThreads", 2);
+        service.init();
+        return service;
+    }
+
+    // helper method:
+    // Serves the test objects from the mocked S3Service
+    private void stubS3Objects() {
+        when(mockS3Service.openObjectStream(anyString(), isNull(), isNull())).thenAnswer(invocation -> {
+            byte[] content = objects.get(invocation.<String>getArgument(0));
+            return new ResponseInputStream<>(GetObjectResponse.builder().contentLength((long) content.length).build(),
+                AbortableInputStream.create(new ByteArrayInputStream(content)));
+        });
+    }
+
+    // helper method:
+    // Builds the archive for a folder and writes it to a temp file
+    private Path writeArchive(Folder root) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        folderArchiveService.writeArchive(folderArchiveService.listEntries(root), output);
+
+        Path zipPath = tempDir.resolve("archive.zip");
+        Files.write(zipPath, output.toByteArray());
+        return zipPath;
+    }
+
+    private Folder folder(Long id, String name) {
+        Folder folder = new Folder();
+        folder.setId(id);
+        folder.setName(name);
+        return folder;
+    }
+
+    private static FolderSummary summary(Folder folder, Long parentId) {
+        return new FolderSummary(folder.getId(), folder.getName(), null, parentId, 0L, 0L, 0L, null, null);
+    }
+
+    private File file(String filename, String mimeType, String s3Key, byte[] content, Folder folder) {
+        objects.put(s3Key, content);
+        File file = new File(filename, (long) content.length, mimeType, s3Key, null);
+        file.setFolder(folder);
+        return file;
+    }
+
+    private static byte[] repeated(String text, int times) {
+        return text.repeat(times).getBytes(StandardCharsets.UTF_8);
+    }
+
+}
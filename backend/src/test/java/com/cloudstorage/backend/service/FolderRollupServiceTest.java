@@ -0,0 +1,139 @@
+package com.cloudstorage.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.cloudstorage.backend.entity.File;
+import com.cloudstorage.backend.repository.FolderRepository;
+
+// FolderRollupServiceTest - Tests the folder size and item-count rollups with a mocked repository
+// Verifies file deltas lock the folder's path before updating it, and that repair locks each tree first
+@ExtendWith(MockitoExtension.class)
+public class FolderRollupServiceTest {
+
+    @Mock
+    private FolderRepository mockFolderRepository;
+    @Mock
+    private TransactionTemplate mockTransactionTemplate;
+
+    @InjectMocks
+    private FolderRollupService folderRollupService;
+
+    @Test
+    public void testRecordAdded_LocksPathThenAddsOneDelta() {
+
+        // Arrange - a batch of three files (one without a size) into folder 9, below folders 1 and 4
+        when(mockFolderRepository.lockPath(9L)).thenReturn(List.of(1L, 4L, 9L));
+
+        // Act
+        folderRollupService.recordAdded(9L, List.of(file(100L), file(null), file(250L)));
+
+        // Assert - path locked (and confirmed) before the single update
+        InOrder inOrder = inOrder(mockFolderRepository);
+        inOrder.verify(mockFolderRepository, times(2)).lockPath(9L);
+        inOrder.verify(mockFolderRepository).addFileTotals(9L, 3, 350);
+    }
+
+    @Test
+    public void testRecordRemoved_SubtractsFile() {
+
+        // Arrange
+        when(mockFolderRepository.lockPath(9L)).thenReturn(List.of(9L));
+
+        // Act
+        folderRollupService.recordRemoved(9L, file(4096L));
+
+        // Assert
+        verify(mockFolderRepository).addFileTotals(9L, -1, -4096);
+    }
+
+    @Test
+    public void testRecordAdded_RootFilesAreNotCounted() {
+
+        // Act
+        folderRollupService.recordAdded(null, List.of(file(100L)));
+
+        // Assert
+        verifyNoInteractions(mockFolderRepository);
+    }
+
+    @Test
+    public void testRecordAdded_FolderNotFound() {
+
+        // Arrange
+        when(mockFolderRepository.lockPath(99L)).thenReturn(List.of());
+
+        // Act & Assert
+        assertThatThrownBy(() -> folderRollupService.recordAdded(99L, List.of(file(100L))))
+            .isInstanceOf(RuntimeException.class)
+            .hasMessage("Folder not found with ID: 99");
+        verify(mockFolderRepository, never()).addFileTotals(anyLong(), anyLong(), anyLong());
+    }
+
+    @Test
+    public void testLockUntilStable_RelocksWhenPathChangedWhileWaiting() {
+
+        // Arrange - a move committed while the first lock waited: folder 9 is now below 6 instead of 4
+        when(mockFolderRepository.lockPath(9L))
+            .thenReturn(List.of(1L, 4L, 9L))
+            .thenReturn(List.of(1L, 6L, 9L));
+
+        // Act
+        List<Long> locked = FolderRollupService.lockUntilStable(() -> mockFolderRepository.lockPath(9L));
+
+        // Assert - run until two runs agree
+        assertThat(locked).containsExactly(1L, 6L, 9L);
+        verify(mockFolderRepository, times(3)).lockPath(9L);
+    }
+
+    @Test
+    public void testRepairAll_LocksEachTreeBeforeRecounting() {
+
+        // Arrange - two root folders; the second one's rollups drifted, the third was just deleted
+        when(mockTransactionTemplate.execute(any())).thenAnswer(invocation ->
+            invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(mockFolderRepository.findRootIds()).thenReturn(List.of(1L, 2L, 3L));
+        when(mockFolderRepository.lockSubtreeForRepair(1L)).thenReturn(List.of(1L, 5L));
+        when(mockFolderRepository.lockSubtreeForRepair(2L)).thenReturn(List.of(2L));
+        when(mockFolderRepository.lockSubtreeForRepair(3L)).thenReturn(List.of());
+        when(mockFolderRepository.repairSubtreeRollups(2L)).thenReturn(1);
+
+        // Act
+        folderRollupService.repairAll();
+
+        // Assert
+        InOrder inOrder = inOrder(mockFolderRepository);
+        inOrder.verify(mockFolderRepository, times(2)).lockSubtreeForRepair(1L);
+        inOrder.verify(mockFolderRepository).repairSubtreeRollups(1L);
+        inOrder.verify(mockFolderRepository, times(2)).lockSubtreeForRepair(2L);
+        inOrder.verify(mockFolderRepository).repairSubtreeRollups(2L);
+        verify(mockFolderRepository, never()).repairSubtreeRollups(3L);
+    }
+
+    // helper method:
+    private static File file(Long size) {
+        File file = new File();
+        file.setFileSize(size);
+        return file;
+    }
+
+}
@@ -0,0 +1,164 @@
+package com.cloudstorage.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.cloudstorage.backend.entity.Folder;
+import com.cloudstorage.backend.entity.FolderClosure;
+import com.cloudstorage.backend.entity.User;
+import com.cloudstorage.backend.repository.FolderClosureRepository;
+import com.cloudstorage.backend.repository.FolderRepository;
+import com.cloudstorage.backend.repository.UserRepository;
+
+// FolderServiceTest - Tests folder operations with a mocked repository
+// Verifies the recursive delete queues content before removing the rows it reads it from,
+// and that the closure table and ancestor rollups are kept in step on create, move and delete
+@ExtendWith(MockitoExtension.class)
+public class FolderServiceTest {
+
+    @Mock
+    private FolderRepository mockFolderRepository;
+    @Mock
+    private FolderClosureRepository mockClosureRepository;
+    @Mock
+    private UserRepository mockUserRepository;
+
+    @InjectMocks
+    private FolderService folderService;
+
+    @Test
+    public void testDeleteFolder_DeletesSubtreeWithSetBasedStatements() {
+
+        // Arrange - a folder with two subfolders holding 25,000 files
+        when(mockFolderRepository.lockSubtreeAndPath(7L)).thenReturn(List.of(2L, 7L, 8L, 9L));
+        when(mockFolderRepository.deleteSubtreeFiles(7L)).thenReturn(25_000);
+
+        // Act
+        int deletedFiles = folderService.deleteFolder(7L);
+
+        // Assert - subtree and ancestors locked (and confirmed) first, content queued and rollups
+        // subtracted while the file and folder rows still exist
+        assertThat(deletedFiles).isEqualTo(25_000);
+        InOrder inOrder = inOrder(mockFolderRepository);
+        inOrder.verify(mockFolderRepository, times(2)).lockSubtreeAndPath(7L);
+        inOrder.verify(mockFolderRepository).enqueueSubtreeFileDeletions(7L);
+        inOrder.verify(mockFolderRepository).releaseSubtreeBlobs(7L);
+        inOrder.verify(mockFolderRepository).enqueueUnreferencedBlobDeletions(7L);
+        inOrder.verify(mockFolderRepository).subtractSubtreeStorageStats(7L);
+        inOrder.verify(mockFolderRepository).addSubtreeTotalsToAncestors(7L, -1);
+        inOrder.verify(mockFolderRepository).deleteSubtreeShares(7L);
+        inOrder.verify(mockFolderRepository).detachSubtreeUploadSessionFolders(7L);
+        inOrder.verify(mockFolderRepository).detachSubtreeUploadSessionFiles(7L);
+        inOrder.verify(mockFolderRepository).deleteSubtreeFiles(7L);
+        inOrder.verify(mockFolderRepository).deleteSubtreeFolders(7L);
+        inOrder.verify(mockFolderRepository).deleteSubtreeClosure(7L);
+    }
+
+    @Test
+    public void testCreateFolder_CopiesParentPathsIntoClosure() {
+
+        // Arrange
+        User owner = new User();
+        owner.setId(1L);
+        Folder parent = folder(5L, null);
+        when(mockUserRepository.findById(1L)).thenReturn(Optional.of(owner));
+        when(mockFolderRepository.lockPath(5L)).thenReturn(List.of(5L));
+        when(mockFolderRepository.findById(5L)).thenReturn(Optional.of(parent));
+        when(mockFolderRepository.save(any(Folder.class))).thenAnswer(invocation -> {
+            Folder saved = invocation.getArgument(0);
+            saved.setId(6L);
+            return saved;
+        });
+
+        // Act
+        Folder created = folderService.createFolder("Reports", 1L, 5L);
+
+        // Assert - own row, then one row per ancestor of the (locked) parent, then the
+        // new folder is counted in the ancestors' rollups
+        assertThat(created.getParent()).isSameAs(parent);
+        InOrder inOrder = inOrder(mockFolderRepository, mockClosureRepository);
+        inOrder.verify(mockFolderRepository, times(2)).lockPath(5L);
+        inOrder.verify(mockClosureRepository).insertSelf(6L);
+        inOrder.verify(mockClosureRepository).insertAncestors(6L, 5L);
+        inOrder.verify(mockFolderRepository).addSubtreeTotalsToAncestors(6L, 1);
+    }
+
+    @Test
+    public void testMoveFolder_RelinksSubtree() {
+
+        // Arrange - folder 7 moves from root into folder 3
+        when(mockFolderRepository.lockSubtreeAndPaths(7L, 3L)).thenReturn(List.of(3L, 7L, 8L));
+        when(mockFolderRepository.findById(7L)).thenReturn(Optional.of(folder(7L, null)));
+        when(mockFolderRepository.getReferenceById(3L)).thenReturn(folder(3L, null));
+        when(mockFolderRepository.save(any(Folder.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        Folder moved = folderService.moveFolder(7L, 3L);
+
+        // Assert - the subtree's totals leave the old ancestors before the closure rows are
+        // re-linked, and reach the new ones after
+        assertThat(moved.getParent().getId()).isEqualTo(3L);
+        InOrder inOrder = inOrder(mockFolderRepository, mockClosureRepository);
+        inOrder.verify(mockFolderRepository).addSubtreeTotalsToAncestors(7L, -1);
+        inOrder.verify(mockClosureRepository).detachSubtree(7L);
+        inOrder.verify(mockClosureRepository).attachSubtree(7L, 3L);
+        inOrder.verify(mockFolderRepository).addSubtreeTotalsToAncestors(7L, 1);
+    }
+
+    @Test
+    public void testMoveFolder_IntoOwnSubtreeIsRejected() {
+
+        // Arrange - folder 8 is inside folder 7
+        when(mockFolderRepository.lockSubtreeAndPaths(7L, 8L)).thenReturn(List.of(7L, 8L));
+        when(mockFolderRepository.findById(7L)).thenReturn(Optional.of(folder(7L, null)));
+        when(mockClosureRepository.existsById(new FolderClosure.Key(7L, 8L))).thenReturn(true);
+
+        // Act & Assert
+        assertThatThrownBy(() -> folderService.moveFolder(7L, 8L))
+            .isInstanceOf(RuntimeException.class)
+            .hasMessage("Cannot move a folder into itself or one of its subfolders");
+        verify(mockClosureRepository, never()).detachSubtree(anyLong());
+        verify(mockFolderRepository, never()).addSubtreeTotalsToAncestors(anyLong(), anyInt());
+        verify(mockFolderRepository, never()).save(any(Folder.class));
+    }
+
+    @Test
+    public void testDeleteFolder_NotFound() {
+
+        // Arrange
+        when(mockFolderRepository.lockSubtreeAndPath(99L)).thenReturn(List.of());
+
+        // Act & Assert
+        assertThatThrownBy(() -> folderService.deleteFolder(99L))
+            .isInstanceOf(RuntimeException.class)
+            .hasMessage("Folder not found with ID: 99");
+        verify(mockFolderRepository, never()).deleteSubtreeFolders(anyLong());
+    }
+
+    // helper method:
+    private static Folder folder(Long id, Folder parent) {
+        Folder folder = new Folder();
+        folder.setId(id);
+        folder.setParent(parent);
+        return folder;
+    }
+
+}
@@ -0,0 +1,165 @@
+package com.cloudstorage.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.cloudstorage.backend.dto.CursorPage;
+import com.cloudstorage.backend.dto.FileSummary;
+import com.cloudstorage.backend.dto.FolderSummary;
+import com.cloudstorage.backend.dto.FolderView;
+import com.cloudstorage.backend.entity.FileCategory;
+import com.cloudstorage.backend.repository.FileFilter;
+import com.cloudstorage.backend.repository.FileRepository;
+import com.cloudstorage.backend.repository.FolderClosureRepository;
+import com.cloudstorage.backend.repository.FolderRepository;
+import com.cloudstorage.backend.repository.Keyset;
+
+// FolderViewServiceTest - Tests the single-call folder view with mocked repositories
+// Verifies the view is assembled from the three queries, that they run at the same time,
+// and that query failures reach the caller unwrapped
+@ExtendWith(MockitoExtension.class)
+public class FolderViewServiceTest {
+
+    @Mock
+    private FolderClosureRepository mockClosureRepository;
+    @Mock
+    private FolderRepository mockFolderRepository;
+    @Mock
+    private FileRepository mockFileRepository;
+
+    @InjectMocks
+    private FolderViewService folderViewService;
+
+    private final Keyset folderKeyset = Keyset.of("name", "asc", null, 20);
+    private final Keyset fileKeyset = Keyset.of("size", "desc", null, 20);
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(folderViewService, "viewThreads", 2);
+        folderViewService.init();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        folderViewService.cleanup();
+    }
+
+    @Test
+    public void testGetView_AssemblesPathSubfoldersAndFiles() {
+
+        // Arrange - Photos/2024 with one subfolder and one file
+        FolderSummary photos = folder(1L, "Photos", null);
+        FolderSummary year = folder(2L, "2024", 1L);
+        CursorPage<FolderSummary> subfolders = new CursorPage<>(List.of(folder(3L, "Summer", 2L)), null);
+        CursorPage<FileSummary> files = new CursorPage<>(List.of(file(10L, "beach.jpg", 2L)), "next-file-page");
+        when(mockClosureRepository.findPath(2L)).thenReturn(List.of(photos, year));
+        when(mockFolderRepository.findPageByParent(2L, folderKeyset)).thenReturn(subfolders);
+        when(mockFileRepository.findPageByFolder(2L, FileFilter.NONE, fileKeyset)).thenReturn(files);
+
+        // Act
+        FolderView view = folderViewService.getView(2L, folderKeyset, fileKeyset);
+
+        // Assert
+        assertThat(view.getFolder()).isSameAs(year);
+        assertThat(view.getPath()).containsExactly(photos, year);
+        assertThat(view.getSubfolders()).isSameAs(subfolders);
+        assertThat(view.getFiles()).isSameAs(files);
+        assertThat(view.getFiles().isHasMore()).isTrue();
+    }
+
+    @Test
+    public void testGetView_RunsQueriesConcurrently() {
+
+        // Arrange - each query waits until all three have started, so run one after another they'd time out
+        CountDownLatch started = new CountDownLatch(3);
+        when(mockClosureRepository.findPath(2L)).thenAnswer(invocation -> {
+            awaitOthers(started);
+            return List.of(folder(2L, "2024", null));
+        });
+        when(mockFolderRepository.findPageByParent(2L, folderKeyset)).thenAnswer(invocation -> {
+            awaitOthers(started);
+            return new CursorPage<FolderSummary>(List.of(), null);
+        });
+        when(mockFileRepository.findPageByFolder(2L, FileFilter.NONE, fileKeyset)).thenAnswer(invocation -> {
+            awaitOthers(started);
+            return new CursorPage<FileSummary>(List.of(), null);
+        });
+
+        // Act
+        FolderView view = folderViewService.getView(2L, folderKeyset, fileKeyset);
+
+        // Assert
+        assertThat(view.getFolder().getId()).isEqualTo(2L);
+    }
+
+    @Test
+    public void testGetView_FolderNotFound() {
+
+        // Arrange - no closure rows means no such folder
+        when(mockClosureRepository.findPath(99L)).thenReturn(List.of());
+        lenient().when(mockFolderRepository.findPageByParent(eq(99L), any()))
+            .thenReturn(new CursorPage<>(List.of(), null));
+        when(mockFileRepository.findPageByFolder(eq(99L), any(), any()))
+            .thenReturn(new CursorPage<>(List.of(), null));
+
+        // Act & Assert
+        assertThatThrownBy(() -> folderViewService.getView(99L, folderKeyset, fileKeyset))
+            .isInstanceOf(RuntimeException.class)
+            .hasMessage("Folder not found with ID: 99");
+    }
+
+    @Test
+    public void testGetView_QueryFailureIsUnwrapped() {
+
+        // Arrange - the subfolder query (run on the pool) fails
+        when(mockClosureRepository.findPath(2L)).thenReturn(List.of(folder(2L, "2024", null)));
+        when(mockFolderRepository.findPageByParent(2L, folderKeyset))
+            .thenThrow(new RuntimeException("Invalid cursor"));
+        when(mockFileRepository.findPageByFolder(2L, FileFilter.NONE, fileKeyset))
+            .thenReturn(new CursorPage<>(List.of(), null));
+
+        // Act & Assert - the caller sees the original exception, not a CompletionException
+        assertThatThrownBy(() -> folderViewService.getView(2L, folderKeyset, fileKeyset))
+            .isExactlyInstanceOf(RuntimeException.class)
+            .hasMessage("Invalid cursor");
+    }
+
+    // helper method:
+    private static void awaitOthers(CountDownLatch started) throws InterruptedException {
+        started.countDown();
+        if (!started.await(5, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("Folder view queries did not run concurrently");
+        }
+    }
+
+    // helper method:
+    private static FolderSummary folder(Long id, String name, Long parentId) {
+        LocalDateTime now = LocalDateTime.now();
+        return new FolderSummary(id, name, 1L, parentId, 0L, 0L, 0L, now, now);
+    }
+
+    // helper method:
+    private static FileSummary file(Long id, String filename, Long folderId) {
+        LocalDateTime now = LocalDateTime.now();
+        return new FileSummary(id, filename, 2048L, "image/jpeg", FileCategory.IMAGES, 1L, folderId, now, now);
+    }
+
+}
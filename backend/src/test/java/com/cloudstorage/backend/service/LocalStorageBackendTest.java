@@ -0,0 +1,115 @@
+package com.cloudstorage.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.cloudstorage.backend.repository.FileRepository;
+
+// LocalStorageBackendTest - Tests the local-disk storage backend in a temp directory
+// Verifies uploads land on disk, byte ranges / If-Range, and that keys can't escape the root
+@ExtendWith(MockitoExtension.class)
+public class LocalStorageBackendTest {
+
+    private static final byte[] CONTENT = "0123456789abcdefghij".getBytes(StandardCharsets.UTF_8);
+
+    @Mock
+    private FileRepository mockFileRepository;
+
+    @InjectMocks
+    private LocalStorageBackend localStorageBackend;
+
+    @TempDir
+    private Path tempDir;
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(localStorageBackend, "rootDirectory", tempDir.toString());
+        localStorageBackend.init();
+    }
+
+    @Test
+    public void testStoreAndOpen_WholeFile() throws Exception {
+
+        // Act
+        String key = localStorageBackend.store(new MockMultipartFile("file", "notes.txt", "text/plain", CONTENT));
+        StorageBackend.StoredObject content = localStorageBackend.open(key, null, null);
+
+        // Assert - stored under files/, served whole, no temp file left behind
+        assertThat(key).startsWith("files/").endsWith("-notes.txt");
+        assertThat(content.getContentRange()).isNull();
+        assertThat(content.getContentLength()).isEqualTo(CONTENT.length);
+        assertThat(content.getLocalFile()).isEqualTo(tempDir.resolve(key));
+        assertThat(written(content)).isEqualTo(CONTENT);
+        try (var files = Files.list(tempDir.resolve("files"))) {
+            assertThat(files).hasSize(1);
+        }
+    }
+
+    @Test
+    public void testOpen_ByteRanges() throws Exception {
+
+        // Arrange
+        String key = localStorageBackend.store(new MockMultipartFile("file", "notes.txt", "text/plain", CONTENT));
+
+        // Act
+        StorageBackend.StoredObject middle = localStorageBackend.open(key, "bytes=5-9", null);
+        StorageBackend.StoredObject suffix = localStorageBackend.open(key, "bytes=-4", null);
+
+        // Assert - partial content, sendfile starts at the range offset
+        assertThat(middle.getContentRange()).isEqualTo("bytes 5-9/20");
+        assertThat(middle.getPosition()).isEqualTo(5);
+        assertThat(new String(written(middle), StandardCharsets.UTF_8)).isEqualTo("56789");
+        assertThat(suffix.getContentRange()).isEqualTo("bytes 16-19/20");
+        assertThat(new String(written(suffix), StandardCharsets.UTF_8)).isEqualTo("ghij");
+        assertThatThrownBy(() -> localStorageBackend.open(key, "bytes=20-", null))
+            .isInstanceOf(StorageBackend.RangeNotSatisfiableException.class);
+    }
+
+    @Test
+    public void testOpen_IfRangeMismatchSendsWholeFile() throws Exception {
+
+        // Arrange
+        String key = localStorageBackend.store(new MockMultipartFile("file", "notes.txt", "text/plain", CONTENT));
+        String eTag = localStorageBackend.open(key, null, null).getETag();
+
+        // Act
+        StorageBackend.StoredObject unchanged = localStorageBackend.open(key, "bytes=0-3", eTag);
+        StorageBackend.StoredObject changed = localStorageBackend.open(key, "bytes=0-3", "\"old-etag\"");
+
+        // Assert
+        assertThat(unchanged.getContentRange()).isEqualTo("bytes 0-3/20");
+        assertThat(changed.getContentRange()).isNull();
+        assertThat(changed.getContentLength()).isEqualTo(CONTENT.length);
+    }
+
+    @Test
+    public void testOpen_RejectsKeysOutsideRoot() {
+
+        // Act & Assert
+        assertThatThrownBy(() -> localStorageBackend.open("../outside.txt", null, null))
+            .hasMessageContaining("Invalid storage key");
+    }
+
+    // helper method:
+    private static byte[] written(StorageBackend.StoredObject content) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        content.writeTo(output);
+        return output.toByteArray();
+    }
+
+}
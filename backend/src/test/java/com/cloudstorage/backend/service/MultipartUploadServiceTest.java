@@ -0,0 +1,146 @@
+package com.cloudstorage.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+
+// MultipartUploadServiceTest - Tests the parallel multipart engine with a mocked S3Service
+// Verifies part splitting, per-part retry and abort on failure
+@ExtendWith(MockitoExtension.class)
+public class MultipartUploadServiceTest {
+
+    private static final long MB = 1024L * 1024;
+
+    @Mock
+    private S3Service mockS3Service;
+
+    @InjectMocks
+    private MultipartUploadService multipartUploadService;
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(multipartUploadService, "threshold", 10 * MB);
+        ReflectionTestUtils.setField(multipartUploadService, "partSize", 5 * MB);
+        ReflectionTestUtils.setField(multipartUploadService, "concurrency", 3);
+        ReflectionTestUtils.setField(multipartUploadService, "maxAttempts", 2);
+        multipartUploadService.init();
+
+        when(mockS3Service.generateS3Key("video.mp4")).thenReturn("files/test-video.mp4");
+        when(mockS3Service.startMultipartUpload("files/test-video.mp4", "video/mp4")).thenReturn("upload-1");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        multipartUploadService.cleanup();
+    }
+
+    @Test
+    public void testUploadFile_SplitsIntoOrderedParts() throws Exception {
+
+        // Arrange - 12MB file = parts of 5MB, 5MB and 2MB
+        MockMultipartFile file = new MockMultipartFile("file", "video.mp4", "video/mp4", new byte[(int) (12 * MB)]);
+        Map<Integer, Long> partLengths = new ConcurrentHashMap<>();
+        when(mockS3Service.uploadPart(eq("files/test-video.mp4"), eq("upload-1"), anyInt(), any(RequestBody.class)))
+            .thenAnswer(invocation -> {
+                int partNumber = invocation.getArgument(2);
+                partLengths.put(partNumber, drain(invocation.getArgument(3)));
+                return CompletedPart.builder().partNumber(partNumber).eTag("etag-" + partNumber).build();
+            });
+
+        // Act
+        String s3Key = multipartUploadService.uploadFile(file);
+
+        // Assert - each part read exactly its own slice, and parts were completed in order
+        assertThat(s3Key).isEqualTo("files/test-video.mp4");
+        assertThat(partLengths).containsExactlyInAnyOrderEntriesOf(Map.of(1, 5 * MB, 2, 5 * MB, 3, 2 * MB));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<CompletedPart>> parts = ArgumentCaptor.forClass(List.class);
+        verify(mockS3Service).completeMultipartUpload(eq("files/test-video.mp4"), eq("upload-1"), parts.capture());
+        assertThat(parts.getValue()).extracting(CompletedPart::partNumber).containsExactly(1, 2, 3);
+        verify(mockS3Service, never()).abortMultipartUpload(any(), any());
+    }
+
+    @Test
+    public void testUploadFile_RetriesFailedPart() {
+
+        // Arrange - part 2 fails once, then succeeds
+        MockMultipartFile file = new MockMultipartFile("file", "video.mp4", "video/mp4", new byte[(int) (10 * MB)]);
+        AtomicInteger partTwoAttempts = new AtomicInteger();
+        when(mockS3Service.uploadPart(eq("files/test-video.mp4"), eq("upload-1"), anyInt(), any(RequestBody.class)))
+            .thenAnswer(invocation -> {
+                int partNumber = invocation.getArgument(2);
+                if (partNumber == 2 && partTwoAttempts.incrementAndGet() == 1) {
+                    throw new RuntimeException("Connection reset");
+                }
+                return CompletedPart.builder().partNumber(partNumber).eTag("etag-" + partNumber).build();
+            });
+
+        // Act
+        multipartUploadService.uploadFile(file);
+
+        // Assert - upload completed after the retry
+        assertThat(partTwoAttempts.get()).isEqualTo(2);
+        verify(mockS3Service).completeMultipartUpload(eq("files/test-video.mp4"), eq("upload-1"), anyList());
+    }
+
+    @Test
+    public void testUploadFile_AbortsWhenPartKeepsFailing() {
+
+        // Arrange - every attempt fails
+        MockMultipartFile file = new MockMultipartFile("file", "video.mp4", "video/mp4", new byte[(int) (10 * MB)]);
+        when(mockS3Service.uploadPart(eq("files/test-video.mp4"), eq("upload-1"), anyInt(), any(RequestBody.class)))
+            .thenThrow(new RuntimeException("Service unavailable"));
+
+        // Act & Assert
+        assertThatThrownBy(() -> multipartUploadService.uploadFile(file))
+            .isInstanceOf(RuntimeException.class)
+            .hasMessageContaining("Multipart upload failed");
+
+        // Assert - the upload was aborted and never completed
+        verify(mockS3Service, times(1)).abortMultipartUpload("files/test-video.mp4", "upload-1");
+        verify(mockS3Service, never()).completeMultipartUpload(any(), any(), anyList());
+    }
+
+    // helper method:
+    // Reads a request body to the end and returns how many bytes it contained
+    private static long drain(RequestBody body) throws Exception {
+        long total = 0;
+        byte[] chunk = new byte[8192];
+        try (InputStream in = body.contentStreamProvider().newStream()) {
+            int read;
+            while ((read = in.read(chunk)) != -1) {
+                total += read;
+            }
+        }
+        return total;
+    }
+
+}
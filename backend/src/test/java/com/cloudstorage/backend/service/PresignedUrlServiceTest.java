@@ -0,0 +1,87 @@
+package com.cloudstorage.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.cloudstorage.backend.entity.File;
+import com.cloudstorage.backend.repository.FileRepository;
+
+// PresignedUrlServiceTest - Tests time-bucketed URL signing with a mocked S3Service
+// Verifies URLs are reused within a window and re-signed once the window moves on
+@ExtendWith(MockitoExtension.class)
+public class PresignedUrlServiceTest {
+
+    @Mock
+    private S3Service mockS3Service;
+    @Mock
+    private FileRepository mockFileRepository;
+
+    @InjectMocks
+    private PresignedUrlService presignedUrlService;
+
+    private final File photo = new File("cat.jpg", 1024L, "image/jpeg", "files/1-cat.jpg", null);
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(presignedUrlService, "windowMinutes", 10);
+        ReflectionTestUtils.setField(presignedUrlService, "validityMinutes", 15);
+        ReflectionTestUtils.setField(presignedUrlService, "cacheSize", 100);
+        presignedUrlService.init();
+
+        when(mockS3Service.generateGetUrl(eq("files/1-cat.jpg"), anyString(), any(Instant.class), any(Instant.class)))
+            .thenAnswer(invocation -> "https://bucket/files/1-cat.jpg?date=" + invocation.getArgument(2));
+    }
+
+    @Test
+    public void testGetViewUrl_ReusedWithinWindow() {
+
+        // Act - two clicks three minutes apart, inside the 10:00-10:10 window
+        setTime("2024-05-01T10:02:00Z");
+        String first = presignedUrlService.getViewUrl(photo);
+        setTime("2024-05-01T10:05:00Z");
+        String second = presignedUrlService.getViewUrl(photo);
+
+        // Assert - same URL, signed once as of the window start, valid until 10:25
+        assertThat(second).isEqualTo(first);
+        verify(mockS3Service, times(1)).generateGetUrl("files/1-cat.jpg", "inline; filename=\"cat.jpg\"",
+            Instant.parse("2024-05-01T10:00:00Z"), Instant.parse("2024-05-01T10:25:00Z"));
+    }
+
+    @Test
+    public void testGetViewUrl_NewWindowSignsNewUrl() {
+
+        // Act - second click falls into the next window
+        setTime("2024-05-01T10:09:00Z");
+        String first = presignedUrlService.getViewUrl(photo);
+        setTime("2024-05-01T10:11:00Z");
+        String second = presignedUrlService.getViewUrl(photo);
+
+        // Assert
+        assertThat(second).isNotEqualTo(first);
+        verify(mockS3Service, times(2)).generateGetUrl(eq("files/1-cat.jpg"), anyString(), any(Instant.class), any(Instant.class));
+    }
+
+    // helper method:
+    // Freezes the service's clock at the given time
+    private void setTime(String instant) {
+        ReflectionTestUtils.setField(presignedUrlService, "clock", Clock.fixed(Instant.parse(instant), ZoneOffset.UTC));
+    }
+
+}
@@ -0,0 +1,167 @@
+package com.cloudstorage.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+// S3AsyncServiceTest - Tests the non-blocking S3 operations with a mocked S3AsyncClient
+// Verifies that futures complete with the S3 key / metadata, and that failures are
+// mapped to the same RuntimeException messages S3Service uses, and that upload streams are closed
+@ExtendWith(MockitoExtension.class)
+public class S3AsyncServiceTest {
+
+    private static final String S3_KEY = "files/abc-notes.txt";
+
+    @Mock
+    private S3Service mockS3Service;
+    @Mock
+    private S3AsyncClient mockS3AsyncClient;
+
+    @InjectMocks
+    private S3AsyncService s3AsyncService;
+
+    @BeforeEach
+    public void setUp() {
+        // init() would build a real client - inject the mock and the reader pool instead
+        ReflectionTestUtils.setField(s3AsyncService, "bucketName", "test-bucket");
+        ReflectionTestUtils.setField(s3AsyncService, "s3AsyncClient", mockS3AsyncClient);
+        ReflectionTestUtils.setField(s3AsyncService, "uploadReadExecutor", Executors.newSingleThreadExecutor());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        s3AsyncService.cleanup();
+    }
+
+    @Test
+    public void testUploadFile_CompletesWithKey() throws Exception {
+
+        // Arrange
+        when(mockS3Service.generateS3Key("notes.txt")).thenReturn(S3_KEY);
+        when(mockS3AsyncClient.putObject(any(PutObjectRequest.class), any(AsyncRequestBody.class)))
+            .thenReturn(CompletableFuture.completedFuture(PutObjectResponse.builder().build()));
+
+        // Act
+        CompletableFuture<String> result = s3AsyncService.uploadFile(
+            new MockMultipartFile("file", "notes.txt", "text/plain", new byte[10]));
+
+        // Assert
+        assertThat(result.get()).isEqualTo(S3_KEY);
+    }
+
+    @Test
+    public void testUploadFile_FailureMapped() {
+
+        // Arrange - the SDK fails the future with its own exception
+        when(mockS3Service.generateS3Key("notes.txt")).thenReturn(S3_KEY);
+        when(mockS3AsyncClient.putObject(any(PutObjectRequest.class), any(AsyncRequestBody.class)))
+            .thenReturn(CompletableFuture.failedFuture(S3Exception.builder().message("Access Denied").build()));
+
+        // Act
+        CompletableFuture<String> result = s3AsyncService.uploadFile(
+            new MockMultipartFile("file", "notes.txt", "text/plain", new byte[10]));
+
+        // Assert - the root message is kept, and unwrap() finds the mapped exception
+        assertThatThrownBy(result::get)
+            .isInstanceOf(ExecutionException.class)
+            .satisfies(error -> assertThat(S3AsyncService.unwrap(error))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessage("Failed to upload file to S3: Access Denied"));
+    }
+
+    @Test
+    public void testUploadFile_ClosesStreamAfterFailure() throws Exception {
+
+        // Arrange - record whether the temp file stream gets closed
+        AtomicBoolean closed = new AtomicBoolean();
+        MockMultipartFile upload = new MockMultipartFile("file", "notes.txt", "text/plain", new byte[10]) {
+            @Override
+            public InputStream getInputStream() {
+                return new ByteArrayInputStream(new byte[10]) {
+                    @Override
+                    public void close() {
+                        closed.set(true);
+                    }
+                };
+            }
+        };
+        when(mockS3Service.generateS3Key("notes.txt")).thenReturn(S3_KEY);
+        when(mockS3AsyncClient.putObject(any(PutObjectRequest.class), any(AsyncRequestBody.class)))
+            .thenReturn(CompletableFuture.failedFuture(S3Exception.builder().message("Access Denied").build()));
+
+        // Act
+        CompletableFuture<String> result = s3AsyncService.uploadFile(upload);
+
+        // Assert - the file handle is released even though the upload failed
+        assertThatThrownBy(result::get).isInstanceOf(ExecutionException.class);
+        assertThat(closed).isTrue();
+    }
+
+    @Test
+    public void testHeadObject_MissingKey() {
+
+        // Arrange
+        when(mockS3AsyncClient.headObject(any(HeadObjectRequest.class)))
+            .thenReturn(CompletableFuture.failedFuture(NoSuchKeyException.builder().message("Not Found").build()));
+
+        // Act
+        CompletableFuture<HeadObjectResponse> result = s3AsyncService.headObject(S3_KEY);
+
+        // Assert
+        assertThatThrownBy(result::join)
+            .isInstanceOf(CompletionException.class)
+            .satisfies(error -> assertThat(S3AsyncService.unwrap(error)).hasMessage("File not found in S3: " + S3_KEY));
+    }
+
+    @Test
+    public void testHeadObject_CompletesWithMetadata() {
+
+        // Arrange
+        HeadObjectResponse head = HeadObjectResponse.builder().contentLength(10L).contentType("text/plain").build();
+        when(mockS3AsyncClient.headObject(any(HeadObjectRequest.class))).thenReturn(CompletableFuture.completedFuture(head));
+
+        // Act & Assert
+        assertThat(s3AsyncService.headObject(S3_KEY).join()).isSameAs(head);
+    }
+
+    @Test
+    public void testUnwrap_NestedWrappers() {
+
+        // Arrange
+        RuntimeException cause = new RuntimeException("Failed to delete file from S3: Slow Down");
+        Throwable wrapped = new CompletionException(new ExecutionException(cause));
+
+        // Act & Assert - only future wrappers are peeled off
+        assertThat(S3AsyncService.unwrap(wrapped)).isSameAs(cause);
+        assertThat(S3AsyncService.unwrap(cause)).isSameAs(cause);
+    }
+
+}
@@ -0,0 +1,311 @@
+package com.cloudstorage.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadBucketRequest;
+import software.amazon.awssdk.services.s3.model.HeadBucketResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+// S3ServiceTest - Tests S3Service upload behaviour with a mocked S3 client
+// Verifies uploads stream from the multipart file instead of loading it into memory,
+// that ranged downloads pass Range / If-Range through to S3, and the startup pool warm-up
+@ExtendWith(MockitoExtension.class)
+public class S3ServiceTest {
+
+    // Heap growth allowed during an upload, whatever the file size
+    private static final long HEAP_BUDGET = 32L * 1024 * 1024;
+
+    // Mock S3 client - drains the request body like the real HTTP client would
+    @Mock
+    private S3Client mockS3Client;
+
+    // Real service with the mocked client injected into its s3Client field
+    @InjectMocks
+    private S3Service s3Service;
+
+    // Bytes the mocked S3 client actually received
+    private final AtomicLong bytesReceived = new AtomicLong();
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(s3Service, "bucketName", "test-bucket");
+        ReflectionTestUtils.setField(s3Service, "uploadBufferSize", 64 * 1024);
+
+        lenient().when(mockS3Client.putObject(any(PutObjectRequest.class), any(RequestBody.class))).thenAnswer(invocation -> {
+            RequestBody body = invocation.getArgument(1);
+            byte[] chunk = new byte[8192];
+            try (InputStream in = body.contentStreamProvider().newStream()) {
+                int read;
+                while ((read = in.read(chunk)) != -1) {
+                    bytesReceived.addAndGet(read);
+                }
+            }
+            return PutObjectResponse.builder().build();
+        });
+    }
+
+    @Test
+    public void testUploadFile_StreamsEntireFile() throws Exception {
+
+        // Arrange - 5MB generated file
+        long size = 5L * 1024 * 1024;
+
+        // Act
+        String s3Key = s3Service.uploadFile(new GeneratedMultipartFile("report.pdf", size));
+
+        // Assert - every byte reached S3 under the expected key format
+        assertThat(s3Key).startsWith("files/").endsWith("-report.pdf");
+        assertThat(bytesReceived.get()).isEqualTo(size);
+    }
+
+    @Test
+    public void testUploadFile_PeakHeapStaysFlatForLargeFiles() throws Exception {
+
+        // Act - upload a small and a very large file
+        long smallPeak = peakHeapGrowthDuringUpload(16L * 1024 * 1024);
+        long largePeak = peakHeapGrowthDuringUpload(1024L * 1024 * 1024);
+
+        // Assert - a 1GB upload needs no more heap than the fixed budget
+        assertThat(smallPeak).isLessThan(HEAP_BUDGET);
+        assertThat(largePeak).isLessThan(HEAP_BUDGET);
+    }
+
+    @Test
+    public void testOpenObjectStream_IfRangeETagBecomesIfMatch() {
+
+        // Arrange
+        ArgumentCaptor<GetObjectRequest> requestCaptor = ArgumentCaptor.forClass(GetObjectRequest.class);
+        when(mockS3Client.getObject(requestCaptor.capture())).thenReturn(objectStream("bytes 0-99/1000"));
+
+        // Act
+        s3Service.openObjectStream("files/1-video.mp4", "bytes=0-99", "\"abc123\"");
+
+        // Assert - range and validator both sent to S3
+        assertThat(requestCaptor.getValue().range()).isEqualTo("bytes=0-99");
+        assertThat(requestCaptor.getValue().ifMatch()).isEqualTo("\"abc123\"");
+    }
+
+    @Test
+    public void testOpenObjectStream_ChangedFileFallsBackToFullObject() {
+
+        // Arrange - S3 rejects the If-Range validator (file was replaced), then serves the whole object
+        ArgumentCaptor<GetObjectRequest> requestCaptor = ArgumentCaptor.forClass(GetObjectRequest.class);
+        when(mockS3Client.getObject(requestCaptor.capture()))
+            .thenThrow(S3Exception.builder().statusCode(412).message("Precondition Failed").build())
+            .thenReturn(objectStream(null));
+
+        // Act
+        ResponseInputStream<GetObjectResponse> stream =
+            s3Service.openObjectStream("files/1-video.mp4", "bytes=0-99", "\"old-etag\"");
+
+        // Assert - second request has no range, so the client gets a 200 with the new content
+        verify(mockS3Client, times(2)).getObject(any(GetObjectRequest.class));
+        assertThat(requestCaptor.getAllValues().get(1).range()).isNull();
+        assertThat(stream.response().contentRange()).isNull();
+    }
+
+    @Test
+    public void testGenerateGetUrl_SameWindowGivesIdenticalUrl() {
+
+        // Arrange - real presigner (signing is local, no network)
+        S3Presigner presigner = S3Presigner.builder()
+            .region(Region.US_EAST_1)
+            .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("AKIDEXAMPLE", "secret")))
+            .build();
+        ReflectionTestUtils.setField(s3Service, "s3Presigner", presigner);
+        Instant windowStart = Instant.parse("2024-05-01T10:00:00Z");
+        Instant expiration = windowStart.plus(Duration.ofMinutes(25));
+
+        // Act - signed twice, as two clicks in the same window would be
+        String first = s3Service.generateGetUrl("files/1-cat.jpg", "inline; filename=\"cat.jpg\"", windowStart, expiration);
+        String second = s3Service.generateGetUrl("files/1-cat.jpg", "inline; filename=\"cat.jpg\"", windowStart, expiration);
+
+        // Assert - byte-for-byte the same URL, signed as of the window start
+        assertThat(second).isEqualTo(first);
+        assertThat(first).contains("X-Amz-Date=20240501T100000Z").contains("X-Amz-Expires=1500");
+        presigner.close();
+    }
+
+    @Test
+    public void testWarmUp_OpensConnectionsInParallelAndSurvivesFailures() throws Exception {
+
+        // Arrange - 4 warm-up calls; S3 blocks until all 4 are in flight, and one of them fails
+        ReflectionTestUtils.setField(s3Service, "warmupConnections", 4);
+        ReflectionTestUtils.setField(s3Service, "storageBackend", "s3");
+        CountDownLatch allInFlight = new CountDownLatch(4);
+        AtomicInteger calls = new AtomicInteger();
+        when(mockS3Client.headBucket(any(HeadBucketRequest.class))).thenAnswer(invocation -> {
+            allInFlight.countDown();
+            assertThat(allInFlight.await(5, TimeUnit.SECONDS)).isTrue();
+            if (calls.incrementAndGet() == 1) {
+                throw S3Exception.builder().statusCode(503).message("Slow Down").build();
+            }
+            return HeadBucketResponse.builder().build();
+        });
+
+        // Act
+        s3Service.warmUp();
+
+        // Assert - all calls ran at the same time (one connection each) and the failure didn't escape
+        verify(mockS3Client, times(4)).headBucket(any(HeadBucketRequest.class));
+        assertThat(allInFlight.getCount()).isZero();
+    }
+
+    @Test
+    public void testWarmUp_SkippedWithLocalBackend() {
+
+        // Arrange - files live on local disk, so S3 may not even be reachable
+        ReflectionTestUtils.setField(s3Service, "warmupConnections", 4);
+        ReflectionTestUtils.setField(s3Service, "storageBackend", "local");
+
+        // Act
+        s3Service.warmUp();
+
+        // Assert
+        verify(mockS3Client, never()).headBucket(any(HeadBucketRequest.class));
+    }
+
+    // helper method:
+    // S3 object stream with a small body and the given Content-Range
+    private static ResponseInputStream<GetObjectResponse> objectStream(String contentRange) {
+        GetObjectResponse response = GetObjectResponse.builder().contentRange(contentRange).contentLength(100L).build();
+        return new ResponseInputStream<>(response, AbortableInputStream.create(new ByteArrayInputStream(new byte[100])));
+    }
+
+    // helper method:
+    // Uploads a generated file and returns how far the heap grew above its starting point
+    private long peakHeapGrowthDuringUpload(long size) throws IOException {
+        List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+            .filter(pool -> pool.getType() == MemoryType.HEAP)
+            .toList();
+
+        System.gc();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        long before = heapPools.stream().mapToLong(pool -> pool.getUsage().getUsed()).sum();
+
+        bytesReceived.set(0);
+        s3Service.uploadFile(new GeneratedMultipartFile("video.mp4", size));
+        assertThat(bytesReceived.get()).isEqualTo(size);
+
+        long peak = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+        return peak - before;
+    }
+
+    // Multipart file whose content is generated on the fly (nothing is ever held in memory)
+    // getBytes() fails the test - uploads must only read through getInputStream()
+    private static class GeneratedMultipartFile implements MultipartFile {
+
+        private final String filename;
+        private final long size;
+
+        GeneratedMultipartFile(String filename, long size) {
+            this.filename = filename;
+            this.size = size;
+        }
+
+        @Override
+        public String getName() {
+            return "file";
+        }
+
+        @Override
+        public String getOriginalFilename() {
+            return filename;
+        }
+
+        @Override
+        public String getContentType() {
+            return "application/octet-stream";
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        @Override
+        public long getSize() {
+            return size;
+        }
+
+        @Override
+        public byte[] getBytes() {
+            throw new AssertionError("Upload loaded the whole file into memory with getBytes()");
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new InputStream() {
+                private long remaining = size;
+
+                @Override
+                public int read() {
+                    if (remaining <= 0) {
+                        return -1;
+                    }
+                    remaining--;
+                    return 'x';
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    if (remaining <= 0) {
+                        return -1;
+                    }
+                    int count = (int) Math.min(length, remaining);
+                    remaining -= count;
+                    return count;
+                }
+            };
+        }
+
+        @Override
+        public void transferTo(File dest) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+}
@@ -0,0 +1,111 @@
+package com.cloudstorage.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.time.Instant;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+
+// S3StorageBackendTest - Tests reads through the disk cache with a mocked S3Service and DiskCacheService
+// Verifies which S3 requests a cache miss makes: ranged reads of large objects go straight to a
+// ranged GET, small objects are fetched whole and cached
+@ExtendWith(MockitoExtension.class)
+public class S3StorageBackendTest {
+
+    private static final String S3_KEY = "files/abc-video.mp4";
+    private static final long LARGE = 500L * 1024 * 1024;
+
+    @Mock
+    private S3Service mockS3Service;
+    @Mock
+    private DiskCacheService mockDiskCacheService;
+
+    private S3StorageBackend s3StorageBackend;
+
+    @BeforeEach
+    public void setUp() {
+        s3StorageBackend = new S3StorageBackend(mockS3Service, null, null, null, mockDiskCacheService);
+        ReflectionTestUtils.setField(s3StorageBackend, "streamBufferSize", 512);
+        when(mockDiskCacheService.isEnabled()).thenReturn(true);
+    }
+
+    @Test
+    public void testOpen_RangedMissOnLargeObject() throws Exception {
+
+        // Arrange - the HEAD shows the object is too large for the cache
+        when(mockS3Service.getObjectMetadata(S3_KEY)).thenReturn(HeadObjectResponse.builder().contentLength(LARGE).build());
+        when(mockDiskCacheService.accepts(LARGE)).thenReturn(false);
+        when(mockS3Service.openObjectStream(S3_KEY, "bytes=0-99", null))
+            .thenReturn(objectStream(100, "bytes 0-99/" + LARGE));
+
+        // Act
+        StorageBackend.StoredObject object = s3StorageBackend.open(S3_KEY, "bytes=0-99", null);
+
+        // Assert - only the range is requested, the whole object never is
+        assertThat(object.getContentRange()).isEqualTo("bytes 0-99/" + LARGE);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        object.writeTo(output);
+        assertThat(output.size()).isEqualTo(100);
+        verify(mockS3Service, never()).openObjectStream(S3_KEY, null, null);
+    }
+
+    @Test
+    public void testOpen_RangedMissOnSmallObjectFillsCache() throws Exception {
+
+        // Arrange
+        StorageBackend.StoredObject cached = mock(StorageBackend.StoredObject.class);
+        when(mockS3Service.getObjectMetadata(S3_KEY)).thenReturn(HeadObjectResponse.builder().contentLength(100L).build());
+        when(mockDiskCacheService.accepts(100L)).thenReturn(true);
+        when(mockS3Service.openObjectStream(S3_KEY, null, null)).thenReturn(objectStream(100, null));
+        when(mockDiskCacheService.fill(eq(S3_KEY), any(InputStream.class), eq(100L), isNull(), isNull(), any(Instant.class),
+            eq("bytes=0-9"), isNull())).thenReturn(cached);
+
+        // Act & Assert - the whole object is fetched once and the range served from the cache
+        assertThat(s3StorageBackend.open(S3_KEY, "bytes=0-9", null)).isSameAs(cached);
+    }
+
+    @Test
+    public void testOpen_PlainMissOnLargeObjectStreams() throws Exception {
+
+        // Arrange - no range, so the full GET is needed anyway and no HEAD is made
+        when(mockS3Service.openObjectStream(S3_KEY, null, null)).thenReturn(objectStream(LARGE, null));
+        when(mockDiskCacheService.accepts(LARGE)).thenReturn(false);
+
+        // Act
+        StorageBackend.StoredObject object = s3StorageBackend.open(S3_KEY, null, null);
+
+        // Assert
+        assertThat(object.getContentLength()).isEqualTo(LARGE);
+        verify(mockS3Service, never()).getObjectMetadata(S3_KEY);
+    }
+
+    // helper method:
+    // S3 object stream reporting the given length (the body holds at most 100 bytes)
+    private static ResponseInputStream<GetObjectResponse> objectStream(long contentLength, String contentRange) {
+        GetObjectResponse response = GetObjectResponse.builder()
+            .contentLength(contentLength).contentRange(contentRange).lastModified(Instant.parse("2026-01-01T00:00:00Z"))
+            .build();
+        return new ResponseInputStream<>(response, AbortableInputStream.create(new ByteArrayInputStream(new byte[100])));
+    }
+
+}
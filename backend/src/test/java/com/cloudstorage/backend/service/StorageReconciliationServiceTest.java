@@ -0,0 +1,148 @@
+package com.cloudstorage.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.cloudstorage.backend.entity.PendingDeletion;
+import com.cloudstorage.backend.repository.BlobRepository;
+import com.cloudstorage.backend.repository.FileRepository;
+import com.cloudstorage.backend.repository.PendingDeletionRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+// StorageReconciliationServiceTest - Tests the S3 / database merge-join with mocked listing and repositories
+// Verifies orphans past the grace period are queued, recent and already-queued ones are not,
+// and rows without an object are reported as dangling
+@ExtendWith(MockitoExtension.class)
+public class StorageReconciliationServiceTest {
+
+    private static final Instant OLD = Instant.now().minus(3, ChronoUnit.DAYS);
+    private static final Instant RECENT = Instant.now().minus(1, ChronoUnit.HOURS);
+
+    @Mock
+    private S3Service mockS3Service;
+    @Mock
+    private FileRepository mockFileRepository;
+    @Mock
+    private BlobRepository mockBlobRepository;
+    @Mock
+    private PendingDeletionRepository mockPendingDeletionRepository;
+    @Mock
+    private TransactionTemplate mockTransactionTemplate;
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private StorageReconciliationService storageReconciliationService;
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(storageReconciliationService, "deleteOrphans", true);
+        ReflectionTestUtils.setField(storageReconciliationService, "gracePeriodHours", 24L);
+        ReflectionTestUtils.setField(storageReconciliationService, "pageSize", 2);
+        storageReconciliationService.init();
+    }
+
+    @Test
+    public void testReconcile_MergesListingWithDatabaseKeys() {
+
+        // Arrange - database keys come back two per page; "b" is referenced by two files
+        List<String> rows = List.of("files/b", "files/b", "files/d", "files/e");
+        when(mockFileRepository.findS3KeysAfter(eq("files/%"), anyString(), anyInt())).thenAnswer(invocation -> {
+            String after = invocation.getArgument(1);
+            int limit = invocation.getArgument(2);
+            return rows.stream().filter(key -> key.compareTo(after) > 0).limit(limit).toList();
+        });
+        when(mockS3Service.listObjects("files/")).thenReturn(List.of(
+            object("files/a", 100, OLD),      // orphan
+            object("files/b", 200, OLD),
+            object("files/c", 300, RECENT),   // orphan, still in the grace period
+            object("files/d", 400, OLD),
+            object("files/f", 500, OLD),      // orphan, already queued
+            object("files/g", 600, OLD)));    // orphan
+        when(mockS3Service.listObjects("blobs/")).thenReturn(List.of());
+        when(mockPendingDeletionRepository.findS3KeysIn(anyList())).thenReturn(List.of("files/f"));
+        when(mockTransactionTemplate.execute(any())).thenAnswer(invocation ->
+            invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+
+        // Act
+        StorageReconciliationService.Report report = storageReconciliationService.reconcile();
+
+        // Assert - "e" has no object; "a" and "g" are queued (batches of two orphans), 700 bytes reclaimed
+        assertThat(report.getObjectsScanned()).isEqualTo(6);
+        assertThat(report.getRowsScanned()).isEqualTo(3);
+        assertThat(report.getOrphansFound()).isEqualTo(3);
+        assertThat(report.getRecentObjectsSkipped()).isEqualTo(1);
+        assertThat(report.getDanglingRows()).isEqualTo(1);
+        assertThat(report.getDanglingKeys()).containsExactly("files/e");
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<PendingDeletion>> queued = ArgumentCaptor.forClass(List.class);
+        verify(mockPendingDeletionRepository, times(2)).saveAll(queued.capture());
+        assertThat(queued.getAllValues()).flatExtracting(batch -> batch.stream().map(PendingDeletion::getS3Key).toList())
+            .containsExactly("files/a", "files/g");
+        assertThat(report.getOrphansDeleted()).isEqualTo(2);
+        assertThat(report.getBytesReclaimed()).isEqualTo(700);
+        assertThat(meterRegistry.get("storage.reconcile.reclaimed.bytes").counter().count()).isEqualTo(700);
+        assertThat(meterRegistry.get("storage.reconcile.dangling.rows").gauge().value()).isEqualTo(1);
+        assertThat(storageReconciliationService.getLastReport()).isSameAs(report);
+    }
+
+    @Test
+    public void testReconcile_ReportOnlyModeQueuesNothing() {
+
+        // Arrange
+        ReflectionTestUtils.setField(storageReconciliationService, "deleteOrphans", false);
+        when(mockS3Service.listObjects("files/")).thenReturn(List.of());
+        when(mockS3Service.listObjects("blobs/")).thenReturn(List.of(object("blobs/abc", 100, OLD)));
+
+        // Act
+        StorageReconciliationService.Report report = storageReconciliationService.reconcile();
+
+        // Assert
+        assertThat(report.getOrphansFound()).isEqualTo(1);
+        assertThat(report.getOrphansDeleted()).isZero();
+        verify(mockPendingDeletionRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    public void testCompareKeys_MatchesUtf8ByteOrder() {
+
+        // U+FF5E sorts before U+1F600 in UTF-8, although its UTF-16 unit is larger than the surrogate's
+        assertThat("files/～".compareTo("files/😀")).isPositive();
+        assertThat(StorageReconciliationService.compareKeys("files/～", "files/😀")).isNegative();
+        assertThat(StorageReconciliationService.compareKeys("files/a", "files/ab")).isNegative();
+        assertThat(StorageReconciliationService.compareKeys("files/a", "files/a")).isZero();
+    }
+
+    // helper method:
+    private static S3Object object(String key, long size, Instant lastModified) {
+        return S3Object.builder().key(key).size(size).lastModified(lastModified).build();
+    }
+
+}
@@ -0,0 +1,153 @@
+package com.cloudstorage.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.cloudstorage.backend.dto.StorageStats;
+import com.cloudstorage.backend.entity.File;
+import com.cloudstorage.backend.entity.FileCategory;
+import com.cloudstorage.backend.entity.User;
+import com.cloudstorage.backend.entity.UserStorageStats;
+import com.cloudstorage.backend.repository.UserRepository;
+import com.cloudstorage.backend.repository.UserStorageStatsRepository;
+
+// StorageStatsServiceTest - Tests the per-user category counters with a mocked repository
+// Verifies deltas are grouped per category, stats come from the counter rows, and repair fixes drift
+@ExtendWith(MockitoExtension.class)
+public class StorageStatsServiceTest {
+
+    @Mock
+    private UserStorageStatsRepository mockStatsRepository;
+    @Mock
+    private UserRepository mockUserRepository;
+    @Mock
+    private TransactionTemplate mockTransactionTemplate;
+
+    @InjectMocks
+    private StorageStatsService storageStatsService;
+
+    @Test
+    public void testRecordAdded_OneDeltaPerCategoryInLockOrder() {
+
+        // Arrange - a batch upload with two images and a PDF
+        List<File> files = List.of(file("image/png", 100), file("application/pdf", 50), file("image/jpeg", 200));
+
+        // Act
+        storageStatsService.recordAdded(files);
+
+        // Assert - two upserts, ordered by category name
+        InOrder inOrder = inOrder(mockStatsRepository);
+        inOrder.verify(mockStatsRepository).addDelta(1L, "DOCUMENTS", 1, 50);
+        inOrder.verify(mockStatsRepository).addDelta(1L, "IMAGES", 2, 300);
+        verifyNoMoreInteractions(mockStatsRepository);
+    }
+
+    @Test
+    public void testRecordRemoved_SubtractsFile() {
+
+        // Act
+        storageStatsService.recordRemoved(file("video/mp4", 4096));
+
+        // Assert
+        verify(mockStatsRepository).addDelta(1L, "VIDEOS", -1, -4096);
+    }
+
+    @Test
+    public void testGetStats_ReadsCounterRowsAndReportsMissingCategoriesAsZero() {
+
+        // Arrange
+        when(mockStatsRepository.findByUserId(1L)).thenReturn(List.of(
+            stats(FileCategory.IMAGES, 3, 3000), stats(FileCategory.AUDIO, 1, 500)));
+
+        // Act
+        StorageStats result = storageStatsService.getStats(1L);
+
+        // Assert
+        assertThat(result.getCategories()).containsOnlyKeys("documents", "images", "videos", "audio", "other");
+        assertThat(result.getCategories().get("images").getFileCount()).isEqualTo(3);
+        assertThat(result.getCategories().get("documents").getTotalBytes()).isZero();
+        assertThat(result.getTotalFiles()).isEqualTo(4);
+        assertThat(result.getTotalBytes()).isEqualTo(3500);
+    }
+
+    @Test
+    public void testRepairUser_LocksAllCountersAndFixesOnlyDrift() {
+
+        // Arrange - the images counter missed one file; documents is right
+        when(mockTransactionTemplate.execute(any())).thenAnswer(invocation ->
+            invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(mockStatsRepository.countFilesByCategory(1L)).thenReturn(List.of(
+            totals("IMAGES", 4, 4000), totals("DOCUMENTS", 2, 20)));
+        when(mockStatsRepository.findByUserId(1L)).thenReturn(List.of(
+            stats(FileCategory.DOCUMENTS, 2, 20), stats(FileCategory.IMAGES, 3, 3000), stats(FileCategory.VIDEOS, 0, 0)));
+
+        // Act
+        boolean drifted = storageStatsService.repairUser(1L);
+
+        // Assert - every row locked (in name order) before recounting; only images rewritten
+        assertThat(drifted).isTrue();
+        InOrder inOrder = inOrder(mockStatsRepository);
+        for (String category : List.of("AUDIO", "DOCUMENTS", "IMAGES", "OTHER", "VIDEOS")) {
+            inOrder.verify(mockStatsRepository).addDelta(1L, category, 0, 0);
+        }
+        inOrder.verify(mockStatsRepository).countFilesByCategory(1L);
+        verify(mockStatsRepository).setTotals(1L, FileCategory.IMAGES, 4, 4000);
+        verify(mockStatsRepository, never()).setTotals(eq(1L), eq(FileCategory.DOCUMENTS), anyLong(), anyLong());
+        verify(mockStatsRepository, never()).setTotals(eq(1L), eq(FileCategory.VIDEOS), anyLong(), anyLong());
+    }
+
+    // helper method:
+    private static File file(String mimeType, long size) {
+        User owner = new User();
+        owner.setId(1L);
+        File file = new File();
+        file.setMimeType(mimeType);
+        file.setFileSize(size);
+        file.setOwner(owner);
+        return file;
+    }
+
+    // helper method:
+    private static UserStorageStats stats(FileCategory category, long fileCount, long totalBytes) {
+        UserStorageStats stats = new UserStorageStats();
+        stats.setUserId(1L);
+        stats.setCategory(category);
+        stats.setFileCount(fileCount);
+        stats.setTotalBytes(totalBytes);
+        return stats;
+    }
+
+    // helper method:
+    private static UserStorageStatsRepository.CategoryTotals totals(String category, long fileCount, long totalBytes) {
+        return new UserStorageStatsRepository.CategoryTotals() {
+            public String getCategory() {
+                return category;
+            }
+            public Long getFileCount() {
+                return fileCount;
+            }
+            public Long getTotalBytes() {
+                return totalBytes;
+            }
+        };
+    }
+
+}
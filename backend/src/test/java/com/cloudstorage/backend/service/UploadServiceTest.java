@@ -0,0 +1,119 @@
+package com.cloudstorage.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.cloudstorage.backend.entity.File;
+
+// UploadServiceTest - Tests multi-file uploads with a mocked storage backend and FileService
+// Verifies per-file results when some uploads fail, and that stored objects are removed
+// again when the metadata transaction fails
+@ExtendWith(MockitoExtension.class)
+public class UploadServiceTest {
+
+    @Mock
+    private StorageBackend mockStorageBackend;
+    @Mock
+    private FileService mockFileService;
+
+    @InjectMocks
+    private UploadService uploadService;
+
+    private final MockMultipartFile notes = new MockMultipartFile("files", "notes.txt", "text/plain", new byte[10]);
+    private final MockMultipartFile photo = new MockMultipartFile("files", "photo.jpg", "image/jpeg", new byte[20]);
+    private final MockMultipartFile report = new MockMultipartFile("files", "report.pdf", "application/pdf", new byte[30]);
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(uploadService, "batchConcurrency", 2);
+        uploadService.init();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        uploadService.cleanup();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testUploadBatch_PartialFailure() throws Exception {
+
+        // Arrange - the photo fails to upload, the other two are stored
+        when(mockStorageBackend.store(notes)).thenReturn("files/1-notes.txt");
+        when(mockStorageBackend.store(photo)).thenThrow(new IOException("Connection reset"));
+        when(mockStorageBackend.store(report)).thenReturn("files/3-report.pdf");
+        when(mockFileService.saveFiles(anyList(), eq(1L), eq(null))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        List<Map<String, Object>> results = uploadService.uploadBatch(List.of(notes, photo, report), 1L, null);
+
+        // Assert - results in request order; only the stored files get metadata
+        assertThat(results).extracting(result -> result.get("filename"))
+            .containsExactly("notes.txt", "photo.jpg", "report.pdf");
+        assertThat(results).extracting(result -> result.get("success")).containsExactly(true, false, true);
+        assertThat(results.get(1).get("error")).isEqualTo("Connection reset");
+        assertThat(((File) results.get(2).get("file")).getS3Key()).isEqualTo("files/3-report.pdf");
+
+        ArgumentCaptor<List<File>> saved = ArgumentCaptor.forClass(List.class);
+        verify(mockFileService).saveFiles(saved.capture(), eq(1L), eq(null));
+        assertThat(saved.getValue()).extracting(File::getS3Key).containsExactly("files/1-notes.txt", "files/3-report.pdf");
+        verify(mockStorageBackend, never()).delete(any());
+    }
+
+    @Test
+    public void testUploadBatch_AllUploadsFail() throws Exception {
+
+        // Arrange
+        when(mockStorageBackend.store(any(MultipartFile.class))).thenThrow(new IOException("Bucket unavailable"));
+
+        // Act
+        List<Map<String, Object>> results = uploadService.uploadBatch(List.of(notes, photo), 1L, null);
+
+        // Assert - no metadata transaction at all
+        assertThat(results).extracting(result -> result.get("success")).containsExactly(false, false);
+        verify(mockFileService, never()).saveFiles(anyList(), any(), any());
+    }
+
+    @Test
+    public void testUploadBatch_MetadataFailureRemovesStoredFiles() throws Exception {
+
+        // Arrange - every upload lands, then the metadata transaction rolls back
+        when(mockStorageBackend.store(notes)).thenReturn("files/1-notes.txt");
+        when(mockStorageBackend.store(photo)).thenReturn("files/2-photo.jpg");
+        when(mockFileService.saveFiles(anyList(), eq(1L), eq(7L))).thenThrow(new RuntimeException("Folder not found with ID: 7"));
+        doThrow(new RuntimeException("Access denied")).when(mockStorageBackend).delete("files/2-photo.jpg");
+
+        // Act
+        List<Map<String, Object>> results = uploadService.uploadBatch(List.of(notes, photo), 1L, 7L);
+
+        // Assert - both objects are removed (a failed delete doesn't stop the others), every file reported failed
+        verify(mockStorageBackend).delete("files/1-notes.txt");
+        verify(mockStorageBackend).delete("files/2-photo.jpg");
+        assertThat(results).extracting(result -> result.get("success")).containsExactly(false, false);
+        assertThat(results).extracting(result -> result.get("error"))
+            .containsOnly("Folder not found with ID: 7");
+    }
+
+}
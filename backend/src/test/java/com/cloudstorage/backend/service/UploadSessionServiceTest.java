@@ -0,0 +1,357 @@
+package com.cloudstorage.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.cloudstorage.backend.dto.UploadSessionStatus;
+import com.cloudstorage.backend.entity.File;
+import com.cloudstorage.backend.entity.UploadPart;
+import com.cloudstorage.backend.entity.UploadSession;
+import com.cloudstorage.backend.entity.User;
+import com.cloudstorage.backend.repository.FileRepository;
+import com.cloudstorage.backend.repository.FolderRepository;
+import com.cloudstorage.backend.repository.UploadPartRepository;
+import com.cloudstorage.backend.repository.UploadSessionRepository;
+import com.cloudstorage.backend.repository.UserRepository;
+
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchUploadException;
+
+// UploadSessionServiceTest - Tests resumable upload sessions with mocked repositories and S3
+// Verifies chunk validation, commit ordering and retries, expiry cleanup, and (through a real
+// FileService on the same mocks) that a committed upload can be followed through to its file
+@ExtendWith(MockitoExtension.class)
+public class UploadSessionServiceTest {
+
+    private static final String S3_KEY = "files/abc-report.pdf";
+
+    @Mock
+    private UploadSessionRepository mockSessionRepository;
+    @Mock
+    private UploadPartRepository mockPartRepository;
+    @Mock
+    private UserRepository mockUserRepository;
+    @Mock
+    private FolderRepository mockFolderRepository;
+    @Mock
+    private FileRepository mockFileRepository;
+    @Mock
+    private S3Service mockS3Service;
+    @Mock
+    private MultipartUploadService mockMultipartUploadService;
+    @Mock
+    private BlobStorageService mockBlobStorageService;
+    @Mock
+    private DeletionOutboxService mockDeletionOutboxService;
+    @Mock
+    private StorageStatsService mockStorageStatsService;
+    @Mock
+    private FolderRollupService mockFolderRollupService;
+    @Mock
+    private TransactionTemplate mockTransactionTemplate;
+
+    private FileService fileService;
+    private UploadSessionService uploadSessionService;
+
+    private User owner;
+
+    @BeforeEach
+    public void setUp() {
+        fileService = new FileService(mockFileRepository, mockUserRepository, mockFolderRepository, mockBlobStorageService,
+            mockDeletionOutboxService, mockStorageStatsService, mockFolderRollupService, mockSessionRepository);
+        uploadSessionService = new UploadSessionService(mockSessionRepository, mockPartRepository, mockUserRepository,
+            mockFolderRepository, mockS3Service, mockMultipartUploadService, fileService, mockDeletionOutboxService, mockTransactionTemplate);
+
+        owner = new User();
+        owner.setId(1L);
+    }
+
+    @Test
+    public void testCreateSession() {
+
+        // Arrange
+        when(mockUserRepository.findById(1L)).thenReturn(Optional.of(owner));
+        when(mockMultipartUploadService.getEffectivePartSize(3000L)).thenReturn(1024L);
+        when(mockS3Service.generateS3Key("report.pdf")).thenReturn(S3_KEY);
+        when(mockS3Service.startMultipartUpload(S3_KEY, "application/pdf")).thenReturn("upload-1");
+        when(mockSessionRepository.save(any(UploadSession.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        UploadSessionStatus status = uploadSessionService.createSession("report.pdf", 3000L, "application/pdf", 1L, null);
+
+        // Assert - 1024 + 1024 + 952 bytes, nothing received yet
+        assertThat(status.getStatus()).isEqualTo(UploadSession.STATUS_ACTIVE);
+        assertThat(status.getPartCount()).isEqualTo(3);
+        assertThat(status.getMissingParts()).containsExactly(1, 2, 3);
+        assertThat(status.getBytesReceived()).isZero();
+    }
+
+    @Test
+    public void testUploadChunk_WrongSize() {
+
+        // Arrange
+        UploadSession session = session(UploadSession.STATUS_ACTIVE);
+        when(mockSessionRepository.findById(1L)).thenReturn(Optional.of(session));
+
+        // Act & Assert
+        assertThatThrownBy(() -> uploadSessionService.uploadChunk(1L, 1, new ByteArrayInputStream(new byte[10]), 10L))
+            .isInstanceOf(RuntimeException.class)
+            .hasMessageContaining("must be exactly 1024 bytes");
+        verify(mockS3Service, never()).uploadPart(anyString(), anyString(), anyInt(), any(RequestBody.class));
+    }
+
+    @Test
+    public void testUploadChunk_ResendReplacesEarlierCopy() {
+
+        // Arrange - part 1 arrived before with another ETag
+        UploadSession session = session(UploadSession.STATUS_ACTIVE);
+        UploadPart earlier = new UploadPart(session, 1, 1024L, "etag-old");
+        when(mockSessionRepository.findById(1L)).thenReturn(Optional.of(session));
+        when(mockS3Service.uploadPart(eq(S3_KEY), eq("upload-1"), eq(1), any(RequestBody.class)))
+            .thenReturn(CompletedPart.builder().partNumber(1).eTag("etag-new").build());
+        when(mockSessionRepository.touchActive(1L)).thenReturn(1);
+        when(mockPartRepository.findBySession_IdAndPartNumber(1L, 1)).thenReturn(Optional.of(earlier));
+        when(mockPartRepository.findBySession_IdOrderByPartNumberAsc(1L)).thenReturn(List.of(earlier));
+
+        // Act
+        UploadSessionStatus status = uploadSessionService.uploadChunk(1L, 1, new ByteArrayInputStream(new byte[1024]), 1024L);
+
+        // Assert - the existing row is updated rather than a second one inserted
+        assertThat(earlier.getEtag()).isEqualTo("etag-new");
+        verify(mockPartRepository).save(earlier);
+        verify(mockSessionRepository, never()).save(any(UploadSession.class));
+        assertThat(status.getMissingParts()).isEmpty();
+    }
+
+    @Test
+    public void testUploadChunk_SessionClaimedDuringUpload() {
+
+        // Arrange - a commit claims the session while the chunk is on its way to S3
+        UploadSession session = session(UploadSession.STATUS_ACTIVE);
+        when(mockSessionRepository.findById(1L)).thenReturn(Optional.of(session));
+        when(mockS3Service.uploadPart(eq(S3_KEY), eq("upload-1"), eq(1), any(RequestBody.class)))
+            .thenReturn(CompletedPart.builder().partNumber(1).eTag("etag-1").build());
+        when(mockSessionRepository.touchActive(1L)).thenReturn(0);
+
+        // Act & Assert - the chunk is refused and the stale session is not written back
+        assertThatThrownBy(() -> uploadSessionService.uploadChunk(1L, 1, new ByteArrayInputStream(new byte[1024]), 1024L))
+            .isInstanceOf(RuntimeException.class)
+            .hasMessage("Upload session 1 is no longer accepting chunks");
+        verify(mockPartRepository, never()).save(any(UploadPart.class));
+        verify(mockSessionRepository, never()).save(any(UploadSession.class));
+    }
+
+    @Test
+    public void testCommitSession_Incomplete() {
+
+        // Arrange - no parts received
+        UploadSession session = session(UploadSession.STATUS_ACTIVE);
+        when(mockSessionRepository.findById(1L)).thenReturn(Optional.of(session));
+        when(mockPartRepository.findBySession_IdOrderByPartNumberAsc(1L)).thenReturn(List.of());
+
+        // Act & Assert
+        assertThatThrownBy(() -> uploadSessionService.commitSession(1L))
+            .isInstanceOf(RuntimeException.class)
+            .hasMessageContaining("received 0 of 1 parts");
+        verify(mockSessionRepository, never()).updateStatus(anyLong(), anyString(), anyString());
+        verify(mockS3Service, never()).completeMultipartUpload(anyString(), anyString(), anyList());
+    }
+
+    @Test
+    public void testCommitSession_MarksCompletingBeforeS3() {
+
+        // Arrange
+        UploadSession session = session(UploadSession.STATUS_ACTIVE);
+        stubFullyUploaded(session);
+
+        // Act
+        File committed = uploadSessionService.commitSession(1L);
+
+        // Assert - claimed before S3 is asked, completed together with the metadata save
+        InOrder inOrder = inOrder(mockSessionRepository, mockS3Service, mockFileRepository);
+        inOrder.verify(mockSessionRepository).updateStatus(1L, UploadSession.STATUS_ACTIVE, UploadSession.STATUS_COMPLETING);
+        inOrder.verify(mockS3Service).completeMultipartUpload(eq(S3_KEY), eq("upload-1"), anyList());
+        inOrder.verify(mockSessionRepository).updateStatus(1L, UploadSession.STATUS_COMPLETING, UploadSession.STATUS_COMPLETED);
+        inOrder.verify(mockFileRepository).save(any(File.class));
+        assertThat(session.getStatus()).isEqualTo(UploadSession.STATUS_COMPLETED);
+        assertThat(committed.getS3Key()).isEqualTo(S3_KEY);
+    }
+
+    @Test
+    public void testCommitSession_RetryAfterMetadataFailure() {
+
+        // Arrange - the first metadata save fails after S3 completed the upload,
+        // so on the retry S3 no longer knows the upload id
+        UploadSession session = session(UploadSession.STATUS_ACTIVE);
+        stubFullyUploaded(session);
+        doThrow(new RuntimeException("Connection reset")).doNothing()
+            .when(mockStorageStatsService).recordAdded(anyList());
+        doNothing()
+            .doThrow(NoSuchUploadException.builder().message("The specified upload does not exist").build())
+            .when(mockS3Service).completeMultipartUpload(eq(S3_KEY), eq("upload-1"), anyList());
+        when(mockS3Service.getObjectMetadata(S3_KEY)).thenReturn(HeadObjectResponse.builder().contentLength(1024L).build());
+
+        assertThatThrownBy(() -> uploadSessionService.commitSession(1L)).hasMessage("Connection reset");
+        assertThat(session.getStatus()).isEqualTo(UploadSession.STATUS_COMPLETING);
+
+        // Act
+        File committed = uploadSessionService.commitSession(1L);
+
+        // Assert - the retry finds the object in place and saves the metadata
+        assertThat(committed.getId()).isEqualTo(5L);
+        assertThat(session.getStatus()).isEqualTo(UploadSession.STATUS_COMPLETED);
+        assertThat(session.getFile()).isSameAs(committed);
+        verify(mockS3Service, times(2)).completeMultipartUpload(eq(S3_KEY), eq("upload-1"), anyList());
+        verify(mockSessionRepository, times(1)).updateStatus(1L, UploadSession.STATUS_ACTIVE, UploadSession.STATUS_COMPLETING);
+    }
+
+    @Test
+    public void testCommitSession_RetryWithObjectMissing() {
+
+        // Arrange - S3 forgot the upload id and there is no object either (e.g. aborted)
+        UploadSession session = session(UploadSession.STATUS_COMPLETING);
+        when(mockSessionRepository.findById(1L)).thenReturn(Optional.of(session));
+        when(mockPartRepository.findBySession_IdOrderByPartNumberAsc(1L))
+            .thenReturn(List.of(new UploadPart(session, 1, 1024L, "etag-1")));
+        doThrow(NoSuchUploadException.builder().message("The specified upload does not exist").build())
+            .when(mockS3Service).completeMultipartUpload(eq(S3_KEY), eq("upload-1"), anyList());
+        when(mockS3Service.getObjectMetadata(S3_KEY)).thenThrow(new RuntimeException("File not found in S3: " + S3_KEY));
+
+        // Act & Assert
+        assertThatThrownBy(() -> uploadSessionService.commitSession(1L))
+            .isInstanceOf(RuntimeException.class)
+            .hasMessageContaining("can no longer be completed");
+        verify(mockFileRepository, never()).save(any(File.class));
+        assertThat(session.getStatus()).isEqualTo(UploadSession.STATUS_COMPLETING);
+    }
+
+    @Test
+    public void testCommitSession_AlreadyCompleted() {
+
+        // Arrange
+        UploadSession session = session(UploadSession.STATUS_COMPLETED);
+        when(mockSessionRepository.findById(1L)).thenReturn(Optional.of(session));
+
+        // Act & Assert
+        assertThatThrownBy(() -> uploadSessionService.commitSession(1L))
+            .isInstanceOf(RuntimeException.class)
+            .hasMessage("Upload session 1 is already completed");
+        verify(mockS3Service, never()).completeMultipartUpload(anyString(), anyString(), anyList());
+    }
+
+    @Test
+    public void testAbortExpiredSessions() {
+
+        // Arrange - one abandoned upload and one commit that was never retried
+        UploadSession abandoned = session(UploadSession.STATUS_ACTIVE);
+        UploadSession stranded = session(UploadSession.STATUS_COMPLETING);
+        stranded.setId(2L);
+        stranded.setS3Key("files/def-video.mp4");
+        stranded.setUploadId("upload-2");
+        when(mockSessionRepository.findByStatusAndUpdatedAtBefore(eq(UploadSession.STATUS_ACTIVE), any(LocalDateTime.class)))
+            .thenReturn(List.of(abandoned));
+        when(mockSessionRepository.findByStatusAndUpdatedAtBefore(eq(UploadSession.STATUS_COMPLETING), any(LocalDateTime.class)))
+            .thenReturn(List.of(stranded));
+        stubTransactions();
+
+        // Act
+        uploadSessionService.abortExpiredSessions();
+
+        // Assert - both are aborted; only the stranded one may have a finished object to delete
+        verify(mockS3Service).abortMultipartUpload(S3_KEY, "upload-1");
+        verify(mockS3Service).abortMultipartUpload("files/def-video.mp4", "upload-2");
+        verify(mockSessionRepository).delete(abandoned);
+        verify(mockSessionRepository).delete(stranded);
+        verify(mockDeletionOutboxService).enqueue("files/def-video.mp4");
+        verify(mockDeletionOutboxService, never()).enqueue(S3_KEY);
+    }
+
+    @Test
+    public void testDeleteFile_CreatedByCommitSession() {
+
+        // Arrange - a fully uploaded one-part session, committed into file 5
+        UploadSession session = session(UploadSession.STATUS_ACTIVE);
+        stubFullyUploaded(session);
+        File committed = uploadSessionService.commitSession(1L);
+        assertThat(session.getFile()).isSameAs(committed);
+        when(mockFileRepository.findById(5L)).thenReturn(Optional.of(committed));
+
+        // Act
+        fileService.deleteFile(5L);
+
+        // Assert - the session's reference is cleared before the file row goes
+        InOrder inOrder = inOrder(mockSessionRepository, mockFileRepository);
+        inOrder.verify(mockSessionRepository).detachFile(5L);
+        inOrder.verify(mockFileRepository).delete(committed);
+        verify(mockDeletionOutboxService).enqueue(S3_KEY);
+    }
+
+    // helper method:
+    // Session 1 holding all of its parts, with the file save stubbed to assign id 5
+    private void stubFullyUploaded(UploadSession session) {
+        when(mockSessionRepository.findById(1L)).thenReturn(Optional.of(session));
+        when(mockPartRepository.findBySession_IdOrderByPartNumberAsc(1L))
+            .thenReturn(List.of(new UploadPart(session, 1, 1024L, "etag-1")));
+        when(mockSessionRepository.updateStatus(eq(1L), anyString(), anyString())).thenReturn(1);
+        stubTransactions();
+        when(mockUserRepository.findById(1L)).thenReturn(Optional.of(owner));
+        when(mockFileRepository.existsByFilenameAndOwner_Id(anyString(), eq(1L))).thenReturn(false);
+        when(mockFileRepository.save(any(File.class))).thenAnswer(invocation -> {
+            File saved = invocation.getArgument(0);
+            saved.setId(5L);
+            return saved;
+        });
+    }
+
+    // helper method:
+    // Runs transaction callbacks inline
+    private void stubTransactions() {
+        when(mockTransactionTemplate.execute(any())).thenAnswer(invocation ->
+            invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    // helper method:
+    private UploadSession session(String status) {
+        UploadSession session = new UploadSession();
+        session.setId(1L);
+        session.setFilename("report.pdf");
+        session.setFileSize(1024L);
+        session.setMimeType("application/pdf");
+        session.setPartSize(1024L);
+        session.setS3Key(S3_KEY);
+        session.setUploadId("upload-1");
+        session.setStatus(status);
+        session.setOwner(owner);
+        return session;
+    }
+
+}
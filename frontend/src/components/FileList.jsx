@@ -6,22 +6,28 @@ import DeleteModal from './Delete'
 import PreviewModal from './Preview'
 
 // Shared component for displaying filtered file lists across different category pages
-// Accepts filter function to show specific file types (images, videos, etc.) or all files
+// category (documents, images, videos, audio) is filtered by the backend; null shows all files
+// Files are loaded a page at a time (newest first) with a "Load more" button
+// prefetchViewUrls: load view URLs for each loaded page in one request (gallery pages)
 function FileList({ 
   title, 
   icon, 
-  mimeTypeFilter, 
+  category, 
   emptyStateMessage, 
-  emptyStateSubtext 
+  emptyStateSubtext,
+  prefetchViewUrls = false
 }) {
   const [userEmail, setUserEmail] = useState('')
   const [username, setUsername] = useState('')
   const [userId, setUserId] = useState(null)
   const [files, setFiles] = useState([])
+  const [nextCursor, setNextCursor] = useState(null)  // cursor of the next page, null when all are loaded
+  const [loadingMore, setLoadingMore] = useState(false)
   const [showDropdown, setShowDropdown] = useState(null)
   const [selectedFile, setSelectedFile] = useState(null)
   const [modalType, setModalType] = useState(null)  // 'rename' or 'delete'
   const [previewFile, setPreviewFile] = useState(null)
+  const [viewUrls, setViewUrls] = useState({})  // fileId -> { url, loadedAt }
   
   const navigate = useNavigate()
 
@@ -69,24 +75,63 @@ function FileList({
     checkAuth()
   }, [navigate])
 
-  // Fetch and filter files based on the MIME type filter passed from parent
+  // Fetch one page of the user's files; cursor = null for the first page
+  // Returns the page's files and the cursor of the following page
+  const fetchPage = async (cursor) => {
+    const token = localStorage.getItem('authToken')
+    const params = new URLSearchParams({ sort: 'created', order: 'desc', limit: '100' })
+    if (category) params.set('category', category)  // only this category's files are sent
+    if (cursor) params.set('cursor', cursor)
+
+    const response = await fetch(`http://localhost:8080/api/files/owner/${userId}/page?${params}`, {
+      headers: { 'Authorization': `Bearer ${token}` }
+    })
+    if (!response.ok) return null
+
+    const page = await response.json()
+    return { pageFiles: page.items, nextCursor: page.nextCursor }
+  }
+
+  // Fetch view URLs for a page of files in one round trip
+  const fetchViewUrls = async (pageFiles) => {
+    if (!prefetchViewUrls || pageFiles.length === 0) return
+
+    try {
+      const token = localStorage.getItem('authToken')
+      const response = await fetch('http://localhost:8080/api/files/view-urls', {
+        method: 'POST',
+        headers: {
+          'Authorization': `Bearer ${token}`,
+          'Content-Type': 'application/json'
+        },
+        body: JSON.stringify({ fileIds: pageFiles.map(f => f.id) })
+      })
+
+      if (response.ok) {
+        const urls = await response.json()
+        const loadedAt = Date.now()
+        setViewUrls(prev => {
+          const merged = { ...prev }
+          Object.entries(urls).forEach(([id, url]) => { merged[id] = { url, loadedAt } })
+          return merged
+        })
+      }
+    } catch (error) {
+      console.error('Error fetching view URLs:', error)
+    }
+  }
+
+  // Load the first page whenever the user or the category filter changes
   useEffect(() => {
     const fetchFiles = async () => {
       if (!userId) return
       
       try {
-        const token = localStorage.getItem('authToken')
-        const response = await fetch(`http://localhost:8080/api/files/owner/${userId}`, {
-          headers: { 'Authorization': `Bearer ${token}` }
-        })
-        
-        if (response.ok) {
-          const userFiles = await response.json()
-          // Apply category filter (e.g., only images, only videos, or all)
-          const filteredFiles = mimeTypeFilter 
-            ? userFiles.filter(mimeTypeFilter)
-            : userFiles
-          setFiles(filteredFiles)
+        const page = await fetchPage(null)
+        if (page) {
+          setFiles(page.pageFiles)
+          setNextCursor(page.nextCursor)
+          fetchViewUrls(page.pageFiles)
         }
       } catch (error) {
         console.error('Error fetching files:', error)
@@ -94,7 +139,25 @@ function FileList({
     }
   
     fetchFiles()
-  }, [userId, mimeTypeFilter])
+  }, [userId, category])
+
+  // Append the next page to the list
+  const loadMore = async () => {
+    if (!nextCursor || loadingMore) return
+
+    setLoadingMore(true)
+    try {
+      const page = await fetchPage(nextCursor)
+      if (page) {
+        setFiles(prev => [...prev, ...page.pageFiles])
+        setNextCursor(page.nextCursor)
+        fetchViewUrls(page.pageFiles)
+      }
+    } catch (error) {
+      console.error('Error fetching files:', error)
+    }
+    setLoadingMore(false)
+  }
 
   const handleLogout = () => {
     localStorage.removeItem('authToken')
@@ -157,7 +220,13 @@ function FileList({
   }
 
   // Get temporary view URL for file preview
+  // Prefetched URLs are used while they are fresh (they stay valid for at least 15 minutes)
   const handlePreview = async (file) => {
+    const prefetched = viewUrls[file.id]
+    if (prefetched && Date.now() - prefetched.loadedAt < 10 * 60 * 1000) {
+      return prefetched.url
+    }
+
     try {
       const token = localStorage.getItem('authToken')
       const response = await fetch(`http://localhost:8080/api/files/${file.id}/view`, {
@@ -174,7 +243,7 @@ function FileList({
     return null
   }
 
-  // Rename file name in backend and refresh file list
+  // Rename file name in backend and update it in the loaded list
   const confirmRename = async (fileId, newFilename) => {
     try {
       const token = localStorage.getItem('authToken')
@@ -188,15 +257,8 @@ function FileList({
       })
       
       if (response.ok) {
-        // Refresh file list with updated data
-        const userFiles = await fetch(`http://localhost:8080/api/files/owner/${userId}`, {
-          headers: { 'Authorization': `Bearer ${token}` }
-        }).then(res => res.json())
-        
-        const filteredFiles = mimeTypeFilter 
-          ? userFiles.filter(mimeTypeFilter)
-          : userFiles
-        setFiles(filteredFiles)
+        const updatedFile = await response.json()
+        setFiles(prev => prev.map(f => f.id === fileId ? { ...f, filename: updatedFile.filename } : f))
       }
     } catch (error) {
       console.error('Rename error:', error)
@@ -213,7 +275,7 @@ function FileList({
       })
       
       if (response.ok) {
-        setFiles(files.filter(f => f.id !== fileId))
+        setFiles(prev => prev.filter(f => f.id !== fileId))
       }
     } catch (error) {
       console.error('Delete error:', error)
@@ -224,12 +286,14 @@ function FileList({
     return file.mimeType.split('/')[1]?.toUpperCase() || 'FILE'
   }
 
+  // "+" while more pages can still be loaded
   const getFileCountLabel = () => {
-    if (title === 'Images') return `${files.length} photos`
-    if (title === 'Videos') return `${files.length} videos`
-    if (title === 'Audio') return `${files.length} tracks`
-    if (title === 'Documents') return `${files.length} files`
-    return `${files.length} files`
+    const count = `${files.length}${nextCursor ? '+' : ''}`
+    if (title === 'Images') return `${count} photos`
+    if (title === 'Videos') return `${count} videos`
+    if (title === 'Audio') return `${count} tracks`
+    if (title === 'Documents') return `${count} files`
+    return `${count} files`
   }
 
   return (
@@ -255,7 +319,7 @@ function FileList({
 
             {/* Files List or empty state */}
             <div className="bg-black backdrop-blur-md rounded-2xl border border-white/20 shadow-xl">
-              {files.length === 0 ? (
+              {files.length === 0 && !nextCursor ? (
                 <div className="p-12 text-center">
                   <div className="w-16 h-16 bg-white/20 rounded-full flex items-center justify-center mx-auto mb-4">
                     {icon}
@@ -341,6 +405,17 @@ function FileList({
                       </div>
                     </div>
                   ))}
+                  {nextCursor && (
+                    <div className="p-4 text-center">
+                      <button
+                        onClick={loadMore}
+                        disabled={loadingMore}
+                        className="px-4 py-2 text-white/80 hover:text-white hover:bg-white/10 rounded-lg disabled:opacity-50"
+                      >
+                        {loadingMore ? 'Loading...' : 'Load more'}
+                      </button>
+                    </div>
+                  )}
                 </div>
               )}
             </div>
@@ -10,7 +10,7 @@ function AllFiles() {
           <path strokeLinecap="round" strokeLinejoin="round" strokeWidth="2" d="M19 11H5m14 0a2 2 0 012 2v6a2 2 0 01-2 2H5a2 2 0 01-2-2v-6a2 2 0 012-2m14 0V9a2 2 0 00-2-2M5 11V9a2 2 0 012-2m0 0V5a2 2 0 012-2h6a2 2 0 012 2v2M7 7h10" />
         </svg>
       }
-      mimeTypeFilter={null} // No filter - show all files
+      category={null} // No filter - show all files
       emptyStateMessage="No files found"
       emptyStateSubtext="Upload some files to get started"
     />
@@ -10,7 +10,7 @@ function Audio() {
           <path strokeLinecap="round" strokeLinejoin="round" strokeWidth="2" d="M9 19V6l12-3v13M9 19c0 1.105-1.343 2-3 2s-3-.895-3-2 1.343-2 3-2 3 .895 3 2zm12-3c0 1.105-1.343 2-3 2s-3-.895-3-2 1.343-2 3-2 3 .895 3 2zM9 10l12-3" />
         </svg>
       }
-      mimeTypeFilter={(file) => file.mimeType.startsWith('audio/')}
+      category="audio"
       emptyStateMessage="No audio files found"
       emptyStateSubtext="Upload some MP3, WAV, or M4A files to get started"
     />
@@ -10,7 +10,7 @@ function DashboardPage() {
   const [loading, setLoading] = useState(true)
   const [uploading, setUploading] = useState(false)
   const [uploadMessage, setUploadMessage] = useState('')
-  const [files, setFiles] = useState([])       // All user's files from backend
+  const [stats, setStats] = useState(null)     // Per-category file counts and bytes from backend
   const fileInputRef = useRef(null)
   const navigate = useNavigate()
 
@@ -52,56 +52,37 @@ function DashboardPage() {
     checkAuth()
   }, [navigate])
 
-  // Fetch all files owned by this user
-  useEffect(() => {
-    const fetchFiles = async () => {
-      if (!userId) return
-      
-      try {
-        const token = localStorage.getItem('authToken')
-        const response = await fetch(`http://localhost:8080/api/files/owner/${userId}`, {
-          headers: { 'Authorization': `Bearer ${token}` }
-        })
-        
-        if (response.ok) {
-          const userFiles = await response.json()
-          setFiles(userFiles)
-        }
-      } catch (error) {
-        console.error('Error fetching files:', error)
-      }
-    }
-  
-    fetchFiles()
-  }, [userId])
-
-  // Refresh file list after upload
-  const refreshFiles = async () => {
+  // Fetch per-category file counts (kept up to date by the backend, no file listing needed)
+  const fetchStats = async () => {
     if (!userId) return
-    
+
     try {
       const token = localStorage.getItem('authToken')
-      const response = await fetch(`http://localhost:8080/api/files/owner/${userId}`, {
+      const response = await fetch(`http://localhost:8080/api/files/owner/${userId}/stats`, {
         headers: { 'Authorization': `Bearer ${token}` }
       })
-      
+
       if (response.ok) {
-        const userFiles = await response.json()
-        setFiles(userFiles)
+        setStats(await response.json())
       }
     } catch (error) {
-      console.error('Error fetching files:', error)
+      console.error('Error fetching storage stats:', error)
     }
   }
 
-  // Calculate file counts by category based on MIME types
+  useEffect(() => {
+    fetchStats()
+  }, [userId])
+
+  // File counts by category from the storage stats
   const getFileCounts = () => {
-    const documents = files.filter(f => f.mimeType.startsWith('application/') || f.mimeType.startsWith('text/')).length
-    const images = files.filter(f => f.mimeType.startsWith('image/')).length  
-    const videos = files.filter(f => f.mimeType.startsWith('video/')).length
-    const audio = files.filter(f => f.mimeType.startsWith('audio/')).length
-    
-    return { documents, images, videos, audio }
+    const count = (category) => stats?.categories?.[category]?.fileCount ?? 0
+    return {
+      documents: count('documents'),
+      images: count('images'),
+      videos: count('videos'),
+      audio: count('audio')
+    }
   }
 
   const handleLogout = () => {
@@ -121,27 +102,34 @@ function DashboardPage() {
     try {
       const token = localStorage.getItem('authToken')
       
-      // Upload each file individually with owner ID
+      // Upload all files in one batch request with owner ID
+      const formData = new FormData()
       for (const file of files) {
-        const formData = new FormData()
-        formData.append('file', file)
-        formData.append('ownerId', userId.toString())
-        
-        const response = await fetch('http://localhost:8080/api/files/upload', {
-          method: 'POST',
-          headers: {
-            'Authorization': `Bearer ${token}`
-          },
-          body: formData
-        })
+        formData.append('files', file)
+      }
+      formData.append('ownerId', userId.toString())
+
+      const response = await fetch('http://localhost:8080/api/files/upload/batch', {
+        method: 'POST',
+        headers: {
+          'Authorization': `Bearer ${token}`
+        },
+        body: formData
+      })
 
-        if (!response.ok) {
-          throw new Error(`Failed to upload ${file.name}`)
-        }
+      if (!response.ok) {
+        throw new Error('Batch upload failed')
+      }
+
+      // Backend reports success or failure per file
+      const results = await response.json()
+      const failed = results.filter(result => !result.success)
+      if (failed.length > 0) {
+        throw new Error(`Failed to upload ${failed.map(result => result.filename).join(', ')}`)
       }
 
       setUploadMessage(`Successfully uploaded ${files.length} file(s)!`)
-      refreshFiles() // Refresh file counts
+      fetchStats() // Refresh file counts
       
       // Clear message after 3 seconds
       setTimeout(() => setUploadMessage(''), 3000)